@@ -0,0 +1,22 @@
+package webcam.config;
+
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import webcam.util.AbortHandle;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+/**
+ * 支持中止的请求工厂
+ * 在AbortHandle.run()中发出的请求，其连接登记到该句柄，对冲中落后的请求可以被真正断开
+ *
+ * @author Webcam Application
+ */
+public class AbortableRequestFactory extends SimpleClientHttpRequestFactory {
+
+	@Override
+	protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+		super.prepareConnection(connection, httpMethod);
+		AbortHandle.register(connection);
+	}
+}
@@ -0,0 +1,144 @@
+package webcam.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import webcam.exception.ServiceOverloadedException;
+import webcam.service.MetricsSource;
+import webcam.util.AdmissionLimiter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 准入控制拦截器
+ * 对/webcam、/result、/api/cartoon的POST请求按类别限制并发数和等待队列，
+ * 超出限制的请求以429和Retry-After快速拒绝。
+ * 异步请求（如SSE）在异步处理结束后才归还许可
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@Component
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor, MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlInterceptor.class);
+
+    /**
+     * 记录已获得许可的请求属性名，异步重新分派时据此避免重复获取
+     */
+    private static final String PERMIT_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".permit";
+
+    private final AdmissionProperties admissionProperties;
+    private final Map<String, AdmissionLimiter> limiters = new LinkedHashMap<>();
+
+    @Autowired
+    public AdmissionControlInterceptor(AdmissionProperties admissionProperties) {
+        this.admissionProperties = admissionProperties;
+        limiters.put("webcam", newLimiter(admissionProperties.getWebcam()));
+        limiters.put("result", newLimiter(admissionProperties.getResult()));
+        limiters.put("cartoon", newLimiter(admissionProperties.getCartoon()));
+    }
+
+    private static AdmissionLimiter newLimiter(AdmissionProperties.Limit limit) {
+        return new AdmissionLimiter(limit.getMaxConcurrent(), limit.getMaxQueue());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (!admissionProperties.isEnabled() || request.getAttribute(PERMIT_ATTRIBUTE) != null
+                || !HttpMethod.POST.matches(request.getMethod())) {
+            return true;
+        }
+        String endpointClass = classify(request.getRequestURI().substring(request.getContextPath().length()));
+        if (endpointClass == null) {
+            return true;
+        }
+
+        AdmissionLimiter limiter = limiters.get(endpointClass);
+        AdmissionProperties.Limit limit = limitOf(endpointClass);
+        boolean admitted;
+        try {
+            admitted = limiter.tryAcquire(limit.getMaxWait());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            logger.warn("Admission rejected for {} (active={}, queued={})",
+                    endpointClass, limiter.getActive(), limiter.getQueueDepth());
+            throw new ServiceOverloadedException("接口繁忙: " + endpointClass, limit.getRetryAfterSeconds());
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, endpointClass);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        Object endpointClass = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (endpointClass != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            limiters.get(endpointClass).release();
+        }
+    }
+
+    /**
+     * 根据请求路径确定接口类别
+     *
+     * @return 类别名称；不受准入控制的路径返回null
+     */
+    static String classify(String path) {
+        if (path.equals("/webcam") || path.startsWith("/webcam/")) {
+            return "webcam";
+        }
+        if (path.equals("/result") || path.startsWith("/result/")) {
+            return "result";
+        }
+        if (path.startsWith("/api/cartoon/")) {
+            return "cartoon";
+        }
+        return null;
+    }
+
+    private AdmissionProperties.Limit limitOf(String endpointClass) {
+        switch (endpointClass) {
+            case "webcam":
+                return admissionProperties.getWebcam();
+            case "result":
+                return admissionProperties.getResult();
+            default:
+                return admissionProperties.getCartoon();
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "admission";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        limiters.forEach((endpointClass, limiter) -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("active", limiter.getActive());
+            values.put("queueDepth", limiter.getQueueDepth());
+            values.put("maxObservedQueueDepth", limiter.getMaxObservedQueue());
+            values.put("admitted", limiter.getAdmitted());
+            values.put("queued", limiter.getQueued());
+            values.put("rejectedQueueFull", limiter.getRejectedQueueFull());
+            values.put("rejectedTimeout", limiter.getRejectedTimeout());
+            values.put("maxConcurrent", limiter.getMaxConcurrent());
+            values.put("maxQueue", limiter.getMaxQueue());
+            metrics.put(endpointClass, values);
+        });
+        return metrics;
+    }
+}
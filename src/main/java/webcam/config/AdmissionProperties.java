@@ -0,0 +1,107 @@
+package webcam.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 准入控制配置属性类
+ * 按接口类别（/webcam、/result、/api/cartoon）分别限制并发数和等待队列长度
+ *
+ * @author Webcam Application
+ */
+@Component
+@ConfigurationProperties(prefix = "webcam.admission")
+public class AdmissionProperties {
+
+	private boolean enabled = true;
+	private Limit webcam = new Limit(16, 32, Duration.ofSeconds(5), 5);
+	private Limit result = new Limit(8, 16, Duration.ofSeconds(10), 10);
+	private Limit cartoon = new Limit(4, 8, Duration.ofSeconds(10), 15);
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Limit getWebcam() {
+		return webcam;
+	}
+
+	public void setWebcam(Limit webcam) {
+		this.webcam = webcam;
+	}
+
+	public Limit getResult() {
+		return result;
+	}
+
+	public void setResult(Limit result) {
+		this.result = result;
+	}
+
+	public Limit getCartoon() {
+		return cartoon;
+	}
+
+	public void setCartoon(Limit cartoon) {
+		this.cartoon = cartoon;
+	}
+
+	/**
+	 * 单个接口类别的准入限制
+	 */
+	public static class Limit {
+
+		private int maxConcurrent;
+		private int maxQueue;
+		private Duration maxWait;
+		private long retryAfterSeconds;
+
+		public Limit() {
+		}
+
+		public Limit(int maxConcurrent, int maxQueue, Duration maxWait, long retryAfterSeconds) {
+			this.maxConcurrent = maxConcurrent;
+			this.maxQueue = maxQueue;
+			this.maxWait = maxWait;
+			this.retryAfterSeconds = retryAfterSeconds;
+		}
+
+		public int getMaxConcurrent() {
+			return maxConcurrent;
+		}
+
+		public void setMaxConcurrent(int maxConcurrent) {
+			this.maxConcurrent = maxConcurrent;
+		}
+
+		public int getMaxQueue() {
+			return maxQueue;
+		}
+
+		public void setMaxQueue(int maxQueue) {
+			this.maxQueue = maxQueue;
+		}
+
+		public Duration getMaxWait() {
+			return maxWait;
+		}
+
+		public void setMaxWait(Duration maxWait) {
+			this.maxWait = maxWait;
+		}
+
+		public long getRetryAfterSeconds() {
+			return retryAfterSeconds;
+		}
+
+		public void setRetryAfterSeconds(long retryAfterSeconds) {
+			this.retryAfterSeconds = retryAfterSeconds;
+		}
+	}
+}
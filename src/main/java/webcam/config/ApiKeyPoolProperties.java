@@ -0,0 +1,89 @@
+package webcam.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * API Key池配置（嵌套在百炼和人物动漫化的配置中）
+ * 没有配置keys时只使用单个api-key，不限速也不限并发
+ *
+ * @author Webcam Application
+ */
+public class ApiKeyPoolProperties {
+
+	private List<Key> keys = new ArrayList<>();
+	// 返回429或配额错误的Key暂停使用的时间（响应带Retry-After时以其为准），最后一个未冷却的Key不暂停
+	private Duration cooldown = Duration.ofSeconds(30);
+	// 所有Key都没有余量时最多等待的时间
+	private Duration maxWait = Duration.ofSeconds(2);
+
+	public List<Key> getKeys() {
+		return keys;
+	}
+
+	public void setKeys(List<Key> keys) {
+		this.keys = keys;
+	}
+
+	public Duration getCooldown() {
+		return cooldown;
+	}
+
+	public void setCooldown(Duration cooldown) {
+		this.cooldown = cooldown;
+	}
+
+	public Duration getMaxWait() {
+		return maxWait;
+	}
+
+	public void setMaxWait(Duration maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	/**
+	 * 单个API Key及其限额
+	 */
+	public static class Key {
+
+		private String apiKey;
+		// 每秒请求数，0表示不限速
+		private double ratePerSecond = 0;
+		private int burst = 1;
+		// 同时进行的请求（动漫化为同时进行的任务）数，0表示不限制
+		private int maxConcurrent = 0;
+
+		public String getApiKey() {
+			return apiKey;
+		}
+
+		public void setApiKey(String apiKey) {
+			this.apiKey = apiKey;
+		}
+
+		public double getRatePerSecond() {
+			return ratePerSecond;
+		}
+
+		public void setRatePerSecond(double ratePerSecond) {
+			this.ratePerSecond = ratePerSecond;
+		}
+
+		public int getBurst() {
+			return burst;
+		}
+
+		public void setBurst(int burst) {
+			this.burst = burst;
+		}
+
+		public int getMaxConcurrent() {
+			return maxConcurrent;
+		}
+
+		public void setMaxConcurrent(int maxConcurrent) {
+			this.maxConcurrent = maxConcurrent;
+		}
+	}
+}
@@ -3,6 +3,10 @@ package webcam.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 阿里云百炼API配置属性类
  * 
@@ -18,6 +22,12 @@ public class BailianApiProperties {
 	private Double temperature = 0.7;
 	private Integer maxTokens = 2000;
 	private Integer maxHealthAnalysisLength = 600;
+	private TwoPhase twoPhase = new TwoPhase();
+	private Batch batch = new Batch();
+	private List<Target> targets = new ArrayList<>();
+	private Routing routing = new Routing();
+	// apiKey的Key池；未单独配置apiKey的候选模型共用
+	private ApiKeyPoolProperties keyPool = new ApiKeyPoolProperties();
 
 	public String getEndpoint() {
 		return endpoint;
@@ -66,5 +76,199 @@ public class BailianApiProperties {
 	public void setMaxHealthAnalysisLength(Integer maxHealthAnalysisLength) {
 		this.maxHealthAnalysisLength = maxHealthAnalysisLength;
 	}
-}
 
+	public TwoPhase getTwoPhase() {
+		return twoPhase;
+	}
+
+	public void setTwoPhase(TwoPhase twoPhase) {
+		this.twoPhase = twoPhase;
+	}
+
+	public Batch getBatch() {
+		return batch;
+	}
+
+	public void setBatch(Batch batch) {
+		this.batch = batch;
+	}
+
+	public List<Target> getTargets() {
+		return targets;
+	}
+
+	public void setTargets(List<Target> targets) {
+		this.targets = targets;
+	}
+
+	public Routing getRouting() {
+		return routing;
+	}
+
+	public void setRouting(Routing routing) {
+		this.routing = routing;
+	}
+
+	public ApiKeyPoolProperties getKeyPool() {
+		return keyPool;
+	}
+
+	public void setKeyPool(ApiKeyPoolProperties keyPool) {
+		this.keyPool = keyPool;
+	}
+
+	/**
+	 * 两阶段分析：人脸属性和健康分析、夸奖内容分两次并发调用
+	 */
+	public static class TwoPhase {
+
+		private boolean enabled = false;
+		private Integer attributeMaxTokens = 300;
+		private Duration narrativeTtl = Duration.ofMinutes(5);
+		private int maxPendingNarratives = 1024;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Integer getAttributeMaxTokens() {
+			return attributeMaxTokens;
+		}
+
+		public void setAttributeMaxTokens(Integer attributeMaxTokens) {
+			this.attributeMaxTokens = attributeMaxTokens;
+		}
+
+		public Duration getNarrativeTtl() {
+			return narrativeTtl;
+		}
+
+		public void setNarrativeTtl(Duration narrativeTtl) {
+			this.narrativeTtl = narrativeTtl;
+		}
+
+		public int getMaxPendingNarratives() {
+			return maxPendingNarratives;
+		}
+
+		public void setMaxPendingNarratives(int maxPendingNarratives) {
+			this.maxPendingNarratives = maxPendingNarratives;
+		}
+	}
+
+	/**
+	 * 微批处理：已有调用在进行时，短时间内到达的多张照片合并为一次多图调用
+	 */
+	public static class Batch {
+
+		private boolean enabled = false;
+		private int maxBatchSize = 4;
+		private Duration maxWait = Duration.ofMillis(20);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaxBatchSize() {
+			return maxBatchSize;
+		}
+
+		public void setMaxBatchSize(int maxBatchSize) {
+			this.maxBatchSize = maxBatchSize;
+		}
+
+		public Duration getMaxWait() {
+			return maxWait;
+		}
+
+		public void setMaxWait(Duration maxWait) {
+			this.maxWait = maxWait;
+		}
+	}
+
+	/**
+	 * 人脸分析的候选模型和接入点；为空时只使用endpoint、model和apiKey
+	 */
+	public static class Target {
+
+		private String endpoint;
+		private String model;
+		// 为空时使用bailian.api.api-key
+		private String apiKey;
+		private double weight = 1.0;
+
+		public String getEndpoint() {
+			return endpoint;
+		}
+
+		public void setEndpoint(String endpoint) {
+			this.endpoint = endpoint;
+		}
+
+		public String getModel() {
+			return model;
+		}
+
+		public void setModel(String model) {
+			this.model = model;
+		}
+
+		public String getApiKey() {
+			return apiKey;
+		}
+
+		public void setApiKey(String apiKey) {
+			this.apiKey = apiKey;
+		}
+
+		public double getWeight() {
+			return weight;
+		}
+
+		public void setWeight(double weight) {
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * 多个候选模型之间按最近延迟（Peak EWMA）选择
+	 */
+	public static class Routing {
+
+		private double explorationRatio = 0.05;
+		private Duration decay = Duration.ofSeconds(10);
+		private Duration failurePenalty = Duration.ofSeconds(30);
+
+		public double getExplorationRatio() {
+			return explorationRatio;
+		}
+
+		public void setExplorationRatio(double explorationRatio) {
+			this.explorationRatio = explorationRatio;
+		}
+
+		public Duration getDecay() {
+			return decay;
+		}
+
+		public void setDecay(Duration decay) {
+			this.decay = decay;
+		}
+
+		public Duration getFailurePenalty() {
+			return failurePenalty;
+		}
+
+		public void setFailurePenalty(Duration failurePenalty) {
+			this.failurePenalty = failurePenalty;
+		}
+	}
+}
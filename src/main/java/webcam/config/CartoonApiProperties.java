@@ -3,6 +3,8 @@ package webcam.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 /**
  * 阿里云人物动漫化API配置属性类
  * 
@@ -13,9 +15,14 @@ import org.springframework.stereotype.Component;
 public class CartoonApiProperties {
 	
 	private String endpoint = "https://dashscope.aliyuncs.com/api/v1/services/aigc/image-generation/generation";
+	// 异步任务查询地址，后接task_id
+	private String taskEndpoint = "https://dashscope.aliyuncs.com/api/v1/tasks/";
 	private String apiKey;
 	private String model = "wanx-style-repaint-v1";
 	private Integer styleIndex = 3;
+	// apiKey的Key池，每个Key的maxConcurrent为同时进行的任务数
+	private ApiKeyPoolProperties keyPool = new ApiKeyPoolProperties();
+	private Jobs jobs = new Jobs();
 
 	public String getEndpoint() {
 		return endpoint;
@@ -25,6 +32,14 @@ public class CartoonApiProperties {
 		this.endpoint = endpoint;
 	}
 
+	public String getTaskEndpoint() {
+		return taskEndpoint;
+	}
+
+	public void setTaskEndpoint(String taskEndpoint) {
+		this.taskEndpoint = taskEndpoint;
+	}
+
 	public String getApiKey() {
 		return apiKey;
 	}
@@ -48,5 +63,95 @@ public class CartoonApiProperties {
 	public void setStyleIndex(Integer styleIndex) {
 		this.styleIndex = styleIndex;
 	}
-}
 
+	public ApiKeyPoolProperties getKeyPool() {
+		return keyPool;
+	}
+
+	public void setKeyPool(ApiKeyPoolProperties keyPool) {
+		this.keyPool = keyPool;
+	}
+
+	public Jobs getJobs() {
+		return jobs;
+	}
+
+	public void setJobs(Jobs jobs) {
+		this.jobs = jobs;
+	}
+
+	/**
+	 * 动漫化任务引擎：提交后的任务由共用的调度线程按完成时间分布自适应安排轮询
+	 */
+	public static class Jobs {
+
+		// 安排任务状态查询的调度线程数（只负责计时，查询请求在单独的执行器上发出）
+		private int pollerThreads = 2;
+		// 完成时间样本不足时的轮询间隔
+		private Duration initialPollInterval = Duration.ofSeconds(2);
+		private Duration minPollInterval = Duration.ofMillis(500);
+		private Duration maxPollInterval = Duration.ofSeconds(10);
+		// 任务从提交起的最长时间，超过后按超时失败
+		private Duration timeout = Duration.ofSeconds(60);
+		// 同时进行的任务数上限
+		private int maxJobs = 10000;
+		// 任务结束后保留结果供查询的时间
+		private Duration resultTtl = Duration.ofMinutes(10);
+
+		public int getPollerThreads() {
+			return pollerThreads;
+		}
+
+		public void setPollerThreads(int pollerThreads) {
+			this.pollerThreads = pollerThreads;
+		}
+
+		public Duration getInitialPollInterval() {
+			return initialPollInterval;
+		}
+
+		public void setInitialPollInterval(Duration initialPollInterval) {
+			this.initialPollInterval = initialPollInterval;
+		}
+
+		public Duration getMinPollInterval() {
+			return minPollInterval;
+		}
+
+		public void setMinPollInterval(Duration minPollInterval) {
+			this.minPollInterval = minPollInterval;
+		}
+
+		public Duration getMaxPollInterval() {
+			return maxPollInterval;
+		}
+
+		public void setMaxPollInterval(Duration maxPollInterval) {
+			this.maxPollInterval = maxPollInterval;
+		}
+
+		public Duration getTimeout() {
+			return timeout;
+		}
+
+		public void setTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+
+		public int getMaxJobs() {
+			return maxJobs;
+		}
+
+		public void setMaxJobs(int maxJobs) {
+			this.maxJobs = maxJobs;
+		}
+
+		public Duration getResultTtl() {
+			return resultTtl;
+		}
+
+		public void setResultTtl(Duration resultTtl) {
+			this.resultTtl = resultTtl;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package webcam.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 人脸预筛配置属性类
+ * 调用视觉模型之前在本地排除全黑、过曝、模糊或没有人脸的画面
+ *
+ * @author Webcam Application
+ */
+@Component
+@ConfigurationProperties(prefix = "webcam.prescreen")
+public class FacePreScreenProperties {
+
+	private boolean enabled = false;
+	private double minConfidence = 0.25;
+	private int analysisEdge = 128;
+	private double minBrightness = 35;
+	private double maxBrightness = 230;
+	private double minSharpness = 40;
+	private double minFaceArea = 0.03;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public double getMinConfidence() {
+		return minConfidence;
+	}
+
+	public void setMinConfidence(double minConfidence) {
+		this.minConfidence = minConfidence;
+	}
+
+	public int getAnalysisEdge() {
+		return analysisEdge;
+	}
+
+	public void setAnalysisEdge(int analysisEdge) {
+		this.analysisEdge = analysisEdge;
+	}
+
+	public double getMinBrightness() {
+		return minBrightness;
+	}
+
+	public void setMinBrightness(double minBrightness) {
+		this.minBrightness = minBrightness;
+	}
+
+	public double getMaxBrightness() {
+		return maxBrightness;
+	}
+
+	public void setMaxBrightness(double maxBrightness) {
+		this.maxBrightness = maxBrightness;
+	}
+
+	public double getMinSharpness() {
+		return minSharpness;
+	}
+
+	public void setMinSharpness(double minSharpness) {
+		this.minSharpness = minSharpness;
+	}
+
+	public double getMinFaceArea() {
+		return minFaceArea;
+	}
+
+	public void setMinFaceArea(double minFaceArea) {
+		this.minFaceArea = minFaceArea;
+	}
+}
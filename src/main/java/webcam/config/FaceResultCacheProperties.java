@@ -0,0 +1,66 @@
+package webcam.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 人脸分析结果缓存配置属性类
+ *
+ * @author Webcam Application
+ */
+@Component
+@ConfigurationProperties(prefix = "webcam.face-cache")
+public class FaceResultCacheProperties {
+
+	/**
+	 * 默认关闭：同一拍照点的固定背景在9x8缩略图中占主导，
+	 * 距离放宽或有效期过长时下一位访客可能命中上一位访客的分析结果
+	 */
+	private boolean enabled = false;
+	private int maxEntries = 512;
+	private int maxHammingDistance = 2;
+	private Duration ttl = Duration.ofMinutes(1);
+	private Duration negativeTtl = Duration.ofMinutes(1);
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	public int getMaxHammingDistance() {
+		return maxHammingDistance;
+	}
+
+	public void setMaxHammingDistance(int maxHammingDistance) {
+		this.maxHammingDistance = maxHammingDistance;
+	}
+
+	public Duration getTtl() {
+		return ttl;
+	}
+
+	public void setTtl(Duration ttl) {
+		this.ttl = ttl;
+	}
+
+	public Duration getNegativeTtl() {
+		return negativeTtl;
+	}
+
+	public void setNegativeTtl(Duration negativeTtl) {
+		this.negativeTtl = negativeTtl;
+	}
+}
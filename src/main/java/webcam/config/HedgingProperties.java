@@ -0,0 +1,81 @@
+package webcam.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 百炼API请求对冲配置属性类
+ *
+ * @author Webcam Application
+ */
+@Component
+@ConfigurationProperties(prefix = "bailian.hedge")
+public class HedgingProperties {
+
+	private boolean enabled = false;
+	private double percentile = 95.0;
+	private int windowSize = 200;
+	private int minSamples = 20;
+	private Duration minDelay = Duration.ofMillis(500);
+	private int maxHedgesPerMinute = 30;
+	// 同时进行的备份请求数上限，达到上限时不再对冲
+	private int maxInFlight = 16;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public double getPercentile() {
+		return percentile;
+	}
+
+	public void setPercentile(double percentile) {
+		this.percentile = percentile;
+	}
+
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	public void setWindowSize(int windowSize) {
+		this.windowSize = windowSize;
+	}
+
+	public int getMinSamples() {
+		return minSamples;
+	}
+
+	public void setMinSamples(int minSamples) {
+		this.minSamples = minSamples;
+	}
+
+	public Duration getMinDelay() {
+		return minDelay;
+	}
+
+	public void setMinDelay(Duration minDelay) {
+		this.minDelay = minDelay;
+	}
+
+	public int getMaxHedgesPerMinute() {
+		return maxHedgesPerMinute;
+	}
+
+	public void setMaxHedgesPerMinute(int maxHedgesPerMinute) {
+		this.maxHedgesPerMinute = maxHedgesPerMinute;
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	public void setMaxInFlight(int maxInFlight) {
+		this.maxInFlight = maxInFlight;
+	}
+}
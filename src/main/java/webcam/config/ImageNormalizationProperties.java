@@ -0,0 +1,76 @@
+package webcam.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 图像规范化配置属性类
+ * 人脸分析（视觉模型）和人物动漫化（风格重绘模型）分别使用独立的尺寸和质量配置
+ *
+ * @author Webcam Application
+ */
+@Component
+@ConfigurationProperties(prefix = "webcam.normalize")
+public class ImageNormalizationProperties {
+
+	private boolean enabled = true;
+	private Profile face = new Profile(1024, 0.85f);
+	private Profile cartoon = new Profile(2048, 0.92f);
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Profile getFace() {
+		return face;
+	}
+
+	public void setFace(Profile face) {
+		this.face = face;
+	}
+
+	public Profile getCartoon() {
+		return cartoon;
+	}
+
+	public void setCartoon(Profile cartoon) {
+		this.cartoon = cartoon;
+	}
+
+	/**
+	 * 单个模型的规范化参数
+	 */
+	public static class Profile {
+
+		private int maxLongEdge;
+		private float jpegQuality;
+
+		public Profile() {
+		}
+
+		public Profile(int maxLongEdge, float jpegQuality) {
+			this.maxLongEdge = maxLongEdge;
+			this.jpegQuality = jpegQuality;
+		}
+
+		public int getMaxLongEdge() {
+			return maxLongEdge;
+		}
+
+		public void setMaxLongEdge(int maxLongEdge) {
+			this.maxLongEdge = maxLongEdge;
+		}
+
+		public float getJpegQuality() {
+			return jpegQuality;
+		}
+
+		public void setJpegQuality(float jpegQuality) {
+			this.jpegQuality = jpegQuality;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package webcam.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 百炼API客户端限速配置属性类
+ * 按账号配额为人脸分析和人物动漫化各设一个令牌桶，并对429和5xx响应退避重试
+ *
+ * @author Webcam Application
+ */
+@Component
+@ConfigurationProperties(prefix = "webcam.rate-limit")
+public class RateLimitProperties {
+
+	private boolean enabled = true;
+	// 排队等待令牌的最长时间，超过时立即返回503
+	private Duration maxWait = Duration.ofSeconds(5);
+	private Quotas quotas = new Quotas();
+	private Retry retry = new Retry();
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getMaxWait() {
+		return maxWait;
+	}
+
+	public void setMaxWait(Duration maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	public Quotas getQuotas() {
+		return quotas;
+	}
+
+	public void setQuotas(Quotas quotas) {
+		this.quotas = quotas;
+	}
+
+	public Retry getRetry() {
+		return retry;
+	}
+
+	public void setRetry(Retry retry) {
+		this.retry = retry;
+	}
+
+	/**
+	 * 各类调用的账号配额
+	 */
+	public static class Quotas {
+
+		private Quota face = new Quota();
+		private Quota cartoon = new Quota();
+
+		public Quota getFace() {
+			return face;
+		}
+
+		public void setFace(Quota face) {
+			this.face = face;
+		}
+
+		public Quota getCartoon() {
+			return cartoon;
+		}
+
+		public void setCartoon(Quota cartoon) {
+			this.cartoon = cartoon;
+		}
+	}
+
+	/**
+	 * 一类调用的配额
+	 */
+	public static class Quota {
+
+		// 每分钟请求数（RPM），0表示不限速
+		private double requestsPerMinute = 0;
+		// 空闲后允许的突发请求数
+		private int burst = 5;
+
+		public double getRequestsPerMinute() {
+			return requestsPerMinute;
+		}
+
+		public void setRequestsPerMinute(double requestsPerMinute) {
+			this.requestsPerMinute = requestsPerMinute;
+		}
+
+		public int getBurst() {
+			return burst;
+		}
+
+		public void setBurst(int burst) {
+			this.burst = burst;
+		}
+	}
+
+	/**
+	 * 429和5xx响应的重试
+	 */
+	public static class Retry {
+
+		// 包括第一次在内的最多尝试次数
+		private int maxAttempts = 3;
+		private Duration initialBackoff = Duration.ofMillis(500);
+		private Duration maxBackoff = Duration.ofSeconds(5);
+		// Retry-After超过该值时不再等待，直接返回503和Retry-After
+		private Duration maxRetryAfter = Duration.ofSeconds(10);
+
+		public int getMaxAttempts() {
+			return maxAttempts;
+		}
+
+		public void setMaxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+		}
+
+		public Duration getInitialBackoff() {
+			return initialBackoff;
+		}
+
+		public void setInitialBackoff(Duration initialBackoff) {
+			this.initialBackoff = initialBackoff;
+		}
+
+		public Duration getMaxBackoff() {
+			return maxBackoff;
+		}
+
+		public void setMaxBackoff(Duration maxBackoff) {
+			this.maxBackoff = maxBackoff;
+		}
+
+		public Duration getMaxRetryAfter() {
+			return maxRetryAfter;
+		}
+
+		public void setMaxRetryAfter(Duration maxRetryAfter) {
+			this.maxRetryAfter = maxRetryAfter;
+		}
+	}
+}
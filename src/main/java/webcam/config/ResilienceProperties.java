@@ -0,0 +1,207 @@
+package webcam.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 外部依赖容错配置属性类
+ * 每个外部依赖（百炼API、OSS结果图片、R2）一个熔断器；每类调用（人脸分析、动漫化、结果下载、R2上传）一个舱壁
+ *
+ * @author Webcam Application
+ */
+@Component
+@ConfigurationProperties(prefix = "webcam.resilience")
+public class ResilienceProperties {
+
+	private boolean enabled = true;
+	private Breakers breakers = new Breakers();
+	private Bulkheads bulkheads = new Bulkheads();
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Breakers getBreakers() {
+		return breakers;
+	}
+
+	public void setBreakers(Breakers breakers) {
+		this.breakers = breakers;
+	}
+
+	public Bulkheads getBulkheads() {
+		return bulkheads;
+	}
+
+	public void setBulkheads(Bulkheads bulkheads) {
+		this.bulkheads = bulkheads;
+	}
+
+	/**
+	 * 各外部依赖的熔断器
+	 */
+	public static class Breakers {
+
+		private Breaker dashscope = new Breaker(5, Duration.ofSeconds(30));
+		private Breaker oss = new Breaker(3, Duration.ofSeconds(30));
+		private Breaker r2 = new Breaker(3, Duration.ofSeconds(60));
+
+		public Breaker getDashscope() {
+			return dashscope;
+		}
+
+		public void setDashscope(Breaker dashscope) {
+			this.dashscope = dashscope;
+		}
+
+		public Breaker getOss() {
+			return oss;
+		}
+
+		public void setOss(Breaker oss) {
+			this.oss = oss;
+		}
+
+		public Breaker getR2() {
+			return r2;
+		}
+
+		public void setR2(Breaker r2) {
+			this.r2 = r2;
+		}
+	}
+
+	/**
+	 * 单个依赖的熔断参数
+	 */
+	public static class Breaker {
+
+		private int failureThreshold;
+		private Duration openDuration;
+		private int halfOpenProbes = 1;
+
+		public Breaker() {
+		}
+
+		public Breaker(int failureThreshold, Duration openDuration) {
+			this.failureThreshold = failureThreshold;
+			this.openDuration = openDuration;
+		}
+
+		public int getFailureThreshold() {
+			return failureThreshold;
+		}
+
+		public void setFailureThreshold(int failureThreshold) {
+			this.failureThreshold = failureThreshold;
+		}
+
+		public Duration getOpenDuration() {
+			return openDuration;
+		}
+
+		public void setOpenDuration(Duration openDuration) {
+			this.openDuration = openDuration;
+		}
+
+		public int getHalfOpenProbes() {
+			return halfOpenProbes;
+		}
+
+		public void setHalfOpenProbes(int halfOpenProbes) {
+			this.halfOpenProbes = halfOpenProbes;
+		}
+	}
+
+	/**
+	 * 各类调用的舱壁
+	 */
+	public static class Bulkheads {
+
+		private Bulkhead face = new Bulkhead(16, 16, Duration.ofSeconds(2));
+		private Bulkhead cartoon = new Bulkhead(4, 8, Duration.ofSeconds(2));
+		private Bulkhead download = new Bulkhead(8, 8, Duration.ofSeconds(2));
+		private Bulkhead r2 = new Bulkhead(4, 8, Duration.ofSeconds(1));
+
+		public Bulkhead getFace() {
+			return face;
+		}
+
+		public void setFace(Bulkhead face) {
+			this.face = face;
+		}
+
+		public Bulkhead getCartoon() {
+			return cartoon;
+		}
+
+		public void setCartoon(Bulkhead cartoon) {
+			this.cartoon = cartoon;
+		}
+
+		public Bulkhead getDownload() {
+			return download;
+		}
+
+		public void setDownload(Bulkhead download) {
+			this.download = download;
+		}
+
+		public Bulkhead getR2() {
+			return r2;
+		}
+
+		public void setR2(Bulkhead r2) {
+			this.r2 = r2;
+		}
+	}
+
+	/**
+	 * 单类调用的并发上限
+	 */
+	public static class Bulkhead {
+
+		private int maxConcurrent;
+		private int maxQueue;
+		private Duration maxWait;
+
+		public Bulkhead() {
+		}
+
+		public Bulkhead(int maxConcurrent, int maxQueue, Duration maxWait) {
+			this.maxConcurrent = maxConcurrent;
+			this.maxQueue = maxQueue;
+			this.maxWait = maxWait;
+		}
+
+		public int getMaxConcurrent() {
+			return maxConcurrent;
+		}
+
+		public void setMaxConcurrent(int maxConcurrent) {
+			this.maxConcurrent = maxConcurrent;
+		}
+
+		public int getMaxQueue() {
+			return maxQueue;
+		}
+
+		public void setMaxQueue(int maxQueue) {
+			this.maxQueue = maxQueue;
+		}
+
+		public Duration getMaxWait() {
+			return maxWait;
+		}
+
+		public void setMaxWait(Duration maxWait) {
+			this.maxWait = maxWait;
+		}
+	}
+}
@@ -2,8 +2,6 @@ package webcam.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -16,7 +14,8 @@ public class RestTemplateConfig {
 
 	@Bean
 	public RestTemplate restTemplate() {
-		SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+		// 对冲中落后的请求通过断开连接中止
+		AbortableRequestFactory factory = new AbortableRequestFactory();
 		factory.setConnectTimeout(10000); // 10 seconds
 		factory.setReadTimeout(30000); // 30 seconds
 		return new RestTemplate(factory);
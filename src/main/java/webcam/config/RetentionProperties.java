@@ -0,0 +1,80 @@
+package webcam.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 上传目录保留策略配置属性类
+ *
+ * @author Webcam Application
+ */
+@Component
+@ConfigurationProperties(prefix = "webcam.upload.retention")
+public class RetentionProperties {
+
+	private boolean enabled = false;
+	private long maxTotalBytes = 10L * 1024 * 1024 * 1024;
+	private Duration maxAge = Duration.ofHours(72);
+	private Duration sweepInterval = Duration.ofMinutes(5);
+	private int batchSize = 1000;
+	private Duration batchPause = Duration.ofMillis(20);
+	private int maxEvictionCandidates = 10000;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public long getMaxTotalBytes() {
+		return maxTotalBytes;
+	}
+
+	public void setMaxTotalBytes(long maxTotalBytes) {
+		this.maxTotalBytes = maxTotalBytes;
+	}
+
+	public Duration getMaxAge() {
+		return maxAge;
+	}
+
+	public void setMaxAge(Duration maxAge) {
+		this.maxAge = maxAge;
+	}
+
+	public Duration getSweepInterval() {
+		return sweepInterval;
+	}
+
+	public void setSweepInterval(Duration sweepInterval) {
+		this.sweepInterval = sweepInterval;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public Duration getBatchPause() {
+		return batchPause;
+	}
+
+	public void setBatchPause(Duration batchPause) {
+		this.batchPause = batchPause;
+	}
+
+	public int getMaxEvictionCandidates() {
+		return maxEvictionCandidates;
+	}
+
+	public void setMaxEvictionCandidates(int maxEvictionCandidates) {
+		this.maxEvictionCandidates = maxEvictionCandidates;
+	}
+}
@@ -0,0 +1,38 @@
+package webcam.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import webcam.util.VirtualThreads;
+
+/**
+ * 线程模型配置
+ * webcam.threads.virtual=true 且运行在Java 21及以上时，内嵌Tomcat的请求处理线程改为虚拟线程，
+ * 请求路径上的阻塞调用（百炼API、任务轮询、图片下载、R2上传）随之运行在虚拟线程上；
+ * 否则保持平台线程池
+ *
+ * @author Webcam Application
+ */
+@Configuration
+public class ThreadingConfig {
+
+	private static final Logger logger = LoggerFactory.getLogger(ThreadingConfig.class);
+
+	@Bean
+	public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadTomcatCustomizer(
+			ThreadingProperties threadingProperties) {
+		return factory -> {
+			if (threadingProperties.isVirtualActive()) {
+				factory.addProtocolHandlerCustomizers(protocolHandler ->
+						protocolHandler.setExecutor(VirtualThreads.newThreadPerTaskExecutor("tomcat-handler-")));
+				logger.info("Tomcat request handling runs on virtual threads");
+			} else if (threadingProperties.isVirtual()) {
+				logger.warn("Virtual threads requested but not supported by Java {}, using platform threads",
+						System.getProperty("java.version"));
+			}
+		};
+	}
+}
@@ -0,0 +1,61 @@
+package webcam.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import webcam.util.VirtualThreads;
+
+import java.time.Duration;
+
+/**
+ * 线程模型配置属性类
+ *
+ * @author Webcam Application
+ */
+@Component
+@ConfigurationProperties(prefix = "webcam.threads")
+public class ThreadingProperties {
+
+	private boolean virtual = false;
+	private int platformPoolSize = 64;
+	private boolean pinningDiagnostics = true;
+	private Duration pinningThreshold = Duration.ofMillis(20);
+
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	public void setVirtual(boolean virtual) {
+		this.virtual = virtual;
+	}
+
+	public int getPlatformPoolSize() {
+		return platformPoolSize;
+	}
+
+	public void setPlatformPoolSize(int platformPoolSize) {
+		this.platformPoolSize = platformPoolSize;
+	}
+
+	public boolean isPinningDiagnostics() {
+		return pinningDiagnostics;
+	}
+
+	public void setPinningDiagnostics(boolean pinningDiagnostics) {
+		this.pinningDiagnostics = pinningDiagnostics;
+	}
+
+	public Duration getPinningThreshold() {
+		return pinningThreshold;
+	}
+
+	public void setPinningThreshold(Duration pinningThreshold) {
+		this.pinningThreshold = pinningThreshold;
+	}
+
+	/**
+	 * 虚拟线程模式是否实际生效（已开启且当前JVM支持）
+	 */
+	public boolean isVirtualActive() {
+		return virtual && VirtualThreads.isSupported();
+	}
+}
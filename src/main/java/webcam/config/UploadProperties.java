@@ -14,6 +14,17 @@ public class UploadProperties {
 	
 	private String path = "upload/";
 	private String baseUrl = "http://localhost:8080/upload/";
+	private long maxImageBytes = 10L * 1024 * 1024;
+	private boolean contentAddressed = false;
+	private boolean sharded = false;
+	private boolean migrateOnStartup = true;
+	private boolean writeBehindEnabled = false;
+	private int writeBehindQueueCapacity = 256;
+	private long writeBehindMaxBytes = 64L * 1024 * 1024;
+	private boolean hotCacheEnabled = true;
+	private long hotCacheMaxBytes = 64L * 1024 * 1024;
+	private long hotCacheMaxEntryBytes = 4L * 1024 * 1024;
+	private boolean hotCacheOffHeap = true;
 
 	public String getPath() {
 		return path;
@@ -30,5 +41,92 @@ public class UploadProperties {
 	public void setBaseUrl(String baseUrl) {
 		this.baseUrl = baseUrl;
 	}
-}
 
+	public long getMaxImageBytes() {
+		return maxImageBytes;
+	}
+
+	public void setMaxImageBytes(long maxImageBytes) {
+		this.maxImageBytes = maxImageBytes;
+	}
+
+	public boolean isContentAddressed() {
+		return contentAddressed;
+	}
+
+	public void setContentAddressed(boolean contentAddressed) {
+		this.contentAddressed = contentAddressed;
+	}
+
+	public boolean isSharded() {
+		return sharded;
+	}
+
+	public void setSharded(boolean sharded) {
+		this.sharded = sharded;
+	}
+
+	public boolean isMigrateOnStartup() {
+		return migrateOnStartup;
+	}
+
+	public void setMigrateOnStartup(boolean migrateOnStartup) {
+		this.migrateOnStartup = migrateOnStartup;
+	}
+
+	public boolean isWriteBehindEnabled() {
+		return writeBehindEnabled;
+	}
+
+	public void setWriteBehindEnabled(boolean writeBehindEnabled) {
+		this.writeBehindEnabled = writeBehindEnabled;
+	}
+
+	public int getWriteBehindQueueCapacity() {
+		return writeBehindQueueCapacity;
+	}
+
+	public void setWriteBehindQueueCapacity(int writeBehindQueueCapacity) {
+		this.writeBehindQueueCapacity = writeBehindQueueCapacity;
+	}
+
+	public long getWriteBehindMaxBytes() {
+		return writeBehindMaxBytes;
+	}
+
+	public void setWriteBehindMaxBytes(long writeBehindMaxBytes) {
+		this.writeBehindMaxBytes = writeBehindMaxBytes;
+	}
+
+	public boolean isHotCacheEnabled() {
+		return hotCacheEnabled;
+	}
+
+	public void setHotCacheEnabled(boolean hotCacheEnabled) {
+		this.hotCacheEnabled = hotCacheEnabled;
+	}
+
+	public long getHotCacheMaxBytes() {
+		return hotCacheMaxBytes;
+	}
+
+	public void setHotCacheMaxBytes(long hotCacheMaxBytes) {
+		this.hotCacheMaxBytes = hotCacheMaxBytes;
+	}
+
+	public long getHotCacheMaxEntryBytes() {
+		return hotCacheMaxEntryBytes;
+	}
+
+	public void setHotCacheMaxEntryBytes(long hotCacheMaxEntryBytes) {
+		this.hotCacheMaxEntryBytes = hotCacheMaxEntryBytes;
+	}
+
+	public boolean isHotCacheOffHeap() {
+		return hotCacheOffHeap;
+	}
+
+	public void setHotCacheOffHeap(boolean hotCacheOffHeap) {
+		this.hotCacheOffHeap = hotCacheOffHeap;
+	}
+}
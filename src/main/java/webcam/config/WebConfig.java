@@ -1,11 +1,28 @@
 package webcam.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.PathResourceResolver;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
+import webcam.exception.FileStorageException;
+import webcam.service.ImageStorageService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Web配置类
@@ -16,6 +33,25 @@ import org.springframework.web.servlet.view.InternalResourceViewResolver;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+	@Autowired
+	private UploadProperties uploadProperties;
+
+	@Autowired
+	@Lazy
+	private ImageStorageService imageStorageService;
+
+	@Autowired
+	private AdmissionControlInterceptor admissionControlInterceptor;
+
+	/**
+	 * 注册准入控制拦截器
+	 */
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(admissionControlInterceptor)
+				.addPathPatterns("/webcam", "/webcam/**", "/result", "/result/**", "/api/cartoon/**");
+	}
+
 	@Override
 	public void addResourceHandlers(ResourceHandlerRegistry registry) {
 		// 静态资源处理 - 支持webapp目录（WAR部署）和标准Spring Boot静态资源目录
@@ -29,9 +65,62 @@ public class WebConfig implements WebMvcConfigurer {
 						"/"  // 根路径，用于WAR部署
 				);
 		
-		// 上传文件访问
-		registry.addResourceHandler("/upload/**")
-				.addResourceLocations("file:upload/");
+		// 上传文件访问（与ImageStorageService使用同一上传目录）
+		String uploadLocation = Paths.get(uploadProperties.getPath()).toAbsolutePath().toUri().toString();
+		if (!uploadLocation.endsWith("/")) {
+			uploadLocation += "/";
+		}
+		ResourceHandlerRegistration uploadRegistration = registry.addResourceHandler("/upload/**")
+				.addResourceLocations(uploadLocation);
+
+		// 内容寻址模式下文件名由内容决定，同一URL的内容永不变化，可长期缓存
+		if (uploadProperties.isContentAddressed()) {
+			uploadRegistration.setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
+		}
+
+		// URL中只有文件名，实际位置（分片子目录或根目录）由存储服务解析
+		uploadRegistration.resourceChain(false).addResolver(new PathResourceResolver() {
+			@Override
+			protected Resource getResource(String resourcePath, Resource location) throws IOException {
+				if (resourcePath.indexOf('/') >= 0 || resourcePath.indexOf('\\') >= 0) {
+					return super.getResource(resourcePath, location);
+				}
+				Path imagePath = imageStorageService.resolveImagePath(resourcePath);
+				if (imagePath == null) {
+					return null;
+				}
+				if (!Files.isRegularFile(imagePath)) {
+					// 延迟写入模式下文件可能还在写入队列中，直接返回队列中的内容
+					return imageStorageService.imageExists(imagePath) ? pendingResource(imagePath, resourcePath) : null;
+				}
+				imageStorageService.recordAccess(imagePath);
+				return new FileSystemResource(imagePath);
+			}
+		});
+	}
+
+	/**
+	 * 尚未落盘的上传文件，内容来自延迟写入队列（或刚好完成写入后的文件）
+	 */
+	private Resource pendingResource(Path imagePath, String fileName) {
+		byte[] imageBytes;
+		try {
+			imageBytes = imageStorageService.readImageBytes(imagePath);
+		} catch (FileStorageException e) {
+			return null;
+		}
+		long lastModified = System.currentTimeMillis();
+		return new ByteArrayResource(imageBytes) {
+			@Override
+			public String getFilename() {
+				return fileName;
+			}
+
+			@Override
+			public long lastModified() {
+				return lastModified;
+			}
+		};
 	}
 	
 	/**
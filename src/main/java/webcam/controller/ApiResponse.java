@@ -1,6 +1,8 @@
 package webcam.controller;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import webcam.dto.ModelUsage;
+
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 
@@ -50,6 +52,11 @@ public class ApiResponse<T> {
      */
     private String requestId;
 
+    /**
+     * 本次请求的模型调用用量（仅调用了模型时）
+     */
+    private ModelUsage usage;
+
     /**
      * 默认构造函数
      */
@@ -198,5 +205,12 @@ public class ApiResponse<T> {
     public void setRequestId(String requestId) {
         this.requestId = requestId;
     }
-}
 
+    public ModelUsage getUsage() {
+        return usage;
+    }
+
+    public void setUsage(ModelUsage usage) {
+        this.usage = usage;
+    }
+}
@@ -7,9 +7,16 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import webcam.config.CartoonApiProperties;
 import webcam.dto.CartoonImageResult;
+import webcam.exception.DependencyUnavailableException;
+import webcam.exception.ServiceOverloadedException;
 import webcam.service.CartoonImageService;
+import webcam.service.CartoonJob;
 
+import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -19,7 +26,8 @@ import java.util.UUID;
 
 /**
  * 卡通图片生成控制器
- * 提供卡通图片生成API，包含R2上传和预签名URL生成
+ * 提供卡通图片生成API，包含R2上传和预签名URL生成。
+ * async=true时提交任务后立即返回202和任务ID，结果通过任务状态查询或SSE获取
  * 
  * @author Webcam Application
  * @version 2.0.0
@@ -31,10 +39,14 @@ public class CartoonImageController {
     private static final Logger logger = LoggerFactory.getLogger(CartoonImageController.class);
     
     private final CartoonImageService cartoonImageService;
+    // SSE连接的超时时间，比任务超时多留出下载和上传结果的时间
+    private final long eventsTimeoutMillis;
     
     @Autowired
-    public CartoonImageController(CartoonImageService cartoonImageService) {
+    public CartoonImageController(CartoonImageService cartoonImageService,
+                                  CartoonApiProperties cartoonApiProperties) {
         this.cartoonImageService = cartoonImageService;
+        this.eventsTimeoutMillis = cartoonApiProperties.getJobs().getTimeout().toMillis() + 60_000L;
     }
     
     /**
@@ -74,13 +86,7 @@ public class CartoonImageController {
             
             // 构建成功响应
             response.put("success", true);
-            response.put("data", new HashMap<String, Object>() {{
-                put("localUrl", result.getLocalUrl());
-                put("r2ObjectKey", result.getR2ObjectKey());
-                put("presignedUrl", result.getPresignedUrl());
-                put("qrCodeBase64", result.getQrCodeBase64());
-                put("fileSize", result.getFileSize());
-            }});
+            response.put("data", resultData(result));
             response.put("requestId", requestId);
             
             logger.info("Cartoon image generated successfully [RequestId: {}, FileSize: {} bytes]", 
@@ -97,6 +103,137 @@ public class CartoonImageController {
         }
     }
     
+    /**
+     * 从用户图片URL提交卡通图片生成任务（async=true）
+     * 任务提交后立即返回202，不等待生成完成；Location为任务状态地址
+     * 
+     * @param imageUrl 用户图片的URL
+     * @return 包含任务ID、状态查询地址和SSE地址的响应
+     */
+    @PostMapping(value = "/generate", params = "async=true", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<Map<String, Object>> submitCartoonJob(
+            @RequestParam("imageUrl") String imageUrl) {
+        
+        Map<String, Object> response = new HashMap<>();
+        String requestId = UUID.randomUUID().toString();
+        
+        logger.info("Received async cartoon generation request [RequestId: {}, ImageUrl: {}]", requestId, imageUrl);
+        
+        if (imageUrl == null || imageUrl.isEmpty()) {
+            response.put("success", false);
+            response.put("error", "imageUrl参数不能为空");
+            response.put("requestId", requestId);
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        try {
+            CartoonJob job = cartoonImageService.submitCartoonJob(imageUrl);
+            String statusUrl = "/api/cartoon/jobs/" + job.getId();
+            
+            response.put("success", true);
+            response.put("jobId", job.getId());
+            response.put("status", job.getStatus().name());
+            response.put("statusUrl", statusUrl);
+            response.put("eventsUrl", statusUrl + "/events");
+            response.put("requestId", requestId);
+            
+            logger.info("Cartoon job submitted [RequestId: {}, JobId: {}]", requestId, job.getId());
+            return ResponseEntity.accepted().location(URI.create(statusUrl)).body(response);
+            
+        } catch (DependencyUnavailableException | ServiceOverloadedException e) {
+            // 由全局异常处理器返回503/429和Retry-After
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error submitting cartoon job [RequestId: {}]", requestId, e);
+            response.put("success", false);
+            response.put("error", "提交卡通图片任务时发生错误: " + e.getMessage());
+            response.put("requestId", requestId);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    /**
+     * 查询卡通图片生成任务状态
+     * 
+     * @param jobId 任务ID
+     * @return 任务状态（RUNNING/SUCCEEDED/FAILED），成功时包含生成结果，失败时包含错误信息
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getCartoonJob(@PathVariable String jobId) {
+        CartoonJob job = cartoonImageService.getCartoonJob(jobId);
+        if (job == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "任务不存在或已过期");
+            response.put("jobId", jobId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        return ResponseEntity.ok(jobStatus(job));
+    }
+    
+    /**
+     * 以Server-Sent Events推送任务结果
+     * 连接建立后立即推送一次status事件，任务结束时推送result或error事件后关闭；等待期间不占用请求线程
+     * 
+     * @param jobId 任务ID
+     * @return SSE连接
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamCartoonJob(@PathVariable String jobId) {
+        CartoonJob job = cartoonImageService.getCartoonJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        SseEmitter emitter = new SseEmitter(eventsTimeoutMillis);
+        try {
+            emitter.send(SseEmitter.event().name("status").data(Map.of("jobId", jobId,
+                    "status", job.getStatus().name())));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return ResponseEntity.ok(emitter);
+        }
+        job.getResult().whenComplete((result, error) -> {
+            try {
+                emitter.send(SseEmitter.event().name(error == null ? "result" : "error").data(jobStatus(job)));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开或连接已超时
+                logger.debug("Cartoon job {} events closed before result: {}", jobId, e.getMessage());
+            }
+        });
+        return ResponseEntity.ok(emitter);
+    }
+    
+    private Map<String, Object> jobStatus(CartoonJob job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", job.getId());
+        response.put("status", job.getStatus().name());
+        response.put("createdAt", job.getCreatedAt());
+        switch (job.getStatus()) {
+            case SUCCEEDED -> {
+                response.put("success", true);
+                response.put("data", resultData(job.getResultIfSucceeded()));
+            }
+            case FAILED -> {
+                response.put("success", false);
+                response.put("error", "生成卡通图片失败: " + job.getError());
+            }
+            default -> response.put("success", true);
+        }
+        return response;
+    }
+    
+    private static Map<String, Object> resultData(CartoonImageResult result) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("localUrl", result.getLocalUrl());
+        data.put("r2ObjectKey", result.getR2ObjectKey());
+        data.put("presignedUrl", result.getPresignedUrl());
+        data.put("qrCodeBase64", result.getQrCodeBase64());
+        data.put("fileSize", result.getFileSize());
+        return data;
+    }
+    
     /**
      * 从本地文件路径生成卡通图片
      * （仅用于开发和内部测试）
@@ -143,13 +280,7 @@ public class CartoonImageController {
             
             // 构建成功响应
             response.put("success", true);
-            response.put("data", new HashMap<String, Object>() {{
-                put("localUrl", result.getLocalUrl());
-                put("r2ObjectKey", result.getR2ObjectKey());
-                put("presignedUrl", result.getPresignedUrl());
-                put("qrCodeBase64", result.getQrCodeBase64());
-                put("fileSize", result.getFileSize());
-            }});
+            response.put("data", resultData(result));
             response.put("requestId", requestId);
             
             logger.info("Cartoon image generated successfully [RequestId: {}, FileSize: {} bytes]", 
@@ -0,0 +1,45 @@
+package webcam.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import webcam.service.MetricsSource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 运行指标控制器
+ * 汇总所有MetricsSource组件的指标快照
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    private final List<MetricsSource> metricsSources;
+
+    @Autowired
+    public MetricsController(List<MetricsSource> metricsSources) {
+        this.metricsSources = metricsSources;
+    }
+
+    /**
+     * 返回全部指标，按分组名称组织
+     *
+     * @return 分组名称到指标快照的映射
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<Map<String, Map<String, Object>>>> getMetrics() {
+        Map<String, Map<String, Object>> metrics = new LinkedHashMap<>();
+        for (MetricsSource source : metricsSources) {
+            metrics.put(source.getMetricsName(), source.getMetrics());
+        }
+        return ResponseEntity.ok(new ApiResponse<>(metrics));
+    }
+}
@@ -98,6 +98,10 @@ public class ResultController {
             if (jsonObject.has("healthAnalysis")) {
                 model.addAttribute("healthAnalysis", jsonObject.get("healthAnalysis").asText());
             }
+            if (jsonObject.has("narrativeId")) {
+                // 两阶段分析：健康分析和夸奖内容由页面通过 /webcam/narrative/{id} 获取后填入
+                model.addAttribute("narrativeId", jsonObject.get("narrativeId").asText());
+            }
 
             // 随机生成描述
             model.addAttribute("data_index", MapUtil.pDesc(random.nextInt(3) + 1));
@@ -5,14 +5,32 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import webcam.config.ThreadingProperties;
+import webcam.dto.ModelUsage;
+import webcam.exception.BailianApiException;
+import webcam.exception.ClientDisconnectedException;
+import webcam.exception.DependencyUnavailableException;
+import webcam.exception.ImageProcessingException;
 import webcam.service.FaceRecognitionService;
 import webcam.service.ImageStorageService;
+import webcam.service.RequestUsageScope;
+import webcam.util.VirtualThreads;
 
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Webcam控制器
@@ -28,20 +46,36 @@ public class WebcamController {
 
     private static final Logger logger = LoggerFactory.getLogger(WebcamController.class);
 
+    /**
+     * 流式响应的最长持续时间
+     */
+    private static final long STREAM_TIMEOUT_MILLIS = 60_000L;
+
     private final ImageStorageService imageStorageService;
     private final FaceRecognitionService faceRecognitionService;
+    // 流式分析在请求线程之外执行，Tomcat线程在返回SseEmitter后即被释放
+    private final ExecutorService streamExecutor;
 
     /**
      * 构造函数，注入依赖的Service
      * 
      * @param imageStorageService    图像存储服务
      * @param faceRecognitionService 人脸识别服务
+     * @param threadingProperties    线程模型配置
      */
     @Autowired
     public WebcamController(ImageStorageService imageStorageService,
-            FaceRecognitionService faceRecognitionService) {
+            FaceRecognitionService faceRecognitionService,
+            ThreadingProperties threadingProperties) {
         this.imageStorageService = imageStorageService;
         this.faceRecognitionService = faceRecognitionService;
+        this.streamExecutor = VirtualThreads.newExecutor("face-stream-",
+                threadingProperties.isVirtual(), threadingProperties.getPlatformPoolSize());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streamExecutor.shutdownNow();
     }
 
     /**
@@ -58,61 +92,272 @@ public class WebcamController {
         logger.info("Received image processing request [RequestId: {}]", requestId);
 
         try {
-            // 验证输入
-            imageStorageService.validateImageData(imageData);
-
-            // 提取Base64数据
-            String base64Data = imageStorageService.extractBase64Data(imageData);
-
             // 生成文件名
             String fileName = UUID.randomUUID() + ".jpeg";
 
-            // 保存图像文件（Service层会抛出异常，由GlobalExceptionHandler处理）
-            Path filePath = imageStorageService.saveBase64Image(base64Data, fileName);
-            logger.debug("Image saved: {} [RequestId: {}]", fileName, requestId);
+            // 一次扫描完成验证、解码并保存图像文件（Service层会抛出异常，由GlobalExceptionHandler处理）
+            Path filePath = imageStorageService.saveImageData(imageData, fileName);
+            logger.debug("Image saved: {} [RequestId: {}]", filePath.getFileName(), requestId);
 
-            // 调用阿里云百炼API进行人脸检测和健康分析（Service层会抛出异常，由GlobalExceptionHandler处理）
-            Map<String, Object> faceAttributes = faceRecognitionService.detectFaceAttributes(filePath);
-            if (faceAttributes == null) {
-                faceAttributes = new HashMap<>();
-            } else {
-                faceAttributes = new HashMap<>(faceAttributes);
-            }
+            return analyzeSavedImage(filePath, startTime, requestId);
+
+        } catch (Exception e) {
+            logger.error("Error processing image [RequestId: {}]", requestId, e);
+            // 异常会被GlobalExceptionHandler处理
+            throw e;
+        }
+    }
+
+    /**
+     * 流式处理图像上传（stream=true）
+     * 以Server-Sent Events返回结果：image事件携带图像URL，模型输出的每个字段完成后立即发送field事件
+     * （{"name": 字段名, "value": 值}），最后发送与非流式接口响应体相同的result事件；失败时发送error事件
+     *
+     * @param imageData Base64编码的图像数据（可能包含data:image/png;base64,前缀）
+     * @return SSE事件流
+     */
+    @PostMapping(params = "stream=true", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<SseEmitter> processImageStreaming(@RequestParam("image") String imageData) {
+        LocalDateTime startTime = LocalDateTime.now();
+        String requestId = UUID.randomUUID().toString();
+        logger.info("Received streaming analysis request [RequestId: {}]", requestId);
 
-            // 构建图像URL
-            String imageUrl = imageStorageService.getImageUrl(fileName);
-            faceAttributes.put("img", imageUrl);
+        // 保存失败在返回事件流之前抛出，仍由GlobalExceptionHandler处理
+        Path filePath = imageStorageService.saveImageData(imageData, UUID.randomUUID() + ".jpeg");
+        String imageUrl = imageStorageService.getImageUrl(filePath.getFileName().toString());
 
-            // 百炼API已返回praise和healthAnalysis，无需额外处理
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MILLIS);
+        streamExecutor.execute(() -> streamAnalysis(emitter, filePath, imageUrl, startTime, requestId));
 
-            // 构建成功响应
-            ApiResponse<Map<String, Object>> response = ApiResponse.success(faceAttributes, startTime);
-            response.setRequestId(requestId);
+        return ResponseEntity.ok()
+                .header("X-Request-Id", requestId)
+                .header("Cache-Control", "no-cache, no-store, must-revalidate")
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
 
-            // 如果没有检测到人脸，返回失败状态（但保持兼容性）
-            if (faceAttributes.isEmpty()) {
-                response.setResult("0");
-                response.setMsg((Map<String, Object>) null);
-                response.setErrorCode("NO_FACE_DETECTED");
-                response.setErrorDetail("未检测到人脸，请确保照片中有人脸且清晰可见");
-                logger.info("No face detected in image [RequestId: {}]", requestId);
-            } else {
-                logger.info("Successfully processed image: {} [RequestId: {}, ProcessingTime: {}ms]", 
-                    fileName, requestId, response.getProcessingTime());
+    /**
+     * 执行流式人脸分析并推送事件
+     */
+    private void streamAnalysis(SseEmitter emitter, Path filePath, String imageUrl,
+            LocalDateTime startTime, String requestId) {
+        try {
+            emitter.send(SseEmitter.event().name("image").data(Map.of("img", imageUrl)));
+
+            Map<String, Object> faceAttributes;
+            ModelUsage usage;
+            RequestUsageScope.begin();
+            try {
+                faceAttributes = faceRecognitionService.streamFaceAttributes(filePath, (name, value) -> {
+                    Map<String, Object> field = new LinkedHashMap<>();
+                    field.put("name", name);
+                    field.put("value", value);
+                    try {
+                        emitter.send(SseEmitter.event().name("field").data(field));
+                    } catch (IOException e) {
+                        // 客户端已断开，中止上游流式调用
+                        throw new ClientDisconnectedException("Client disconnected", e);
+                    }
+                });
+            } finally {
+                usage = RequestUsageScope.end();
+            }
+
+            ApiResponse<Map<String, Object>> response = buildResponse(faceAttributes, filePath, startTime, requestId);
+            response.setUsage(usage);
+            emitter.send(SseEmitter.event().name("result").data(response));
+            emitter.complete();
+
+        } catch (Exception e) {
+            logger.error("Error streaming face analysis [RequestId: {}]", requestId, e);
+            ApiResponse<Map<String, Object>> response = ApiResponse.error(
+                    e instanceof DependencyUnavailableException ? "DEPENDENCY_UNAVAILABLE"
+                            : e instanceof BailianApiException ? "FACE_API_ERROR" : "INTERNAL_SERVER_ERROR",
+                    "人脸检测失败，请重试");
+            response.setRequestId(requestId);
+            try {
+                emitter.send(SseEmitter.event().name("error").data(response));
+                emitter.complete();
+            } catch (IOException | IllegalStateException sendFailure) {
+                emitter.completeWithError(e);
             }
+        }
+    }
 
+    /**
+     * 获取两阶段分析中延迟生成的健康分析和夸奖内容，立即返回不等待
+     * 已生成时返回200和{healthAnalysis, praise}；仍在生成时返回202，客户端按Retry-After稍后重试；
+     * ID未知或已过期时返回404；第二次调用失败时返回503
+     *
+     * @param narrativeId 分析结果中的narrativeId
+     * @return 延迟字段
+     */
+    @GetMapping("/narrative/{narrativeId}")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getNarrative(@PathVariable String narrativeId) {
+        CompletableFuture<Map<String, Object>> narrative = faceRecognitionService.findNarrative(narrativeId);
+        if (narrative == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("NARRATIVE_NOT_FOUND", "分析结果不存在或已过期"));
+        }
+        if (!narrative.isDone()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .header("Cache-Control", "no-cache, no-store, must-revalidate")
+                    .body(ApiResponse.error("NARRATIVE_PENDING", "健康分析生成中，请稍后重试"));
+        }
+        try {
             return ResponseEntity.ok()
-                    .header("X-Request-Id", requestId)
-                    .header("X-Processing-Time", String.valueOf(response.getProcessingTime()))
-                    .header("Pragma", "No-cache")
                     .header("Cache-Control", "no-cache, no-store, must-revalidate")
-                    .header("Expires", "0")
-                    .body(response);
+                    .body(ApiResponse.success(narrative.get()));
+        } catch (ExecutionException | CancellationException e) {
+            logger.warn("Narrative generation failed [NarrativeId: {}]: {}", narrativeId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error("FACE_API_ERROR", "健康分析生成失败"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading narrative", e);
+        }
+    }
+
+    /**
+     * 处理二进制图像上传（image/jpeg、image/png、application/octet-stream）
+     * 请求体直接流式写入上传文件，不在内存中缓冲完整图像
+     *
+     * @param contentType 请求的Content-Type
+     * @param body        请求体输入流
+     * @return 包含检测结果的JSON响应
+     */
+    @PostMapping(consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ApiResponse<Map<String, Object>>> processImageBinary(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        return processImageStream(body, fileExtensionFor(contentType), false);
+    }
+
+    /**
+     * 处理Base64文本上传（text/plain，可包含data:image前缀）
+     * 请求体经流式Base64解码后直接写入上传文件
+     *
+     * @param body 请求体输入流
+     * @return 包含检测结果的JSON响应
+     */
+    @PostMapping(consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<ApiResponse<Map<String, Object>>> processImageBase64Stream(InputStream body) {
+        return processImageStream(body, ".jpeg", true);
+    }
+
+    /**
+     * 处理multipart图像上传
+     * 文本类型的image部分按Base64解码，其余按二进制写入
+     *
+     * @param image 上传的图像部分
+     * @return 包含检测结果的JSON响应
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<Map<String, Object>>> processImageMultipart(
+            @RequestPart("image") MultipartFile image) {
+        String partType = image.getContentType();
+        boolean base64Encoded = partType != null && partType.startsWith(MediaType.TEXT_PLAIN_VALUE);
+        try (InputStream in = image.getInputStream()) {
+            return processImageStream(in, fileExtensionFor(partType), base64Encoded);
+        } catch (IOException e) {
+            throw new ImageProcessingException("读取上传图像失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 流式保存图像后调用人脸识别
+     */
+    private ResponseEntity<ApiResponse<Map<String, Object>>> processImageStream(
+            InputStream body, String extension, boolean base64Encoded) {
+        LocalDateTime startTime = LocalDateTime.now();
+        String requestId = UUID.randomUUID().toString();
+        logger.info("Received streaming image request [RequestId: {}, Base64: {}]", requestId, base64Encoded);
+
+        try {
+            String fileName = UUID.randomUUID() + extension;
+            Path filePath = imageStorageService.saveImageStream(body, fileName, base64Encoded);
+            logger.debug("Image streamed: {} [RequestId: {}]", filePath.getFileName(), requestId);
+
+            return analyzeSavedImage(filePath, startTime, requestId);
 
         } catch (Exception e) {
-            logger.error("Error processing image [RequestId: {}]", requestId, e);
-            // 异常会被GlobalExceptionHandler处理
+            logger.error("Error processing streamed image [RequestId: {}]", requestId, e);
             throw e;
         }
     }
+
+    /**
+     * 对已保存的图像进行人脸检测并构建响应
+     */
+    private ResponseEntity<ApiResponse<Map<String, Object>>> analyzeSavedImage(
+            Path filePath, LocalDateTime startTime, String requestId) {
+        // 调用阿里云百炼API进行人脸检测和健康分析（Service层会抛出异常，由GlobalExceptionHandler处理）
+        Map<String, Object> faceAttributes;
+        ModelUsage usage;
+        RequestUsageScope.begin();
+        try {
+            faceAttributes = faceRecognitionService.detectFaceAttributes(filePath);
+        } finally {
+            usage = RequestUsageScope.end();
+        }
+        ApiResponse<Map<String, Object>> response = buildResponse(faceAttributes, filePath, startTime, requestId);
+        // 本次请求的token数和耗时（命中缓存或被预筛拒绝时没有）
+        response.setUsage(usage);
+
+        return ResponseEntity.ok()
+                .header("X-Request-Id", requestId)
+                .header("X-Processing-Time", String.valueOf(response.getProcessingTime()))
+                .header("Pragma", "No-cache")
+                .header("Cache-Control", "no-cache, no-store, must-revalidate")
+                .header("Expires", "0")
+                .body(response);
+    }
+
+    /**
+     * 由人脸检测结果构建响应体
+     */
+    private ApiResponse<Map<String, Object>> buildResponse(Map<String, Object> detected, Path filePath,
+            LocalDateTime startTime, String requestId) {
+        // 存储层可能按内容重新命名文件（内容寻址模式），以实际保存的文件名为准
+        String fileName = filePath.getFileName().toString();
+
+        Map<String, Object> faceAttributes = detected == null ? new HashMap<>() : new HashMap<>(detected);
+        // 在加入图像URL之前判断，否则未检测到人脸的结果也不为空
+        boolean faceDetected = !faceAttributes.isEmpty();
+
+        // 构建图像URL
+        String imageUrl = imageStorageService.getImageUrl(fileName);
+        faceAttributes.put("img", imageUrl);
+
+        // 百炼API已返回praise和healthAnalysis，无需额外处理
+
+        // 构建成功响应
+        ApiResponse<Map<String, Object>> response = ApiResponse.success(faceAttributes, startTime);
+        response.setRequestId(requestId);
+
+        // 如果没有检测到人脸，返回失败状态（但保持兼容性）
+        if (!faceDetected) {
+            response.setResult("0");
+            response.setMsg((Map<String, Object>) null);
+            response.setErrorCode("NO_FACE_DETECTED");
+            response.setErrorDetail("未检测到人脸，请确保照片中有人脸且清晰可见");
+            logger.info("No face detected in image [RequestId: {}]", requestId);
+        } else {
+            logger.info("Successfully processed image: {} [RequestId: {}, ProcessingTime: {}ms]", 
+                fileName, requestId, response.getProcessingTime());
+        }
+        return response;
+    }
+
+    /**
+     * 根据Content-Type确定文件扩展名
+     */
+    private String fileExtensionFor(String contentType) {
+        if (contentType != null && contentType.startsWith(MediaType.IMAGE_PNG_VALUE)) {
+            return ".png";
+        }
+        return ".jpeg";
+    }
 }
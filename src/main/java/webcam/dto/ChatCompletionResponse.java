@@ -0,0 +1,55 @@
+package webcam.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * 百炼OpenAI兼容接口的chat.completion响应，也用于流式模式下的chat.completion.chunk
+ * 只声明用到的字段，其余字段忽略
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ChatCompletionResponse(List<Choice> choices, ApiError error, Usage usage) {
+
+    /**
+     * @return choices[0].message.content；不存在时返回null
+     */
+    public String firstMessageContent() {
+        Choice choice = firstChoice();
+        return choice != null && choice.message() != null ? choice.message().content() : null;
+    }
+
+    /**
+     * @return 流式模式下的增量文本choices[0].delta.content；不存在时返回null
+     */
+    public String firstDeltaContent() {
+        Choice choice = firstChoice();
+        return choice != null && choice.delta() != null ? choice.delta().content() : null;
+    }
+
+    private Choice firstChoice() {
+        return choices != null && !choices.isEmpty() ? choices.get(0) : null;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Choice(Message message, Message delta, @JsonProperty("finish_reason") String finishReason) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Message(String role, String content) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ApiError(String code, String message) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Usage(@JsonProperty("prompt_tokens") int promptTokens,
+            @JsonProperty("completion_tokens") int completionTokens,
+            @JsonProperty("total_tokens") int totalTokens) {
+    }
+}
@@ -0,0 +1,38 @@
+package webcam.dto;
+
+/**
+ * 模型调用用量
+ * 单次调用的用量，或一个请求内多次调用的合计
+ *
+ * @param calls            调用次数
+ * @param promptTokens     输入token数（包含图像token）
+ * @param completionTokens 输出token数
+ * @param imagePixels      发送的图像像素数
+ * @param wallMillis       调用耗时（毫秒，含排队和对冲）
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public record ModelUsage(int calls, long promptTokens, long completionTokens, long imagePixels, long wallMillis) {
+
+    /**
+     * 合计两份用量
+     */
+    public ModelUsage plus(ModelUsage other) {
+        return new ModelUsage(calls + other.calls, promptTokens + other.promptTokens,
+                completionTokens + other.completionTokens, imagePixels + other.imagePixels,
+                wallMillis + other.wallMillis);
+    }
+
+    /**
+     * 多张图像合并为一次调用时，每张图像均摊的用量；耗时不均摊，每个请求都等待了整次调用
+     *
+     * @param parts 分摊份数
+     */
+    public ModelUsage share(int parts) {
+        if (parts <= 1) {
+            return this;
+        }
+        return new ModelUsage(calls, Math.round((double) promptTokens / parts),
+                Math.round((double) completionTokens / parts), Math.round((double) imagePixels / parts), wallMillis);
+    }
+}
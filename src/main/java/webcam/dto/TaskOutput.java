@@ -0,0 +1,39 @@
+package webcam.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * 百炼异步任务响应中的output部分，任务提交和任务查询共用
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TaskOutput(@JsonProperty("task_id") String taskId,
+        @JsonProperty("task_status") String taskStatus,
+        List<Result> results,
+        String code,
+        String message) {
+
+    /**
+     * @return results[0].url；不存在时返回null
+     */
+    public String firstResultUrl() {
+        return results != null && !results.isEmpty() && results.get(0) != null ? results.get(0).url() : null;
+    }
+
+    public boolean isSucceeded() {
+        return "SUCCEEDED".equals(taskStatus) || "SUCCESS".equals(taskStatus);
+    }
+
+    public boolean isFailed() {
+        return "FAILED".equals(taskStatus) || "FAIL".equals(taskStatus);
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Result(String url) {
+    }
+}
@@ -0,0 +1,14 @@
+package webcam.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 百炼异步任务查询接口（/api/v1/tasks/{task_id}）的响应
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TaskStatusResponse(@JsonProperty("request_id") String requestId, TaskOutput output) {
+}
@@ -0,0 +1,22 @@
+package webcam.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 百炼异步任务（如人物动漫化）提交接口的响应
+ * 异步模式下output中只有task_id；同步返回或其他响应格式时结果位于output.results或data中
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TaskSubmitResponse(String code, String message, TaskOutput output, Data data) {
+
+    /**
+     * 兼容其他可能的响应格式
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Data(@JsonProperty("image_url") String imageUrl, String url) {
+    }
+}
@@ -0,0 +1,21 @@
+package webcam.exception;
+
+/**
+ * 客户端断开异常
+ * 流式接口向已断开的客户端写出数据时抛出，用于中止上游调用；不代表外部依赖故障
+ * 
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class ClientDisconnectedException extends RuntimeException {
+
+    /**
+     * 使用错误消息和写出失败的原因构造异常
+     * 
+     * @param message 错误消息
+     * @param cause   写出失败的原因
+     */
+    public ClientDisconnectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,33 @@
+package webcam.exception;
+
+/**
+ * 外部依赖不可用异常
+ * 依赖的熔断器处于断开状态或对应舱壁已满时立即抛出，不再等待连接和读取超时
+ * 
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class DependencyUnavailableException extends BailianApiException {
+
+    private final String dependency;
+    private final long retryAfterSeconds;
+
+    /**
+     * @param message           错误消息
+     * @param dependency        不可用的依赖名称
+     * @param retryAfterSeconds 建议客户端等待的秒数
+     */
+    public DependencyUnavailableException(String message, String dependency, long retryAfterSeconds) {
+        super(message);
+        this.dependency = dependency;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getDependency() {
+        return dependency;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
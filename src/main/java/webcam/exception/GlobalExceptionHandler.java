@@ -2,6 +2,7 @@ package webcam.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -89,6 +90,71 @@ public class GlobalExceptionHandler {
                 .body(response);
     }
 
+    /**
+     * 处理外部依赖不可用异常（熔断器断开或舱壁已满）
+     * 属于预期内的快速失败，不记录堆栈
+     *
+     * @param ex      异常对象
+     * @param request Web请求
+     * @return 错误响应
+     */
+    @ExceptionHandler(DependencyUnavailableException.class)
+    public ResponseEntity<ApiResponse<Map<String, Object>>> handleDependencyUnavailableException(
+            DependencyUnavailableException ex, WebRequest request) {
+        String requestId = generateRequestId();
+        logger.warn("Dependency {} unavailable [RequestId: {}]: {}", ex.getDependency(), requestId, ex.getMessage());
+
+        ApiResponse<Map<String, Object>> response = ApiResponse.error(
+            "DEPENDENCY_UNAVAILABLE",
+            "服务暂时不可用，请稍后重试"
+        );
+        response.setRequestId(requestId);
+        response.setTimestamp(LocalDateTime.now());
+
+        // 兼容旧格式：将错误信息放入msg字段
+        Map<String, Object> errorMsg = new HashMap<>();
+        errorMsg.put("error", response.getErrorDetail());
+        response.setMsg(errorMsg);
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .header("X-Request-Id", requestId)
+                .header("X-Error-Code", response.getErrorCode())
+                .body(response);
+    }
+
+    /**
+     * 处理服务过载异常（准入控制拒绝）
+     * 
+     * @param ex      异常对象
+     * @param request Web请求
+     * @return 错误响应
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ApiResponse<Map<String, Object>>> handleServiceOverloadedException(
+            ServiceOverloadedException ex, WebRequest request) {
+        String requestId = generateRequestId();
+        logger.warn("Request rejected by admission control [RequestId: {}]: {}", requestId, ex.getMessage());
+
+        ApiResponse<Map<String, Object>> response = ApiResponse.error(
+            "SERVICE_OVERLOADED",
+            "当前排队人数较多，请稍后重试"
+        );
+        response.setRequestId(requestId);
+        response.setTimestamp(LocalDateTime.now());
+
+        // 兼容旧格式：将错误信息放入msg字段
+        Map<String, Object> errorMsg = new HashMap<>();
+        errorMsg.put("error", response.getErrorDetail());
+        response.setMsg(errorMsg);
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .header("X-Request-Id", requestId)
+                .header("X-Error-Code", response.getErrorCode())
+                .body(response);
+    }
+
     /**
      * 处理文件存储异常
      * 
@@ -0,0 +1,28 @@
+package webcam.exception;
+
+/**
+ * 服务过载异常
+ * 当并发请求数和等待队列均已达到上限时抛出，响应429状态码并通过Retry-After提示客户端稍后重试
+ * 
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    /**
+     * 使用错误消息和建议重试间隔构造异常
+     * 
+     * @param message           错误消息
+     * @param retryAfterSeconds 建议客户端等待的秒数
+     */
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
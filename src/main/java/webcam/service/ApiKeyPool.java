@@ -0,0 +1,337 @@
+package webcam.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+import webcam.config.ApiKeyPoolProperties;
+import webcam.exception.DependencyUnavailableException;
+import webcam.util.RetryAfter;
+import webcam.util.TokenBucket;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * API Key池
+ * 每个Key有自己的令牌桶（每秒请求数）和并发上限，请求交给当前有余量且占用率最低的Key；
+ * 返回429或配额错误的Key在冷却期内不再使用，但最后一个未冷却的Key不进入冷却（例如只有一个Key时），
+ * 由RateLimitService按Retry-After或退避时间重试。所有Key都没有余量时最多等待maxWait，仍没有则快速失败
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class ApiKeyPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyPool.class);
+
+    private final String name;
+    private final List<KeyState> keys = new ArrayList<>();
+    private final long cooldownNanos;
+    private final long maxWaitNanos;
+    private final LongSupplier clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    // 占用率相同时从上次选中的下一个Key开始，使流量轮流分布
+    private int next;
+
+    private final AtomicLong waited = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param name           名称，用于日志和错误信息
+     * @param properties     Key池配置
+     * @param fallbackApiKey 没有配置keys时使用的单个Key
+     */
+    public ApiKeyPool(String name, ApiKeyPoolProperties properties, String fallbackApiKey) {
+        this(name, properties, fallbackApiKey, System::nanoTime);
+    }
+
+    ApiKeyPool(String name, ApiKeyPoolProperties properties, String fallbackApiKey, LongSupplier clock) {
+        this.name = name;
+        this.cooldownNanos = properties.getCooldown().toNanos();
+        this.maxWaitNanos = properties.getMaxWait().toNanos();
+        this.clock = clock;
+        long now = clock.getAsLong();
+        if (properties.getKeys().isEmpty()) {
+            ApiKeyPoolProperties.Key key = new ApiKeyPoolProperties.Key();
+            key.setApiKey(fallbackApiKey);
+            keys.add(new KeyState(key, now));
+        } else {
+            for (ApiKeyPoolProperties.Key key : properties.getKeys()) {
+                keys.add(new KeyState(key, now));
+            }
+        }
+    }
+
+    /**
+     * 用一个有余量的Key执行调用
+     * 调用抛出429或配额错误时该Key进入冷却（最后一个未冷却的Key除外），异常原样抛出
+     *
+     * @param call 以API Key为参数的调用
+     * @return 调用结果
+     * @throws DependencyUnavailableException 等待maxWait后仍没有可用的Key时
+     */
+    public <T> T execute(Function<String, T> call) {
+        Lease lease = acquire();
+        try {
+            return call.apply(lease.apiKey());
+        } catch (RuntimeException e) {
+            lease.failed(e);
+            throw e;
+        } finally {
+            lease.release();
+        }
+    }
+
+    /**
+     * 占用一个有余量的Key，直到调用release()
+     * 用于跨越多次调用的长任务（如动漫化任务从提交到结束）
+     *
+     * @return Key的占用
+     * @throws DependencyUnavailableException 等待maxWait后仍没有可用的Key时
+     */
+    public Lease acquire() {
+        return new Lease(acquireKey());
+    }
+
+    private KeyState acquireKey() {
+        long deadline = clock.getAsLong() + maxWaitNanos;
+        boolean counted = false;
+        lock.lock();
+        try {
+            while (true) {
+                long now = clock.getAsLong();
+                KeyState chosen = null;
+                long soonest = Long.MAX_VALUE;
+                for (int i = 0; i < keys.size(); i++) {
+                    KeyState key = keys.get((next + i) % keys.size());
+                    if (key.coolingUntil - now > 0) {
+                        soonest = Math.min(soonest, key.coolingUntil - now);
+                        continue;
+                    }
+                    if (key.maxConcurrent > 0 && key.inFlight >= key.maxConcurrent) {
+                        // 等待其他请求归还
+                        continue;
+                    }
+                    long tokenWait = key.bucket != null ? key.bucket.nanosUntilAvailable(now) : 0;
+                    if (tokenWait > 0) {
+                        soonest = Math.min(soonest, tokenWait);
+                        continue;
+                    }
+                    if (chosen == null || key.utilization() < chosen.utilization()) {
+                        chosen = key;
+                    }
+                }
+                if (chosen != null) {
+                    if (chosen.bucket != null) {
+                        chosen.bucket.tryTake(now);
+                    }
+                    chosen.inFlight++;
+                    chosen.acquired.incrementAndGet();
+                    next = (keys.indexOf(chosen) + 1) % keys.size();
+                    return chosen;
+                }
+
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    rejected.incrementAndGet();
+                    long retryAfterNanos = soonest != Long.MAX_VALUE ? soonest : TimeUnit.SECONDS.toNanos(1);
+                    throw new DependencyUnavailableException(name + "的API Key均已达到限额", "dashscope",
+                            Math.max(1, (int) Math.ceil(retryAfterNanos / 1_000_000_000.0)));
+                }
+                if (!counted) {
+                    waited.incrementAndGet();
+                    counted = true;
+                }
+                released.awaitNanos(Math.min(remaining, soonest));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DependencyUnavailableException("等待API Key时被中断", "dashscope", 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(KeyState key) {
+        lock.lock();
+        try {
+            key.inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void coolDown(KeyState key, long cooldownNanos) {
+        boolean last;
+        lock.lock();
+        try {
+            key.throttled.incrementAndGet();
+            long now = clock.getAsLong();
+            last = true;
+            for (KeyState other : keys) {
+                if (other != key && other.coolingUntil - now <= 0) {
+                    last = false;
+                    break;
+                }
+            }
+            // 冷却最后一个可用的Key只会让之后的调用都等待maxWait后失败，重试时机交给RateLimitService
+            if (!last) {
+                key.coolingUntil = now + cooldownNanos;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (last) {
+            logger.warn("API key {} of {} throttled, not cooling down the last available key", key.id, name);
+        } else {
+            logger.warn("API key {} of {} throttled, cooling down for {}s", key.id, name,
+                    TimeUnit.NANOSECONDS.toSeconds(cooldownNanos));
+        }
+    }
+
+    /**
+     * 判断是否是429或配额错误（包括被包装为其他异常的HTTP错误）
+     *
+     * @return 冷却时间（纳秒）；不是配额错误时返回0
+     */
+    private long quotaCooldownNanos(Throwable e) {
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof HttpStatusCodeException)) {
+            cause = cause.getCause();
+        }
+        if (!(cause instanceof HttpStatusCodeException status)) {
+            return 0;
+        }
+        String body = status.getResponseBodyAsString();
+        boolean quota = status.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()
+                || (status.getStatusCode().is4xxClientError()
+                        && (body.contains("Throttling") || body.contains("Quota")));
+        if (!quota) {
+            return 0;
+        }
+        long retryAfterMillis = RetryAfter.millis(status.getResponseHeaders(), System.currentTimeMillis());
+        return retryAfterMillis >= 0 ? TimeUnit.MILLISECONDS.toNanos(Math.max(1, retryAfterMillis)) : cooldownNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * @return 每个Key的占用、限额、冷却状态，以及等待和拒绝次数
+     */
+    public Map<String, Object> getMetrics() {
+        List<Map<String, Object>> keyMetrics = new ArrayList<>(keys.size());
+        lock.lock();
+        try {
+            long now = clock.getAsLong();
+            for (KeyState key : keys) {
+                Map<String, Object> metrics = new LinkedHashMap<>();
+                metrics.put("key", key.id);
+                metrics.put("inFlight", key.inFlight);
+                metrics.put("maxConcurrent", key.maxConcurrent);
+                metrics.put("utilization", Math.round(key.utilization() * 100) / 100.0);
+                metrics.put("ratePerSecond", key.bucket != null ? key.bucket.getRatePerSecond() : 0.0);
+                metrics.put("acquired", key.acquired.get());
+                metrics.put("throttled", key.throttled.get());
+                metrics.put("coolingDownMillis", Math.max(0, TimeUnit.NANOSECONDS.toMillis(key.coolingUntil - now)));
+                keyMetrics.add(metrics);
+            }
+        } finally {
+            lock.unlock();
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("keys", keyMetrics);
+        metrics.put("waited", waited.get());
+        metrics.put("rejected", rejected.get());
+        return metrics;
+    }
+
+    /**
+     * 一个Key的占用，release()可以重复调用
+     */
+    public final class Lease {
+        private final KeyState key;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(KeyState key) {
+            this.key = key;
+        }
+
+        public String apiKey() {
+            return key.apiKey;
+        }
+
+        /**
+         * 记录使用该Key的调用失败；429或配额错误时该Key进入冷却（最后一个未冷却的Key除外）
+         */
+        public void failed(Throwable e) {
+            long cooldown = quotaCooldownNanos(e);
+            if (cooldown > 0) {
+                coolDown(key, cooldown);
+            }
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                ApiKeyPool.this.release(key);
+            }
+        }
+    }
+
+    /**
+     * 单个Key的状态，inFlight和coolingUntil只在持有锁时访问
+     */
+    private static final class KeyState {
+        final String apiKey;
+        final String id;
+        final int maxConcurrent;
+        final TokenBucket bucket;
+        int inFlight;
+        long coolingUntil;
+        final AtomicLong acquired = new AtomicLong();
+        final AtomicLong throttled = new AtomicLong();
+
+        KeyState(ApiKeyPoolProperties.Key key, long now) {
+            this.apiKey = key.getApiKey();
+            this.id = mask(key.getApiKey());
+            this.maxConcurrent = Math.max(0, key.getMaxConcurrent());
+            this.bucket = key.getRatePerSecond() > 0 ? new TokenBucket(key.getRatePerSecond(), key.getBurst(), now) : null;
+            this.coolingUntil = now;
+        }
+
+        /**
+         * 并发占用率；不限并发的Key按进行中的请求数折算，使流量仍然分散
+         */
+        double utilization() {
+            return maxConcurrent > 0 ? (double) inFlight / maxConcurrent : inFlight / 1000.0;
+        }
+
+        /**
+         * 指标中只显示Key的末4位
+         */
+        private static String mask(String apiKey) {
+            if (apiKey == null || apiKey.length() <= 4) {
+                return "****";
+            }
+            return "****" + apiKey.substring(apiKey.length() - 4);
+        }
+    }
+}
@@ -30,5 +30,23 @@ public interface CartoonImageService {
      * @throws webcam.exception.BailianApiException 当API调用失败时
      */
     CartoonImageResult generateCartoonImageFromUrl(String userImageUrl);
-}
 
+    /**
+     * 提交卡通图片生成任务，不等待结果
+     * 百炼任务提交后立即返回，任务状态由共用的轮询器在后台跟踪
+     *
+     * @param userImageUrl 用户图片的URL
+     * @return 任务
+     * @throws webcam.exception.BailianApiException 当任务提交失败时
+     * @throws webcam.exception.ServiceOverloadedException 当进行中的任务数达到上限时
+     */
+    CartoonJob submitCartoonJob(String userImageUrl);
+
+    /**
+     * 查询任务
+     *
+     * @param jobId 任务ID
+     * @return 任务；不存在或结果已过期时返回null
+     */
+    CartoonJob getCartoonJob(String jobId);
+}
@@ -0,0 +1,81 @@
+package webcam.service;
+
+import webcam.dto.CartoonImageResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 卡通图片生成任务
+ * 任务提交后立即返回，结果由任务轮询器和结果处理线程在后台完成
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class CartoonJob {
+
+    /**
+     * 任务状态
+     */
+    public enum Status {
+        RUNNING, SUCCEEDED, FAILED
+    }
+
+    private final String id;
+    private final long createdAt;
+    private final CompletableFuture<CartoonImageResult> result;
+
+    /**
+     * @param id     任务ID
+     * @param result 生成结果，失败时以异常完成
+     */
+    public CartoonJob(String id, CompletableFuture<CartoonImageResult> result) {
+        this.id = id;
+        this.createdAt = System.currentTimeMillis();
+        this.result = result;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public CompletableFuture<CartoonImageResult> getResult() {
+        return result;
+    }
+
+    public Status getStatus() {
+        if (!result.isDone()) {
+            return Status.RUNNING;
+        }
+        return result.isCompletedExceptionally() ? Status.FAILED : Status.SUCCEEDED;
+    }
+
+    /**
+     * @return 成功时的结果；未完成或失败时返回null
+     */
+    public CartoonImageResult getResultIfSucceeded() {
+        return getStatus() == Status.SUCCEEDED ? result.join() : null;
+    }
+
+    /**
+     * @return 失败原因；未完成或成功时返回null
+     */
+    public String getError() {
+        if (getStatus() != Status.FAILED) {
+            return null;
+        }
+        try {
+            result.join();
+            return null;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return cause.getMessage();
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package webcam.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import webcam.dto.TaskOutput;
+import webcam.exception.BailianApiException;
+import webcam.util.LongHistogram;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * 百炼异步任务轮询器
+ * 所有进行中的任务登记在同一个调度器上，调度线程只负责计时，到期的查询请求交给查询执行器发出，
+ * 个别查询响应慢时不会推迟其他任务的轮询；两次查询之间不为任务占用线程。
+ * 轮询间隔按已完成任务的完成时间分布自适应：依次在完成时间的p25、p50、p75、p90、p95、p99处查询，
+ * 超过p99后按已等待时间的1/4查询；样本不足时按固定的初始间隔查询
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class CartoonTaskPoller {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartoonTaskPoller.class);
+
+    private static final double[] PERCENTILES = {25, 50, 75, 90, 95, 99};
+    // 完成时间样本达到该数量后才按分布安排轮询
+    private static final int MIN_SAMPLES = 10;
+
+    private final ScheduledExecutorService scheduler;
+    private final Executor queryExecutor;
+    private final BiFunction<String, String, TaskOutput> statusClient;
+    private final long initialMillis;
+    private final long minMillis;
+    private final long maxMillis;
+    private final long timeoutMillis;
+
+    private final LongHistogram completionMillis = new LongHistogram();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder pollErrors = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * @param threads         调度线程数
+     * @param initialInterval 完成时间样本不足时的轮询间隔
+     * @param minInterval     最短轮询间隔
+     * @param maxInterval     最长轮询间隔
+     * @param timeout         任务从登记起的最长时间
+     * @param statusClient    以task_id和API Key查询任务状态，HTTP错误以异常抛出
+     * @param queryExecutor   执行查询请求的执行器（由调用方管理生命周期）
+     */
+    public CartoonTaskPoller(int threads, Duration initialInterval, Duration minInterval, Duration maxInterval,
+            Duration timeout, BiFunction<String, String, TaskOutput> statusClient, Executor queryExecutor) {
+        AtomicInteger counter = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "cartoon-poller-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.statusClient = statusClient;
+        this.queryExecutor = queryExecutor;
+        this.minMillis = Math.max(1, minInterval.toMillis());
+        this.maxMillis = Math.max(minMillis, maxInterval.toMillis());
+        this.initialMillis = initialInterval.toMillis();
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * 登记已提交的任务
+     *
+     * @param taskId 任务ID
+     * @param apiKey 提交任务使用的API Key，查询使用同一个Key
+     * @return 任务成功时以结果图片URL完成；任务失败、超时或查询返回4xx时以BailianApiException异常完成
+     */
+    public CompletableFuture<String> track(String taskId, String apiKey) {
+        Task task = new Task(taskId, apiKey);
+        outstanding.incrementAndGet();
+        task.future.whenComplete((url, error) -> outstanding.decrementAndGet());
+        schedule(task, nextDelayMillis(0));
+        return task.future;
+    }
+
+    /**
+     * @return 进行中的任务数
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    private void schedule(Task task, long delayMillis) {
+        long remaining = Math.max(0, timeoutMillis - task.ageMillis());
+        try {
+            scheduler.schedule(() -> dispatch(task), Math.min(delayMillis, remaining), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            task.future.completeExceptionally(new BailianApiException("卡通任务调度器已关闭"));
+        }
+    }
+
+    /**
+     * 在调度线程上调用：把到期的查询交给查询执行器，调度线程不等待响应
+     */
+    private void dispatch(Task task) {
+        try {
+            queryExecutor.execute(() -> poll(task));
+        } catch (RejectedExecutionException e) {
+            task.future.completeExceptionally(new BailianApiException("卡通任务查询执行器已关闭"));
+        }
+    }
+
+    private void poll(Task task) {
+        if (task.future.isDone()) {
+            return;
+        }
+        polls.increment();
+        try {
+            TaskOutput output = statusClient.apply(task.taskId, task.apiKey);
+            task.consecutiveErrors = 0;
+            if (output != null && output.isSucceeded()) {
+                long age = task.ageMillis();
+                String url = output.firstResultUrl();
+                if (url == null) {
+                    failed.increment();
+                    task.future.completeExceptionally(new BailianApiException("卡通图片任务没有返回结果图片"));
+                    return;
+                }
+                completionMillis.record(age);
+                succeeded.increment();
+                logger.debug("Cartoon task {} succeeded after {} ms", task.taskId, age);
+                task.future.complete(url);
+                return;
+            }
+            if (output != null && output.isFailed()) {
+                failed.increment();
+                String errorMsg = output.message() != null ? output.message() : "任务执行失败";
+                task.future.completeExceptionally(new BailianApiException("卡通图片生成任务失败: " + errorMsg));
+                return;
+            }
+            // PENDING或RUNNING状态，继续轮询
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode().value() != HttpStatus.TOO_MANY_REQUESTS.value()) {
+                failed.increment();
+                task.future.completeExceptionally(
+                        new BailianApiException("查询卡通图片任务失败: " + e.getStatusCode(), e));
+                return;
+            }
+            pollErrors.increment();
+            task.consecutiveErrors++;
+        } catch (RuntimeException e) {
+            // 网络错误和5xx在超时前继续重试
+            pollErrors.increment();
+            task.consecutiveErrors++;
+            logger.debug("Error polling cartoon task {}: {}", task.taskId, e.getMessage());
+        }
+
+        long age = task.ageMillis();
+        if (age >= timeoutMillis) {
+            timedOut.increment();
+            task.future.completeExceptionally(new BailianApiException("轮询任务超时，task_id: " + task.taskId));
+            return;
+        }
+        long delay = nextDelayMillis(age);
+        if (task.consecutiveErrors > 0) {
+            // 查询出错时按指数退避，避免对出错的服务持续发出查询
+            delay = Math.max(delay, Math.min(maxMillis, minMillis << Math.min(task.consecutiveErrors, 16)));
+        }
+        schedule(task, delay);
+    }
+
+    /**
+     * 计算下一次轮询的等待时间
+     *
+     * @param ageMillis 任务已进行的时间
+     * @return 等待毫秒数，在最短和最长轮询间隔之间
+     */
+    long nextDelayMillis(long ageMillis) {
+        if (completionMillis.getCount() < MIN_SAMPLES) {
+            return clamp(initialMillis);
+        }
+        for (double percentile : PERCENTILES) {
+            long expected = completionMillis.percentile(percentile);
+            if (expected >= ageMillis + minMillis) {
+                return clamp(expected - ageMillis);
+            }
+        }
+        // 已超过绝大多数任务的完成时间
+        return clamp(ageMillis / 4);
+    }
+
+    /**
+     * 记录一个任务的完成时间
+     */
+    void recordCompletion(long millis) {
+        completionMillis.record(millis);
+    }
+
+    private long clamp(long millis) {
+        return Math.min(maxMillis, Math.max(minMillis, millis));
+    }
+
+    /**
+     * @return 进行中的任务数、轮询次数、任务结果计数和完成时间分布
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long finished = succeeded.sum() + failed.sum() + timedOut.sum();
+        metrics.put("outstanding", outstanding.get());
+        metrics.put("polls", polls.sum());
+        metrics.put("pollErrors", pollErrors.sum());
+        metrics.put("pollsPerTask", finished > 0 ? Math.round(polls.sum() * 10.0 / finished) / 10.0 : 0.0);
+        metrics.put("succeeded", succeeded.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("timedOut", timedOut.sum());
+        metrics.put("completionMillis", completionMillis.snapshot());
+        return metrics;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static final class Task {
+        final String taskId;
+        final String apiKey;
+        final long startNanos = System.nanoTime();
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        // 同一任务的查询完成后才安排下一次，不会并发访问
+        int consecutiveErrors;
+
+        Task(String taskId, String apiKey) {
+            this.taskId = taskId;
+            this.apiKey = apiKey;
+        }
+
+        long ageMillis() {
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package webcam.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.web.client.RequestCallback;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 携带图像的百炼API请求体写入器
+ * 请求体中除图像外的部分（模型、提示词、温度、风格等）只用JsonGenerator序列化一次并缓存为字节，
+ * 每次请求依次写出前缀、经Base64编码器流式写出的图像和后缀，直接写入HTTP输出流；
+ * 不再构建Map请求树，也不再生成Base64字符串和data URI拼接字符串。
+ * 模板中可以有多个图像占位符（多图请求），写出时按顺序填入图像
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class DashScopeRequestWriter {
+
+    /**
+     * 模板中图像所在位置的占位字符串
+     */
+    public static final String IMAGE_PLACEHOLDER = "__WEBCAM_IMAGE_DATA__";
+
+    /**
+     * 请求体模板：使用JsonGenerator写出完整请求体，图像位置写入IMAGE_PLACEHOLDER字符串
+     */
+    @FunctionalInterface
+    public interface BodyTemplate {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    // 占位符之间的模板片段，片段数为图像数+1；除最后一个外均以data URI前缀结尾
+    private final byte[][] segments;
+
+    /**
+     * @param jsonFactory JSON工厂（通常取自ObjectMapper）
+     * @param mediaType   图像的媒体类型，用于data URI
+     * @param template    请求体模板
+     */
+    public DashScopeRequestWriter(JsonFactory jsonFactory, String mediaType, BodyTemplate template) {
+        byte[] body;
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try (JsonGenerator generator = jsonFactory.createGenerator(output)) {
+                template.write(generator);
+            }
+            body = output.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("无法序列化请求体模板", e);
+        }
+
+        byte[] placeholder = IMAGE_PLACEHOLDER.getBytes(StandardCharsets.US_ASCII);
+        byte[] dataUri = ("data:" + mediaType + ";base64,").getBytes(StandardCharsets.US_ASCII);
+        List<byte[]> parts = new ArrayList<>();
+        int start = 0;
+        int index;
+        while ((index = indexOf(body, placeholder, start)) >= 0) {
+            byte[] part = Arrays.copyOfRange(body, start, index + dataUri.length);
+            System.arraycopy(dataUri, 0, part, index - start, dataUri.length);
+            parts.add(part);
+            start = index + placeholder.length;
+        }
+        if (parts.isEmpty()) {
+            throw new IllegalArgumentException("请求体模板中缺少图像占位符");
+        }
+        parts.add(Arrays.copyOfRange(body, start, body.length));
+        this.segments = parts.toArray(new byte[0][]);
+    }
+
+    /**
+     * @return 模板中的图像数
+     */
+    public int imageCount() {
+        return segments.length - 1;
+    }
+
+    /**
+     * 写出请求体
+     *
+     * @param output 输出流
+     * @param image  图像字节
+     */
+    public void writeTo(OutputStream output, byte[] image) throws IOException {
+        writeTo(output, List.of(image));
+    }
+
+    /**
+     * 写出多图请求体
+     *
+     * @param output 输出流
+     * @param images 图像字节，数量必须与模板中的占位符数相同
+     */
+    public void writeTo(OutputStream output, List<byte[]> images) throws IOException {
+        checkImageCount(images);
+        for (int i = 0; i < images.size(); i++) {
+            output.write(segments[i]);
+            // Base64字符均无需JSON转义，可直接写入字符串值内部
+            OutputStream encoder = Base64.getEncoder().wrap(new NonClosingOutputStream(output));
+            encoder.write(images.get(i));
+            encoder.close();
+        }
+        output.write(segments[images.size()]);
+    }
+
+    /**
+     * 计算请求体长度
+     *
+     * @param images 图像字节，数量必须与模板中的占位符数相同
+     * @return 请求体字节数
+     */
+    public long contentLength(List<byte[]> images) {
+        checkImageCount(images);
+        long length = 0;
+        for (byte[] segment : segments) {
+            length += segment.length;
+        }
+        for (byte[] image : images) {
+            length += 4 * ((image.length + 2L) / 3);
+        }
+        return length;
+    }
+
+    /**
+     * 创建以流式方式写出请求体的RequestCallback
+     * 请求支持流式输出时，请求体在连接建立后直接写入连接，不经过中间缓冲
+     *
+     * @param headers 额外的请求头（如Authorization）
+     * @param image   图像字节
+     * @return RequestCallback
+     */
+    public RequestCallback requestCallback(HttpHeaders headers, byte[] image) {
+        return requestCallback(headers, List.of(image));
+    }
+
+    /**
+     * 创建写出多图请求体的RequestCallback
+     *
+     * @param headers 额外的请求头（如Authorization）
+     * @param images  图像字节，数量必须与模板中的占位符数相同
+     * @return RequestCallback
+     */
+    public RequestCallback requestCallback(HttpHeaders headers, List<byte[]> images) {
+        checkImageCount(images);
+        return request -> {
+            request.getHeaders().putAll(headers);
+            request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            request.getHeaders().setContentLength(contentLength(images));
+            if (request instanceof StreamingHttpOutputMessage streaming) {
+                streaming.setBody(output -> writeTo(output, images));
+            } else {
+                writeTo(request.getBody(), images);
+            }
+        };
+    }
+
+    private void checkImageCount(List<byte[]> images) {
+        if (images.size() != imageCount()) {
+            throw new IllegalArgumentException("请求体模板需要" + imageCount() + "张图像，实际为" + images.size());
+        }
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern, int from) {
+        outer:
+        for (int i = from; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 关闭Base64编码器时写出末尾填充，但不关闭底层的HTTP输出流
+     */
+    private static final class NonClosingOutputStream extends OutputStream {
+
+        private final OutputStream delegate;
+
+        NonClosingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package webcam.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import webcam.dto.ChatCompletionResponse;
+import webcam.dto.TaskStatusResponse;
+import webcam.dto.TaskSubmitResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * 百炼API响应读取器
+ * 使用预先构建的ObjectReader把响应直接绑定到record DTO，不经过JsonNode树；
+ * 对chat.completion响应另提供流式读取，只提取choices[0].message.content、error和usage，其余部分直接跳过
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class DashScopeResponseReader {
+
+    private final ObjectReader chatCompletionReader;
+    private final ObjectReader errorReader;
+    private final ObjectReader usageReader;
+    private final ObjectReader taskSubmitReader;
+    private final ObjectReader taskStatusReader;
+
+    public DashScopeResponseReader(ObjectMapper objectMapper) {
+        this.chatCompletionReader = objectMapper.readerFor(ChatCompletionResponse.class);
+        this.errorReader = objectMapper.readerFor(ChatCompletionResponse.ApiError.class);
+        this.usageReader = objectMapper.readerFor(ChatCompletionResponse.Usage.class);
+        this.taskSubmitReader = objectMapper.readerFor(TaskSubmitResponse.class);
+        this.taskStatusReader = objectMapper.readerFor(TaskStatusResponse.class);
+    }
+
+    /**
+     * 读取完整的chat.completion响应或流式chunk
+     */
+    public ChatCompletionResponse readChatCompletion(String json) throws IOException {
+        return chatCompletionReader.readValue(json);
+    }
+
+    /**
+     * 流式读取chat.completion响应，只保留choices[0].message.content、error和usage
+     *
+     * @param json 响应体
+     * @return 只包含上述字段的响应
+     */
+    public ChatCompletionResponse readChatContent(String json) throws IOException {
+        try (JsonParser parser = chatCompletionReader.createParser(json)) {
+            return readChatContent(parser);
+        }
+    }
+
+    /**
+     * 流式读取chat.completion响应，边读取HTTP响应体边解析
+     *
+     * @param input 响应体输入流
+     * @return 只包含choices[0].message.content、error和usage的响应
+     */
+    public ChatCompletionResponse readChatContent(InputStream input) throws IOException {
+        try (JsonParser parser = chatCompletionReader.createParser(input)) {
+            return readChatContent(parser);
+        }
+    }
+
+    public TaskSubmitResponse readTaskSubmit(String json) throws IOException {
+        return taskSubmitReader.readValue(json);
+    }
+
+    public TaskStatusResponse readTaskStatus(String json) throws IOException {
+        return taskStatusReader.readValue(json);
+    }
+
+    private ChatCompletionResponse readChatContent(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Chat completion response is not a JSON object");
+        }
+        String content = null;
+        ChatCompletionResponse.ApiError error = null;
+        ChatCompletionResponse.Usage usage = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                content = readFirstChoiceContent(parser);
+            } else if ("error".equals(field) && value == JsonToken.START_OBJECT) {
+                error = errorReader.readValue(parser);
+            } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                usage = usageReader.readValue(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        List<ChatCompletionResponse.Choice> choices = content == null ? List.of()
+                : List.of(new ChatCompletionResponse.Choice(
+                        new ChatCompletionResponse.Message("assistant", content), null, null));
+        return new ChatCompletionResponse(choices, error, usage);
+    }
+
+    /**
+     * 解析choices数组：只读取第一个元素的message.content，其余元素跳过
+     * 调用时解析器位于START_ARRAY，返回时位于对应的END_ARRAY
+     */
+    private static String readFirstChoiceContent(JsonParser parser) throws IOException {
+        String content = null;
+        boolean first = true;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (first && parser.currentToken() == JsonToken.START_OBJECT) {
+                content = readObjectField(parser, "message", true);
+            } else {
+                parser.skipChildren();
+            }
+            first = false;
+        }
+        return content;
+    }
+
+    /**
+     * 在当前对象中查找字段；nested为true时该字段应为对象，继续在其中查找content字符串
+     * 调用时解析器位于START_OBJECT，返回时位于对应的END_OBJECT
+     */
+    private static String readObjectField(JsonParser parser, String name, boolean nested) throws IOException {
+        String result = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals(name)) {
+                if (nested && value == JsonToken.START_OBJECT) {
+                    result = readObjectField(parser, "content", false);
+                    continue;
+                }
+                if (!nested && value == JsonToken.VALUE_STRING) {
+                    result = parser.getText();
+                    continue;
+                }
+            }
+            parser.skipChildren();
+        }
+        return result;
+    }
+}
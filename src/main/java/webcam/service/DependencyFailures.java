@@ -0,0 +1,56 @@
+package webcam.service;
+
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import webcam.exception.ClientDisconnectedException;
+import webcam.exception.DependencyUnavailableException;
+import webcam.util.AbortHandle;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 外部依赖调用失败的分类
+ * 只有5xx、I/O错误和超时说明依赖本身出了问题，计入熔断器和路由的失败统计；
+ * 4xx（请求参数错误、限流）、客户端断开、对冲中被中止的请求以及本地的熔断/舱壁/限速拒绝都不计入
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class DependencyFailures {
+
+    private DependencyFailures() {
+    }
+
+    /**
+     * 判断异常是否为外部依赖故障
+     * 沿异常链查找第一个可判断的异常，包装异常（如BailianApiException）按其原因判断
+     *
+     * @param error 调用抛出的异常
+     * @return 是否计为依赖故障
+     */
+    public static boolean isDependencyFailure(Throwable error) {
+        // 当前线程上的请求被主动中止（对冲中落后的一方），连接断开造成的I/O错误不说明依赖故障
+        if (AbortHandle.isCurrentAborted()) {
+            return false;
+        }
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ClientDisconnectedException || t instanceof DependencyUnavailableException) {
+                return false;
+            }
+            if (t instanceof HttpStatusCodeException e) {
+                return e.getStatusCode().is5xxServerError();
+            }
+            if (t instanceof SdkServiceException e) {
+                return e.statusCode() >= 500;
+            }
+            if (t instanceof ResourceAccessException || t instanceof SdkClientException
+                    || t instanceof IOException || t instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
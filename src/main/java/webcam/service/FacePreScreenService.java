@@ -0,0 +1,32 @@
+package webcam.service;
+
+/**
+ * 人脸预筛服务接口
+ * 在调用视觉模型之前用CPU快速判断画面是否可能包含清晰的人脸，排除明显无望的帧以节省模型调用
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public interface FacePreScreenService {
+
+    /**
+     * 预筛结果
+     *
+     * @param passed     是否需要调用视觉模型
+     * @param confidence 画面包含清晰人脸的置信度（0-1）；未启用或无法判断时为1
+     * @param reason     未通过的原因（too-dark、too-bright、blurry、no-face），通过时为null
+     */
+    record Verdict(boolean passed, double confidence, String reason) {
+
+        public static final Verdict PASS = new Verdict(true, 1.0, null);
+    }
+
+    /**
+     * 预筛图像
+     * 图像无法解码时放行，交由视觉模型判断
+     *
+     * @param imageBytes 待分析的图像字节
+     * @return 预筛结果
+     */
+    Verdict screen(byte[] imageBytes);
+}
@@ -2,6 +2,8 @@ package webcam.service;
 
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 
 /**
  * 人脸识别服务接口
@@ -14,6 +16,8 @@ public interface FaceRecognitionService {
 
     /**
      * 调用阿里云百炼API进行人脸检测和健康分析
+     * 启用两阶段模式时，人脸属性调用完成后立即返回；健康分析和夸奖内容尚未生成时，
+     * 结果中不包含healthAnalysis和praise，而是包含narrativeId，通过{@link #findNarrative(String)}获取
      * 
      * @param imagePath 图像文件路径
      * @return 包含人脸属性和健康分析的Map (gender, age, smile, eyestatus, healthAnalysis等)
@@ -21,6 +25,26 @@ public interface FaceRecognitionService {
      */
     Map<String, Object> detectFaceAttributes(Path imagePath);
 
+    /**
+     * 查找两阶段分析中延迟生成的健康分析和夸奖内容
+     *
+     * @param narrativeId detectFaceAttributes结果中的narrativeId
+     * @return 完成后得到healthAnalysis和praise的Future，调用失败时异常完成；
+     *         ID未知或已过期时返回null
+     */
+    CompletableFuture<Map<String, Object>> findNarrative(String narrativeId);
+
+    /**
+     * 以流式模式调用阿里云百炼API，模型输出的JSON中每个字段一旦完整就立即回调
+     * 字段值已按与detectFaceAttributes相同的规则转换（性别、笑容、健康分析长度等）
+     *
+     * @param imagePath     图像文件路径
+     * @param fieldListener 字段回调，参数为字段名和转换后的值；在调用线程上执行
+     * @return 完整的人脸属性和健康分析Map，与detectFaceAttributes的返回值一致
+     * @throws webcam.exception.BailianApiException 当API调用失败时
+     */
+    Map<String, Object> streamFaceAttributes(Path imagePath, BiConsumer<String, Object> fieldListener);
+
     /**
      * 解析阿里云百炼API的响应
      * 
@@ -1,24 +1,52 @@
 package webcam.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.RestTemplate;
 import webcam.MapUtil;
+import webcam.config.ApiKeyPoolProperties;
 import webcam.config.BailianApiProperties;
+import webcam.config.FaceResultCacheProperties;
+import webcam.config.ThreadingProperties;
+import webcam.dto.ChatCompletionResponse;
+import webcam.dto.ModelUsage;
 import webcam.exception.BailianApiException;
+import webcam.exception.DependencyUnavailableException;
+import webcam.util.AbortHandle;
+import webcam.util.IncrementalJsonFieldParser;
+import webcam.util.JsonObjectSplitter;
+import webcam.util.PeakEwmaBalancer;
+import webcam.util.PerceptualHash;
+import webcam.util.VirtualThreads;
 
-import java.nio.file.Files;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * 人脸识别服务实现
@@ -28,75 +56,449 @@ import java.util.Map;
  * @version 2.0.0
  */
 @Service
-public class FaceRecognitionServiceImpl implements FaceRecognitionService {
+public class FaceRecognitionServiceImpl implements FaceRecognitionService, MetricsSource {
 
     private static final Logger logger = LoggerFactory.getLogger(FaceRecognitionServiceImpl.class);
 
+    private static final Pattern AGE_PATTERN = Pattern.compile("(\\d{1,3})岁|年龄[：:]\\s*(\\d{1,3})");
+
+    /**
+     * buildPrompt()要求的属性：规范化后的字段名（小写、去掉下划线和连字符）或中文字段名 -> 标准属性名
+     */
+    private static final Map<String, String> ATTRIBUTE_NAMES = Map.ofEntries(
+            Map.entry("gender", "gender"), Map.entry("性别", "gender"),
+            Map.entry("age", "age"), Map.entry("年龄", "age"),
+            Map.entry("smile", "smile"), Map.entry("笑容", "smile"), Map.entry("微笑", "smile"),
+            Map.entry("eyestatus", "eyestatus"), Map.entry("眼睛状态", "eyestatus"),
+            Map.entry("complexion", "complexion"), Map.entry("气色", "complexion"),
+            Map.entry("spirit", "spirit"), Map.entry("精神状态", "spirit"),
+            Map.entry("healthanalysis", "healthAnalysis"), Map.entry("健康分析", "healthAnalysis"),
+            Map.entry("praise", "praise"), Map.entry("夸奖", "praise"));
+
+    /**
+     * 两阶段模式中由第二次调用生成的字段
+     */
+    private static final List<String> NARRATIVE_FIELDS = List.of("healthAnalysis", "praise");
+
+    /**
+     * 单图和多图提示词共用的任务说明
+     */
+    private static final String FACE_TASKS =
+               "1. 识别人脸特征：\n" +
+               "   - 性别（男性/女性）\n" +
+               "   - 估计年龄（整数）\n" +
+               "   - 表情状态（是否微笑）\n" +
+               "   - 眼睛状态（是否戴眼镜、眼睛是否睁开等）\n" +
+               "   - 气色（红润/苍白/暗沉等）\n" +
+               "   - 精神状态（精神饱满/疲惫等）\n" +
+               "\n" +
+               "2. 健康分析：\n" +
+               "   - 基于观察到的人脸特征，分析可能的健康情况\n" +
+               "   - 提供健康建议（如需要）\n" +
+               "\n" +
+               "3. 生成夸奖内容：\n" +
+               "   - 基于观察到的人脸特征，生成一段60-80字的个性化夸奖内容\n" +
+               "   - 夸奖要真诚、自然、有针对性\n";
+
+    /**
+     * 单张照片的结果格式
+     */
+    private static final String RESULT_FORMAT =
+               "{\n" +
+               "  \"gender\": \"男性或女性\",\n" +
+               "  \"age\": 年龄数字,\n" +
+               "  \"smile\": \"是或否\",\n" +
+               "  \"eyestatus\": \"眼睛状态描述\",\n" +
+               "  \"complexion\": \"气色描述\",\n" +
+               "  \"spirit\": \"精神状态描述\",\n" +
+               "  \"healthAnalysis\": \"健康分析和建议（不超过600字）\",\n" +
+               "  \"praise\": \"个性化夸奖内容（60-80字）\"\n" +
+               "}";
+
     private final BailianApiProperties bailianApiProperties;
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final ImageStorageService imageStorageService;
+    private final ImageNormalizationService imageNormalizationService;
+    private final FaceResultCache resultCache;
+    private final DashScopeResponseReader responseReader;
+    // 候选模型，每次调用选择最近延迟得分最低的一个
+    private final PeakEwmaBalancer<Route> router;
+    // 按名称去重的Key池，未单独配置apiKey的候选模型共用一个
+    private final Map<String, ApiKeyPool> keyPools = new LinkedHashMap<>();
+    private final RequestHedgingService hedgingService;
+    private final ResilienceService resilienceService;
+    private final RateLimitService rateLimitService;
+    private final FacePreScreenService preScreenService;
+    private final UsageAccountingService usageAccounting;
+    private final AtomicLong hashFailures = new AtomicLong();
+
+    // 两阶段模式，未启用时均为null
+    private final ExecutorService narrativeExecutor;
+    private final PendingFieldStore pendingNarratives;
+
+    // 微批处理，未启用时为null
+    private final MicroBatcher<byte[], Analysis> batcher;
+
+    /**
+     * 一次模型调用的响应和用量
+     */
+    private record ModelCall(ChatCompletionResponse response, ModelUsage usage) {
+    }
+
+    /**
+     * 一张照片的分析结果和分摊到该照片的用量
+     */
+    private record Analysis(Map<String, Object> result, ModelUsage usage) {
+    }
+
+    /**
+     * 从模型返回内容中解析出的字段，以及内容是否为表示未检测到人脸的空对象
+     */
+    private record ParsedContent(Map<String, Object> fields, boolean emptyObject) {
+    }
+
+    /**
+     * 一个候选模型和接入点，以及为该模型序列化的请求体模板
+     * 两阶段模式和微批处理未启用时对应的模板为null；batchRequestWriters[n]为n张图像的请求模板
+     * 候选模型单独配置了apiKey时使用只有该Key的Key池，否则共用apiKey的Key池
+     */
+    private final class Route {
+        final String name;
+        final String endpoint;
+        final String model;
+        final ApiKeyPool keyPool;
+        final DashScopeRequestWriter requestWriter;
+        final DashScopeRequestWriter streamingRequestWriter;
+        final DashScopeRequestWriter attributeRequestWriter;
+        final DashScopeRequestWriter narrativeRequestWriter;
+        final DashScopeRequestWriter[] batchRequestWriters;
+
+        Route(String endpoint, String model, ApiKeyPool keyPool) {
+            this.endpoint = endpoint;
+            this.model = model;
+            this.keyPool = keyPool;
+            String host = URI.create(endpoint).getHost();
+            this.name = model + "@" + (host != null ? host : endpoint);
+
+            // 模型、提示词等请求参数在启动时序列化一次
+            this.requestWriter = newRequestWriter(generator -> writeRequestTemplate(generator, model, 1,
+                    buildPrompt(), bailianApiProperties.getMaxTokens(), false));
+            this.streamingRequestWriter = newRequestWriter(generator -> writeRequestTemplate(generator, model, 1,
+                    buildPrompt(), bailianApiProperties.getMaxTokens(), true));
+
+            BailianApiProperties.TwoPhase twoPhase = bailianApiProperties.getTwoPhase();
+            if (twoPhase.isEnabled()) {
+                this.attributeRequestWriter = newRequestWriter(generator -> writeRequestTemplate(generator, model, 1,
+                        buildAttributePrompt(), twoPhase.getAttributeMaxTokens(), false));
+                this.narrativeRequestWriter = newRequestWriter(generator -> writeRequestTemplate(generator, model, 1,
+                        buildNarrativePrompt(), bailianApiProperties.getMaxTokens(), false));
+            } else {
+                this.attributeRequestWriter = null;
+                this.narrativeRequestWriter = null;
+            }
+
+            BailianApiProperties.Batch batch = bailianApiProperties.getBatch();
+            if (batch.isEnabled() && batch.getMaxBatchSize() > 1) {
+                this.batchRequestWriters = new DashScopeRequestWriter[batch.getMaxBatchSize() + 1];
+                for (int size = 2; size <= batch.getMaxBatchSize(); size++) {
+                    int imageCount = size;
+                    Integer maxTokens = bailianApiProperties.getMaxTokens() != null
+                            ? bailianApiProperties.getMaxTokens() * imageCount : null;
+                    batchRequestWriters[size] = newRequestWriter(generator -> writeRequestTemplate(generator, model,
+                            imageCount, buildBatchPrompt(imageCount), maxTokens, false));
+                }
+            } else {
+                this.batchRequestWriters = null;
+            }
+        }
+    }
 
     @Autowired
     public FaceRecognitionServiceImpl(BailianApiProperties bailianApiProperties,
             RestTemplate restTemplate,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            ImageStorageService imageStorageService,
+            ImageNormalizationService imageNormalizationService,
+            FaceResultCacheProperties cacheProperties,
+            ThreadingProperties threadingProperties,
+            RequestHedgingService hedgingService,
+            ResilienceService resilienceService,
+            FacePreScreenService preScreenService,
+            UsageAccountingService usageAccounting,
+            RateLimitService rateLimitService) {
         this.bailianApiProperties = bailianApiProperties;
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
+        this.imageStorageService = imageStorageService;
+        this.imageNormalizationService = imageNormalizationService;
+        this.hedgingService = hedgingService;
+        this.resilienceService = resilienceService;
+        this.preScreenService = preScreenService;
+        this.usageAccounting = usageAccounting;
+        this.rateLimitService = rateLimitService;
+        this.resultCache = cacheProperties.isEnabled()
+                ? new FaceResultCache(cacheProperties.getMaxEntries(), cacheProperties.getMaxHammingDistance(),
+                        cacheProperties.getTtl().toMillis(), cacheProperties.getNegativeTtl().toMillis())
+                : null;
+        this.responseReader = new DashScopeResponseReader(objectMapper);
+        this.router = buildRouter(bailianApiProperties);
+
+        BailianApiProperties.TwoPhase twoPhase = bailianApiProperties.getTwoPhase();
+        if (twoPhase.isEnabled()) {
+            this.narrativeExecutor = VirtualThreads.newExecutor("face-narrative-",
+                    threadingProperties.isVirtual(), threadingProperties.getPlatformPoolSize());
+            this.pendingNarratives = new PendingFieldStore(twoPhase.getMaxPendingNarratives(),
+                    twoPhase.getNarrativeTtl().toMillis());
+        } else {
+            this.narrativeExecutor = null;
+            this.pendingNarratives = null;
+        }
+
+        BailianApiProperties.Batch batch = bailianApiProperties.getBatch();
+        if (batch.isEnabled() && batch.getMaxBatchSize() > 1) {
+            this.batcher = new MicroBatcher<>(batch.getMaxBatchSize(), batch.getMaxWait(),
+                    this::analyzeSingle, this::analyzeBatch);
+        } else {
+            this.batcher = null;
+        }
+    }
+
+    /**
+     * 由配置的候选模型创建路由；没有配置候选模型时只有endpoint、model对应的一个目标
+     */
+    private PeakEwmaBalancer<Route> buildRouter(BailianApiProperties properties) {
+        BailianApiProperties.Routing routing = properties.getRouting();
+        PeakEwmaBalancer<Route> balancer = new PeakEwmaBalancer<>(routing.getExplorationRatio(),
+                routing.getDecay().toNanos(), routing.getFailurePenalty().toNanos());
+        ApiKeyPoolProperties poolProperties = properties.getKeyPool();
+        ApiKeyPool sharedPool = new ApiKeyPool("bailian", poolProperties, properties.getApiKey());
+        if (properties.getTargets().isEmpty()) {
+            keyPools.put("bailian", sharedPool);
+            Route route = new Route(properties.getEndpoint(), properties.getModel(), sharedPool);
+            balancer.add(route.name, route, 1.0);
+            return balancer;
+        }
+        for (int i = 0; i < properties.getTargets().size(); i++) {
+            BailianApiProperties.Target target = properties.getTargets().get(i);
+            ApiKeyPool keyPool = sharedPool;
+            if (target.getApiKey() != null) {
+                // 单独的Key沿用Key池的冷却和等待设置
+                ApiKeyPoolProperties single = new ApiKeyPoolProperties();
+                single.setCooldown(poolProperties.getCooldown());
+                single.setMaxWait(poolProperties.getMaxWait());
+                keyPool = new ApiKeyPool("bailian-target-" + i, single, target.getApiKey());
+            }
+            keyPools.putIfAbsent(keyPool.getName(), keyPool);
+            Route route = new Route(
+                    target.getEndpoint() != null ? target.getEndpoint() : properties.getEndpoint(),
+                    target.getModel() != null ? target.getModel() : properties.getModel(),
+                    keyPool);
+            balancer.add(route.name, route, target.getWeight());
+            logger.info("Face analysis target {} (weight {})", route.name, target.getWeight());
+        }
+        return balancer;
+    }
+
+    private DashScopeRequestWriter newRequestWriter(DashScopeRequestWriter.BodyTemplate template) {
+        return new DashScopeRequestWriter(objectMapper.getFactory(), MediaType.IMAGE_JPEG_VALUE, template);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (narrativeExecutor != null) {
+            narrativeExecutor.shutdownNow();
+        }
     }
 
     @Override
     public Map<String, Object> detectFaceAttributes(Path imagePath) {
         try {
-            // 调用百炼API
-            String apiResponse = callBailianAPI(imagePath);
-            logger.debug("百炼API response: {}", apiResponse);
+            byte[] imageBytes = readForAnalysis(imagePath);
 
-            // 解析响应
-            return parseApiResponse(apiResponse);
+            // 近似图像（重拍、重复提交）直接复用缓存结果
+            Long hash = perceptualHash(imageBytes);
+            if (hash != null) {
+                Map<String, Object> cached = resultCache.get(hash);
+                if (cached != null) {
+                    logger.info("Face analysis served from cache for image: {}", imagePath);
+                    return cached;
+                }
+            }
 
+            // 明显无望的画面（全黑、过曝、模糊、没有人脸）不调用视觉模型，按未检测到人脸处理
+            if (!preScreenService.screen(imageBytes).passed()) {
+                return new HashMap<>();
+            }
+
+            if (pendingNarratives != null) {
+                return detectTwoPhase(imageBytes, hash);
+            }
+
+            // 调用百炼API并解析响应；启用微批处理时，排队中的请求合并为一次多图调用
+            Analysis analysis = batcher != null ? batcher.submit(imageBytes) : analyzeSingle(imageBytes);
+            RequestUsageScope.add(analysis.usage());
+            Map<String, Object> result = analysis.result();
+            if (hash != null) {
+                resultCache.put(hash, result);
+            }
+            return result;
+
+        } catch (DependencyUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error detecting face attributes for image: {}", imagePath, e);
             throw new BailianApiException("人脸检测失败", e);
         }
     }
 
+    /**
+     * 单张照片调用百炼API并解析结果
+     */
+    private Analysis analyzeSingle(byte[] imageBytes) {
+        ModelCall call = callBailianAPI("face", route -> route.requestWriter, imageBytes);
+        return new Analysis(buildResult(extractContent(call.response())), call.usage());
+    }
+
+    /**
+     * 多张照片合并为一次调用，模型返回与照片顺序对应的JSON数组
+     *
+     * @return 与输入顺序对应的结果，用量由各照片均摊；数组元素数与照片数不符时全部为null，由各请求单独重试
+     */
+    private List<Analysis> analyzeBatch(List<byte[]> images) {
+        ModelCall call = callBailianAPI("face-batch", images,
+                (route, headers) -> route.batchRequestWriters[images.size()].requestCallback(headers, images));
+        String content = extractContent(call.response());
+        ModelUsage share = call.usage().share(images.size());
+
+        List<Analysis> results = new ArrayList<>(images.size());
+        List<String> elements = JsonObjectSplitter.split(content);
+        if (elements.size() != images.size()) {
+            logger.warn("Batched analysis returned {} results for {} images, retrying individually",
+                    elements.size(), images.size());
+            for (int i = 0; i < images.size(); i++) {
+                results.add(null);
+            }
+            return results;
+        }
+        for (String element : elements) {
+            ParsedContent parsed = parseContent(element);
+            if (!parsed.fields().isEmpty() || parsed.emptyObject()) {
+                // 与单张分析使用同一规则：空对象表示该照片中没有人脸
+                results.add(new Analysis(buildResult(element, parsed), share));
+            } else {
+                results.add(null);
+            }
+        }
+        return results;
+    }
+
     @Override
-    public Map<String, Object> parseApiResponse(String apiResponse) {
+    public CompletableFuture<Map<String, Object>> findNarrative(String narrativeId) {
+        return pendingNarratives != null && narrativeId != null ? pendingNarratives.find(narrativeId) : null;
+    }
+
+    /**
+     * 两阶段分析：健康分析和夸奖内容的调用先提交到后台，当前线程只等待max_tokens较小的人脸属性调用
+     * 
+     * @return 人脸属性；健康分析和夸奖内容尚未生成时附带narrativeId
+     */
+    private Map<String, Object> detectTwoPhase(byte[] imageBytes, Long hash) {
+        CompletableFuture<Map<String, Object>> narrative = CompletableFuture.supplyAsync(
+                () -> buildNarrative(extractContent(
+                        callBailianAPI("face-narrative", route -> route.narrativeRequestWriter, imageBytes).response())),
+                narrativeExecutor);
+
+        Map<String, Object> result;
         try {
-            JsonNode apiJson = objectMapper.readTree(apiResponse);
-            Map<String, Object> resultData = new HashMap<>();
-
-            // 检查API响应是否成功（qwen3-vl-plus使用OpenAI兼容格式）
-            if (apiJson.has("error")) {
-                JsonNode error = apiJson.get("error");
-                String errorMsg = error.has("message") ? error.get("message").asText() : "API调用失败";
-                logger.error("百炼API返回错误: {}", errorMsg);
-                throw new BailianApiException("百炼API调用失败: " + errorMsg);
+            ModelCall call = callBailianAPI("face-attributes", route -> route.attributeRequestWriter, imageBytes);
+            // 健康分析和夸奖内容的调用在请求返回后才结束，不计入本次请求的用量
+            RequestUsageScope.add(call.usage());
+            String content = extractContent(call.response());
+            result = buildAttributes(content, parseContent(content));
+        } catch (RuntimeException e) {
+            // 已发出的第二次调用无法撤回，只是不再使用其结果
+            narrative.cancel(false);
+            throw e;
+        }
+        if (result.isEmpty()) {
+            // 未检测到人脸，不需要健康分析和夸奖内容
+            narrative.cancel(false);
+            if (hash != null) {
+                resultCache.put(hash, result);
             }
+            return result;
+        }
 
-            // 提取模型返回的文本内容
-            String content = extractContent(apiJson);
-            if (content == null || content.trim().isEmpty()) {
-                logger.info("No content returned from API");
-                return resultData;
+        Map<String, Object> attributes = Map.copyOf(result);
+        narrative.thenAccept(fields -> {
+            if (hash != null) {
+                Map<String, Object> complete = new HashMap<>(attributes);
+                complete.putAll(fields);
+                resultCache.put(hash, complete);
             }
+        });
+        Map<String, Object> ready = narrative.isDone() && !narrative.isCompletedExceptionally()
+                ? narrative.join() : null;
+        if (ready != null) {
+            result.putAll(ready);
+        } else {
+            result.put("narrativeId", pendingNarratives.register(narrative));
+        }
+        return result;
+    }
 
-            // 解析内容，提取结构化信息
-            parseContent(content, resultData);
-            
-            // 确保健康分析和夸奖内容存在
-            if (!resultData.containsKey("healthAnalysis")) {
-                String healthAnalysis = limitHealthAnalysisLength(content, bailianApiProperties.getMaxHealthAnalysisLength());
-                resultData.put("healthAnalysis", healthAnalysis);
+    @Override
+    public Map<String, Object> streamFaceAttributes(Path imagePath, BiConsumer<String, Object> fieldListener) {
+        try {
+            byte[] imageBytes = readForAnalysis(imagePath);
+
+            Long hash = perceptualHash(imageBytes);
+            if (hash != null) {
+                Map<String, Object> cached = resultCache.get(hash);
+                if (cached != null) {
+                    logger.info("Streaming face analysis served from cache for image: {}", imagePath);
+                    cached.forEach(fieldListener);
+                    return cached;
+                }
             }
-            
-            // 如果没有praise，使用默认值
-            if (!resultData.containsKey("praise")) {
-                resultData.put("praise", "你真棒！");
+
+            if (!preScreenService.screen(imageBytes).passed()) {
+                return new HashMap<>();
             }
 
-            return resultData;
+            // 流式解析得到的字段直接作为结果，结束后不再重新解析完整内容
+            Map<String, Object> parsed = new HashMap<>();
+            IncrementalJsonFieldParser parser = attributeParser((name, value) -> {
+                parsed.put(name, value);
+                fieldListener.accept(name, value);
+            });
+            ModelCall call = streamBailianAPI(imageBytes, parser);
+            RequestUsageScope.add(call.usage());
+            String content = call.response().firstMessageContent();
+            // 输出被max_tokens截断时补上最后一个未完成的字段
+            parser.finish();
+            logger.debug("百炼API streamed content: {}", content);
+
+            Map<String, Object> result = buildResult(content, new ParsedContent(parsed, parser.isEmptyObject()));
+            if (hash != null) {
+                resultCache.put(hash, result);
+            }
+            return result;
+
+        } catch (DependencyUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error streaming face attributes for image: {}", imagePath, e);
+            throw new BailianApiException("人脸检测失败", e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> parseApiResponse(String apiResponse) {
+        try {
+            // 提取模型返回的文本内容
+            return buildResult(extractContent(responseReader.readChatContent(apiResponse)));
 
         } catch (BailianApiException e) {
             throw e;
@@ -106,72 +508,217 @@ public class FaceRecognitionServiceImpl implements FaceRecognitionService {
         }
     }
 
+    /**
+     * 由模型返回的文本内容构建结果
+     */
+    private Map<String, Object> buildResult(String content) {
+        return buildResult(content, parseContent(content));
+    }
+
+    /**
+     * 由模型返回的文本内容和已解析出的字段构建结果
+     */
+    private Map<String, Object> buildResult(String content, ParsedContent parsed) {
+        Map<String, Object> resultData = buildAttributes(content, parsed);
+        if (!resultData.isEmpty()) {
+            putNarrativeDefaults(content, resultData);
+        }
+        return resultData;
+    }
+
+    /**
+     * 由模型返回的文本内容构建人脸属性，不补充健康分析和夸奖内容的默认值
+     *
+     * @param parsed 已从content中解析出的字段
+     * @return 人脸属性；没有返回内容或返回空对象（未检测到人脸）时为空Map
+     */
+    private Map<String, Object> buildAttributes(String content, ParsedContent parsed) {
+        Map<String, Object> resultData = new HashMap<>();
+        if (content == null || content.trim().isEmpty()) {
+            logger.info("No content returned from API");
+            return resultData;
+        }
+        if (parsed.emptyObject()) {
+            logger.info("No face detected in API response");
+            return resultData;
+        }
+
+        resultData.putAll(parsed.fields());
+        if (resultData.isEmpty()) {
+            // 内容中没有可识别的字段时，尝试从文本中提取关键信息
+            extractFromText(content, resultData);
+        }
+        return resultData;
+    }
+
+    /**
+     * 由第二阶段调用返回的文本内容构建健康分析和夸奖内容
+     */
+    private Map<String, Object> buildNarrative(String content) {
+        Map<String, Object> parsed = parseContent(content).fields();
+        Map<String, Object> narrative = new HashMap<>();
+        for (String field : NARRATIVE_FIELDS) {
+            if (parsed.containsKey(field)) {
+                narrative.put(field, parsed.get(field));
+            }
+        }
+        putNarrativeDefaults(content == null ? "" : content, narrative);
+        return narrative;
+    }
+
+    /**
+     * 补充健康分析和夸奖内容的默认值
+     */
+    private void putNarrativeDefaults(String content, Map<String, Object> resultData) {
+        // 确保健康分析和夸奖内容存在
+        if (!resultData.containsKey("healthAnalysis")) {
+            String healthAnalysis = limitHealthAnalysisLength(content, bailianApiProperties.getMaxHealthAnalysisLength());
+            resultData.put("healthAnalysis", healthAnalysis);
+        }
+
+        // 如果没有praise，使用默认值
+        if (!resultData.containsKey("praise")) {
+            resultData.put("praise", "你真棒！");
+        }
+    }
+
+    /**
+     * 读取图片（通过存储服务读取，兼容延迟写入中的文件）并按视觉模型配置规范化
+     */
+    private byte[] readForAnalysis(Path imagePath) {
+        return imageNormalizationService.normalize(
+                imageStorageService.readImageBytes(imagePath), ImageNormalizationService.Target.FACE_ANALYSIS);
+    }
+
+    /**
+     * 计算图像感知哈希
+     * 
+     * @return 哈希值；未启用缓存或图像无法解码时返回null
+     */
+    private Long perceptualHash(byte[] imageBytes) {
+        if (resultCache == null) {
+            return null;
+        }
+        try {
+            return PerceptualHash.dHash(imageBytes);
+        } catch (IllegalArgumentException e) {
+            hashFailures.incrementAndGet();
+            logger.debug("Could not compute perceptual hash: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 调用百炼API进行人脸检测和健康分析
      * 
-     * @param imagePath 图像文件路径
-     * @return API响应字符串
+     * @param operation  操作名称
+     * @param writer     由选中的模型取得请求体写入器（决定提示词和max_tokens）
+     * @param imageBytes 图像字节
+     * @return API响应（只包含文本内容、错误和用量）及本次调用的用量
      */
-    private String callBailianAPI(Path imagePath) {
+    private ModelCall callBailianAPI(String operation, Function<Route, DashScopeRequestWriter> writer,
+            byte[] imageBytes) {
+        return callBailianAPI(operation, List.of(imageBytes),
+                (route, headers) -> writer.apply(route).requestCallback(headers, imageBytes));
+    }
+
+    /**
+     * 调用百炼API
+     *
+     * @param operation 操作名称，分别统计对冲延迟和用量
+     * @param images    请求中的图像，用于统计像素数
+     * @param callback  由选中的模型和请求头创建写出请求体的RequestCallback
+     * @return API响应（只包含文本内容、错误和用量）及本次调用的用量
+     */
+    private ModelCall callBailianAPI(String operation, List<byte[]> images,
+            BiFunction<Route, HttpHeaders, RequestCallback> callback) {
+        return routedCall(route -> executeBailianAPI(operation, route, images, callback));
+    }
+
+    /**
+     * 选择最近延迟得分最低的模型执行调用，记录延迟；
+     * 熔断或舱壁拒绝的调用没有发出，4xx和客户端断开不说明模型故障，都按取消处理，不计入
+     */
+    private ModelCall routedCall(Function<Route, ModelCall> call) {
+        PeakEwmaBalancer.Selection<Route> selection = router.select();
+        ModelCall result;
         try {
-            // 读取图片并转换为Base64
-            byte[] imageBytes = Files.readAllBytes(imagePath);
-            String base64Image = Base64.getEncoder().encodeToString(imageBytes);
-            
-            // 构建请求体（按照qwen3-vl-plus API格式）
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", bailianApiProperties.getModel());
-            
-            // 构建消息内容
-            Map<String, Object> message = new HashMap<>();
-            message.put("role", "user");
-            
-            // 构建内容数组，包含图片和文本（按照API文档格式）
-            List<Map<String, Object>> contentList = new ArrayList<>();
-            
-            // 图片内容
-            Map<String, Object> imageContent = new HashMap<>();
-            imageContent.put("type", "image_url");
-            Map<String, String> imageUrl = new HashMap<>();
-            imageUrl.put("url", "data:image/jpeg;base64," + base64Image);
-            imageContent.put("image_url", imageUrl);
-            contentList.add(imageContent);
-            
-            // 文本内容
-            Map<String, Object> textContent = new HashMap<>();
-            textContent.put("type", "text");
-            textContent.put("text", buildPrompt());
-            contentList.add(textContent);
-            
-            message.put("content", contentList);
-            
-            // messages直接在顶层，不在input中
-            List<Map<String, Object>> messagesList = new ArrayList<>();
-            messagesList.add(message);
-            requestBody.put("messages", messagesList);
-            
-            // 参数直接在顶层
-            requestBody.put("temperature", bailianApiProperties.getTemperature());
-            requestBody.put("max_tokens", bailianApiProperties.getMaxTokens());
-
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + bailianApiProperties.getApiKey());
-
-            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    bailianApiProperties.getEndpoint(),
-                    HttpMethod.POST,
-                    requestEntity,
-                    String.class);
-
-            if (response.getStatusCode() != HttpStatus.OK) {
-                throw new BailianApiException("百炼API调用失败，状态码: " + response.getStatusCode());
+            result = call.apply(selection.target());
+        } catch (RuntimeException e) {
+            if (DependencyFailures.isDependencyFailure(e)) {
+                selection.failed();
+            } else {
+                selection.cancelled();
             }
+            throw e;
+        }
+        if (result.response().error() != null) {
+            selection.failed();
+        } else {
+            selection.succeeded();
+        }
+        return result;
+    }
+
+    /**
+     * 执行一次请求并记录其用量；对冲时每次请求分别记录，包括落后的一方：
+     * 已返回的按响应中的用量记录，被中止的只记录已发送的图像和耗时
+     */
+    private ModelCall recordedCall(String operation, Route route, List<byte[]> images,
+            Supplier<ChatCompletionResponse> call) {
+        long start = System.nanoTime();
+        ChatCompletionResponse response;
+        try {
+            response = call.get();
+        } catch (RuntimeException e) {
+            if (AbortHandle.isCurrentAborted()) {
+                usageAccounting.recordAbandoned(route.model, operation, images, elapsedMillis(start));
+            } else if (DependencyFailures.isDependencyFailure(e)) {
+                usageAccounting.recordFailure(route.model, operation, elapsedMillis(start));
+            }
+            throw e;
+        }
+        if (response.error() != null) {
+            usageAccounting.recordFailure(route.model, operation, elapsedMillis(start));
+            return new ModelCall(response, null);
+        }
+        ModelUsage usage = usageAccounting.record(route.model, operation, response.usage(), images,
+                elapsedMillis(start));
+        return new ModelCall(response, usage);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * 发出百炼API请求
+     */
+    private ModelCall executeBailianAPI(String operation, Route route, List<byte[]> images,
+            BiFunction<Route, HttpHeaders, RequestCallback> callback) {
+        try {
+            // 有多个候选模型时，每个模型分别统计对冲延迟
+            String hedgeKey = router.size() > 1 ? operation + "@" + route.name : operation;
 
-            return response.getBody();
+            // 请求体由缓存的模板和流式Base64编码的图像直接写入连接，响应体边读取边解析；
+            // 响应慢于最近延迟的指定百分位时发出备份请求（启用对冲时），落后的一方被中止；
+            // 对冲的每次请求各自取得配额令牌、API Key和舱壁许可，成败各自计入熔断器，用量各自记录
+            return hedgingService.execute(hedgeKey, () -> recordedCall(operation, route, images,
+                    () -> withApiKey(route, apiKey -> {
+                        HttpHeaders headers = new HttpHeaders();
+                        headers.set("Authorization", "Bearer " + apiKey);
+                        return resilienceService.execute(ResilienceService.Compartment.FACE_ANALYSIS,
+                                () -> restTemplate.execute(
+                                        route.endpoint,
+                                        HttpMethod.POST,
+                                        callback.apply(route, headers),
+                                        response -> {
+                                            if (response.getStatusCode() != HttpStatus.OK) {
+                                                throw new BailianApiException("百炼API调用失败，状态码: " + response.getStatusCode());
+                                            }
+                                            return responseReader.readChatContent(response.getBody());
+                                        }));
+                    })));
 
         } catch (BailianApiException e) {
             throw e;
@@ -181,12 +728,221 @@ public class FaceRecognitionServiceImpl implements FaceRecognitionService {
         }
     }
 
+    /**
+     * 按账号配额限速后，用Key池中有余量的Key执行调用
+     * 限速在最外层：429和5xx重试时重新取得令牌和Key，被限流的Key已进入冷却；
+     * Key池在熔断器之外：Key达到限额不代表百炼API故障；每次尝试都经过熔断器，但429不计为失败（见DependencyFailures）
+     */
+    private <T> T withApiKey(Route route, Function<String, T> call) {
+        return rateLimitService.execute(RateLimitService.Quota.FACE_ANALYSIS, () -> route.keyPool.execute(call));
+    }
+
+    /**
+     * 写出请求体模板（OpenAI兼容格式），图像依次位于提示词之前，图像位置为占位符
+     *
+     * @param generator  JSON生成器
+     * @param model      模型名称
+     * @param imageCount 图像数
+     * @param prompt     提示词
+     * @param maxTokens  最大输出token数，为null时不限制
+     * @param stream     是否请求流式输出
+     */
+    private void writeRequestTemplate(JsonGenerator generator, String model, int imageCount, String prompt,
+            Integer maxTokens, boolean stream) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("model", model);
+
+        // messages直接在顶层，不在input中；内容数组包含图片和文本（按照API文档格式）
+        generator.writeArrayFieldStart("messages");
+        generator.writeStartObject();
+        generator.writeStringField("role", "user");
+        generator.writeArrayFieldStart("content");
+
+        for (int i = 0; i < imageCount; i++) {
+            generator.writeStartObject();
+            generator.writeStringField("type", "image_url");
+            generator.writeObjectFieldStart("image_url");
+            generator.writeStringField("url", DashScopeRequestWriter.IMAGE_PLACEHOLDER);
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+
+        generator.writeStartObject();
+        generator.writeStringField("type", "text");
+        generator.writeStringField("text", prompt);
+        generator.writeEndObject();
+
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeEndArray();
+
+        // 参数直接在顶层
+        if (bailianApiProperties.getTemperature() != null) {
+            generator.writeNumberField("temperature", bailianApiProperties.getTemperature());
+        }
+        if (maxTokens != null) {
+            generator.writeNumberField("max_tokens", maxTokens);
+        }
+        if (stream) {
+            generator.writeBooleanField("stream", true);
+            // 最后一个chunk附带usage
+            generator.writeObjectFieldStart("stream_options");
+            generator.writeBooleanField("include_usage", true);
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * 以流式模式（stream=true）调用百炼API
+     * 响应为Server-Sent Events，每个data行是一个chat.completion.chunk，增量文本位于choices[0].delta.content
+     *
+     * @param imageBytes 图像字节
+     * @param parser     增量解析器，每收到一段增量文本就喂入
+     * @return 以拼接后的完整文本内容和最后一个chunk中的usage构成的响应，及本次调用的用量
+     */
+    private ModelCall streamBailianAPI(byte[] imageBytes, IncrementalJsonFieldParser parser) {
+        return routedCall(route -> recordedCall("face-stream", route, List.of(imageBytes),
+                () -> withApiKey(route, apiKey -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+                    headers.set("Authorization", "Bearer " + apiKey);
+
+                    return resilienceService.execute(ResilienceService.Compartment.FACE_ANALYSIS,
+                            () -> restTemplate.execute(route.endpoint, HttpMethod.POST,
+                                    route.streamingRequestWriter.requestCallback(headers, imageBytes),
+                                    response -> readEventStream(response, parser)));
+                })));
+    }
+
+    /**
+     * 逐行读取流式响应，提取增量文本和用量
+     */
+    private ChatCompletionResponse readEventStream(ClientHttpResponse response, IncrementalJsonFieldParser parser)
+            throws IOException {
+        StringBuilder content = new StringBuilder();
+        ChatCompletionResponse.Usage usage = null;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+                String data = line.substring(5).trim();
+                if (data.isEmpty()) {
+                    continue;
+                }
+                if ("[DONE]".equals(data)) {
+                    break;
+                }
+                ChatCompletionResponse chunk = responseReader.readChatCompletion(data);
+                checkError(chunk);
+                if (chunk.usage() != null) {
+                    usage = chunk.usage();
+                }
+                String delta = chunk.firstDeltaContent();
+                if (delta != null && !delta.isEmpty()) {
+                    content.append(delta);
+                    parser.feed(delta);
+                }
+            }
+        }
+        ChatCompletionResponse.Message message = new ChatCompletionResponse.Message("assistant", content.toString());
+        return new ChatCompletionResponse(List.of(new ChatCompletionResponse.Choice(message, null, null)), null, usage);
+    }
+
+    /**
+     * 创建解析模型输出的宽松解析器
+     * 只保留buildPrompt()中要求的属性，字段名统一为标准名称，字段值已转换
+     *
+     * @param sink 接收标准字段名和转换后的值
+     * @return 解析器
+     */
+    private IncrementalJsonFieldParser attributeParser(BiConsumer<String, Object> sink) {
+        return new IncrementalJsonFieldParser((name, value) -> {
+            String attribute = attributeName(name);
+            Object converted = attribute != null ? convertField(attribute, value) : null;
+            if (converted != null) {
+                sink.accept(attribute, converted);
+            }
+        });
+    }
+
+    /**
+     * 将模型输出中的字段名映射为标准属性名，忽略大小写、下划线和连字符，也接受中文字段名
+     *
+     * @return 标准属性名；不是要求的属性时返回null
+     */
+    private static String attributeName(String key) {
+        if (key == null) {
+            return null;
+        }
+        StringBuilder normalized = new StringBuilder(key.length());
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c != '_' && c != '-' && !Character.isWhitespace(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return ATTRIBUTE_NAMES.get(normalized.toString());
+    }
+
+    /**
+     * 将解析出的字段值转换为结果中的格式
+     *
+     * @return 转换后的值；值无法识别时返回null
+     */
+    private Object convertField(String name, Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = String.valueOf(value);
+        switch (name) {
+            case "gender":
+                return MapUtil.gender(text);
+            case "age":
+                if (value instanceof Number number) {
+                    return number.intValue();
+                }
+                return parseAge(text);
+            case "smile":
+                return "是".equals(text) || "yes".equalsIgnoreCase(text) || Boolean.TRUE.equals(value) ? "是" : "否";
+            case "healthAnalysis":
+                return limitHealthAnalysisLength(text, bailianApiProperties.getMaxHealthAnalysisLength());
+            default:
+                return text;
+        }
+    }
+
     /**
      * 构建提示词，要求模型识别人脸特征、分析健康情况并生成夸奖内容
      */
     private String buildPrompt() {
         return "请仔细分析这张人脸照片，完成以下任务：\n" +
-               "1. 识别人脸特征：\n" +
+               FACE_TASKS +
+               "\n" +
+               "请以JSON格式返回结果，格式如下：\n" +
+               RESULT_FORMAT;
+    }
+
+    /**
+     * 多图调用的提示词：任务和单图相同，结果为与照片顺序对应的JSON数组
+     */
+    private String buildBatchPrompt(int imageCount) {
+        return "以上依次是" + imageCount + "张不同人物的照片，请对每一张照片分别完成以下任务：\n" +
+               FACE_TASKS +
+               "\n" +
+               "请以JSON数组返回结果，不要其他说明。数组必须包含" + imageCount + "个元素，第i个元素对应第i张照片；" +
+               "照片中没有人脸时对应元素为{}。每个元素的格式如下：\n" +
+               RESULT_FORMAT;
+    }
+
+    /**
+     * 两阶段模式第一次调用的提示词：只识别人脸特征，输出短小，配合较小的max_tokens尽快返回
+     */
+    private String buildAttributePrompt() {
+        return "请仔细分析这张人脸照片，识别以下人脸特征：\n" +
                "   - 性别（男性/女性）\n" +
                "   - 估计年龄（整数）\n" +
                "   - 表情状态（是否微笑）\n" +
@@ -194,46 +950,55 @@ public class FaceRecognitionServiceImpl implements FaceRecognitionService {
                "   - 气色（红润/苍白/暗沉等）\n" +
                "   - 精神状态（精神饱满/疲惫等）\n" +
                "\n" +
-               "2. 健康分析：\n" +
-               "   - 基于观察到的人脸特征，分析可能的健康情况\n" +
+               "只返回JSON，不要其他说明，格式如下：\n" +
+               "{\n" +
+               "  \"gender\": \"男性或女性\",\n" +
+               "  \"age\": 年龄数字,\n" +
+               "  \"smile\": \"是或否\",\n" +
+               "  \"eyestatus\": \"眼睛状态描述（不超过20字）\",\n" +
+               "  \"complexion\": \"气色描述（不超过10字）\",\n" +
+               "  \"spirit\": \"精神状态描述（不超过10字）\"\n" +
+               "}";
+    }
+
+    /**
+     * 两阶段模式第二次调用的提示词：健康分析和夸奖内容
+     */
+    private String buildNarrativePrompt() {
+        return "请仔细观察这张人脸照片，完成以下任务：\n" +
+               "1. 健康分析：\n" +
+               "   - 基于观察到的人脸特征（气色、精神状态、眼睛状态等），分析可能的健康情况\n" +
                "   - 提供健康建议（如需要）\n" +
                "\n" +
-               "3. 生成夸奖内容：\n" +
+               "2. 生成夸奖内容：\n" +
                "   - 基于观察到的人脸特征，生成一段60-80字的个性化夸奖内容\n" +
                "   - 夸奖要真诚、自然、有针对性\n" +
                "\n" +
                "请以JSON格式返回结果，格式如下：\n" +
                "{\n" +
-               "  \"gender\": \"男性或女性\",\n" +
-               "  \"age\": 年龄数字,\n" +
-               "  \"smile\": \"是或否\",\n" +
-               "  \"eyestatus\": \"眼睛状态描述\",\n" +
-               "  \"complexion\": \"气色描述\",\n" +
-               "  \"spirit\": \"精神状态描述\",\n" +
                "  \"healthAnalysis\": \"健康分析和建议（不超过600字）\",\n" +
                "  \"praise\": \"个性化夸奖内容（60-80字）\"\n" +
                "}";
     }
 
     /**
-     * 从API响应中提取内容（OpenAI兼容格式）
+     * 从API响应中提取内容（OpenAI兼容格式，choices直接在顶层）
      */
-    private String extractContent(JsonNode apiJson) {
-        try {
-            // qwen3-vl-plus使用OpenAI兼容格式，choices直接在顶层
-            if (apiJson.has("choices") && apiJson.get("choices").isArray() && apiJson.get("choices").size() > 0) {
-                JsonNode firstChoice = apiJson.get("choices").get(0);
-                if (firstChoice.has("message")) {
-                    JsonNode message = firstChoice.get("message");
-                    if (message.has("content")) {
-                        return message.get("content").asText();
-                    }
-                }
-            }
-            return null;
-        } catch (Exception e) {
-            logger.error("Error extracting content from API response", e);
-            return null;
+    private String extractContent(ChatCompletionResponse apiResponse) {
+        checkError(apiResponse);
+        String content = apiResponse.firstMessageContent();
+        logger.debug("百炼API response content: {}", content);
+        return content;
+    }
+
+    /**
+     * 检查API响应是否成功（qwen3-vl-plus使用OpenAI兼容格式）
+     */
+    private void checkError(ChatCompletionResponse apiResponse) {
+        if (apiResponse.error() != null) {
+            String errorMsg = apiResponse.error().message() != null ? apiResponse.error().message() : "API调用失败";
+            logger.error("百炼API返回错误: {}", errorMsg);
+            throw new BailianApiException("百炼API调用失败: " + errorMsg);
         }
     }
 
@@ -252,114 +1017,94 @@ public class FaceRecognitionServiceImpl implements FaceRecognitionService {
     }
 
     /**
-     * 解析API返回的内容，提取结构化信息
+     * 单遍解析API返回的内容，提取结构化信息
+     * 兼容代码块包裹、被截断或局部不合法的JSON，正常路径上不抛出异常
      */
-    private void parseContent(String content, Map<String, Object> resultData) {
-        try {
-            // 尝试从内容中提取JSON
-            String jsonStr = extractJsonFromContent(content);
-            if (jsonStr != null) {
-                JsonNode jsonNode = objectMapper.readTree(jsonStr);
-                
-                // 提取性别
-                if (jsonNode.has("gender")) {
-                    String genderValue = jsonNode.get("gender").asText();
-                    resultData.put("gender", MapUtil.gender(genderValue));
-                }
-                
-                // 提取年龄
-                if (jsonNode.has("age")) {
-                    resultData.put("age", jsonNode.get("age").asInt());
-                }
-                
-                // 提取笑容
-                if (jsonNode.has("smile")) {
-                    String smileValue = jsonNode.get("smile").asText();
-                    resultData.put("smile", "是".equals(smileValue) || "yes".equalsIgnoreCase(smileValue) ? "是" : "否");
-                }
-                
-                // 提取眼睛状态
-                if (jsonNode.has("eyestatus")) {
-                    resultData.put("eyestatus", jsonNode.get("eyestatus").asText());
-                }
-                
-                // 提取气色
-                if (jsonNode.has("complexion")) {
-                    resultData.put("complexion", jsonNode.get("complexion").asText());
-                }
-                
-                // 提取精神状态
-                if (jsonNode.has("spirit")) {
-                    resultData.put("spirit", jsonNode.get("spirit").asText());
-                }
-                
-                // 提取健康分析（已在parseApiResponse中处理）
-                if (jsonNode.has("healthAnalysis")) {
-                    String healthAnalysis = jsonNode.get("healthAnalysis").asText();
-                    resultData.put("healthAnalysis", limitHealthAnalysisLength(healthAnalysis, bailianApiProperties.getMaxHealthAnalysisLength()));
-                }
-                
-                // 提取夸奖内容
-                if (jsonNode.has("praise")) {
-                    resultData.put("praise", jsonNode.get("praise").asText());
-                }
-            } else {
-                // 如果无法提取JSON，尝试从文本中提取关键信息
-                extractFromText(content, resultData);
-            }
-        } catch (Exception e) {
-            logger.warn("Failed to parse content as JSON, trying text extraction", e);
-            extractFromText(content, resultData);
+    private ParsedContent parseContent(String content) {
+        Map<String, Object> resultData = new HashMap<>();
+        if (content == null) {
+            return new ParsedContent(resultData, false);
         }
+        IncrementalJsonFieldParser parser = attributeParser(resultData::put);
+        parser.feed(content);
+        parser.finish();
+        return new ParsedContent(resultData, parser.isEmptyObject());
     }
 
     /**
-     * 从内容中提取JSON字符串
+     * 从"28"、"约28岁"等文本中读取年龄
+     *
+     * @return 年龄；没有数字时返回null
      */
-    private String extractJsonFromContent(String content) {
-        if (content == null) {
-            return null;
-        }
-        
-        // 查找第一个 { 和最后一个 }
-        int startIdx = content.indexOf('{');
-        int endIdx = content.lastIndexOf('}');
-        
-        if (startIdx >= 0 && endIdx > startIdx) {
-            return content.substring(startIdx, endIdx + 1);
+    private static Integer parseAge(String text) {
+        int age = -1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                age = (age < 0 ? 0 : age * 10) + (c - '0');
+                if (age > 200) {
+                    return null;
+                }
+            } else if (age >= 0) {
+                break;
+            }
         }
-        
-        return null;
+        return age >= 0 ? age : null;
     }
 
     /**
      * 从文本中提取关键信息（备用方法）
      */
     private void extractFromText(String text, Map<String, Object> resultData) {
-        // 简单的文本匹配提取
-        if (text.contains("男性") || text.contains("男")) {
+        // 简单的文本匹配提取（"男性"包含"男"，只需查找单字）
+        if (text.indexOf('男') >= 0) {
             resultData.put("gender", "男性");
-        } else if (text.contains("女性") || text.contains("女")) {
+        } else if (text.indexOf('女') >= 0) {
             resultData.put("gender", "女性");
         }
         
         // 提取年龄（查找数字）
-        java.util.regex.Pattern agePattern = java.util.regex.Pattern.compile("(\\d+)岁|年龄[：:]\\s*(\\d+)");
-        java.util.regex.Matcher matcher = agePattern.matcher(text);
+        Matcher matcher = AGE_PATTERN.matcher(text);
         if (matcher.find()) {
-            try {
-                int age = Integer.parseInt(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
-                resultData.put("age", age);
-            } catch (NumberFormatException e) {
-                // 忽略
-            }
+            resultData.put("age", Integer.parseInt(matcher.group(1) != null ? matcher.group(1) : matcher.group(2)));
         }
         
-        // 提取笑容
-        if (text.contains("微笑") || text.contains("笑容") || text.contains("笑")) {
+        // 提取笑容（"微笑"、"笑容"都包含"笑"）
+        if (text.indexOf('笑') >= 0) {
             resultData.put("smile", "是");
         } else {
             resultData.put("smile", "否");
         }
     }
+
+    @Override
+    public String getMetricsName() {
+        return "face";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> cache = new LinkedHashMap<>();
+        cache.put("enabled", resultCache != null);
+        if (resultCache != null) {
+            cache.put("hits", resultCache.getHits());
+            cache.put("negativeHits", resultCache.getNegativeHits());
+            cache.put("misses", resultCache.getMisses());
+            cache.put("hitRate", resultCache.getHitRate());
+            cache.put("entries", resultCache.size());
+        }
+        cache.put("hashFailures", hashFailures.get());
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("cache", cache);
+        if (batcher != null) {
+            metrics.put("batching", batcher.getMetrics());
+        }
+        if (router.size() > 1) {
+            metrics.put("routing", router.getMetrics());
+        }
+        Map<String, Object> keyPoolMetrics = new LinkedHashMap<>();
+        keyPools.forEach((name, pool) -> keyPoolMetrics.put(name, pool.getMetrics()));
+        metrics.put("keyPools", keyPoolMetrics);
+        return metrics;
+    }
 }
@@ -0,0 +1,134 @@
+package webcam.service;
+
+import webcam.util.PerceptualHash;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 人脸分析结果缓存
+ * 以图像感知哈希为键，查找时按汉明距离匹配近似图像，命中后直接复用上一次的分析结果。
+ * 未检测到人脸的结果（空结果）同样缓存，但使用较短的有效期
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class FaceResultCache {
+
+    private final int maxEntries;
+    private final int maxDistance;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+
+    // 按插入顺序排列，超出容量时淘汰最早的条目
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxEntries        最大条目数
+     * @param maxDistance       视为同一图像的最大汉明距离
+     * @param ttlMillis         分析结果的有效期
+     * @param negativeTtlMillis 未检测到人脸结果的有效期
+     */
+    public FaceResultCache(int maxEntries, int maxDistance, long ttlMillis, long negativeTtlMillis) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxDistance = maxDistance;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+    }
+
+    /**
+     * 查找与指纹最接近且未过期的结果
+     *
+     * @param hash 图像感知哈希
+     * @return 结果的副本；未命中时返回null
+     */
+    public Map<String, Object> get(long hash) {
+        long now = System.currentTimeMillis();
+        Entry best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        synchronized (this) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.expiresAt <= now) {
+                    iterator.remove();
+                    continue;
+                }
+                int distance = PerceptualHash.distance(hash, entry.hash);
+                if (distance <= maxDistance && distance < bestDistance) {
+                    best = entry;
+                    bestDistance = distance;
+                }
+            }
+        }
+        if (best == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (best.result.isEmpty()) {
+            negativeHits.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        // 调用方会修改返回的Map（如加入图片URL），因此每次返回副本
+        return new HashMap<>(best.result);
+    }
+
+    /**
+     * 缓存分析结果
+     *
+     * @param hash   图像感知哈希
+     * @param result 分析结果；空Map表示未检测到人脸
+     */
+    public void put(long hash, Map<String, Object> result) {
+        long ttl = result.isEmpty() ? negativeTtlMillis : ttlMillis;
+        if (ttl <= 0) {
+            return;
+        }
+        Entry entry = new Entry(hash, new HashMap<>(result), System.currentTimeMillis() + ttl);
+        synchronized (this) {
+            entries.remove(hash);
+            entries.put(hash, entry);
+            Iterator<Long> iterator = entries.keySet().iterator();
+            while (entries.size() > maxEntries && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getNegativeHits() {
+        return negativeHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * 命中率（含未检测到人脸的命中）
+     */
+    public double getHitRate() {
+        long hitCount = hits.get() + negativeHits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    private record Entry(long hash, Map<String, Object> result, long expiresAt) {
+    }
+}
@@ -0,0 +1,131 @@
+package webcam.service;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 最近上传图像的内存缓存
+ * 按文件名索引，总字节数有上限，超出时按最近最少使用淘汰。
+ * 堆外模式下内容保存在直接内存中，不占用Java堆，也不会增加GC扫描负担
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class ImageCache {
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final boolean offHeap;
+
+    // accessOrder=true：迭代顺序即最近最少使用顺序
+    private final LinkedHashMap<String, ByteBuffer> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxBytes      缓存总字节数上限
+     * @param maxEntryBytes 单个图像字节数上限，超过的图像不缓存
+     * @param offHeap       是否使用直接内存保存内容
+     */
+    public ImageCache(long maxBytes, long maxEntryBytes, boolean offHeap) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * 放入图像；已存在的同名条目会被替换
+     *
+     * @param fileName 文件名
+     * @param data     图像内容
+     */
+    public void put(String fileName, byte[] data) {
+        if (data.length > maxEntryBytes) {
+            return;
+        }
+        ByteBuffer buffer = offHeap ? ByteBuffer.allocateDirect(data.length) : ByteBuffer.allocate(data.length);
+        buffer.put(data).flip();
+
+        synchronized (this) {
+            ByteBuffer previous = entries.put(fileName, buffer);
+            if (previous != null) {
+                currentBytes -= previous.capacity();
+            }
+            currentBytes += data.length;
+            Iterator<Map.Entry<String, ByteBuffer>> iterator = entries.entrySet().iterator();
+            while (currentBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, ByteBuffer> eldest = iterator.next();
+                if (eldest.getKey().equals(fileName)) {
+                    continue;
+                }
+                currentBytes -= eldest.getValue().capacity();
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 读取图像
+     *
+     * @param fileName 文件名
+     * @return 图像内容的副本；未缓存时返回null
+     */
+    public byte[] get(String fileName) {
+        ByteBuffer buffer;
+        synchronized (this) {
+            buffer = entries.get(fileName);
+        }
+        if (buffer == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        // duplicate()拥有独立的position，可在锁外并发读取
+        byte[] data = new byte[buffer.capacity()];
+        buffer.duplicate().get(data);
+        return data;
+    }
+
+    /**
+     * 移除图像
+     *
+     * @param fileName 文件名
+     */
+    public synchronized void remove(String fileName) {
+        ByteBuffer removed = entries.remove(fileName);
+        if (removed != null) {
+            currentBytes -= removed.capacity();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+}
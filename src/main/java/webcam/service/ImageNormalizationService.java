@@ -0,0 +1,35 @@
+package webcam.service;
+
+/**
+ * 图像规范化服务接口
+ * 在调用百炼模型前校正EXIF方向、限制最长边并按目标质量重新编码为JPEG，减小请求体积
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public interface ImageNormalizationService {
+
+    /**
+     * 规范化目标模型
+     */
+    enum Target {
+        /**
+         * 人脸识别与健康分析（视觉模型）
+         */
+        FACE_ANALYSIS,
+        /**
+         * 人物动漫化（风格重绘模型）
+         */
+        CARTOON
+    }
+
+    /**
+     * 按目标模型的配置规范化图像
+     * 图像无法解码或无需处理时原样返回
+     *
+     * @param imageBytes 原始图像字节
+     * @param target     目标模型
+     * @return 规范化后的JPEG字节，或原始字节
+     */
+    byte[] normalize(byte[] imageBytes, Target target);
+}
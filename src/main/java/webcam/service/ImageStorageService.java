@@ -1,10 +1,12 @@
 package webcam.service;
 
+import java.io.InputStream;
 import java.nio.file.Path;
 
 /**
  * 图像存储服务接口
  * 负责图像文件的存储和管理
+ * 启用内容寻址模式时，保存方法会按内容摘要重新命名文件，调用方应以返回路径中的文件名为准
  * 
  * @author Webcam Application
  * @version 2.0.0
@@ -22,6 +24,53 @@ public interface ImageStorageService {
      */
     Path saveBase64Image(String base64Data, String fileName);
 
+    /**
+     * 校验、解码并保存原始图像数据
+     * 前缀跳过、空白忽略、字符校验和解码在一次扫描中完成
+     * 
+     * @param imageData 原始图像数据（可包含data:image/...;base64,前缀）
+     * @param fileName  文件名（包含扩展名）
+     * @return 保存的文件路径
+     * @throws IllegalArgumentException                  当数据为空、过小或包含非法字符时
+     * @throws webcam.exception.FileStorageException     当文件保存失败时
+     */
+    Path saveImageData(String imageData, String fileName);
+
+    /**
+     * 将输入流中的图像数据直接写入文件
+     * 数据边读边写，不在内存中保留完整图像
+     * 
+     * @param inputStream   图像数据输入流（调用方负责关闭）
+     * @param fileName      文件名（包含扩展名）
+     * @param base64Encoded 输入流是否为Base64文本（可包含data:image前缀和换行）
+     * @return 保存的文件路径
+     * @throws webcam.exception.ImageProcessingException 当数据为空、超过大小限制或Base64解码失败时
+     * @throws webcam.exception.FileStorageException     当文件保存失败时
+     */
+    Path saveImageStream(InputStream inputStream, String fileName, boolean base64Encoded);
+
+    /**
+     * 保存已解码的图像字节
+     * 
+     * @param imageBytes 图像字节
+     * @param fileName   文件名（包含扩展名）
+     * @return 保存的文件路径
+     * @throws webcam.exception.ImageProcessingException 当数据为空时
+     * @throws webcam.exception.FileStorageException     当文件保存失败时
+     */
+    Path saveImageBytes(byte[] imageBytes, String fileName);
+
+    /**
+     * 将已有的图像文件（如下载得到的临时文件）保存到上传目录
+     * 
+     * @param sourceFile 源文件路径（保存后源文件保持不变）
+     * @param fileName   文件名（包含扩展名）
+     * @return 保存的文件路径
+     * @throws webcam.exception.ImageProcessingException 当文件为空或超过大小限制时
+     * @throws webcam.exception.FileStorageException     当文件读取或保存失败时
+     */
+    Path saveImageFile(Path sourceFile, String fileName);
+
     /**
      * 从图像数据中提取纯Base64字符串
      * 移除可能的"data:image/jpeg;base64,"前缀
@@ -31,6 +80,55 @@ public interface ImageStorageService {
      */
     String extractBase64Data(String imageData);
 
+    /**
+     * 根据文件名查找图像文件在磁盘上的位置
+     * 分片布局下文件位于子目录中，尚未迁移的旧文件仍在根目录
+     * 
+     * @param fileName 文件名（不含目录）
+     * @return 文件路径
+     */
+    Path resolveImagePath(String fileName);
+
+    /**
+     * 判断图像是否存在（包括尚在延迟写入队列中的文件）
+     * 
+     * @param imagePath 图像文件路径
+     * @return 是否存在
+     */
+    boolean imageExists(Path imagePath);
+
+    /**
+     * 读取图像内容（包括尚在延迟写入队列中的文件）
+     * 
+     * @param imagePath 图像文件路径
+     * @return 图像字节
+     * @throws webcam.exception.FileStorageException 当文件不存在或读取失败时
+     */
+    byte[] readImageBytes(Path imagePath);
+
+    /**
+     * 记录图像被访问，供保留策略按最近访问时间淘汰
+     * 显式更新文件的访问时间，不依赖文件系统的atime挂载选项
+     * 
+     * @param imagePath 图像文件路径
+     */
+    void recordAccess(Path imagePath);
+
+    /**
+     * 图像文件已被删除（如保留策略清理），移除其内存缓存，之后不能再读到该图像
+     * 
+     * @param imagePath 图像文件路径
+     */
+    void evictCached(Path imagePath);
+
+    /**
+     * 将上传根目录中的平铺文件迁移到分片目录
+     * 
+     * @return 迁移的文件数；未启用分片布局时返回0
+     * @throws webcam.exception.FileStorageException 当无法列出上传目录时
+     */
+    int migrateToShardedLayout();
+
     /**
      * 生成图像的访问URL
      * 
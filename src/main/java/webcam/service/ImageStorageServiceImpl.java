@@ -4,15 +4,32 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import webcam.config.UploadProperties;
 import webcam.exception.FileStorageException;
 import webcam.exception.ImageProcessingException;
+import webcam.util.Base64ImageDecoder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.Base64;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * 图像存储服务实现
@@ -21,64 +38,466 @@ import java.util.Base64;
  * @version 2.0.0
  */
 @Service
-public class ImageStorageServiceImpl implements ImageStorageService {
+public class ImageStorageServiceImpl implements ImageStorageService, MetricsSource {
 
     private static final Logger logger = LoggerFactory.getLogger(ImageStorageServiceImpl.class);
 
+    /**
+     * 流式写入时的缓冲区大小
+     */
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    /**
+     * data URI前缀的最大长度（如"data:image/jpeg;base64,"），超过则视为格式错误
+     */
+    private static final int MAX_DATA_URI_PREFIX_LENGTH = 128;
+
+    /**
+     * 写入中的临时文件后缀
+     */
+    private static final String PART_SUFFIX = ".part";
+
+    /**
+     * 内容寻址文件名中摘要的十六进制长度（SHA-256前128位）
+     */
+    private static final int CONTENT_HASH_HEX_LENGTH = 32;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     private final UploadProperties uploadProperties;
+    private final UploadLayout layout;
+    private final WriteBehindWriter writeBehindWriter;
+    private final ImageCache hotCache;
 
     @Autowired
     public ImageStorageServiceImpl(UploadProperties uploadProperties) {
         this.uploadProperties = uploadProperties;
+        this.layout = new UploadLayout(uploadProperties.getPath(), uploadProperties.isSharded());
+        this.writeBehindWriter = uploadProperties.isWriteBehindEnabled()
+                ? new WriteBehindWriter(uploadProperties.getWriteBehindQueueCapacity(),
+                        uploadProperties.getWriteBehindMaxBytes())
+                : null;
+        this.hotCache = uploadProperties.isHotCacheEnabled()
+                ? new ImageCache(uploadProperties.getHotCacheMaxBytes(), uploadProperties.getHotCacheMaxEntryBytes(),
+                        uploadProperties.isHotCacheOffHeap())
+                : null;
+    }
+
+    /**
+     * 分片模式下在后台线程中把旧的平铺文件迁移到分片目录
+     * 迁移期间读取会回退到根目录，不影响访问
+     */
+    @PostConstruct
+    public void startMigration() {
+        if (!layout.isSharded() || !uploadProperties.isMigrateOnStartup() || !Files.isDirectory(layout.getRoot())) {
+            return;
+        }
+        Thread migration = new Thread(() -> {
+            try {
+                migrateToShardedLayout();
+            } catch (Exception e) {
+                logger.error("Upload directory migration failed", e);
+            }
+        }, "upload-shard-migration");
+        migration.setDaemon(true);
+        migration.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writeBehindWriter != null) {
+            writeBehindWriter.shutdown();
+        }
     }
 
     @Override
     public Path saveBase64Image(String base64Data, String fileName) {
+        // 解码Base64数据
+        byte[] imageBytes;
+        try {
+            imageBytes = Base64ImageDecoder.decode(base64Data, 0);
+        } catch (IllegalArgumentException e) {
+            logger.error("Failed to decode Base64 data", e);
+            throw new ImageProcessingException("Base64解码失败，图像数据格式错误", e);
+        }
+
+        return storeBytes(imageBytes, fileName);
+    }
+
+    @Override
+    public Path saveImageData(String imageData, String fileName) {
+        // 一次扫描完成前缀跳过、校验和解码，非法数据抛出IllegalArgumentException
+        byte[] imageBytes = Base64ImageDecoder.decode(imageData);
+        return storeBytes(imageBytes, fileName);
+    }
+
+    @Override
+    public Path saveImageBytes(byte[] imageBytes, String fileName) {
+        if (imageBytes == null || imageBytes.length == 0) {
+            throw new ImageProcessingException("图像数据为空");
+        }
+        return storeBytes(imageBytes, fileName);
+    }
+
+    @Override
+    public Path saveImageFile(Path sourceFile, String fileName) {
+        try (InputStream inputStream = Files.newInputStream(sourceFile)) {
+            return saveImageStream(inputStream, fileName, false);
+        } catch (NoSuchFileException e) {
+            throw new FileStorageException("文件不存在: " + sourceFile, e);
+        } catch (IOException e) {
+            logger.error("Failed to read source image file: {}", sourceFile, e);
+            throw new FileStorageException("读取文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Path saveImageStream(InputStream inputStream, String fileName, boolean base64Encoded) {
+        if (inputStream == null) {
+            throw new ImageProcessingException("图像数据不能为空");
+        }
+
+        Path uploadPath;
+        try {
+            uploadPath = ensureUploadDirectory();
+        } catch (IOException e) {
+            logger.error("Failed to create upload directory for: {}", fileName, e);
+            throw new FileStorageException("文件保存失败: " + e.getMessage(), e);
+        }
+
+        // 先写入临时文件，完整写入后再重命名，避免读取到半写入的图像
+        Path partPath = uploadPath.resolve(UUID.randomUUID() + PART_SUFFIX);
         try {
-            // 确保上传目录存在
-            Path uploadPath = Paths.get(uploadProperties.getPath());
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-                logger.info("Created upload directory: {}", uploadPath);
+            InputStream source = base64Encoded
+                    ? Base64ImageDecoder.wrap(skipDataUriPrefix(inputStream))
+                    : inputStream;
+
+            // 内容寻址模式下边写边计算摘要，写完即可确定文件名
+            MessageDigest digest = uploadProperties.isContentAddressed() ? newContentDigest() : null;
+            // 不超过单条缓存上限的图像边写边留一份内存副本，写完放入热缓存
+            ByteArrayOutputStream captured = hotCache != null ? new ByteArrayOutputStream() : null;
+            long written = copyWithLimit(source, partPath, uploadProperties.getMaxImageBytes(), digest, captured);
+            if (written == 0) {
+                throw new ImageProcessingException("图像数据为空");
             }
+            byte[] imageBytes = captured != null && captured.size() == written ? captured.toByteArray() : null;
 
-            // 解码Base64数据
-            byte[] imageBytes;
-            try {
-                imageBytes = Base64.getDecoder().decode(base64Data);
-            } catch (IllegalArgumentException e) {
-                logger.error("Failed to decode Base64 data", e);
-                throw new ImageProcessingException("Base64解码失败，图像数据格式错误", e);
+            String storedName = digest != null ? contentAddressedName(fileName, digest.digest()) : fileName;
+            if (digest != null && imageExists(layout.locate(storedName))) {
+                logger.debug("Duplicate image content, reusing: {}", storedName);
+                cacheImage(storedName, imageBytes);
+                return reuseExisting(layout.locate(storedName));
             }
 
-            // 保存文件
-            Path filePath = uploadPath.resolve(fileName);
-            Files.write(filePath, imageBytes);
+            Path filePath = layout.targetFor(storedName);
+            Files.createDirectories(filePath.getParent());
+            Files.move(partPath, filePath, StandardCopyOption.REPLACE_EXISTING);
+            cacheImage(storedName, imageBytes);
+            logger.debug("Image streamed to: {} ({} bytes)", filePath, written);
+            return filePath;
+
+        } catch (IOException e) {
+            logger.error("Failed to save image file: {}", fileName, e);
+            throw new FileStorageException("文件保存失败: " + e.getMessage(), e);
+        } finally {
+            deletePartFile(partPath);
+        }
+    }
+
+    /**
+     * 保存已解码的图像字节
+     * 内容寻址模式下按内容摘要命名，相同内容只写入一次；
+     * 启用延迟写入时字节进入内存队列后即返回，队列满时退回同步写入
+     */
+    private Path storeBytes(byte[] imageBytes, String fileName) {
+        String storedName = uploadProperties.isContentAddressed()
+                ? contentAddressedName(fileName, newContentDigest().digest(imageBytes))
+                : fileName;
+        Path filePath = layout.targetFor(storedName);
+
+        if (uploadProperties.isContentAddressed() && imageExists(layout.locate(storedName))) {
+            logger.debug("Duplicate image content, reusing: {}", storedName);
+            cacheImage(storedName, imageBytes);
+            return reuseExisting(layout.locate(storedName));
+        }
+
+        // 刚保存的图像马上会被人脸分析和动漫化读取，先放入热缓存
+        cacheImage(storedName, imageBytes);
+
+        if (writeBehindWriter != null && writeBehindWriter.submit(filePath, imageBytes)) {
+            logger.debug("Image queued for write-behind: {}", filePath);
+            return filePath;
+        }
+
+        Path partPath = null;
+        try {
+            // 确保目标目录存在
+            Files.createDirectories(filePath.getParent());
+
+            // 保存文件（先写临时文件再重命名，避免并发读取到不完整内容）
+            partPath = filePath.resolveSibling(UUID.randomUUID() + PART_SUFFIX);
+            Files.write(partPath, imageBytes);
+            Files.move(partPath, filePath, StandardCopyOption.REPLACE_EXISTING);
             logger.debug("Image saved to: {}", filePath);
 
             return filePath;
 
         } catch (IOException e) {
             logger.error("Failed to save image file: {}", fileName, e);
+            if (hotCache != null) {
+                hotCache.remove(storedName);
+            }
             throw new FileStorageException("文件保存失败: " + e.getMessage(), e);
+        } finally {
+            deletePartFile(partPath);
+        }
+    }
+
+    private void cacheImage(String fileName, byte[] imageBytes) {
+        if (hotCache != null && imageBytes != null) {
+            hotCache.put(fileName, imageBytes);
+        }
+    }
+
+    /**
+     * 复用已存在的相同内容文件
+     * 只刷新访问时间：按容量淘汰时视为刚被使用，按保留期限过期仍从第一次保存算起
+     */
+    private Path reuseExisting(Path existing) {
+        setFileTimes(existing, false);
+        return existing;
+    }
+
+    /**
+     * 更新文件时间戳；文件尚在延迟写入队列中或已被删除时忽略
+     */
+    private void setFileTimes(Path imagePath, boolean modified) {
+        FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+        try {
+            Files.getFileAttributeView(imagePath, BasicFileAttributeView.class)
+                    .setTimes(modified ? now : null, now, null);
+        } catch (IOException e) {
+            logger.debug("Could not update timestamps of {}: {}", imagePath, e.getMessage());
         }
     }
 
+    /**
+     * 生成内容寻址文件名
+     * 保留建议文件名中最后一个'_'及之前的前缀（如cartoon_）和扩展名，中间部分替换为内容摘要
+     */
+    private String contentAddressedName(String fileName, byte[] digest) {
+        int prefixEnd = fileName.lastIndexOf('_') + 1;
+        int extStart = fileName.lastIndexOf('.');
+        String prefix = fileName.substring(0, prefixEnd);
+        String extension = extStart >= prefixEnd ? fileName.substring(extStart) : "";
+
+        StringBuilder name = new StringBuilder(prefix.length() + CONTENT_HASH_HEX_LENGTH + extension.length());
+        name.append(prefix);
+        for (int i = 0; i < CONTENT_HASH_HEX_LENGTH / 2; i++) {
+            name.append(HEX_DIGITS[(digest[i] >> 4) & 0x0F]).append(HEX_DIGITS[digest[i] & 0x0F]);
+        }
+        return name.append(extension).toString();
+    }
+
+    private MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void deletePartFile(Path partPath) {
+        if (partPath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(partPath);
+        } catch (IOException e) {
+            logger.warn("Failed to delete partial file: {}", partPath);
+        }
+    }
+
+    /**
+     * 将输入流复制到目标文件，超过大小限制时中止
+     * 读取失败（客户端断开、Base64非法）视为图像数据错误，写入失败视为存储错误
+     * capture非空时同时保存不超过热缓存单条上限的内容
+     * 
+     * @return 写入的字节数
+     */
+    private long copyWithLimit(InputStream source, Path target, long maxBytes, MessageDigest digest,
+            ByteArrayOutputStream capture) throws IOException {
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        long captureLimit = uploadProperties.getHotCacheMaxEntryBytes();
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            while (true) {
+                int read;
+                try {
+                    read = source.read(buffer);
+                } catch (IOException e) {
+                    throw new ImageProcessingException("读取图像数据失败: " + e.getMessage(), e);
+                } catch (IllegalArgumentException e) {
+                    throw new ImageProcessingException("Base64解码失败，" + e.getMessage(), e);
+                }
+                if (read == -1) {
+                    return total;
+                }
+                total += read;
+                if (maxBytes > 0 && total > maxBytes) {
+                    throw new ImageProcessingException("图像数据超过大小限制: " + maxBytes + " 字节");
+                }
+                out.write(buffer, 0, read);
+                if (digest != null) {
+                    digest.update(buffer, 0, read);
+                }
+                if (capture != null && total <= captureLimit) {
+                    capture.write(buffer, 0, read);
+                }
+            }
+        }
+    }
+
+    /**
+     * 跳过Base64文本流开头可能存在的data URI前缀
+     */
+    private InputStream skipDataUriPrefix(InputStream inputStream) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(inputStream, MAX_DATA_URI_PREFIX_LENGTH);
+        byte[] head = in.readNBytes(MAX_DATA_URI_PREFIX_LENGTH);
+
+        String headText = new String(head, StandardCharsets.US_ASCII);
+        if (!headText.startsWith("data:")) {
+            in.unread(head);
+            return in;
+        }
+
+        int comma = headText.indexOf(',');
+        if (comma < 0) {
+            throw new ImageProcessingException("无效的data URI前缀");
+        }
+        in.unread(head, comma + 1, head.length - comma - 1);
+        return in;
+    }
+
+    /**
+     * 确保上传目录存在
+     */
+    private Path ensureUploadDirectory() throws IOException {
+        Path uploadPath = layout.getRoot();
+        if (!Files.exists(uploadPath)) {
+            Files.createDirectories(uploadPath);
+            logger.info("Created upload directory: {}", uploadPath);
+        }
+        return uploadPath;
+    }
+
     @Override
     public String extractBase64Data(String imageData) {
         if (imageData == null) {
             return null;
         }
-
-        String base64Data = imageData;
+        if (imageData.isEmpty()) {
+            return imageData;
+        }
 
         // 移除可能的data:image前缀
-        if (imageData.contains(",")) {
-            base64Data = imageData.substring(imageData.indexOf(",") + 1);
+        int start = Base64ImageDecoder.payloadStart(imageData);
+
+        // 清理空白字符，避免由于换行、空格导致的解码失败；无空白字符时直接截取
+        StringBuilder cleaned = null;
+        for (int i = start; i < imageData.length(); i++) {
+            char c = imageData.charAt(i);
+            if (Base64ImageDecoder.isWhitespace(c)) {
+                if (cleaned == null) {
+                    cleaned = new StringBuilder(imageData.length() - start);
+                    cleaned.append(imageData, start, i);
+                }
+            } else if (cleaned != null) {
+                cleaned.append(c);
+            }
         }
+        return cleaned != null ? cleaned.toString() : imageData.substring(start);
+    }
 
-        // 清理空白字符，避免由于换行、空格导致的解码失败
-        return base64Data.replaceAll("\\s+", "");
+    @Override
+    public Path resolveImagePath(String fileName) {
+        return layout.locate(fileName);
+    }
+
+    @Override
+    public boolean imageExists(Path imagePath) {
+        return (writeBehindWriter != null && writeBehindWriter.getPending(imagePath) != null)
+                || Files.exists(imagePath);
+    }
+
+    @Override
+    public byte[] readImageBytes(Path imagePath) {
+        if (writeBehindWriter != null) {
+            byte[] pending = writeBehindWriter.getPending(imagePath);
+            if (pending != null) {
+                return pending;
+            }
+        }
+        String fileName = imagePath.getFileName().toString();
+        if (hotCache != null) {
+            byte[] cached = hotCache.get(fileName);
+            if (cached != null) {
+                // 命中缓存同样算一次访问，否则保留策略会把最常用的文件当作长期未访问
+                recordAccess(imagePath);
+                return cached;
+            }
+        }
+        try {
+            byte[] imageBytes = Files.readAllBytes(imagePath);
+            recordAccess(imagePath);
+            cacheImage(fileName, imageBytes);
+            return imageBytes;
+        } catch (NoSuchFileException e) {
+            throw new FileStorageException("文件不存在: " + imagePath, e);
+        } catch (IOException e) {
+            logger.error("Failed to read image file: {}", imagePath, e);
+            throw new FileStorageException("读取文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void recordAccess(Path imagePath) {
+        setFileTimes(imagePath, false);
+    }
+
+    @Override
+    public void evictCached(Path imagePath) {
+        if (hotCache != null) {
+            hotCache.remove(imagePath.getFileName().toString());
+        }
+    }
+
+    @Override
+    public int migrateToShardedLayout() {
+        if (!layout.isSharded()) {
+            return 0;
+        }
+        int migrated = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(layout.getRoot(),
+                file -> Files.isRegularFile(file) && !file.getFileName().toString().endsWith(PART_SUFFIX))) {
+            for (Path file : files) {
+                Path target = layout.targetFor(file.getFileName().toString());
+                try {
+                    Files.createDirectories(target.getParent());
+                    Files.move(file, target);
+                    migrated++;
+                } catch (FileAlreadyExistsException e) {
+                    logger.warn("Skipping migration, target already exists: {}", target);
+                } catch (IOException e) {
+                    logger.warn("Failed to migrate {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to list upload directory: {}", layout.getRoot(), e);
+            throw new FileStorageException("迁移上传目录失败: " + e.getMessage(), e);
+        }
+        logger.info("Migrated {} files to sharded upload layout", migrated);
+        return migrated;
     }
 
     @Override
@@ -88,28 +507,40 @@ public class ImageStorageServiceImpl implements ImageStorageService {
 
     @Override
     public void validateImageData(String imageData) {
-        if (imageData == null || imageData.trim().isEmpty()) {
+        if (imageData == null || imageData.isBlank()) {
             throw new IllegalArgumentException("图像数据不能为空");
         }
 
-        // 提取Base64数据
-        String base64Data = extractBase64Data(imageData);
-
-        // 验证Base64格式
-        if (base64Data == null || base64Data.trim().isEmpty()) {
-            throw new IllegalArgumentException("无效的图像数据格式");
+        // 单次扫描验证前缀、长度和Base64字符合法性
+        try {
+            Base64ImageDecoder.validate(imageData);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid image data: {}", e.getMessage());
+            throw e;
         }
+    }
 
-        // 降低最小长度要求，避免误判小图片或缩略图
-        // Base64编码后约为原始数据的1.33倍，100字节约为75字节原始数据，这太小了
-        if (base64Data.length() < 50) {
-            throw new IllegalArgumentException("图像数据过小，可能不是有效的图像");
+    @Override
+    public String getMetricsName() {
+        return "storage";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        if (hotCache != null) {
+            metrics.put("hotCacheHits", hotCache.getHits());
+            metrics.put("hotCacheMisses", hotCache.getMisses());
+            metrics.put("hotCacheEvictions", hotCache.getEvictions());
+            metrics.put("hotCacheEntries", hotCache.size());
+            metrics.put("hotCacheBytes", hotCache.getCurrentBytes());
+            metrics.put("hotCacheMaxBytes", hotCache.getMaxBytes());
         }
-        
-        // 验证Base64字符合法性（可选，解码时也会验证）
-        if (!base64Data.matches("^[A-Za-z0-9+/]*={0,2}$")) {
-            logger.warn("Base64 data contains invalid characters");
-            throw new IllegalArgumentException("图像数据包含非法字符");
+        if (writeBehindWriter != null) {
+            metrics.put("writeBehindQueueSize", writeBehindWriter.getQueueSize());
+            metrics.put("writeBehindPendingBytes", writeBehindWriter.getPendingBytes());
+            metrics.put("writeBehindFailedWrites", writeBehindWriter.getFailedWrites());
         }
+        return metrics;
     }
 }
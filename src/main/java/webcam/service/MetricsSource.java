@@ -0,0 +1,27 @@
+package webcam.service;
+
+import java.util.Map;
+
+/**
+ * 运行指标来源
+ * 实现此接口的组件会出现在 /api/metrics 的输出中
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public interface MetricsSource {
+
+    /**
+     * 指标分组名称
+     *
+     * @return 分组名称，如 "retention"
+     */
+    String getMetricsName();
+
+    /**
+     * 当前指标快照
+     *
+     * @return 指标名到数值的映射
+     */
+    Map<String, Object> getMetrics();
+}
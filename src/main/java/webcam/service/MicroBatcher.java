@@ -0,0 +1,206 @@
+package webcam.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 微批处理器
+ * 没有调用在进行时，请求立即单独执行，不增加延迟；已有调用在进行时（请求开始排队），新请求进入当前批次，
+ * 批次中的第一个请求作为领队等待maxWait或直到批次满，然后在自己的线程上执行整批调用，把结果分发给同批请求。
+ * 批量结果中缺失的条目由对应请求自行单独重试
+ *
+ * @param <I> 输入类型
+ * @param <O> 输出类型
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class MicroBatcher<I, O> {
+
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final Function<I, O> single;
+    private final Function<List<I>, List<O>> batch;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchClosed = lock.newCondition();
+    // 正在收集请求的批次，没有时为null
+    private Batch<I, O> open;
+    // 正在执行的调用数（单独调用和批量调用各计一次）
+    private int inFlight;
+
+    private final AtomicLong singleCalls = new AtomicLong();
+    private final AtomicLong batchCalls = new AtomicLong();
+    private final AtomicLong batchedItems = new AtomicLong();
+    private final AtomicLong retriedItems = new AtomicLong();
+
+    /**
+     * @param maxBatchSize 每批最多请求数
+     * @param maxWait      领队等待更多请求加入的最长时间
+     * @param single       单独调用
+     * @param batch        批量调用，返回与输入顺序对应的结果；某个位置为null表示该条目需要单独重试
+     */
+    public MicroBatcher(int maxBatchSize, Duration maxWait, Function<I, O> single, Function<List<I>, List<O>> batch) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.single = single;
+        this.batch = batch;
+    }
+
+    /**
+     * 提交请求并等待结果
+     *
+     * @param input 输入
+     * @return 输出
+     */
+    public O submit(I input) {
+        Batch<I, O> joined;
+        int index;
+        boolean leader = false;
+        lock.lock();
+        try {
+            if (inFlight == 0 && open == null) {
+                inFlight++;
+                joined = null;
+                index = -1;
+            } else {
+                if (open == null) {
+                    open = new Batch<>();
+                    leader = true;
+                }
+                joined = open;
+                index = joined.inputs.size();
+                joined.inputs.add(input);
+                if (joined.inputs.size() >= maxBatchSize) {
+                    open = null;
+                    batchClosed.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (joined == null) {
+            return runSingle(input);
+        }
+        if (leader) {
+            lead(joined);
+        }
+        O output = joined.await(index);
+        if (output != null) {
+            return output;
+        }
+        retriedItems.incrementAndGet();
+        lock.lock();
+        try {
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+        return runSingle(input);
+    }
+
+    /**
+     * 等待批次收满或超时，然后执行批量调用
+     */
+    private void lead(Batch<I, O> current) {
+        List<I> inputs;
+        lock.lock();
+        try {
+            long remaining = maxWaitNanos;
+            while (open == current && remaining > 0) {
+                remaining = batchClosed.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            // 同批请求在等待结果，不能放弃，只保留中断状态
+            Thread.currentThread().interrupt();
+        } finally {
+            if (open == current) {
+                open = null;
+            }
+            inputs = List.copyOf(current.inputs);
+            inFlight++;
+            lock.unlock();
+        }
+
+        try {
+            List<O> outputs;
+            if (inputs.size() == 1) {
+                singleCalls.incrementAndGet();
+                outputs = new ArrayList<>(1);
+                outputs.add(single.apply(inputs.get(0)));
+            } else {
+                batchCalls.incrementAndGet();
+                batchedItems.addAndGet(inputs.size());
+                outputs = batch.apply(inputs);
+            }
+            current.result.complete(outputs);
+        } catch (RuntimeException | Error e) {
+            current.result.completeExceptionally(e);
+        } finally {
+            finishCall();
+        }
+    }
+
+    private O runSingle(I input) {
+        singleCalls.incrementAndGet();
+        try {
+            return single.apply(input);
+        } finally {
+            finishCall();
+        }
+    }
+
+    private void finishCall() {
+        lock.lock();
+        try {
+            inFlight--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        long calls = batchCalls.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("singleCalls", singleCalls.get());
+        metrics.put("batchCalls", calls);
+        metrics.put("batchedItems", batchedItems.get());
+        metrics.put("avgBatchSize", calls > 0 ? (double) batchedItems.get() / calls : 0.0);
+        metrics.put("retriedItems", retriedItems.get());
+        return metrics;
+    }
+
+    private static final class Batch<I, O> {
+
+        final List<I> inputs = new ArrayList<>();
+        final CompletableFuture<List<O>> result = new CompletableFuture<>();
+
+        /**
+         * @return 第index个结果；批量结果缺少该条目时返回null
+         */
+        O await(int index) {
+            List<O> outputs;
+            try {
+                outputs = result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+            return outputs != null && index < outputs.size() ? outputs.get(index) : null;
+        }
+    }
+}
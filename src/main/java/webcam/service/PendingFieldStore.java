@@ -0,0 +1,89 @@
+package webcam.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 延迟字段登记表
+ * 两阶段分析中，先返回的响应只携带一个ID，后生成的字段（健康分析、夸奖内容）以CompletableFuture登记在此，
+ * 客户端稍后凭ID获取。条目数有上限，超出时淘汰最早登记的条目；条目过期后不再可查
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class PendingFieldStore {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    // 按登记顺序排列，所有条目有效期相同，最早登记的条目最先过期
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * @param maxEntries 最大条目数
+     * @param ttlMillis  条目有效期
+     */
+    public PendingFieldStore(int maxEntries, long ttlMillis) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 登记延迟字段
+     *
+     * @param fields 完成后得到字段的Future
+     * @return 用于查询的ID
+     */
+    public String register(CompletableFuture<Map<String, Object>> fields) {
+        String id = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            removeExpired(now);
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (entries.size() >= maxEntries && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+            entries.put(id, new Entry(fields, now + ttlMillis));
+        }
+        return id;
+    }
+
+    /**
+     * 查找延迟字段
+     *
+     * @param id register返回的ID
+     * @return 字段的Future；ID未知、已被淘汰或已过期时返回null
+     */
+    public CompletableFuture<Map<String, Object>> find(String id) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt <= now) {
+                entries.remove(id);
+                return null;
+            }
+            return entry.fields;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void removeExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext() && iterator.next().expiresAt <= now) {
+            iterator.remove();
+        }
+    }
+
+    private record Entry(CompletableFuture<Map<String, Object>> fields, long expiresAt) {
+    }
+}
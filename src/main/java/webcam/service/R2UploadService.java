@@ -1,5 +1,6 @@
 package webcam.service;
 
+import java.io.InputStream;
 import java.nio.file.Path;
 
 /**
@@ -42,6 +43,29 @@ public interface R2UploadService {
      */
     R2ObjectInfo uploadFromBase64(String base64Data, String objectKey, String contentType);
     
+    /**
+     * 上传内存中的字节数据到R2
+     * 
+     * @param data 文件内容
+     * @param objectKey R2中的对象key
+     * @param contentType 文件内容类型（如 image/jpeg）
+     * @return 上传成功后的对象信息
+     * @throws webcam.exception.FileStorageException 当上传失败时
+     */
+    R2ObjectInfo uploadBytes(byte[] data, String objectKey, String contentType);
+    
+    /**
+     * 从输入流上传数据到R2，数据不会整体读入内存
+     * 
+     * @param inputStream 数据输入流（调用方负责关闭）
+     * @param contentLength 数据长度（字节）
+     * @param objectKey R2中的对象key
+     * @param contentType 文件内容类型（如 image/jpeg）
+     * @return 上传成功后的对象信息
+     * @throws webcam.exception.FileStorageException 当上传失败时
+     */
+    R2ObjectInfo uploadStream(InputStream inputStream, long contentLength, String objectKey, String contentType);
+    
     /**
      * R2对象信息数据类
      */
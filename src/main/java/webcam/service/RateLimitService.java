@@ -0,0 +1,31 @@
+package webcam.service;
+
+import java.util.function.Supplier;
+
+/**
+ * 百炼API客户端限速服务接口
+ * 按账号配额平滑突发请求，调用方按到达顺序排队等待令牌；
+ * 被限流（429）或服务端错误（5xx）的调用按Retry-After或带抖动的指数退避重试，而不是直接失败
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public interface RateLimitService {
+
+    /**
+     * 配额类别，每个类别一个令牌桶
+     */
+    enum Quota {
+        FACE_ANALYSIS, CARTOON
+    }
+
+    /**
+     * 取得令牌后执行调用，429和5xx响应在重试次数内重试，每次重试重新取得令牌
+     *
+     * @param quota 配额类别
+     * @param call  调用，HTTP错误以HttpStatusCodeException抛出
+     * @return 调用结果
+     * @throws webcam.exception.DependencyUnavailableException 排队超过最长等待时间，或重试后仍被限流时
+     */
+    <T> T execute(Quota quota, Supplier<T> call);
+}
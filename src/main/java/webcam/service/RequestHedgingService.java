@@ -0,0 +1,38 @@
+package webcam.service;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 请求对冲服务接口
+ * 请求在最近延迟分布的指定百分位内未返回时，再发出一个备份请求，采用先返回的结果
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public interface RequestHedgingService {
+
+    /**
+     * 执行可对冲的请求
+     * 未启用对冲、样本不足、超出每分钟对冲预算或同时进行的备份请求已达上限时，只执行一次。
+     * 主请求在调用线程上执行，备份请求在执行器上执行；落后的一方被中止：断开其通过AbortHandle登记的连接并中断其线程
+     *
+     * @param operation 操作名称，每个操作分别统计延迟分布（如"face"、"cartoon-submit"）
+     * @param call      请求；可能在两个线程上各执行一次，必须可以安全地重复执行和中止
+     * @return 先成功返回的结果
+     * @throws RuntimeException 所有已发出的请求都失败时，抛出最后一个失败的异常
+     */
+    <T> T execute(String operation, Supplier<T> call);
+
+    /**
+     * 执行会在服务端产生副作用的可对冲请求（如创建异步任务）
+     * 两次请求都在执行器上执行，落后的请求不被中止，而是等它返回后把结果交给discard撤销（如取消多创建的任务）
+     *
+     * @param operation 操作名称
+     * @param call      请求；可能在两个线程上各执行一次
+     * @param discard   在落后请求的线程上接收其成功结果
+     * @return 先成功返回的结果
+     * @throws RuntimeException 所有已发出的请求都失败时，抛出最后一个失败的异常
+     */
+    <T> T execute(String operation, Supplier<T> call, Consumer<? super T> discard);
+}
@@ -0,0 +1,46 @@
+package webcam.service;
+
+import webcam.dto.ModelUsage;
+
+/**
+ * 当前请求的模型用量
+ * 控制器在调用服务前开启，服务在请求线程上把属于该请求的调用用量累加进来，控制器结束时取出写入响应
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class RequestUsageScope {
+
+    private static final ThreadLocal<ModelUsage[]> CURRENT = new ThreadLocal<>();
+
+    private RequestUsageScope() {
+    }
+
+    /**
+     * 在当前线程上开启统计
+     */
+    public static void begin() {
+        CURRENT.set(new ModelUsage[1]);
+    }
+
+    /**
+     * 累加一次调用的用量；当前线程未开启统计时忽略
+     */
+    public static void add(ModelUsage usage) {
+        ModelUsage[] holder = CURRENT.get();
+        if (holder != null && usage != null) {
+            holder[0] = holder[0] == null ? usage : holder[0].plus(usage);
+        }
+    }
+
+    /**
+     * 结束当前线程上的统计
+     *
+     * @return 请求内调用用量的合计；没有调用模型（如命中缓存、被预筛拒绝）时返回null
+     */
+    public static ModelUsage end() {
+        ModelUsage[] holder = CURRENT.get();
+        CURRENT.remove();
+        return holder != null ? holder[0] : null;
+    }
+}
@@ -0,0 +1,56 @@
+package webcam.service;
+
+import java.util.function.Supplier;
+
+/**
+ * 外部依赖容错服务接口
+ * 通过熔断器让失败中的依赖快速失败，通过舱壁限制每类调用的并发数，避免一个依赖变慢拖垮其他调用
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public interface ResilienceService {
+
+    /**
+     * 外部依赖，每个依赖一个熔断器
+     */
+    enum Dependency {
+        DASHSCOPE, OSS, R2
+    }
+
+    /**
+     * 调用类别，每个类别一个舱壁
+     */
+    enum Compartment {
+        FACE_ANALYSIS(Dependency.DASHSCOPE),
+        CARTOON(Dependency.DASHSCOPE),
+        RESULT_DOWNLOAD(Dependency.OSS),
+        R2_UPLOAD(Dependency.R2);
+
+        private final Dependency dependency;
+
+        Compartment(Dependency dependency) {
+            this.dependency = dependency;
+        }
+
+        public Dependency dependency() {
+            return dependency;
+        }
+    }
+
+    /**
+     * 在舱壁和熔断器保护下执行调用
+     * 调用抛出的异常原样抛出；只有5xx、I/O错误和超时计为依赖失败（见DependencyFailures）
+     *
+     * @param compartment 调用类别
+     * @param call        调用
+     * @return 调用结果
+     * @throws webcam.exception.DependencyUnavailableException 熔断器断开或舱壁已满时
+     */
+    <T> T execute(Compartment compartment, Supplier<T> call);
+
+    /**
+     * 判断调用类别所依赖的服务当前是否可用（熔断器是否放行），用于在准备请求之前提前走降级路径
+     */
+    boolean isAvailable(Compartment compartment);
+}
@@ -0,0 +1,77 @@
+package webcam.service;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+
+/**
+ * 上传目录布局
+ * 平铺模式下所有文件位于上传根目录；分片模式下按文件名哈希前缀存放到两级子目录（如 3f/a2/xxx.jpeg），
+ * 避免单个目录下文件过多。访问URL始终只包含文件名，与布局无关
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class UploadLayout {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Path root;
+    private final boolean sharded;
+
+    public UploadLayout(String rootPath, boolean sharded) {
+        this.root = Paths.get(rootPath);
+        this.sharded = sharded;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public boolean isSharded() {
+        return sharded;
+    }
+
+    /**
+     * 返回文件应写入的位置
+     *
+     * @param fileName 文件名（不含目录）
+     * @return 当前布局下的文件路径
+     */
+    public Path targetFor(String fileName) {
+        return sharded ? root.resolve(shardOf(fileName)).resolve(fileName) : root.resolve(fileName);
+    }
+
+    /**
+     * 查找已存在的文件
+     * 分片模式下优先查找分片目录，找不到时回退到根目录（尚未迁移的旧文件）
+     *
+     * @param fileName 文件名（不含目录）
+     * @return 文件路径；文件不存在时返回当前布局下的目标路径
+     */
+    public Path locate(String fileName) {
+        Path target = targetFor(fileName);
+        if (sharded && !Files.exists(target)) {
+            Path flat = root.resolve(fileName);
+            if (Files.exists(flat)) {
+                return flat;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * 计算文件名对应的分片子目录（两级，每级两位十六进制）
+     */
+    public static String shardOf(String fileName) {
+        CRC32 crc = new CRC32();
+        crc.update(fileName.getBytes(StandardCharsets.UTF_8));
+        long value = crc.getValue();
+        return new String(new char[] {
+                HEX_DIGITS[(int) (value >> 28) & 0x0F], HEX_DIGITS[(int) (value >> 24) & 0x0F], '/',
+                HEX_DIGITS[(int) (value >> 20) & 0x0F], HEX_DIGITS[(int) (value >> 16) & 0x0F]
+        });
+    }
+}
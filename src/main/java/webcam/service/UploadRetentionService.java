@@ -0,0 +1,25 @@
+package webcam.service;
+
+/**
+ * 上传目录保留策略服务接口
+ * 按最大保留时间删除过期文件，并在总容量超出配额时按最近访问时间淘汰文件。
+ * 覆盖上传目录下的所有文件（用户照片、cartoon_*.jpeg、二维码图片等）
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public interface UploadRetentionService {
+
+    /**
+     * 执行一批增量扫描
+     * 每批最多处理配置数量的目录项，一轮扫描结束时执行配额淘汰
+     *
+     * @return 本批是否结束了一轮完整扫描
+     */
+    boolean sweepStep();
+
+    /**
+     * 连续执行增量扫描直到完成一轮
+     */
+    void sweepPass();
+}
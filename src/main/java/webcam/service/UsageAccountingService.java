@@ -0,0 +1,48 @@
+package webcam.service;
+
+import webcam.dto.ChatCompletionResponse;
+import webcam.dto.ModelUsage;
+
+import java.util.List;
+
+/**
+ * 模型用量统计服务接口
+ * 按模型和操作（提示词）统计每次调用的token数、发送的图像像素数和耗时
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public interface UsageAccountingService {
+
+    /**
+     * 记录一次成功的调用
+     *
+     * @param model      模型名称
+     * @param operation  操作名称（如"face"、"face-batch"、"face-stream"）
+     * @param usage      响应中的usage；响应没有返回时为null，只统计像素数和耗时
+     * @param images     本次调用发送的图像
+     * @param wallMillis 调用耗时
+     * @return 本次调用的用量
+     */
+    ModelUsage record(String model, String operation, ChatCompletionResponse.Usage usage, List<byte[]> images,
+            long wallMillis);
+
+    /**
+     * 记录一次失败的调用
+     *
+     * @param model      模型名称
+     * @param operation  操作名称
+     * @param wallMillis 失败前的耗时
+     */
+    void recordFailure(String model, String operation, long wallMillis);
+
+    /**
+     * 记录一次被中止的调用（对冲中落后的请求），图像已经发出，响应中的用量无法得知
+     *
+     * @param model      模型名称
+     * @param operation  操作名称
+     * @param images     本次调用发送的图像
+     * @param wallMillis 被中止前的耗时
+     */
+    void recordAbandoned(String model, String operation, List<byte[]> images, long wallMillis);
+}
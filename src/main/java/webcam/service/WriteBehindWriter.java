@@ -0,0 +1,153 @@
+package webcam.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 延迟写入器
+ * 图像字节进入有界内存队列后立即返回，由专用写线程异步落盘。
+ * 队列已满或字节预算用尽时返回false，由调用方改为同步写入
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class WriteBehindWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindWriter.class);
+
+    private final BlockingQueue<Path> queue;
+    private final Map<Path, byte[]> pending = new ConcurrentHashMap<>();
+    private final long maxPendingBytes;
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    /**
+     * @param capacity        队列中最多等待写入的文件数
+     * @param maxPendingBytes 队列中最多等待写入的字节数
+     */
+    public WriteBehindWriter(int capacity, long maxPendingBytes) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxPendingBytes = maxPendingBytes;
+        this.writerThread = new Thread(this::drainLoop, "upload-write-behind");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * 将文件加入写入队列
+     *
+     * @param target 目标文件路径
+     * @param data   文件内容
+     * @return 是否已入队；返回false时调用方需自行同步写入
+     */
+    public boolean submit(Path target, byte[] data) {
+        if (!running) {
+            return false;
+        }
+        if (pendingBytes.addAndGet(data.length) > maxPendingBytes) {
+            pendingBytes.addAndGet(-data.length);
+            return false;
+        }
+        if (pending.putIfAbsent(target, data) != null) {
+            // 同一路径已在队列中（内容寻址模式下内容相同），无需重复写入
+            pendingBytes.addAndGet(-data.length);
+            return true;
+        }
+        if (!queue.offer(target)) {
+            pending.remove(target);
+            pendingBytes.addAndGet(-data.length);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 返回尚未落盘的文件内容
+     *
+     * @param target 文件路径
+     * @return 文件内容；不在队列中时返回null
+     */
+    public byte[] getPending(Path target) {
+        return pending.get(target);
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getPendingBytes() {
+        return pendingBytes.get();
+    }
+
+    public long getFailedWrites() {
+        return failedWrites.get();
+    }
+
+    /**
+     * 停止写线程并同步写完队列中剩余的文件
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Path target;
+        while ((target = queue.poll()) != null) {
+            write(target);
+        }
+    }
+
+    private void drainLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Path target = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (target != null) {
+                    write(target);
+                }
+            } catch (InterruptedException e) {
+                // shutdown()负责写完剩余文件
+                return;
+            }
+        }
+    }
+
+    private void write(Path target) {
+        byte[] data = pending.get(target);
+        if (data == null) {
+            return;
+        }
+        Path partPath = target.resolveSibling(UUID.randomUUID() + ".part");
+        try {
+            Files.createDirectories(target.getParent());
+            Files.write(partPath, data);
+            Files.move(partPath, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            failedWrites.incrementAndGet();
+            logger.error("Write-behind failed for: {}", target, e);
+            try {
+                Files.deleteIfExists(partPath);
+            } catch (IOException ignored) {
+                // 临时文件清理失败不影响后续写入
+            }
+        } finally {
+            pending.remove(target);
+            pendingBytes.addAndGet(-data.length);
+        }
+    }
+}
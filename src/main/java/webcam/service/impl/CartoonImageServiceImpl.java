@@ -1,45 +1,71 @@
 package webcam.service.impl;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.RestTemplate;
 import webcam.config.CartoonApiProperties;
 import webcam.config.R2Properties;
+import webcam.config.ThreadingProperties;
 import webcam.config.UploadProperties;
 import webcam.dto.CartoonImageResult;
+import webcam.dto.TaskOutput;
+import webcam.dto.TaskSubmitResponse;
 import webcam.exception.BailianApiException;
+import webcam.exception.DependencyUnavailableException;
 import webcam.exception.FileStorageException;
+import webcam.exception.ServiceOverloadedException;
+import webcam.service.ApiKeyPool;
 import webcam.service.CartoonImageService;
+import webcam.service.CartoonJob;
+import webcam.service.CartoonTaskPoller;
+import webcam.service.DashScopeRequestWriter;
+import webcam.service.DashScopeResponseReader;
+import webcam.service.ImageNormalizationService;
 import webcam.service.ImageStorageService;
+import webcam.service.MetricsSource;
 import webcam.service.QrCodeService;
 import webcam.service.R2UploadService;
+import webcam.service.RateLimitService;
+import webcam.service.RequestHedgingService;
+import webcam.service.ResilienceService;
+import webcam.service.ResilienceService.Compartment;
+import webcam.util.VirtualThreads;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.Instant;
-import java.util.Base64;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * 卡通图片生成服务实现
  * 使用阿里云人物动漫化API将用户照片转换为卡通风格
+ * 异步任务提交后登记到共用的任务轮询器，不为每个任务占用线程等待；
+ * 任务完成后在结果处理线程上下载图片、上传R2并生成二维码
  * 
  * @author Webcam Application
  * @version 2.0.0
  */
 @Service
-public class CartoonImageServiceImpl implements CartoonImageService {
+public class CartoonImageServiceImpl implements CartoonImageService, MetricsSource {
 
     private static final Logger logger = LoggerFactory.getLogger(CartoonImageServiceImpl.class);
 
@@ -51,6 +77,24 @@ public class CartoonImageServiceImpl implements CartoonImageService {
     private final R2UploadService r2UploadService;
     private final R2Properties r2Properties;
     private final QrCodeService qrCodeService;
+    private final ImageNormalizationService imageNormalizationService;
+    private final DashScopeRequestWriter requestWriter;
+    private final DashScopeResponseReader responseReader;
+    private final RequestHedgingService hedgingService;
+    private final ResilienceService resilienceService;
+    private final RateLimitService rateLimitService;
+    // 一个任务从提交到结束占用同一个Key
+    private final ApiKeyPool keyPool;
+    private final CartoonTaskPoller taskPoller;
+    // 发出任务状态查询请求，调度线程不等待响应
+    private final ExecutorService pollExecutor;
+    // 下载结果图片、上传R2和生成二维码，不占用轮询线程
+    private final ExecutorService resultExecutor;
+    // 通过submitCartoonJob提交的任务，结束后保留resultTtl供查询
+    private final Map<String, CartoonJob> jobs = new ConcurrentHashMap<>();
+    // 对冲中落后一方创建的任务：已取消的和无法取消、运行到结束的
+    private final AtomicLong cancelledTasks = new AtomicLong();
+    private final AtomicLong orphanedTasks = new AtomicLong();
 
     @Autowired
     public CartoonImageServiceImpl(
@@ -61,7 +105,12 @@ public class CartoonImageServiceImpl implements CartoonImageService {
             UploadProperties uploadProperties,
             R2UploadService r2UploadService,
             R2Properties r2Properties,
-            QrCodeService qrCodeService) {
+            QrCodeService qrCodeService,
+            ImageNormalizationService imageNormalizationService,
+            RequestHedgingService hedgingService,
+            ResilienceService resilienceService,
+            RateLimitService rateLimitService,
+            ThreadingProperties threadingProperties) {
         this.cartoonApiProperties = cartoonApiProperties;
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
@@ -70,32 +119,47 @@ public class CartoonImageServiceImpl implements CartoonImageService {
         this.r2UploadService = r2UploadService;
         this.r2Properties = r2Properties;
         this.qrCodeService = qrCodeService;
+        this.imageNormalizationService = imageNormalizationService;
+        this.hedgingService = hedgingService;
+        this.resilienceService = resilienceService;
+        this.rateLimitService = rateLimitService;
+        // 模型和风格参数在启动时序列化一次
+        this.requestWriter = new DashScopeRequestWriter(objectMapper.getFactory(), MediaType.IMAGE_JPEG_VALUE,
+                generator -> writeRequest(generator, DashScopeRequestWriter.IMAGE_PLACEHOLDER));
+        this.responseReader = new DashScopeResponseReader(objectMapper);
+        this.keyPool = new ApiKeyPool("cartoon", cartoonApiProperties.getKeyPool(), cartoonApiProperties.getApiKey());
+
+        CartoonApiProperties.Jobs jobConfig = cartoonApiProperties.getJobs();
+        // 查询请求是阻塞调用，在单独的执行器上发出，调度线程只负责计时
+        this.pollExecutor = VirtualThreads.newExecutor("cartoon-poll-",
+                threadingProperties.isVirtual(), threadingProperties.getPlatformPoolSize());
+        this.taskPoller = new CartoonTaskPoller(jobConfig.getPollerThreads(), jobConfig.getInitialPollInterval(),
+                jobConfig.getMinPollInterval(), jobConfig.getMaxPollInterval(), jobConfig.getTimeout(),
+                this::queryTask, pollExecutor);
+        this.resultExecutor = VirtualThreads.newExecutor("cartoon-result-",
+                threadingProperties.isVirtual(), threadingProperties.getPlatformPoolSize());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        taskPoller.shutdown();
+        pollExecutor.shutdownNow();
+        resultExecutor.shutdownNow();
     }
 
     @Override
     public CartoonImageResult generateCartoonImage(Path userImagePath) {
         try {
             logger.info("Generating cartoon image from: {}", userImagePath);
-            
-            // 读取图片并转换为Base64
-            byte[] imageBytes = Files.readAllBytes(userImagePath);
-            String base64Image = Base64.getEncoder().encodeToString(imageBytes);
-            
-            // 调用阿里云人物动漫化API（使用base64）
-            String cartoonImageUrl = callCartoonApiWithBase64(base64Image);
-            
-            if (cartoonImageUrl == null || cartoonImageUrl.isEmpty()) {
-                logger.warn("Cartoon API returned empty URL");
-                return null;
+            CartoonImageResult result = await(startGeneration(userImagePath));
+            if (result != null) {
+                logger.info("Cartoon image generated successfully: local={}, r2={}",
+                        result.getLocalUrl(), result.getR2ObjectKey());
             }
-            
-            // 下载生成的卡通图片并保存到本地
-            CartoonImageResult result = downloadAndSaveCartoonImage(cartoonImageUrl);
-            
-            logger.info("Cartoon image generated successfully: local={}, r2={}", 
-                    result.getLocalUrl(), result.getR2ObjectKey());
             return result;
-            
+
+        } catch (DependencyUnavailableException | ServiceOverloadedException e) {
+            throw e;
         } catch (BailianApiException e) {
             logger.error("Error calling cartoon API", e);
             throw e;
@@ -109,37 +173,110 @@ public class CartoonImageServiceImpl implements CartoonImageService {
     public CartoonImageResult generateCartoonImageFromUrl(String userImageUrl) {
         try {
             logger.info("Generating cartoon image from URL: {}", userImageUrl);
-            
-            // 检查是否是本地URL，如果是则使用base64
-            if (isLocalUrl(userImageUrl)) {
-                // 从URL提取本地路径
-                Path localImagePath = extractLocalPathFromUrl(userImageUrl);
-                if (localImagePath != null && Files.exists(localImagePath)) {
-                    return generateCartoonImage(localImagePath);
-                }
+            CartoonImageResult result = await(startGeneration(userImageUrl));
+            if (result != null) {
+                logger.info("Cartoon image generated successfully: local={}, r2={}",
+                        result.getLocalUrl(), result.getR2ObjectKey());
             }
-            
-            // 对于公网URL，直接使用URL调用API
-            String cartoonImageUrl = callCartoonApi(userImageUrl);
-            
-            if (cartoonImageUrl == null || cartoonImageUrl.isEmpty()) {
-                logger.warn("Cartoon API returned empty URL");
-                return null;
-            }
-            
-            // 下载生成的卡通图片并保存到本地
-            CartoonImageResult result = downloadAndSaveCartoonImage(cartoonImageUrl);
-            
-            logger.info("Cartoon image generated successfully: local={}, r2={}", 
-                    result.getLocalUrl(), result.getR2ObjectKey());
             return result;
-            
+
+        } catch (DependencyUnavailableException | ServiceOverloadedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error generating cartoon image from URL: {}", userImageUrl, e);
             throw new BailianApiException("从URL生成卡通图片失败: " + e.getMessage(), e);
         }
     }
-    
+
+    @Override
+    public CartoonJob submitCartoonJob(String userImageUrl) {
+        logger.info("Submitting cartoon job for URL: {}", userImageUrl);
+        CompletableFuture<CartoonImageResult> result = startGeneration(userImageUrl).thenApply(generated -> {
+            if (generated == null) {
+                throw new BailianApiException("卡通图片API未返回图片");
+            }
+            return generated;
+        });
+        CartoonJob job = new CartoonJob(UUID.randomUUID().toString(), result);
+        jobs.put(job.getId(), job);
+        long ttlMillis = cartoonApiProperties.getJobs().getResultTtl().toMillis();
+        result.whenComplete((generated, error) -> {
+            if (error != null) {
+                logger.warn("Cartoon job {} failed: {}", job.getId(), error.getMessage());
+            }
+            CompletableFuture.delayedExecutor(ttlMillis, TimeUnit.MILLISECONDS).execute(() -> jobs.remove(job.getId()));
+        });
+        return job;
+    }
+
+    @Override
+    public CartoonJob getCartoonJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 等待生成结果，异步阶段的异常原样抛出
+     */
+    private static CartoonImageResult await(CompletableFuture<CartoonImageResult> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new BailianApiException("生成卡通图片失败: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 提交生成任务：本地图片以base64内嵌在请求体中，公网URL直接传给API
+     */
+    private CompletableFuture<CartoonImageResult> startGeneration(String userImageUrl) {
+        // 检查是否是本地URL，如果是则使用base64
+        if (isLocalUrl(userImageUrl)) {
+            // 从URL提取本地路径
+            Path localImagePath = extractLocalPathFromUrl(userImageUrl);
+            if (localImagePath != null && imageStorageService.imageExists(localImagePath)) {
+                return startGeneration(localImagePath);
+            }
+        }
+
+        checkAvailable();
+        logger.debug("Calling cartoon API: {} with image URL: {}", cartoonApiProperties.getEndpoint(), userImageUrl);
+        // 请求体直接用JsonGenerator写入连接，不构建Map请求树
+        return submitTask(headers -> request -> {
+            request.getHeaders().putAll(headers);
+            request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(request.getBody())
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                writeRequest(generator, userImageUrl);
+            }
+        });
+    }
+
+    private CompletableFuture<CartoonImageResult> startGeneration(Path userImagePath) {
+        checkAvailable();
+        // 读取图片（通过存储服务读取，兼容延迟写入中的文件）
+        byte[] imageBytes = imageNormalizationService.normalize(
+                imageStorageService.readImageBytes(userImagePath), ImageNormalizationService.Target.CARTOON);
+        logger.debug("Calling cartoon API with inline image ({} bytes)", imageBytes.length);
+        // 请求体由缓存的模板和流式Base64编码的图像直接写入连接
+        return submitTask(headers -> requestWriter.requestCallback(headers, imageBytes));
+    }
+
+    /**
+     * 百炼API熔断时在读取和归一化图片之前直接失败，调用方立即走降级路径；
+     * 进行中的任务数达到上限时不再提交新任务
+     */
+    private void checkAvailable() {
+        if (!resilienceService.isAvailable(Compartment.CARTOON)) {
+            throw new DependencyUnavailableException("卡通图片服务暂时不可用", "dashscope", 1);
+        }
+        if (taskPoller.getOutstanding() >= cartoonApiProperties.getJobs().getMaxJobs()) {
+            throw new ServiceOverloadedException("进行中的卡通图片任务过多", 5);
+        }
+    }
+
     /**
      * 检查URL是否是本地URL（localhost或127.0.0.1）
      */
@@ -151,174 +288,194 @@ public class CartoonImageServiceImpl implements CartoonImageService {
     }
 
     /**
-     * 调用阿里云人物动漫化API
-     * 
-     * @param imageUrl 用户图片的URL
-     * @return 生成的卡通图片URL
+     * 写出卡通API请求体（按照API文档格式）
+     *
+     * @param generator JSON生成器
+     * @param imageUrl  图片URL或模板占位符
+     */
+    private void writeRequest(JsonGenerator generator, String imageUrl) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("model", cartoonApiProperties.getModel());
+        generator.writeObjectFieldStart("input");
+        generator.writeStringField("image_url", imageUrl);
+        // 添加风格索引
+        if (cartoonApiProperties.getStyleIndex() != null) {
+            generator.writeNumberField("style_index", cartoonApiProperties.getStyleIndex());
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    private HttpHeaders requestHeaders(String apiKey) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + apiKey);
+        headers.set("X-DashScope-Async", "enable"); // 启用异步模式
+        return headers;
+    }
+
+    /**
+     * 提交的任务：异步API返回taskId，同步返回时只有imageUrl
+     */
+    private record Submission(String taskId, String imageUrl, ApiKeyPool.Lease lease) {
+    }
+
+    /**
+     * 提交卡通API任务，登记到任务轮询器
+     * 只对提交请求对冲，对冲胜出的一方提交的任务被采用，落后一方创建的任务通过取消接口撤销。
+     * 每次提交（包括对冲的备份提交）各自按账号配额取得令牌、从Key池中取得有余量的Key并占用一个舱壁许可，
+     * 返回429或5xx时重新取得令牌和Key后重试；5xx、I/O错误和超时计入熔断器，429不计入。查询使用同一个Key，任务结束后归还
+     *
+     * @param callbackFactory 由请求头（包含选中的Key）创建写出请求体的RequestCallback
+     * @return 任务完成并保存结果图片后完成；API没有返回图片时以null完成
      */
-    private String callCartoonApi(String imageUrl) {
+    private CompletableFuture<CartoonImageResult> submitTask(Function<HttpHeaders, RequestCallback> callbackFactory) {
+        Submission submission;
         try {
-            // 构建请求体（根据阿里云百炼图片生成API格式）
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", cartoonApiProperties.getModel());
-            
-            // 构建输入参数（按照API文档格式）
-            Map<String, Object> input = new HashMap<>();
-            
-            // 添加图片URL
-            input.put("image_url", imageUrl);
-            
-            // 添加风格索引
-            if (cartoonApiProperties.getStyleIndex() != null) {
-                input.put("style_index", cartoonApiProperties.getStyleIndex());
-            }
-            
-            requestBody.put("input", input);
-            
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + cartoonApiProperties.getApiKey());
-            headers.set("X-DashScope-Async", "enable"); // 启用异步模式
-            
-            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
-            
-            logger.debug("Calling cartoon API: {} with image URL: {}", cartoonApiProperties.getEndpoint(), imageUrl);
-            logger.debug("Request body: {}", objectMapper.writeValueAsString(requestBody));
-            
-            ResponseEntity<String> response = restTemplate.exchange(
-                    cartoonApiProperties.getEndpoint(),
-                    HttpMethod.POST,
-                    requestEntity,
-                    String.class);
-            
-            logger.debug("API response status: {}, body: {}", response.getStatusCode(), response.getBody());
-            
-            if (response.getStatusCode() != HttpStatus.OK) {
-                String errorMsg = response.getBody() != null ? response.getBody() : "Unknown error";
-                throw new BailianApiException("卡通图片API调用失败，状态码: " + response.getStatusCode() + ", 响应: " + errorMsg);
-            }
-            
-            // 解析响应
-            return parseApiResponse(response.getBody());
-            
+            submission = hedgingService.execute("cartoon-submit",
+                    () -> rateLimitService.execute(RateLimitService.Quota.CARTOON,
+                            () -> submitCartoonRequest(callbackFactory)),
+                    this::discardSubmission);
         } catch (BailianApiException e) {
             throw e;
         } catch (Exception e) {
             logger.error("Error calling cartoon API", e);
             throw new BailianApiException("调用卡通图片API失败: " + e.getMessage(), e);
         }
+
+        CompletableFuture<String> imageUrl;
+        if (submission.taskId() != null) {
+            logger.info("Received task_id from async API: {}", submission.taskId());
+            imageUrl = taskPoller.track(submission.taskId(), submission.lease().apiKey());
+            imageUrl.whenComplete((url, error) -> {
+                if (error != null) {
+                    submission.lease().failed(error);
+                }
+                submission.lease().release();
+            });
+        } else {
+            submission.lease().release();
+            if (submission.imageUrl() == null) {
+                logger.warn("Cartoon API returned empty URL");
+            }
+            imageUrl = CompletableFuture.completedFuture(submission.imageUrl());
+        }
+        // 下载生成的卡通图片并保存到本地和R2
+        return imageUrl.thenApplyAsync(url -> url != null ? downloadAndSaveCartoonImage(url) : null, resultExecutor);
     }
-    
+
     /**
-     * 调用阿里云人物动漫化API（使用base64编码的图片）
-     * 
-     * @param base64Image Base64编码的图片数据
-     * @return 生成的卡通图片URL
+     * 取得Key并经过熔断器和舱壁发出一次提交请求；失败时归还Key
+     * Key池在熔断器之外：Key达到限额不代表卡通API故障
      */
-    private String callCartoonApiWithBase64(String base64Image) {
+    private Submission submitCartoonRequest(Function<HttpHeaders, RequestCallback> callbackFactory) {
+        ApiKeyPool.Lease lease = keyPool.acquire();
+        try {
+            ResponseEntity<String> response = resilienceService.execute(Compartment.CARTOON, () -> {
+                ResponseEntity<String> entity = restTemplate.execute(
+                        cartoonApiProperties.getEndpoint(),
+                        HttpMethod.POST,
+                        callbackFactory.apply(requestHeaders(lease.apiKey())),
+                        restTemplate.responseEntityExtractor(String.class));
+
+                logger.debug("API response status: {}, body: {}", entity.getStatusCode(), entity.getBody());
+
+                if (entity.getStatusCode() != HttpStatus.OK) {
+                    String errorMsg = entity.getBody() != null ? entity.getBody() : "Unknown error";
+                    throw new BailianApiException("卡通图片API调用失败，状态码: " + entity.getStatusCode() + ", 响应: " + errorMsg);
+                }
+                return entity;
+            });
+
+            // 解析响应
+            return parseApiResponse(response.getBody(), lease);
+        } catch (RuntimeException e) {
+            lease.failed(e);
+            lease.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 撤销对冲中落后一方的提交
+     * 任务还在排队时可以取消；已开始运行的任务无法取消，继续轮询到结束，期间仍占用其Key的并发名额
+     */
+    private void discardSubmission(Submission submission) {
+        if (submission.taskId() == null) {
+            submission.lease().release();
+            return;
+        }
+        if (cancelTask(submission.taskId(), submission.lease().apiKey())) {
+            cancelledTasks.incrementAndGet();
+            logger.info("Cancelled losing hedged cartoon task {}", submission.taskId());
+            submission.lease().release();
+            return;
+        }
+        orphanedTasks.incrementAndGet();
+        logger.info("Losing hedged cartoon task {} already running, tracking until it ends", submission.taskId());
+        taskPoller.track(submission.taskId(), submission.lease().apiKey())
+                .whenComplete((url, error) -> submission.lease().release());
+    }
+
+    /**
+     * 调用任务取消接口，只有排队中（PENDING）的任务可以取消
+     *
+     * @return 是否已取消
+     */
+    private boolean cancelTask(String taskId, String apiKey) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + apiKey);
         try {
-            // 构建请求体（按照API文档格式）
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", cartoonApiProperties.getModel());
-            
-            // 构建输入参数
-            Map<String, Object> input = new HashMap<>();
-            
-            // 使用base64格式的图片（data URI格式）
-            input.put("image_url", "data:image/jpeg;base64," + base64Image);
-            
-            // 添加风格索引
-            if (cartoonApiProperties.getStyleIndex() != null) {
-                input.put("style_index", cartoonApiProperties.getStyleIndex());
-            }
-            
-            requestBody.put("input", input);
-            
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + cartoonApiProperties.getApiKey());
-            headers.set("X-DashScope-Async", "enable"); // 启用异步模式
-            
-            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
-            
-            logger.debug("Calling cartoon API with base64 image");
-            logger.debug("Request body: {}", objectMapper.writeValueAsString(requestBody));
-            
             ResponseEntity<String> response = restTemplate.exchange(
-                    cartoonApiProperties.getEndpoint(),
+                    cartoonApiProperties.getTaskEndpoint() + taskId + "/cancel",
                     HttpMethod.POST,
-                    requestEntity,
+                    new HttpEntity<>(headers),
                     String.class);
-            
-            logger.debug("API response status: {}, body: {}", response.getStatusCode(), response.getBody());
-            
-            if (response.getStatusCode() != HttpStatus.OK) {
-                String errorMsg = response.getBody() != null ? response.getBody() : "Unknown error";
-                throw new BailianApiException("卡通图片API调用失败，状态码: " + response.getStatusCode() + ", 响应: " + errorMsg);
-            }
-            
-            // 解析响应
-            return parseApiResponse(response.getBody());
-            
-        } catch (BailianApiException e) {
-            throw e;
-        } catch (Exception e) {
-            logger.error("Error calling cartoon API with base64", e);
-            throw new BailianApiException("调用卡通图片API失败: " + e.getMessage(), e);
+            return response.getStatusCode().is2xxSuccessful();
+        } catch (RuntimeException e) {
+            logger.debug("Could not cancel cartoon task {}: {}", taskId, e.getMessage());
+            return false;
         }
     }
     
     /**
-     * 解析API响应，提取生成的图片URL或task_id
-     * 异步API可能返回task_id，需要轮询获取结果
+     * 解析API响应，提取task_id或生成的图片URL
+     * 异步API返回task_id，由任务轮询器获取结果
      */
-    private String parseApiResponse(String apiResponse) {
+    private Submission parseApiResponse(String apiResponse, ApiKeyPool.Lease lease) {
         try {
-            JsonNode jsonNode = objectMapper.readTree(apiResponse);
+            TaskSubmitResponse response = responseReader.readTaskSubmit(apiResponse);
             
             // 检查是否有错误
-            if (jsonNode.has("code") && !jsonNode.get("code").asText().equals("Success")) {
-                String errorMsg = jsonNode.has("message") 
-                    ? jsonNode.get("message").asText() 
-                    : "API调用失败";
+            if (response.code() != null && !response.code().equals("Success")) {
+                String errorMsg = response.message() != null ? response.message() : "API调用失败";
                 logger.error("Cartoon API returned error: {}", errorMsg);
                 throw new BailianApiException("卡通图片API返回错误: " + errorMsg);
             }
             
+            TaskOutput output = response.output();
             // 异步API返回task_id的情况
-            if (jsonNode.has("output") && jsonNode.get("output").has("task_id")) {
-                String taskId = jsonNode.get("output").get("task_id").asText();
-                logger.info("Received task_id from async API: {}", taskId);
-                // 轮询获取结果
-                return pollTaskResult(taskId);
+            if (output != null && output.taskId() != null) {
+                return new Submission(output.taskId(), null, lease);
             }
             
             // 同步返回结果的情况
-            if (jsonNode.has("output")) {
-                JsonNode output = jsonNode.get("output");
-                if (output.has("results") && output.get("results").isArray() && output.get("results").size() > 0) {
-                    JsonNode firstResult = output.get("results").get(0);
-                    if (firstResult.has("url")) {
-                        return firstResult.get("url").asText();
-                    }
-                }
+            if (output != null && output.firstResultUrl() != null) {
+                return new Submission(null, output.firstResultUrl(), lease);
             }
             
             // 兼容其他可能的响应格式
-            if (jsonNode.has("data")) {
-                JsonNode data = jsonNode.get("data");
-                if (data.has("image_url")) {
-                    return data.get("image_url").asText();
+            TaskSubmitResponse.Data data = response.data();
+            if (data != null) {
+                if (data.imageUrl() != null) {
+                    return new Submission(null, data.imageUrl(), lease);
                 }
-                if (data.has("url")) {
-                    return data.get("url").asText();
+                if (data.url() != null) {
+                    return new Submission(null, data.url(), lease);
                 }
             }
             
             logger.warn("Cannot find image URL or task_id in API response: {}", apiResponse);
-            return null;
+            return new Submission(null, null, lease);
             
         } catch (BailianApiException e) {
             throw e;
@@ -329,66 +486,28 @@ public class CartoonImageServiceImpl implements CartoonImageService {
     }
 
     /**
-     * 轮询异步任务结果
+     * 查询异步任务状态（由任务轮询器在调度线程上调用，使用提交任务的Key）
+     * HTTP错误以异常抛出，由轮询器决定重试或失败
+     *
+     * @return 任务output；响应没有内容时返回null
      */
-    private String pollTaskResult(String taskId) {
+    private TaskOutput queryTask(String taskId, String apiKey) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + apiKey);
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                cartoonApiProperties.getTaskEndpoint() + taskId,
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                String.class);
+
+        if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+            return null;
+        }
         try {
-            String pollUrl = "https://dashscope.aliyuncs.com/api/v1/tasks/" + taskId;
-            int maxAttempts = 30; // 最多轮询30次
-            int interval = 2000; // 每次间隔2秒
-            
-            for (int i = 0; i < maxAttempts; i++) {
-                Thread.sleep(interval);
-                
-                HttpHeaders headers = new HttpHeaders();
-                headers.set("Authorization", "Bearer " + cartoonApiProperties.getApiKey());
-                
-                HttpEntity<?> requestEntity = new HttpEntity<>(headers);
-                ResponseEntity<String> response = restTemplate.exchange(
-                        pollUrl,
-                        HttpMethod.GET,
-                        requestEntity,
-                        String.class);
-                
-                if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                    JsonNode jsonNode = objectMapper.readTree(response.getBody());
-                    
-                    // 检查任务状态
-                    if (jsonNode.has("output")) {
-                        JsonNode output = jsonNode.get("output");
-                        String taskStatus = output.has("task_status") 
-                            ? output.get("task_status").asText() 
-                            : null;
-                        
-                        if ("SUCCEEDED".equals(taskStatus) || "SUCCESS".equals(taskStatus)) {
-                            // 任务成功，提取图片URL
-                            if (output.has("results") && output.get("results").isArray() && output.get("results").size() > 0) {
-                                JsonNode firstResult = output.get("results").get(0);
-                                if (firstResult.has("url")) {
-                                    return firstResult.get("url").asText();
-                                }
-                            }
-                        } else if ("FAILED".equals(taskStatus) || "FAIL".equals(taskStatus)) {
-                            String errorMsg = output.has("message") 
-                                ? output.get("message").asText() 
-                                : "任务执行失败";
-                            throw new BailianApiException("卡通图片生成任务失败: " + errorMsg);
-                        }
-                        // PENDING或RUNNING状态，继续轮询
-                    }
-                }
-            }
-            
-            throw new BailianApiException("轮询任务超时，task_id: " + taskId);
-            
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new BailianApiException("轮询任务被中断", e);
-        } catch (BailianApiException e) {
-            throw e;
-        } catch (Exception e) {
-            logger.error("Error polling task result", e);
-            throw new BailianApiException("轮询任务结果失败: " + e.getMessage(), e);
+            return responseReader.readTaskStatus(response.getBody()).output();
+        } catch (IOException e) {
+            throw new BailianApiException("解析任务状态失败: " + e.getMessage(), e);
         }
     }
 
@@ -401,34 +520,15 @@ public class CartoonImageServiceImpl implements CartoonImageService {
         try {
             logger.debug("Downloading cartoon image from: {}", imageUrl);
             
-            // 使用Java原生URLConnection下载，避免RestTemplate对URL的重新编码
             URL url = new URL(imageUrl);
-            java.net.HttpURLConnection connection = (java.net.HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("User-Agent", "Mozilla/5.0");
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(30000);
-            
-            int responseCode = connection.getResponseCode();
-            if (responseCode != HttpURLConnection.HTTP_OK) {
-                connection.disconnect();
-                throw new BailianApiException("下载卡通图片失败，HTTP状态码: " + responseCode);
-            }
-            
-            // 读取图片数据
-            byte[] imageBytes;
-            try (java.io.InputStream inputStream = connection.getInputStream();
-                 java.io.ByteArrayOutputStream outputStream = new java.io.ByteArrayOutputStream()) {
-                
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
+            byte[] imageBytes = resilienceService.execute(Compartment.RESULT_DOWNLOAD, () -> {
+                try {
+                    return downloadImage(url);
+                } catch (IOException e) {
+                    logger.error("Error downloading image from OSS", e);
+                    throw new BailianApiException("下载卡通图片失败: " + e.getMessage(), e);
                 }
-                imageBytes = outputStream.toByteArray();
-            } finally {
-                connection.disconnect();
-            }
+            });
             
             if (imageBytes == null || imageBytes.length == 0) {
                 throw new BailianApiException("下载的图片数据为空");
@@ -436,10 +536,10 @@ public class CartoonImageServiceImpl implements CartoonImageService {
             
             // 生成文件名
             String fileName = "cartoon_" + UUID.randomUUID() + ".jpeg";
-            String base64Data = Base64.getEncoder().encodeToString(imageBytes);
             
-            // 保存到本地
-            Path savedPath = imageStorageService.saveBase64Image(base64Data, fileName);
+            // 保存到本地（直接保存下载的字节，无需Base64编解码）
+            Path savedPath = imageStorageService.saveImageBytes(imageBytes, fileName);
+            fileName = savedPath.getFileName().toString();
             String localUrl = imageStorageService.getImageUrl(fileName);
             logger.info("Cartoon image saved locally: {}", fileName);
             
@@ -452,14 +552,14 @@ public class CartoonImageServiceImpl implements CartoonImageService {
                 String r2ObjectKey = generateR2ObjectKey();
                 logger.debug("Uploading cartoon image to R2: key={}", r2ObjectKey);
                 
-                R2UploadService.R2ObjectInfo r2Info = r2UploadService.uploadFromBase64(
-                        base64Data, r2ObjectKey, "image/jpeg");
+                // R2熔断时立即失败，只保留本地图片
+                String presignedUrl = resilienceService.execute(Compartment.R2_UPLOAD, () -> {
+                    r2UploadService.uploadBytes(imageBytes, r2ObjectKey, "image/jpeg");
+                    // 生成预签名URL（600秒有效期）
+                    return r2UploadService.getPresignedUrl(r2ObjectKey, r2Properties.getPresignedUrlExpiration());
+                });
                 
                 result.setR2ObjectKey(r2ObjectKey);
-                
-                // 生成预签名URL（600秒有效期）
-                String presignedUrl = r2UploadService.getPresignedUrl(r2ObjectKey, 
-                        r2Properties.getPresignedUrlExpiration());
                 result.setPresignedUrl(presignedUrl);
                 
                 logger.info("R2 presigned URL generated: expires in {} seconds", 
@@ -485,9 +585,6 @@ public class CartoonImageServiceImpl implements CartoonImageService {
         } catch (java.net.MalformedURLException e) {
             logger.error("Invalid image URL: {}", imageUrl, e);
             throw new BailianApiException("无效的图片URL: " + imageUrl, e);
-        } catch (java.io.IOException e) {
-            logger.error("Error downloading image from OSS", e);
-            throw new BailianApiException("下载卡通图片失败: " + e.getMessage(), e);
         } catch (BailianApiException e) {
             throw e;
         } catch (Exception e) {
@@ -496,6 +593,39 @@ public class CartoonImageServiceImpl implements CartoonImageService {
         }
     }
     
+    /**
+     * 下载卡通图片
+     * 使用Java原生URLConnection下载，避免RestTemplate对URL的重新编码
+     */
+    private byte[] downloadImage(URL url) throws IOException {
+        java.net.HttpURLConnection connection = (java.net.HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("GET");
+        connection.setRequestProperty("User-Agent", "Mozilla/5.0");
+        connection.setConnectTimeout(10000);
+        connection.setReadTimeout(30000);
+        
+        int responseCode = connection.getResponseCode();
+        if (responseCode >= 500) {
+            connection.disconnect();
+            // 5xx计入OSS熔断器，其他状态码（如签名过期）不计入
+            throw HttpServerErrorException.create(HttpStatusCode.valueOf(responseCode),
+                    "下载卡通图片失败，HTTP状态码: " + responseCode, HttpHeaders.EMPTY, null, null);
+        }
+        if (responseCode != HttpURLConnection.HTTP_OK) {
+            connection.disconnect();
+            throw new BailianApiException("下载卡通图片失败，HTTP状态码: " + responseCode);
+        }
+        
+        // 读取图片数据
+        byte[] imageBytes;
+        try (java.io.InputStream inputStream = connection.getInputStream()) {
+            imageBytes = inputStream.readAllBytes();
+        } finally {
+            connection.disconnect();
+        }
+        return imageBytes;
+    }
+
     /**
      * 生成R2对象key，使用UUID加时间戳避免可猜测
      */
@@ -514,8 +644,7 @@ public class CartoonImageServiceImpl implements CartoonImageService {
             String baseUrl = uploadProperties.getBaseUrl();
             if (imageUrl.startsWith(baseUrl)) {
                 String fileName = imageUrl.substring(baseUrl.length());
-                Path uploadPath = Paths.get(uploadProperties.getPath());
-                return uploadPath.resolve(fileName);
+                return imageStorageService.resolveImagePath(fileName);
             }
             
             // 如果是完整URL，尝试解析
@@ -523,8 +652,7 @@ public class CartoonImageServiceImpl implements CartoonImageService {
             String path = url.getPath();
             if (path.startsWith("/upload/")) {
                 String fileName = path.substring("/upload/".length());
-                Path uploadPath = Paths.get(uploadProperties.getPath());
-                return uploadPath.resolve(fileName);
+                return imageStorageService.resolveImagePath(fileName);
             }
             
             return null;
@@ -534,5 +662,20 @@ public class CartoonImageServiceImpl implements CartoonImageService {
             return null;
         }
     }
-}
 
+    @Override
+    public String getMetricsName() {
+        return "cartoon";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("keyPool", keyPool.getMetrics());
+        metrics.put("tasks", taskPoller.getMetrics());
+        metrics.put("retainedJobs", jobs.size());
+        metrics.put("hedgeCancelledTasks", cancelledTasks.get());
+        metrics.put("hedgeOrphanedTasks", orphanedTasks.get());
+        return metrics;
+    }
+}
@@ -0,0 +1,138 @@
+package webcam.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import webcam.config.FacePreScreenProperties;
+import webcam.service.FacePreScreenService;
+import webcam.service.MetricsSource;
+import webcam.util.FramePreScreen;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 人脸预筛服务实现类
+ * 亮度超出范围直接判定为无望；否则置信度为肤色区域得分与清晰度得分之积，
+ * 两项各自达到配置的参考值时得分为1，低于最小置信度的画面不调用视觉模型
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@Service
+public class FacePreScreenServiceImpl implements FacePreScreenService, MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacePreScreenServiceImpl.class);
+
+    // 人脸区域外接矩形的合理宽高比，超出时肤色区域多半是手臂、墙面或家具
+    private static final double MIN_FACE_ASPECT = 0.3;
+    private static final double MAX_FACE_ASPECT = 3.0;
+
+    private final FacePreScreenProperties preScreenProperties;
+
+    private final AtomicLong screened = new AtomicLong();
+    private final AtomicLong passed = new AtomicLong();
+    private final AtomicLong rejectedDark = new AtomicLong();
+    private final AtomicLong rejectedBright = new AtomicLong();
+    private final AtomicLong rejectedBlurry = new AtomicLong();
+    private final AtomicLong rejectedNoFace = new AtomicLong();
+    private final AtomicLong decodeFailures = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    @Autowired
+    public FacePreScreenServiceImpl(FacePreScreenProperties preScreenProperties) {
+        this.preScreenProperties = preScreenProperties;
+    }
+
+    @Override
+    public Verdict screen(byte[] imageBytes) {
+        if (!preScreenProperties.isEnabled() || imageBytes == null || imageBytes.length == 0) {
+            return Verdict.PASS;
+        }
+        long start = System.nanoTime();
+        FramePreScreen.Measurements measurements;
+        try {
+            measurements = FramePreScreen.measure(imageBytes, preScreenProperties.getAnalysisEdge());
+        } catch (IllegalArgumentException e) {
+            decodeFailures.incrementAndGet();
+            logger.debug("Pre-screen could not decode image: {}", e.getMessage());
+            return Verdict.PASS;
+        }
+        Verdict verdict = evaluate(measurements);
+        totalNanos.addAndGet(System.nanoTime() - start);
+        screened.incrementAndGet();
+
+        if (verdict.passed()) {
+            passed.incrementAndGet();
+        } else {
+            counterFor(verdict.reason()).incrementAndGet();
+            logger.info("Frame rejected by pre-screen: reason={}, confidence={}, brightness={}, sharpness={}, skinArea={}",
+                    verdict.reason(), String.format("%.2f", verdict.confidence()),
+                    Math.round(measurements.brightness()), Math.round(measurements.sharpness()),
+                    String.format("%.3f", measurements.skinArea()));
+        }
+        return verdict;
+    }
+
+    /**
+     * 根据测量结果计算置信度
+     */
+    Verdict evaluate(FramePreScreen.Measurements measurements) {
+        if (measurements.brightness() < preScreenProperties.getMinBrightness()) {
+            return new Verdict(false, 0, "too-dark");
+        }
+        if (measurements.brightness() > preScreenProperties.getMaxBrightness()) {
+            return new Verdict(false, 0, "too-bright");
+        }
+
+        double faceScore = ratio(measurements.skinArea(), preScreenProperties.getMinFaceArea());
+        if (measurements.skinAspect() < MIN_FACE_ASPECT || measurements.skinAspect() > MAX_FACE_ASPECT) {
+            faceScore *= 0.5;
+        }
+        double sharpnessScore = ratio(measurements.sharpness(), preScreenProperties.getMinSharpness());
+        double confidence = faceScore * sharpnessScore;
+        if (confidence >= preScreenProperties.getMinConfidence()) {
+            return new Verdict(true, confidence, null);
+        }
+        return new Verdict(false, confidence, faceScore <= sharpnessScore ? "no-face" : "blurry");
+    }
+
+    private static double ratio(double value, double reference) {
+        return reference <= 0 ? 1.0 : Math.min(1.0, Math.max(0, value) / reference);
+    }
+
+    private AtomicLong counterFor(String reason) {
+        return switch (reason) {
+            case "too-dark" -> rejectedDark;
+            case "too-bright" -> rejectedBright;
+            case "blurry" -> rejectedBlurry;
+            default -> rejectedNoFace;
+        };
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "prescreen";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long screenedCount = screened.get();
+        long rejected = rejectedDark.get() + rejectedBright.get() + rejectedBlurry.get() + rejectedNoFace.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", preScreenProperties.isEnabled());
+        metrics.put("screened", screenedCount);
+        metrics.put("passed", passed.get());
+        // 每个被拒绝的画面节省一次视觉模型调用
+        metrics.put("savedModelCalls", rejected);
+        metrics.put("rejectedTooDark", rejectedDark.get());
+        metrics.put("rejectedTooBright", rejectedBright.get());
+        metrics.put("rejectedBlurry", rejectedBlurry.get());
+        metrics.put("rejectedNoFace", rejectedNoFace.get());
+        metrics.put("decodeFailures", decodeFailures.get());
+        metrics.put("avgMillis", screenedCount > 0 ? totalNanos.get() / screenedCount / 1_000_000.0 : 0.0);
+        return metrics;
+    }
+}
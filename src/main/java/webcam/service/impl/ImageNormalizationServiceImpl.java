@@ -0,0 +1,237 @@
+package webcam.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import webcam.config.ImageNormalizationProperties;
+import webcam.service.ImageNormalizationService;
+import webcam.service.MetricsSource;
+import webcam.util.ExifOrientation;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 图像规范化服务实现类
+ * 使用JDK自带的ImageIO/Java2D完成方向校正、缩放和JPEG重新编码
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@Service
+public class ImageNormalizationServiceImpl implements ImageNormalizationService, MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageNormalizationServiceImpl.class);
+
+    private final ImageNormalizationProperties normalizationProperties;
+
+    private final AtomicLong normalizedImages = new AtomicLong();
+    private final AtomicLong passthroughImages = new AtomicLong();
+    private final AtomicLong failedImages = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+
+    @Autowired
+    public ImageNormalizationServiceImpl(ImageNormalizationProperties normalizationProperties) {
+        this.normalizationProperties = normalizationProperties;
+    }
+
+    @Override
+    public byte[] normalize(byte[] imageBytes, Target target) {
+        if (!normalizationProperties.isEnabled() || imageBytes == null || imageBytes.length == 0) {
+            return imageBytes;
+        }
+        ImageNormalizationProperties.Profile profile = target == Target.CARTOON
+                ? normalizationProperties.getCartoon()
+                : normalizationProperties.getFace();
+
+        byte[] result;
+        try {
+            result = normalize(imageBytes, profile);
+        } catch (IOException | RuntimeException e) {
+            // 规范化只是优化，失败时发送原图
+            failedImages.incrementAndGet();
+            logger.warn("Image normalization failed, sending original image: {}", e.getMessage());
+            result = imageBytes;
+        }
+
+        bytesIn.addAndGet(imageBytes.length);
+        bytesOut.addAndGet(result.length);
+        if (result == imageBytes) {
+            passthroughImages.incrementAndGet();
+        } else {
+            normalizedImages.incrementAndGet();
+            logger.debug("Normalized image for {}: {} -> {} bytes", target, imageBytes.length, result.length);
+        }
+        return result;
+    }
+
+    private byte[] normalize(byte[] imageBytes, ImageNormalizationProperties.Profile profile) throws IOException {
+        int orientation = ExifOrientation.read(imageBytes);
+        boolean jpeg = isJpeg(imageBytes);
+        int maxLongEdge = profile.getMaxLongEdge();
+
+        // 已是方向正常且尺寸合格的JPEG时只读取头部尺寸，不做完整解码
+        if (jpeg && orientation == ExifOrientation.NORMAL) {
+            int[] size = readSize(imageBytes);
+            if (size != null && (maxLongEdge <= 0 || Math.max(size[0], size[1]) <= maxLongEdge)) {
+                return imageBytes;
+            }
+        }
+
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(imageBytes));
+        if (source == null) {
+            logger.debug("Unsupported image format, skipping normalization");
+            return imageBytes;
+        }
+
+        BufferedImage image = orient(source, orientation);
+        image = scaleDown(image, maxLongEdge);
+        return encodeJpeg(image, profile.getJpegQuality());
+    }
+
+    private static boolean isJpeg(byte[] imageBytes) {
+        return imageBytes.length > 2 && (imageBytes[0] & 0xFF) == 0xFF && (imageBytes[1] & 0xFF) == 0xD8;
+    }
+
+    /**
+     * 只读取图像头部获得宽高
+     *
+     * @return {宽, 高}；无法识别时返回null
+     */
+    private static int[] readSize(byte[] imageBytes) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new int[] {reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 按EXIF方向旋转/翻转，并转换为不带透明通道的RGB图像（透明区域填充白色）
+     */
+    private static BufferedImage orient(BufferedImage source, int orientation) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        boolean swapsAxes = orientation >= 5;
+        AffineTransform transform;
+        switch (orientation) {
+            case 2 -> transform = new AffineTransform(-1, 0, 0, 1, width, 0);
+            case 3 -> transform = new AffineTransform(-1, 0, 0, -1, width, height);
+            case 4 -> transform = new AffineTransform(1, 0, 0, -1, 0, height);
+            case 5 -> transform = new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> transform = new AffineTransform(0, 1, -1, 0, height, 0);
+            case 7 -> transform = new AffineTransform(0, -1, -1, 0, height, width);
+            case 8 -> transform = new AffineTransform(0, -1, 1, 0, 0, width);
+            default -> transform = new AffineTransform();
+        }
+        if (transform.isIdentity() && source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return source;
+        }
+
+        BufferedImage target = new BufferedImage(swapsAxes ? height : width, swapsAxes ? width : height,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, target.getWidth(), target.getHeight());
+            graphics.drawImage(source, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * 缩小到最长边不超过限制
+     * 缩小倍数较大时逐级减半，避免单次双线性插值产生明显锯齿
+     */
+    private static BufferedImage scaleDown(BufferedImage image, int maxLongEdge) {
+        int longEdge = Math.max(image.getWidth(), image.getHeight());
+        if (maxLongEdge <= 0 || longEdge <= maxLongEdge) {
+            return image;
+        }
+        double finalScale = (double) maxLongEdge / longEdge;
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * finalScale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * finalScale));
+
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = resize(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() != targetWidth || current.getHeight() != targetHeight) {
+            current = resize(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    private static BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream(image.getWidth() * image.getHeight() / 4);
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(imageOutput);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(Math.max(0.1f, Math.min(1.0f, quality)));
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "normalization";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("normalizedImages", normalizedImages.get());
+        metrics.put("passthroughImages", passthroughImages.get());
+        metrics.put("failedImages", failedImages.get());
+        metrics.put("bytesIn", bytesIn.get());
+        metrics.put("bytesOut", bytesOut.get());
+        return metrics;
+    }
+}
@@ -21,6 +21,7 @@ import webcam.config.R2Properties;
 import webcam.exception.FileStorageException;
 import webcam.service.R2UploadService;
 
+import java.io.InputStream;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -58,29 +59,11 @@ public class R2UploadServiceImpl implements R2UploadService {
                 throw new FileStorageException("文件不存在: " + filePath);
             }
             
-            byte[] fileContent = Files.readAllBytes(filePath);
+            long size = Files.size(filePath);
             String contentType = Files.probeContentType(filePath);
-            if (contentType == null) {
-                contentType = "application/octet-stream";
-            }
-            
-            logger.debug("Uploading file to R2: bucket={}, key={}, size={} bytes", 
-                    r2Properties.getBucketName(), objectKey, fileContent.length);
-            
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                    .bucket(r2Properties.getBucketName())
-                    .key(objectKey)
-                    .contentType(contentType)
-                    .build();
             
-            PutObjectResponse putObjectResponse = s3Client.putObject(putObjectRequest, 
-                    RequestBody.fromBytes(fileContent));
-            
-            logger.info("File uploaded successfully to R2: key={}, ETag={}", 
-                    objectKey, putObjectResponse.eTag());
-            
-            return new R2ObjectInfo(objectKey, r2Properties.getBucketName(), 
-                    fileContent.length, contentType);
+            // RequestBody.fromFile按需从磁盘读取，不把文件整体读入内存
+            return putObject(objectKey, contentType, RequestBody.fromFile(filePath), size);
             
         } catch (FileStorageException e) {
             throw e;
@@ -103,35 +86,72 @@ public class R2UploadServiceImpl implements R2UploadService {
             }
             
             byte[] fileContent = Base64.getDecoder().decode(cleanBase64);
+            return putObject(objectKey, contentType, RequestBody.fromBytes(fileContent), fileContent.length);
             
-            logger.debug("Uploading base64 data to R2: bucket={}, key={}, size={} bytes", 
-                    r2Properties.getBucketName(), objectKey, fileContent.length);
-            
-            if (contentType == null || contentType.isEmpty()) {
-                contentType = "application/octet-stream";
-            }
-            
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                    .bucket(r2Properties.getBucketName())
-                    .key(objectKey)
-                    .contentType(contentType)
-                    .build();
+        } catch (FileStorageException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error uploading base64 data to R2: {}", objectKey, e);
+            throw new FileStorageException("上传Base64数据到R2失败: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public R2ObjectInfo uploadBytes(byte[] data, String objectKey, String contentType) {
+        try {
+            // 检查R2配置是否完整
+            validateR2Configuration();
             
-            PutObjectResponse putObjectResponse = s3Client.putObject(putObjectRequest,
-                    RequestBody.fromBytes(fileContent));
+            return putObject(objectKey, contentType, RequestBody.fromBytes(data), data.length);
             
-            logger.info("Base64 data uploaded successfully to R2: key={}, ETag={}", 
-                    objectKey, putObjectResponse.eTag());
+        } catch (FileStorageException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error uploading data to R2: {}", objectKey, e);
+            throw new FileStorageException("上传数据到R2失败: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public R2ObjectInfo uploadStream(InputStream inputStream, long contentLength, String objectKey, String contentType) {
+        try {
+            // 检查R2配置是否完整
+            validateR2Configuration();
             
-            return new R2ObjectInfo(objectKey, r2Properties.getBucketName(), 
-                    fileContent.length, contentType);
+            return putObject(objectKey, contentType, RequestBody.fromInputStream(inputStream, contentLength),
+                    contentLength);
             
         } catch (FileStorageException e) {
             throw e;
         } catch (Exception e) {
-            logger.error("Error uploading base64 data to R2: {}", objectKey, e);
-            throw new FileStorageException("上传Base64数据到R2失败: " + e.getMessage(), e);
+            logger.error("Error uploading stream to R2: {}", objectKey, e);
+            throw new FileStorageException("上传数据流到R2失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 执行PutObject请求
+     */
+    private R2ObjectInfo putObject(String objectKey, String contentType, RequestBody requestBody, long size) {
+        if (contentType == null || contentType.isEmpty()) {
+            contentType = "application/octet-stream";
         }
+        
+        logger.debug("Uploading to R2: bucket={}, key={}, size={} bytes", 
+                r2Properties.getBucketName(), objectKey, size);
+        
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(r2Properties.getBucketName())
+                .key(objectKey)
+                .contentType(contentType)
+                .build();
+        
+        PutObjectResponse putObjectResponse = s3Client.putObject(putObjectRequest, requestBody);
+        
+        logger.info("Uploaded successfully to R2: key={}, ETag={}", 
+                objectKey, putObjectResponse.eTag());
+        
+        return new R2ObjectInfo(objectKey, r2Properties.getBucketName(), size, contentType);
     }
     
     @Override
@@ -0,0 +1,195 @@
+package webcam.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import webcam.config.RateLimitProperties;
+import webcam.exception.DependencyUnavailableException;
+import webcam.service.MetricsSource;
+import webcam.service.RateLimitService;
+import webcam.util.RetryAfter;
+import webcam.util.TokenBucket;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 百炼API客户端限速服务实现类
+ * 令牌桶按预约方式排队：令牌不足时调用方预约下一个令牌并在调用线程上等待，后到者排在后面，不会插队；
+ * 预计等待超过maxWait时不排队，立即抛出DependencyUnavailableException。
+ * 429和5xx响应按Retry-After等待（另加少量抖动），没有Retry-After时按带抖动的指数退避等待
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@Service
+public class RateLimitServiceImpl implements RateLimitService, MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitServiceImpl.class);
+
+    private final boolean enabled;
+    private final long maxWaitNanos;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long maxRetryAfterMillis;
+    private final Map<Quota, Limiter> limiters = new EnumMap<>(Quota.class);
+
+    @Autowired
+    public RateLimitServiceImpl(RateLimitProperties rateLimitProperties) {
+        this.enabled = rateLimitProperties.isEnabled();
+        this.maxWaitNanos = rateLimitProperties.getMaxWait().toNanos();
+        RateLimitProperties.Retry retry = rateLimitProperties.getRetry();
+        this.maxAttempts = Math.max(1, retry.getMaxAttempts());
+        this.initialBackoffMillis = retry.getInitialBackoff().toMillis();
+        this.maxBackoffMillis = retry.getMaxBackoff().toMillis();
+        this.maxRetryAfterMillis = retry.getMaxRetryAfter().toMillis();
+
+        RateLimitProperties.Quotas quotas = rateLimitProperties.getQuotas();
+        limiters.put(Quota.FACE_ANALYSIS, new Limiter(quotas.getFace()));
+        limiters.put(Quota.CARTOON, new Limiter(quotas.getCartoon()));
+    }
+
+    @Override
+    public <T> T execute(Quota quota, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        Limiter limiter = limiters.get(quota);
+        for (int attempt = 1; ; attempt++) {
+            limiter.acquire(quota);
+            try {
+                return call.get();
+            } catch (HttpStatusCodeException e) {
+                int status = e.getStatusCode().value();
+                boolean throttled = status == 429;
+                if (!throttled && !e.getStatusCode().is5xxServerError()) {
+                    throw e;
+                }
+                (throttled ? limiter.throttled : limiter.serverErrors).increment();
+
+                long retryAfterMillis = RetryAfter.millis(e.getResponseHeaders(), System.currentTimeMillis());
+                if (attempt >= maxAttempts || retryAfterMillis > maxRetryAfterMillis) {
+                    limiter.exhausted.increment();
+                    if (throttled) {
+                        // 限流不是故障，返回503和Retry-After让客户端稍后再试
+                        long waitMillis = retryAfterMillis >= 0 ? retryAfterMillis : backoffMillis(attempt);
+                        throw new DependencyUnavailableException("百炼API请求超出配额，请稍后重试", "dashscope",
+                                Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999)));
+                    }
+                    throw e;
+                }
+                // 按Retry-After等待时另加不超过initialBackoff的抖动，避免同时被限流的调用同时重试
+                long delayMillis = retryAfterMillis >= 0
+                        ? retryAfterMillis + ThreadLocalRandom.current().nextLong(initialBackoffMillis + 1)
+                        : backoffMillis(attempt);
+                limiter.retries.increment();
+                logger.warn("{} call got HTTP {}, retrying in {} ms (attempt {}/{})",
+                        name(quota), status, delayMillis, attempt + 1, maxAttempts);
+                sleep(TimeUnit.MILLISECONDS.toNanos(delayMillis));
+            }
+        }
+    }
+
+    /**
+     * 带抖动的指数退避：initialBackoff x 2^(attempt-1)，不超过maxBackoff，实际等待其中50%-100%的随机值，
+     * 避免同时被限流的调用在同一时刻重试
+     */
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    private static void sleep(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DependencyUnavailableException("等待百炼API配额时被中断", "dashscope", 1);
+        }
+    }
+
+    private static String name(Quota quota) {
+        return quota.name().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "rateLimit";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        long now = System.nanoTime();
+        for (Map.Entry<Quota, Limiter> entry : limiters.entrySet()) {
+            Limiter limiter = entry.getValue();
+            Map<String, Object> quota = new LinkedHashMap<>();
+            quota.put("requestsPerMinute", limiter.bucket != null ? limiter.bucket.getRatePerSecond() * 60 : 0.0);
+            if (limiter.bucket != null) {
+                quota.put("availableTokens", Math.round(limiter.bucket.available(now) * 100) / 100.0);
+            }
+            long queued = limiter.queued.sum();
+            quota.put("queued", queued);
+            quota.put("avgQueueMillis", queued > 0 ? limiter.queuedMillis.sum() / queued : 0);
+            quota.put("rejected", limiter.rejected.sum());
+            quota.put("throttled", limiter.throttled.sum());
+            quota.put("serverErrors", limiter.serverErrors.sum());
+            quota.put("retries", limiter.retries.sum());
+            quota.put("exhausted", limiter.exhausted.sum());
+            metrics.put(name(entry.getKey()), quota);
+        }
+        return metrics;
+    }
+
+    /**
+     * 一类调用的令牌桶和统计
+     */
+    private final class Limiter {
+        final TokenBucket bucket;
+        final LongAdder queued = new LongAdder();
+        final LongAdder queuedMillis = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder throttled = new LongAdder();
+        final LongAdder serverErrors = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder exhausted = new LongAdder();
+
+        Limiter(RateLimitProperties.Quota config) {
+            this.bucket = config.getRequestsPerMinute() > 0
+                    ? new TokenBucket(config.getRequestsPerMinute() / 60.0, config.getBurst(), System.nanoTime())
+                    : null;
+        }
+
+        void acquire(Quota quota) {
+            if (bucket == null) {
+                return;
+            }
+            long wait = bucket.reserve(System.nanoTime(), maxWaitNanos);
+            if (wait < 0) {
+                rejected.increment();
+                long retryAfterNanos = bucket.nanosUntilAvailable(System.nanoTime());
+                logger.warn("{} quota queue is full, rejecting call", name(quota));
+                throw new DependencyUnavailableException("百炼API调用繁忙，请稍后重试", "dashscope",
+                        Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L)));
+            }
+            if (wait > 0) {
+                queued.increment();
+                queuedMillis.add(TimeUnit.NANOSECONDS.toMillis(wait));
+                sleep(wait);
+            }
+        }
+    }
+}
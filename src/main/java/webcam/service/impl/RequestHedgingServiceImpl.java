@@ -0,0 +1,491 @@
+package webcam.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import webcam.config.HedgingProperties;
+import webcam.config.ThreadingProperties;
+import webcam.exception.BailianApiException;
+import webcam.service.MetricsSource;
+import webcam.service.RequestHedgingService;
+import webcam.util.AbortHandle;
+import webcam.util.LatencyTracker;
+import webcam.util.VirtualThreads;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 请求对冲服务实现类
+ * 每个操作维护最近成功请求的延迟窗口，主请求超过窗口的指定百分位仍未返回时发出一个备份请求，
+ * 采用先成功返回的结果并中止另一个。备份请求数量受每分钟预算和同时进行数上限限制，达到上限时不对冲。
+ *
+ * <p>主请求在调用线程上执行，只有备份请求交给执行器。中止落后的请求时断开其登记在AbortHandle上的连接
+ * （RestTemplate的阻塞读取不响应中断），并中断其线程以结束限速、等待Key等阻塞等待。
+ * 会在服务端产生副作用的请求不中止，两次请求都在执行器上进行，落后请求的成功结果交给调用方提供的discard撤销。</p>
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@Service
+public class RequestHedgingServiceImpl implements RequestHedgingService, MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestHedgingServiceImpl.class);
+
+    private static final long BUDGET_WINDOW_MILLIS = 60_000L;
+
+    private final HedgingProperties hedgingProperties;
+    private final Map<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+    // 未启用对冲时为null，请求在调用线程上直接执行
+    private final ExecutorService executor;
+    // 到达对冲延迟时发出备份请求，只负责计时
+    private final ScheduledExecutorService timer;
+    // 执行器上同时进行的请求数上限，没有空位时不对冲而不是排队
+    private final Semaphore slots;
+
+    // 每分钟对冲预算（固定窗口）
+    private long budgetWindowStart;
+    private int budgetUsed;
+
+    private final AtomicLong hedgesFired = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong hedgeLosses = new AtomicLong();
+    private final AtomicLong budgetExhausted = new AtomicLong();
+    private final AtomicLong saturated = new AtomicLong();
+    private final AtomicLong aborted = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    @Autowired
+    public RequestHedgingServiceImpl(HedgingProperties hedgingProperties, ThreadingProperties threadingProperties) {
+        this.hedgingProperties = hedgingProperties;
+        int maxInFlight = Math.max(1, hedgingProperties.getMaxInFlight());
+        this.slots = new Semaphore(maxInFlight);
+        if (hedgingProperties.isEnabled()) {
+            this.executor = VirtualThreads.newExecutor("dashscope-hedge-", threadingProperties.isVirtual(),
+                    maxInFlight);
+            this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "dashscope-hedge-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+            this.timer = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            timer.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public <T> T execute(String operation, Supplier<T> call) {
+        LatencyTracker tracker = tracker(operation);
+        long delayMillis = executor != null ? hedgeDelayMillis(tracker) : -1;
+        if (delayMillis < 0) {
+            return timed(tracker, call);
+        }
+
+        Race<T> race = new Race<>(operation, delayMillis, tracker, call);
+        ScheduledFuture<?> backupTimer;
+        try {
+            backupTimer = timer.schedule(race::fireBackup, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return timed(tracker, call);
+        }
+        T result;
+        try {
+            result = race.runPrimary();
+        } catch (RuntimeException e) {
+            backupTimer.cancel(false);
+            return race.primaryFailed(e);
+        }
+        backupTimer.cancel(false);
+        return race.primaryReturned(result);
+    }
+
+    @Override
+    public <T> T execute(String operation, Supplier<T> call, Consumer<? super T> discard) {
+        LatencyTracker tracker = tracker(operation);
+        long delayMillis = executor != null ? hedgeDelayMillis(tracker) : -1;
+        if (delayMillis < 0) {
+            return timed(tracker, call);
+        }
+        if (!slots.tryAcquire()) {
+            saturated.incrementAndGet();
+            return timed(tracker, call);
+        }
+
+        ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        // 由先成功的请求认领结果，后成功的请求把结果交给discard
+        AtomicBoolean claimed = new AtomicBoolean();
+        Callable<T> attempt = () -> {
+            try {
+                return claim(timed(tracker, call), claimed, discard);
+            } finally {
+                slots.release();
+            }
+        };
+        try {
+            completion.submit(attempt);
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            return timed(tracker, call);
+        }
+        Future<T> backup = null;
+        try {
+            Future<T> first = completion.poll(delayMillis, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                if (!tryAcquireBudget()) {
+                    budgetExhausted.incrementAndGet();
+                } else if (!slots.tryAcquire()) {
+                    saturated.incrementAndGet();
+                } else {
+                    hedgesFired.incrementAndGet();
+                    logger.debug("Hedging {} request after {} ms", operation, delayMillis);
+                    backup = completion.submit(attempt);
+                }
+                first = completion.take();
+            }
+            try {
+                return complete(first, backup);
+            } catch (ExecutionException e) {
+                if (backup == null) {
+                    throw rethrow(e);
+                }
+                // 一个请求失败，等待另一个
+                try {
+                    return complete(completion.take(), backup);
+                } catch (ExecutionException second) {
+                    throw rethrow(second);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BailianApiException("等待百炼API响应时被中断", e);
+        } finally {
+            // 调用方已不再等待，之后成功的请求都交给discard
+            claimed.set(true);
+        }
+    }
+
+    private LatencyTracker tracker(String operation) {
+        return trackers.computeIfAbsent(operation, key -> new LatencyTracker(hedgingProperties.getWindowSize()));
+    }
+
+    /**
+     * 认领请求结果；已有请求认领时撤销本次结果
+     */
+    private <T> T claim(T result, AtomicBoolean claimed, Consumer<? super T> discard) {
+        if (claimed.compareAndSet(false, true)) {
+            return result;
+        }
+        discarded.incrementAndGet();
+        try {
+            discard.accept(result);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to discard losing hedged result: {}", e.getMessage());
+        }
+        throw new DiscardedResultException();
+    }
+
+    /**
+     * 读取已完成请求的结果并统计对冲胜负
+     */
+    private <T> T complete(Future<T> finished, Future<T> backup) throws ExecutionException, InterruptedException {
+        T result = finished.get();
+        if (backup != null) {
+            (finished == backup ? hedgeWins : hedgeLosses).incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * 发出备份请求前的等待时间
+     *
+     * @return 毫秒数；样本不足时返回-1，表示不对冲
+     */
+    private long hedgeDelayMillis(LatencyTracker tracker) {
+        if (tracker.size() < Math.max(1, hedgingProperties.getMinSamples())) {
+            return -1;
+        }
+        return Math.max(hedgingProperties.getMinDelay().toMillis(),
+                tracker.percentile(hedgingProperties.getPercentile()));
+    }
+
+    private synchronized boolean tryAcquireBudget() {
+        long now = System.currentTimeMillis();
+        if (now - budgetWindowStart >= BUDGET_WINDOW_MILLIS) {
+            budgetWindowStart = now;
+            budgetUsed = 0;
+        }
+        if (budgetUsed >= hedgingProperties.getMaxHedgesPerMinute()) {
+            return false;
+        }
+        budgetUsed++;
+        return true;
+    }
+
+    /**
+     * 执行请求，成功时记录延迟
+     */
+    private static <T> T timed(LatencyTracker tracker, Supplier<T> call) {
+        long start = System.nanoTime();
+        T result = call.get();
+        tracker.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return result;
+    }
+
+    private static RuntimeException rethrow(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new BailianApiException("百炼API请求失败: " + cause, cause);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "hedging";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", executor != null);
+        metrics.put("hedgesFired", hedgesFired.get());
+        metrics.put("hedgeWins", hedgeWins.get());
+        metrics.put("hedgeLosses", hedgeLosses.get());
+        metrics.put("budgetExhausted", budgetExhausted.get());
+        metrics.put("saturated", saturated.get());
+        metrics.put("inFlight", hedgingProperties.getMaxInFlight() - slots.availablePermits());
+        metrics.put("aborted", aborted.get());
+        metrics.put("discarded", discarded.get());
+        Map<String, Object> operations = new LinkedHashMap<>();
+        trackers.forEach((operation, tracker) -> {
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("samples", tracker.size());
+            latency.put("p50Millis", tracker.percentile(50));
+            latency.put("p99Millis", tracker.percentile(99));
+            latency.put("hedgeDelayMillis", executor != null ? hedgeDelayMillis(tracker) : -1);
+            operations.put(operation, latency);
+        });
+        metrics.put("operations", operations);
+        return metrics;
+    }
+
+    /**
+     * 一次可中止的对冲：主请求在调用线程上执行，备份请求由计时器交给执行器，先成功的一方中止另一方
+     */
+    private final class Race<T> {
+        private final String operation;
+        private final long delayMillis;
+        private final LatencyTracker tracker;
+        private final Supplier<T> call;
+        private final Thread caller = Thread.currentThread();
+        private final AbortHandle primary = new AbortHandle();
+        private final CompletableFuture<T> backupResult = new CompletableFuture<>();
+
+        // 以下字段只在持有this锁时访问
+        private AbortHandle backup;
+        // 已有一方胜出，或主请求失败时没有备份请求；之后不再发出备份请求
+        private boolean decided;
+        private boolean primaryRunning = true;
+        private boolean primaryInterrupted;
+        private Thread backupThread;
+
+        Race(String operation, long delayMillis, LatencyTracker tracker, Supplier<T> call) {
+            this.operation = operation;
+            this.delayMillis = delayMillis;
+            this.tracker = tracker;
+            this.call = call;
+        }
+
+        T runPrimary() {
+            try {
+                return primary.run(() -> timed(tracker, call));
+            } finally {
+                synchronized (this) {
+                    primaryRunning = false;
+                    if (primaryInterrupted) {
+                        // 中止主请求时发出的中断不能留给调用线程之后的操作
+                        Thread.interrupted();
+                    }
+                }
+            }
+        }
+
+        /**
+         * 在计时器线程上调用：主请求超过对冲延迟仍未返回时发出备份请求
+         */
+        void fireBackup() {
+            synchronized (this) {
+                if (decided) {
+                    return;
+                }
+            }
+            if (!tryAcquireBudget()) {
+                budgetExhausted.incrementAndGet();
+                return;
+            }
+            if (!slots.tryAcquire()) {
+                saturated.incrementAndGet();
+                return;
+            }
+            AbortHandle handle = new AbortHandle();
+            synchronized (this) {
+                if (decided) {
+                    slots.release();
+                    return;
+                }
+                backup = handle;
+            }
+            hedgesFired.incrementAndGet();
+            logger.debug("Hedging {} request after {} ms", operation, delayMillis);
+            try {
+                executor.execute(() -> runBackup(handle));
+            } catch (RejectedExecutionException e) {
+                slots.release();
+                backupResult.completeExceptionally(new BailianApiException("对冲执行器已关闭", e));
+            }
+        }
+
+        private void runBackup(AbortHandle handle) {
+            synchronized (this) {
+                backupThread = Thread.currentThread();
+            }
+            try {
+                T result = handle.run(() -> timed(tracker, call));
+                boolean won;
+                synchronized (this) {
+                    won = !decided;
+                    decided = true;
+                }
+                if (won) {
+                    hedgeWins.incrementAndGet();
+                    abortPrimary();
+                }
+                backupResult.complete(result);
+            } catch (RuntimeException | Error e) {
+                backupResult.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    backupThread = null;
+                }
+                slots.release();
+            }
+        }
+
+        /**
+         * 先标记中止再中断线程，被中断唤醒的请求不会把中止当作依赖故障
+         */
+        private void abortBackup(AbortHandle losing) {
+            losing.abort();
+            synchronized (this) {
+                if (backupThread != null) {
+                    backupThread.interrupt();
+                }
+            }
+        }
+
+        private void abortPrimary() {
+            primary.abort();
+            synchronized (this) {
+                if (!primaryRunning) {
+                    return;
+                }
+                primaryInterrupted = true;
+                caller.interrupt();
+            }
+            aborted.incrementAndGet();
+        }
+
+        /**
+         * 主请求返回：主请求先返回时中止备份请求；备份请求已先返回时采用备份请求的结果
+         */
+        T primaryReturned(T result) {
+            AbortHandle losing;
+            boolean won;
+            synchronized (this) {
+                won = !decided;
+                decided = true;
+                losing = backup;
+            }
+            if (!won) {
+                return awaitBackup();
+            }
+            if (losing != null) {
+                hedgeLosses.incrementAndGet();
+                if (!backupResult.isDone()) {
+                    aborted.incrementAndGet();
+                    abortBackup(losing);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 主请求失败（包括被胜出的备份请求中止）：已发出备份请求时采用其结果，否则抛出主请求的异常
+         */
+        T primaryFailed(RuntimeException failure) {
+            synchronized (this) {
+                if (backup == null) {
+                    decided = true;
+                    throw failure;
+                }
+            }
+            return awaitBackup();
+        }
+
+        private T awaitBackup() {
+            try {
+                return backupResult.get();
+            } catch (ExecutionException e) {
+                throw rethrow(e);
+            } catch (InterruptedException e) {
+                AbortHandle losing;
+                synchronized (this) {
+                    losing = backup;
+                }
+                abortBackup(losing);
+                Thread.currentThread().interrupt();
+                throw new BailianApiException("等待百炼API响应时被中断", e);
+            }
+        }
+    }
+
+    /**
+     * 落后请求的结果已交给discard撤销，对调用方视为失败
+     */
+    private static final class DiscardedResultException extends RuntimeException {
+        DiscardedResultException() {
+            super("Hedged result discarded", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package webcam.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import webcam.config.ResilienceProperties;
+import webcam.exception.DependencyUnavailableException;
+import webcam.service.DependencyFailures;
+import webcam.service.MetricsSource;
+import webcam.service.ResilienceService;
+import webcam.util.AdmissionLimiter;
+import webcam.util.CircuitBreaker;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 外部依赖容错服务实现类
+ * 舱壁使用信号量（AdmissionLimiter）限制并发并在调用线程上执行，不额外切换线程；
+ * 熔断器按依赖统计连续失败（只计5xx、I/O错误和超时，见DependencyFailures），断开期间调用立即抛出DependencyUnavailableException
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@Service
+public class ResilienceServiceImpl implements ResilienceService, MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilienceServiceImpl.class);
+
+    private final boolean enabled;
+    private final Map<Dependency, CircuitBreaker> breakers = new EnumMap<>(Dependency.class);
+    private final Map<Compartment, AdmissionLimiter> bulkheads = new EnumMap<>(Compartment.class);
+    private final Map<Compartment, Duration> maxWaits = new EnumMap<>(Compartment.class);
+
+    @Autowired
+    public ResilienceServiceImpl(ResilienceProperties resilienceProperties) {
+        this.enabled = resilienceProperties.isEnabled();
+
+        ResilienceProperties.Breakers breakerConfig = resilienceProperties.getBreakers();
+        breakers.put(Dependency.DASHSCOPE, newBreaker(breakerConfig.getDashscope()));
+        breakers.put(Dependency.OSS, newBreaker(breakerConfig.getOss()));
+        breakers.put(Dependency.R2, newBreaker(breakerConfig.getR2()));
+
+        ResilienceProperties.Bulkheads bulkheadConfig = resilienceProperties.getBulkheads();
+        addBulkhead(Compartment.FACE_ANALYSIS, bulkheadConfig.getFace());
+        addBulkhead(Compartment.CARTOON, bulkheadConfig.getCartoon());
+        addBulkhead(Compartment.RESULT_DOWNLOAD, bulkheadConfig.getDownload());
+        addBulkhead(Compartment.R2_UPLOAD, bulkheadConfig.getR2());
+    }
+
+    private static CircuitBreaker newBreaker(ResilienceProperties.Breaker config) {
+        return new CircuitBreaker(config.getFailureThreshold(), config.getOpenDuration().toMillis(),
+                config.getHalfOpenProbes());
+    }
+
+    private void addBulkhead(Compartment compartment, ResilienceProperties.Bulkhead config) {
+        bulkheads.put(compartment, new AdmissionLimiter(config.getMaxConcurrent(), config.getMaxQueue()));
+        maxWaits.put(compartment, config.getMaxWait());
+    }
+
+    @Override
+    public <T> T execute(Compartment compartment, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        Dependency dependency = compartment.dependency();
+        CircuitBreaker breaker = breakers.get(dependency);
+        // 先占舱壁再问熔断器：熔断期间舱壁中没有进行中的调用，获取许可不会等待；
+        // 反过来则在舱壁拒绝时需要归还半开状态的探测名额
+        AdmissionLimiter bulkhead = bulkheads.get(compartment);
+        try {
+            if (!bulkhead.tryAcquire(maxWaits.get(compartment))) {
+                logger.warn("Bulkhead {} is full, rejecting call (active={}, queued={})",
+                        compartment, bulkhead.getActive(), bulkhead.getQueueDepth());
+                throw new DependencyUnavailableException(name(dependency) + " 调用繁忙，请稍后重试",
+                        name(dependency), 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DependencyUnavailableException("等待 " + name(dependency) + " 调用许可时被中断",
+                    name(dependency), 1);
+        }
+
+        try {
+            if (!breaker.tryAcquire()) {
+                throw circuitOpen(dependency, breaker);
+            }
+            T result;
+            try {
+                result = call.get();
+            } catch (RuntimeException | Error e) {
+                if (!DependencyFailures.isDependencyFailure(e)) {
+                    // 4xx、客户端断开等既不说明依赖故障，也不说明依赖已恢复
+                    breaker.onIgnored();
+                    throw e;
+                }
+                CircuitBreaker.State before = breaker.getState();
+                breaker.onFailure();
+                if (before != CircuitBreaker.State.OPEN && breaker.getState() == CircuitBreaker.State.OPEN) {
+                    logger.warn("Circuit for {} opened after failure: {}", name(dependency), e.getMessage());
+                }
+                throw e;
+            }
+            breaker.onSuccess();
+            return result;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    @Override
+    public boolean isAvailable(Compartment compartment) {
+        return !enabled || breakers.get(compartment.dependency()).isCallPermitted();
+    }
+
+    private static DependencyUnavailableException circuitOpen(Dependency dependency, CircuitBreaker breaker) {
+        long retryAfterSeconds = Math.max(1, (breaker.remainingOpenMillis() + 999) / 1000);
+        return new DependencyUnavailableException(name(dependency) + " 暂时不可用，请稍后重试",
+                name(dependency), retryAfterSeconds);
+    }
+
+    private static String name(Dependency dependency) {
+        return dependency.name().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "resilience";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        Map<String, Object> breakerMetrics = new LinkedHashMap<>();
+        breakers.forEach((dependency, breaker) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("state", breaker.getState().name());
+            m.put("opened", breaker.getOpened());
+            m.put("rejected", breaker.getRejected());
+            m.put("remainingOpenMillis", breaker.remainingOpenMillis());
+            breakerMetrics.put(name(dependency), m);
+        });
+        metrics.put("breakers", breakerMetrics);
+        Map<String, Object> bulkheadMetrics = new LinkedHashMap<>();
+        bulkheads.forEach((compartment, bulkhead) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("maxConcurrent", bulkhead.getMaxConcurrent());
+            m.put("active", bulkhead.getActive());
+            m.put("queueDepth", bulkhead.getQueueDepth());
+            m.put("rejectedQueueFull", bulkhead.getRejectedQueueFull());
+            m.put("rejectedTimeout", bulkhead.getRejectedTimeout());
+            bulkheadMetrics.put(compartment.name().toLowerCase(Locale.ROOT), m);
+        });
+        metrics.put("bulkheads", bulkheadMetrics);
+        return metrics;
+    }
+}
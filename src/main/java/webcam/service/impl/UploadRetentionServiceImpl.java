@@ -0,0 +1,362 @@
+package webcam.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import webcam.config.RetentionProperties;
+import webcam.config.UploadProperties;
+import webcam.service.ImageStorageService;
+import webcam.service.MetricsSource;
+import webcam.service.UploadRetentionService;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 上传目录保留策略服务实现类
+ * 使用DirectoryStream逐个目录增量遍历，任何时候内存中只保留一个目录的迭代器和有限数量的淘汰候选，
+ * 不会一次性列出整个上传目录
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@Service
+public class UploadRetentionServiceImpl implements UploadRetentionService, MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadRetentionServiceImpl.class);
+
+    private static final String PART_SUFFIX = ".part";
+
+    private final RetentionProperties retentionProperties;
+    private final Path root;
+    private final ImageStorageService imageStorageService;
+
+    // 当前一轮扫描的状态，仅在持有sweepLock时访问。
+    // 扫描期间有文件I/O，使用ReentrantLock而非synchronized，避免虚拟线程模式下钉住载体线程
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private final Deque<Path> pendingDirectories = new ArrayDeque<>();
+    private final PriorityQueue<Candidate> candidates =
+            new PriorityQueue<>(Comparator.comparingLong(Candidate::lastAccess).reversed());
+    private DirectoryStream<Path> currentStream;
+    private Iterator<Path> currentIterator;
+    private boolean passInProgress;
+    private long passBytes;
+    private long passFiles;
+
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+    private final AtomicLong reclaimedFiles = new AtomicLong();
+    private final AtomicLong expiredFiles = new AtomicLong();
+    private final AtomicLong evictedFiles = new AtomicLong();
+    private final AtomicLong completedPasses = new AtomicLong();
+    private volatile long lastPassBytes;
+    private volatile long lastPassFiles;
+    private volatile long lastPassDurationMillis;
+    private long passStartMillis;
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public UploadRetentionServiceImpl(UploadProperties uploadProperties, RetentionProperties retentionProperties,
+            ImageStorageService imageStorageService) {
+        this.retentionProperties = retentionProperties;
+        this.imageStorageService = imageStorageService;
+        this.root = Paths.get(uploadProperties.getPath());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!retentionProperties.isEnabled()) {
+            return;
+        }
+        long intervalMillis = retentionProperties.getSweepInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upload-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runScheduledPass, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Upload retention enabled: maxTotalBytes={}, maxAge={}, interval={}",
+                retentionProperties.getMaxTotalBytes(), retentionProperties.getMaxAge(),
+                retentionProperties.getSweepInterval());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        sweepLock.lock();
+        try {
+            closeCurrentStream();
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private void runScheduledPass() {
+        try {
+            sweepPass();
+        } catch (RuntimeException e) {
+            // 异常不能抛出到调度器，否则后续扫描会被取消
+            logger.error("Upload retention sweep failed", e);
+        }
+    }
+
+    @Override
+    public void sweepPass() {
+        long pauseMillis = retentionProperties.getBatchPause().toMillis();
+        while (!sweepStep()) {
+            if (pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean sweepStep() {
+        sweepLock.lock();
+        try {
+            return sweepBatch();
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private boolean sweepBatch() {
+        if (!passInProgress) {
+            if (!Files.isDirectory(root)) {
+                return true;
+            }
+            beginPass();
+        }
+
+        long now = System.currentTimeMillis();
+        long maxAgeMillis = retentionProperties.getMaxAge() != null ? retentionProperties.getMaxAge().toMillis() : 0;
+        int batchSize = Math.max(1, retentionProperties.getBatchSize());
+
+        for (int visited = 0; visited < batchSize; visited++) {
+            Path entry = nextEntry();
+            if (entry == null) {
+                finishPass();
+                return true;
+            }
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                // 扫描期间文件已被删除或无法访问
+                continue;
+            }
+            if (attributes.isDirectory()) {
+                pendingDirectories.add(entry);
+                continue;
+            }
+            if (!attributes.isRegularFile()) {
+                continue;
+            }
+
+            long size = attributes.size();
+            long modified = attributes.lastModifiedTime().toMillis();
+            if (maxAgeMillis > 0 && now - modified > maxAgeMillis) {
+                if (delete(entry, size)) {
+                    expiredFiles.incrementAndGet();
+                }
+                continue;
+            }
+
+            passBytes += size;
+            passFiles++;
+            // 写入中的临时文件只计入容量，不参与淘汰
+            if (!entry.getFileName().toString().endsWith(PART_SUFFIX)) {
+                offerCandidate(new Candidate(entry, lastAccessOf(attributes), size));
+            }
+        }
+        return false;
+    }
+
+    private void beginPass() {
+        pendingDirectories.clear();
+        pendingDirectories.add(root);
+        candidates.clear();
+        passBytes = 0;
+        passFiles = 0;
+        passStartMillis = System.currentTimeMillis();
+        passInProgress = true;
+    }
+
+    /**
+     * 返回下一个目录项；当前目录遍历完后打开下一个待处理目录
+     *
+     * @return 目录项；一轮扫描结束时返回null
+     */
+    private Path nextEntry() {
+        while (true) {
+            if (currentIterator != null) {
+                try {
+                    if (currentIterator.hasNext()) {
+                        return currentIterator.next();
+                    }
+                } catch (DirectoryIteratorException e) {
+                    logger.warn("Failed to iterate upload directory: {}", e.getCause().getMessage());
+                }
+                closeCurrentStream();
+            }
+            Path directory = pendingDirectories.poll();
+            if (directory == null) {
+                return null;
+            }
+            try {
+                currentStream = Files.newDirectoryStream(directory);
+                currentIterator = currentStream.iterator();
+            } catch (NoSuchFileException e) {
+                // 目录已被删除
+            } catch (IOException e) {
+                logger.warn("Failed to open upload directory {}: {}", directory, e.getMessage());
+            }
+        }
+    }
+
+    private void closeCurrentStream() {
+        if (currentStream != null) {
+            try {
+                currentStream.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close directory stream: {}", e.getMessage());
+            }
+        }
+        currentStream = null;
+        currentIterator = null;
+    }
+
+    /**
+     * 保留最久未访问的若干文件作为淘汰候选，候选数量有上限
+     */
+    private void offerCandidate(Candidate candidate) {
+        candidates.add(candidate);
+        if (candidates.size() > Math.max(1, retentionProperties.getMaxEvictionCandidates())) {
+            // 堆顶是最近访问的候选
+            candidates.poll();
+        }
+    }
+
+    /**
+     * 一轮扫描结束：总容量超出配额时从最久未访问的文件开始删除
+     * 候选不足以回到配额以内时，剩余部分留给下一轮处理
+     */
+    private void finishPass() {
+        long quota = retentionProperties.getMaxTotalBytes();
+        if (quota > 0 && passBytes > quota) {
+            List<Candidate> oldestFirst = new ArrayList<>(candidates);
+            oldestFirst.sort(Comparator.comparingLong(Candidate::lastAccess));
+            for (Candidate candidate : oldestFirst) {
+                if (passBytes <= quota) {
+                    break;
+                }
+                if (accessedSince(candidate)) {
+                    continue;
+                }
+                if (delete(candidate.path(), candidate.size())) {
+                    evictedFiles.incrementAndGet();
+                    passBytes -= candidate.size();
+                    passFiles--;
+                }
+            }
+            if (passBytes > quota) {
+                logger.warn("Upload directory still over quota after sweep: {} > {} bytes", passBytes, quota);
+            }
+        }
+
+        lastPassBytes = passBytes;
+        lastPassFiles = passFiles;
+        lastPassDurationMillis = System.currentTimeMillis() - passStartMillis;
+        completedPasses.incrementAndGet();
+        candidates.clear();
+        passInProgress = false;
+        logger.debug("Upload retention pass finished: {} files, {} bytes, {} ms",
+                lastPassFiles, lastPassBytes, lastPassDurationMillis);
+    }
+
+    /**
+     * 判断候选文件在扫描之后是否又被访问过（或已不存在）
+     */
+    private boolean accessedSince(Candidate candidate) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(candidate.path(), BasicFileAttributes.class);
+            return lastAccessOf(attributes) > candidate.lastAccess();
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private boolean delete(Path file, long size) {
+        try {
+            if (Files.deleteIfExists(file)) {
+                // 删除后再清缓存，避免清除后又从磁盘读回缓存
+                imageStorageService.evictCached(file);
+                reclaimedBytes.addAndGet(size);
+                reclaimedFiles.incrementAndGet();
+                logger.debug("Retention removed {} ({} bytes)", file, size);
+                return true;
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete {}: {}", file, e.getMessage());
+        }
+        return false;
+    }
+
+    private static long lastAccessOf(BasicFileAttributes attributes) {
+        return Math.max(attributes.lastAccessTime().toMillis(), attributes.lastModifiedTime().toMillis());
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "retention";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("reclaimedBytes", reclaimedBytes.get());
+        metrics.put("reclaimedFiles", reclaimedFiles.get());
+        metrics.put("expiredFiles", expiredFiles.get());
+        metrics.put("evictedFiles", evictedFiles.get());
+        metrics.put("completedPasses", completedPasses.get());
+        metrics.put("lastPassBytes", lastPassBytes);
+        metrics.put("lastPassFiles", lastPassFiles);
+        metrics.put("lastPassDurationMillis", lastPassDurationMillis);
+        metrics.put("maxTotalBytes", retentionProperties.getMaxTotalBytes());
+        return metrics;
+    }
+
+    private record Candidate(Path path, long lastAccess, long size) {
+    }
+}
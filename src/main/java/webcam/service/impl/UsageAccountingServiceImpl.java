@@ -0,0 +1,175 @@
+package webcam.service.impl;
+
+import org.springframework.stereotype.Service;
+import webcam.dto.ChatCompletionResponse;
+import webcam.dto.ModelUsage;
+import webcam.service.MetricsSource;
+import webcam.service.UsageAccountingService;
+import webcam.util.ImageDimensions;
+import webcam.util.LongHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 模型用量统计服务实现类
+ * 每个模型和操作的组合一组无锁计数器和直方图，记录只做原子累加；
+ * 平均每百万像素的输入token数用于评估图像尺寸，输出token数分布和每个输出token的耗时用于调整max_tokens
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@Service
+public class UsageAccountingServiceImpl implements UsageAccountingService, MetricsSource {
+
+    private final ConcurrentMap<String, ConcurrentMap<String, OperationStats>> models = new ConcurrentHashMap<>();
+
+    @Override
+    public ModelUsage record(String model, String operation, ChatCompletionResponse.Usage usage, List<byte[]> images,
+            long wallMillis) {
+        long pixels = pixelCount(images);
+        int promptTokens = usage != null ? usage.promptTokens() : 0;
+        int completionTokens = usage != null ? usage.completionTokens() : 0;
+
+        OperationStats stats = stats(model, operation);
+        stats.calls.increment();
+        if (usage == null) {
+            stats.missingUsage.increment();
+        }
+        stats.promptTokens.add(promptTokens);
+        stats.completionTokens.add(completionTokens);
+        stats.imagePixels.add(pixels);
+        stats.images.add(images.size());
+        stats.wallMillis.record(wallMillis);
+        if (usage != null) {
+            stats.promptTokensPerCall.record(promptTokens);
+            stats.completionTokensPerCall.record(completionTokens);
+        }
+        return new ModelUsage(1, promptTokens, completionTokens, pixels, wallMillis);
+    }
+
+    @Override
+    public void recordFailure(String model, String operation, long wallMillis) {
+        OperationStats stats = stats(model, operation);
+        stats.failures.increment();
+        stats.failedMillis.add(wallMillis);
+    }
+
+    @Override
+    public void recordAbandoned(String model, String operation, List<byte[]> images, long wallMillis) {
+        OperationStats stats = stats(model, operation);
+        stats.abandoned.increment();
+        stats.abandonedImagePixels.add(pixelCount(images));
+        stats.abandonedMillis.add(wallMillis);
+    }
+
+    private static long pixelCount(List<byte[]> images) {
+        long pixels = 0;
+        for (byte[] image : images) {
+            pixels += ImageDimensions.pixelCount(image);
+        }
+        return pixels;
+    }
+
+    private OperationStats stats(String model, String operation) {
+        String modelName = model != null ? model : "unknown";
+        return models.computeIfAbsent(modelName, name -> new ConcurrentHashMap<>())
+                .computeIfAbsent(operation, name -> new OperationStats());
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "usage";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long calls = 0;
+        long failures = 0;
+        long abandoned = 0;
+        long promptTokens = 0;
+        long completionTokens = 0;
+        Map<String, Object> byModel = new TreeMap<>();
+        for (Map.Entry<String, ConcurrentMap<String, OperationStats>> model : models.entrySet()) {
+            Map<String, Object> byOperation = new TreeMap<>();
+            for (Map.Entry<String, OperationStats> operation : model.getValue().entrySet()) {
+                OperationStats stats = operation.getValue();
+                calls += stats.calls.sum();
+                failures += stats.failures.sum();
+                abandoned += stats.abandoned.sum();
+                promptTokens += stats.promptTokens.sum();
+                completionTokens += stats.completionTokens.sum();
+                byOperation.put(operation.getKey(), stats.snapshot());
+            }
+            byModel.put(model.getKey(), byOperation);
+        }
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("calls", calls);
+        metrics.put("failures", failures);
+        metrics.put("abandoned", abandoned);
+        metrics.put("promptTokens", promptTokens);
+        metrics.put("completionTokens", completionTokens);
+        metrics.put("models", byModel);
+        return metrics;
+    }
+
+    /**
+     * 一个模型和操作组合的统计
+     */
+    private static final class OperationStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        // 响应中没有usage的调用（如流式调用未返回用量）
+        final LongAdder missingUsage = new LongAdder();
+        final LongAdder promptTokens = new LongAdder();
+        final LongAdder completionTokens = new LongAdder();
+        final LongAdder imagePixels = new LongAdder();
+        final LongAdder images = new LongAdder();
+        final LongAdder failedMillis = new LongAdder();
+        // 对冲中被中止的请求：图像已发出，但不在像素数和token数的比值中
+        final LongAdder abandoned = new LongAdder();
+        final LongAdder abandonedImagePixels = new LongAdder();
+        final LongAdder abandonedMillis = new LongAdder();
+        final LongHistogram wallMillis = new LongHistogram();
+        final LongHistogram promptTokensPerCall = new LongHistogram();
+        final LongHistogram completionTokensPerCall = new LongHistogram();
+
+        Map<String, Object> snapshot() {
+            long callCount = calls.sum();
+            long prompt = promptTokens.sum();
+            long completion = completionTokens.sum();
+            long pixels = imagePixels.sum();
+
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("calls", callCount);
+            metrics.put("failures", failures.sum());
+            metrics.put("missingUsage", missingUsage.sum());
+            metrics.put("promptTokens", prompt);
+            metrics.put("completionTokens", completion);
+            metrics.put("images", images.sum());
+            metrics.put("imageMegapixels", round(pixels / 1_000_000.0));
+            metrics.put("avgPromptTokensPerMegapixel", pixels > 0 ? round(prompt * 1_000_000.0 / pixels) : 0.0);
+            metrics.put("avgMillisPerCompletionToken",
+                    completion > 0 ? round((double) wallMillis.getSum() / completion) : 0.0);
+            metrics.put("avgFailedMillis", failures.sum() > 0 ? round((double) failedMillis.sum() / failures.sum()) : 0.0);
+            metrics.put("abandoned", abandoned.sum());
+            metrics.put("abandonedImageMegapixels", round(abandonedImagePixels.sum() / 1_000_000.0));
+            metrics.put("avgAbandonedMillis",
+                    abandoned.sum() > 0 ? round((double) abandonedMillis.sum() / abandoned.sum()) : 0.0);
+            metrics.put("wallMillis", wallMillis.snapshot());
+            metrics.put("promptTokensPerCall", promptTokensPerCall.snapshot());
+            metrics.put("completionTokensPerCall", completionTokensPerCall.snapshot());
+            return metrics;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package webcam.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import webcam.config.ThreadingProperties;
+import webcam.service.MetricsSource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 虚拟线程钉住（pinning）诊断
+ * 虚拟线程在synchronized块内或本地方法中阻塞时无法从载体线程卸载，会占住载体线程。
+ * 虚拟线程模式下通过JFR事件jdk.VirtualThreadPinned记录超过阈值的钉住，输出调用位置并计入指标
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@Component
+public class VirtualThreadPinningMonitor implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * 日志中输出的栈帧数
+     */
+    private static final int LOGGED_FRAMES = 8;
+
+    private final ThreadingProperties threadingProperties;
+    private final AtomicLong pinnedEvents = new AtomicLong();
+    private final AtomicLong pinnedNanos = new AtomicLong();
+    private volatile long maxPinnedNanos;
+    private RecordingStream recordingStream;
+
+    @Autowired
+    public VirtualThreadPinningMonitor(ThreadingProperties threadingProperties) {
+        this.threadingProperties = threadingProperties;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!threadingProperties.isVirtualActive() || !threadingProperties.isPinningDiagnostics()) {
+            return;
+        }
+        try {
+            recordingStream = new RecordingStream();
+            recordingStream.enable(PINNED_EVENT)
+                    .withThreshold(threadingProperties.getPinningThreshold())
+                    .withStackTrace();
+            recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+            recordingStream.startAsync();
+            logger.info("Virtual thread pinning diagnostics enabled, threshold={}",
+                    threadingProperties.getPinningThreshold());
+        } catch (RuntimeException e) {
+            logger.warn("Could not start virtual thread pinning diagnostics: {}", e.getMessage());
+            recordingStream = null;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        pinnedEvents.incrementAndGet();
+        pinnedNanos.addAndGet(nanos);
+        if (nanos > maxPinnedNanos) {
+            maxPinnedNanos = nanos;
+        }
+        logger.warn("Virtual thread pinned for {} ms at:{}", nanos / 1_000_000, describe(event.getStackTrace()));
+    }
+
+    private static String describe(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return " <no stack trace>";
+        }
+        StringBuilder builder = new StringBuilder();
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        for (int i = 0; i < Math.min(LOGGED_FRAMES, frames.size()); i++) {
+            RecordedFrame frame = frames.get(i);
+            builder.append("\n\tat ").append(frame.getMethod().getType().getName())
+                    .append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber());
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "threads";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("virtualRequested", threadingProperties.isVirtual());
+        metrics.put("virtualActive", threadingProperties.isVirtualActive());
+        metrics.put("pinnedEvents", pinnedEvents.get());
+        metrics.put("pinnedMillisTotal", pinnedNanos.get() / 1_000_000);
+        metrics.put("pinnedMillisMax", maxPinnedNanos / 1_000_000);
+        return metrics;
+    }
+}
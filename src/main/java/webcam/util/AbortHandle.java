@@ -0,0 +1,95 @@
+package webcam.util;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 可中止的HTTP调用
+ * 调用在run()中执行时，当前线程打开的HttpURLConnection登记到该句柄；其他线程调用abort()时断开这些连接，
+ * 阻塞中的读写立即以IOException结束，之后再打开的连接直接失败。中断线程无法结束阻塞的socket读取，因此使用这种方式
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class AbortHandle {
+
+    private static final ThreadLocal<AbortHandle> CURRENT = new ThreadLocal<>();
+
+    private final List<HttpURLConnection> connections = new ArrayList<>();
+    private volatile boolean aborted;
+
+    /**
+     * 在当前线程上执行调用，期间打开的连接登记到该句柄
+     *
+     * @param call 调用
+     * @return 调用结果
+     */
+    public <T> T run(Supplier<T> call) {
+        AbortHandle previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * 中止调用：断开已登记的连接，之后登记的连接直接失败；可以重复调用
+     */
+    public void abort() {
+        List<HttpURLConnection> open;
+        synchronized (connections) {
+            if (aborted) {
+                return;
+            }
+            aborted = true;
+            open = new ArrayList<>(connections);
+            connections.clear();
+        }
+        for (HttpURLConnection connection : open) {
+            // 尚未建立的连接调用disconnect()不起作用，缩短超时使其之后的连接和读取立即失败
+            connection.setConnectTimeout(1);
+            connection.setReadTimeout(1);
+            connection.disconnect();
+        }
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * 判断当前线程上执行的调用是否已被中止，用于区分中止造成的I/O错误和依赖故障
+     */
+    public static boolean isCurrentAborted() {
+        AbortHandle current = CURRENT.get();
+        return current != null && current.aborted;
+    }
+
+    /**
+     * 登记当前线程上即将发出请求的连接；不在run()中时不做任何事
+     *
+     * @param connection 连接
+     * @throws IOException 调用已被中止时
+     */
+    public static void register(HttpURLConnection connection) throws IOException {
+        AbortHandle current = CURRENT.get();
+        if (current == null) {
+            return;
+        }
+        synchronized (current.connections) {
+            if (current.aborted) {
+                throw new IOException("Request aborted");
+            }
+            current.connections.add(connection);
+        }
+    }
+}
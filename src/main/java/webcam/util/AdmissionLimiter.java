@@ -0,0 +1,118 @@
+package webcam.util;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 并发准入限制器
+ * 最多允许maxConcurrent个调用同时执行，另有最多maxQueue个调用按先来后到等待；
+ * 队列已满或等待超时的调用立即被拒绝，而不是让所有调用一起变慢
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class AdmissionLimiter {
+
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger maxObservedQueue = new AtomicInteger();
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong rejectedQueueFull = new AtomicLong();
+    private final AtomicLong rejectedTimeout = new AtomicLong();
+
+    /**
+     * @param maxConcurrent 最大并发数
+     * @param maxQueue      最大等待数（0表示不排队）
+     */
+    public AdmissionLimiter(int maxConcurrent, int maxQueue) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueue = Math.max(0, maxQueue);
+        // 公平模式保证排队的调用按到达顺序获得许可
+        this.permits = new Semaphore(this.maxConcurrent, true);
+    }
+
+    /**
+     * 尝试获得执行许可
+     * 成功后必须在finally中调用release()
+     *
+     * @param maxWait 最长等待时间
+     * @return 是否获得许可
+     * @throws InterruptedException 等待期间线程被中断时
+     */
+    public boolean tryAcquire(Duration maxWait) throws InterruptedException {
+        // 已有调用在排队时不允许插队
+        if (waiting.get() == 0 && permits.tryAcquire()) {
+            admitted.incrementAndGet();
+            return true;
+        }
+
+        int depth = waiting.incrementAndGet();
+        try {
+            if (depth > maxQueue) {
+                rejectedQueueFull.incrementAndGet();
+                return false;
+            }
+            queued.incrementAndGet();
+            maxObservedQueue.accumulateAndGet(depth, Math::max);
+            long waitNanos = maxWait != null ? maxWait.toNanos() : 0;
+            if (permits.tryAcquire(waitNanos, TimeUnit.NANOSECONDS)) {
+                admitted.incrementAndGet();
+                return true;
+            }
+            rejectedTimeout.incrementAndGet();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * 归还执行许可
+     */
+    public void release() {
+        permits.release();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+
+    public int getMaxObservedQueue() {
+        return maxObservedQueue.get();
+    }
+
+    public long getAdmitted() {
+        return admitted.get();
+    }
+
+    public long getQueued() {
+        return queued.get();
+    }
+
+    public long getRejectedQueueFull() {
+        return rejectedQueueFull.get();
+    }
+
+    public long getRejectedTimeout() {
+        return rejectedTimeout.get();
+    }
+}
@@ -0,0 +1,343 @@
+package webcam.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Base64图像数据解码器
+ * 一次扫描完成data URI前缀跳过、空白字符忽略、字符合法性校验和解码，
+ * 不使用正则表达式，也不产生中间字符串
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class Base64ImageDecoder {
+
+    /**
+     * 有效Base64字符数的最小值，低于此值不可能是有效图像
+     */
+    public static final int MIN_ENCODED_LENGTH = 50;
+
+    /**
+     * 查找data URI前缀逗号的最大范围
+     */
+    private static final int MAX_PREFIX_LENGTH = 128;
+
+    private static final byte INVALID = -1;
+    private static final byte WHITESPACE = -2;
+    private static final byte PADDING = -3;
+
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE_TABLE, INVALID);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE_TABLE[alphabet.charAt(i)] = (byte) i;
+        }
+        DECODE_TABLE[' '] = WHITESPACE;
+        DECODE_TABLE['\t'] = WHITESPACE;
+        DECODE_TABLE['\n'] = WHITESPACE;
+        DECODE_TABLE['\r'] = WHITESPACE;
+        DECODE_TABLE['\f'] = WHITESPACE;
+        DECODE_TABLE[0x0B] = WHITESPACE;
+        DECODE_TABLE['='] = PADDING;
+    }
+
+    private Base64ImageDecoder() {
+    }
+
+    /**
+     * 校验并解码图像数据
+     *
+     * @param imageData 原始图像数据（可包含data:image/...;base64,前缀和空白字符）
+     * @return 解码后的字节数组
+     * @throws IllegalArgumentException 当数据为空、过小或包含非法字符时
+     */
+    public static byte[] decode(CharSequence imageData) {
+        return decode(imageData, MIN_ENCODED_LENGTH);
+    }
+
+    /**
+     * 校验并解码图像数据，使用指定的最小长度
+     *
+     * @param imageData         原始图像数据
+     * @param minEncodedLength  有效Base64字符数的最小值（0表示不限制）
+     * @return 解码后的字节数组
+     * @throws IllegalArgumentException 当数据为空、过小或包含非法字符时
+     */
+    public static byte[] decode(CharSequence imageData, int minEncodedLength) {
+        int start = payloadStart(imageData);
+        int end = payloadEnd(imageData, start);
+        byte[] out = new byte[estimateDecodedLength(imageData, start, end)];
+        int length = scan(imageData, start, end, out, minEncodedLength);
+        // 仅当数据中间含有空白字符时，实际长度才会小于预估长度
+        return length == out.length ? out : Arrays.copyOf(out, length);
+    }
+
+    /**
+     * 只校验不解码，规则与decode一致
+     *
+     * @param imageData 原始图像数据
+     * @throws IllegalArgumentException 当数据为空、过小或包含非法字符时
+     */
+    public static void validate(CharSequence imageData) {
+        int start = payloadStart(imageData);
+        scan(imageData, start, payloadEnd(imageData, start), null, MIN_ENCODED_LENGTH);
+    }
+
+    /**
+     * 包装Base64文本流，边读边解码，字符和结尾分组规则与decode一致
+     * 调用方需先跳过data URI前缀；非法数据在读取时抛出IllegalArgumentException
+     *
+     * @param source Base64文本流
+     * @return 解码后的字节流
+     */
+    public static InputStream wrap(InputStream source) {
+        return new DecodingInputStream(source);
+    }
+
+    /**
+     * 返回Base64负载的起始位置（跳过data URI前缀）
+     *
+     * @param imageData 原始图像数据
+     * @return 负载起始下标
+     * @throws IllegalArgumentException 当数据为空时
+     */
+    public static int payloadStart(CharSequence imageData) {
+        if (imageData == null || imageData.length() == 0) {
+            throw new IllegalArgumentException("图像数据不能为空");
+        }
+        // Base64负载中不会出现逗号，因此只在开头有限范围内查找前缀分隔符
+        int limit = Math.min(imageData.length(), MAX_PREFIX_LENGTH);
+        for (int i = 0; i < limit; i++) {
+            if (imageData.charAt(i) == ',') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 判断字符是否为Base64空白字符
+     */
+    public static boolean isWhitespace(char c) {
+        return c < 128 && DECODE_TABLE[c] == WHITESPACE;
+    }
+
+    /**
+     * 返回去掉结尾空白字符后的负载结束位置
+     */
+    private static int payloadEnd(CharSequence data, int start) {
+        int end = data.length();
+        while (end > start && isWhitespace(data.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * 假设负载中间没有空白字符，计算解码后的长度
+     */
+    private static int estimateDecodedLength(CharSequence data, int start, int end) {
+        int padding = 0;
+        if (end > start && data.charAt(end - 1) == '=') {
+            padding++;
+            if (end - 1 > start && data.charAt(end - 2) == '=') {
+                padding++;
+            }
+        }
+        long length = (long) (end - start) * 3 / 4 - padding;
+        return (int) Math.max(0, length);
+    }
+
+    /**
+     * 扫描负载：校验字符并在out非空时写出解码字节
+     *
+     * @return 解码后的字节数
+     */
+    private static int scan(CharSequence data, int start, int end, byte[] out, int minEncodedLength) {
+        int bits = 0;
+        int sextets = 0;
+        int encoded = 0;
+        int padding = 0;
+        int pos = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = data.charAt(i);
+            byte value = c < 128 ? DECODE_TABLE[c] : INVALID;
+
+            if (value >= 0) {
+                if (padding > 0) {
+                    throw new IllegalArgumentException("图像数据包含非法字符");
+                }
+                bits = (bits << 6) | value;
+                encoded++;
+                if (++sextets == 4) {
+                    if (out != null) {
+                        out[pos] = (byte) (bits >> 16);
+                        out[pos + 1] = (byte) (bits >> 8);
+                        out[pos + 2] = (byte) bits;
+                    }
+                    pos += 3;
+                    bits = 0;
+                    sextets = 0;
+                }
+            } else if (value == WHITESPACE) {
+                continue;
+            } else if (value == PADDING) {
+                if (++padding > 2) {
+                    throw new IllegalArgumentException("图像数据包含非法字符");
+                }
+                encoded++;
+            } else {
+                throw new IllegalArgumentException("图像数据包含非法字符");
+            }
+        }
+
+        if (encoded == 0) {
+            throw new IllegalArgumentException("无效的图像数据格式");
+        }
+        if (encoded < minEncodedLength) {
+            throw new IllegalArgumentException("图像数据过小，可能不是有效的图像");
+        }
+
+        // 处理最后不足4个字符的分组
+        if (sextets == 1 || (padding > 0 && sextets + padding != 4)) {
+            throw new IllegalArgumentException("无效的图像数据格式");
+        }
+        if (sextets == 2) {
+            if (out != null) {
+                out[pos] = (byte) (bits >> 4);
+            }
+            pos += 1;
+        } else if (sextets == 3) {
+            if (out != null) {
+                out[pos] = (byte) (bits >> 10);
+                out[pos + 1] = (byte) (bits >> 2);
+            }
+            pos += 2;
+        }
+        return pos;
+    }
+
+    /**
+     * 流式解码器，每读满4个有效字符输出3个字节
+     */
+    private static final class DecodingInputStream extends InputStream {
+
+        private static final int BUFFER_SIZE = 8192;
+
+        private final InputStream source;
+        private final byte[] input = new byte[BUFFER_SIZE];
+        private int inputPos;
+        private int inputLength;
+
+        private final byte[] group = new byte[3];
+        private int groupPos;
+        private int groupLength;
+
+        private int bits;
+        private int sextets;
+        private int padding;
+        private boolean eof;
+
+        DecodingInputStream(InputStream source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int n = 0;
+            while (n < len) {
+                if (groupPos < groupLength) {
+                    b[off + n++] = group[groupPos++];
+                    continue;
+                }
+                if (eof) {
+                    break;
+                }
+                if (inputPos == inputLength) {
+                    // 已有输出时不再阻塞等待更多输入
+                    if (n > 0) {
+                        break;
+                    }
+                    int read = source.read(input);
+                    if (read == -1) {
+                        finish();
+                    } else {
+                        inputPos = 0;
+                        inputLength = read;
+                    }
+                    continue;
+                }
+                accept(input[inputPos++] & 0xFF);
+            }
+            return n == 0 && eof ? -1 : n;
+        }
+
+        private void accept(int c) {
+            byte value = c < 128 ? DECODE_TABLE[c] : INVALID;
+            if (value >= 0) {
+                if (padding > 0) {
+                    throw new IllegalArgumentException("图像数据包含非法字符");
+                }
+                bits = (bits << 6) | value;
+                if (++sextets == 4) {
+                    emit(3, bits << 8);
+                    bits = 0;
+                    sextets = 0;
+                }
+            } else if (value == PADDING) {
+                if (++padding > 2) {
+                    throw new IllegalArgumentException("图像数据包含非法字符");
+                }
+            } else if (value != WHITESPACE) {
+                throw new IllegalArgumentException("图像数据包含非法字符");
+            }
+        }
+
+        /**
+         * 输入结束，处理最后不足4个字符的分组
+         */
+        private void finish() {
+            eof = true;
+            if (sextets == 1 || (padding > 0 && sextets + padding != 4)) {
+                throw new IllegalArgumentException("无效的图像数据格式");
+            }
+            if (sextets == 2) {
+                emit(1, bits << 20);
+            } else if (sextets == 3) {
+                emit(2, bits << 14);
+            }
+        }
+
+        /**
+         * @param count  输出的字节数
+         * @param packed 左对齐到32位的解码结果
+         */
+        private void emit(int count, int packed) {
+            for (int i = 0; i < count; i++) {
+                group[i] = (byte) (packed >>> (24 - 8 * i));
+            }
+            groupPos = 0;
+            groupLength = count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            source.close();
+        }
+    }
+}
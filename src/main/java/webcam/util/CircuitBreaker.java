@@ -0,0 +1,136 @@
+package webcam.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 熔断器
+ * 连续失败达到阈值后断开（OPEN），断开期间调用立即被拒绝；断开时间结束后进入半开（HALF_OPEN），
+ * 只放行有限个探测调用：探测成功则闭合，失败则重新断开
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class CircuitBreaker {
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final int halfOpenProbes;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private int probesInFlight;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+
+    /**
+     * @param failureThreshold 断开前允许的连续失败次数
+     * @param openMillis       断开持续时间
+     * @param halfOpenProbes   半开状态下同时放行的探测调用数
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis, int halfOpenProbes) {
+        this(failureThreshold, openMillis, halfOpenProbes, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(int failureThreshold, long openMillis, int halfOpenProbes, LongSupplier clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.clock = clock;
+    }
+
+    /**
+     * 尝试获得调用许可
+     * 获得许可后必须调用onSuccess()、onFailure()或onIgnored()之一报告结果
+     *
+     * @return 是否允许调用
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && probesInFlight < halfOpenProbes) {
+            probesInFlight++;
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 判断当前是否会放行调用，不占用探测名额
+     */
+    public synchronized boolean isCallPermitted() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> clock.getAsLong() - openedAt >= openMillis;
+            case HALF_OPEN -> probesInFlight < halfOpenProbes;
+        };
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+        }
+    }
+
+    /**
+     * 调用结果不说明依赖是否健康（如请求参数错误、客户端断开），不改变状态，只归还半开状态的探测名额
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * @return 距离允许探测的剩余毫秒数；未断开时返回0
+     */
+    public synchronized long remainingOpenMillis() {
+        return state == State.OPEN ? Math.max(0, openMillis - (clock.getAsLong() - openedAt)) : 0;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getOpened() {
+        return opened.get();
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+        consecutiveFailures = 0;
+        opened.incrementAndGet();
+    }
+}
@@ -0,0 +1,102 @@
+package webcam.util;
+
+/**
+ * JPEG EXIF方向读取工具
+ * 只解析APP1段中IFD0的Orientation标签（0x0112），不依赖第三方元数据库
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class ExifOrientation {
+
+    /**
+     * 正常方向（无需旋转或翻转）
+     */
+    public static final int NORMAL = 1;
+
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private ExifOrientation() {
+    }
+
+    /**
+     * 读取JPEG数据中的EXIF方向
+     *
+     * @param imageBytes 图像字节
+     * @return 方向值1-8；非JPEG、无EXIF或数据损坏时返回1
+     */
+    public static int read(byte[] imageBytes) {
+        if (imageBytes == null || imageBytes.length < 4
+                || (imageBytes[0] & 0xFF) != 0xFF || (imageBytes[1] & 0xFF) != 0xD8) {
+            return NORMAL;
+        }
+        int pos = 2;
+        while (pos + 4 <= imageBytes.length) {
+            if ((imageBytes[pos] & 0xFF) != 0xFF) {
+                return NORMAL;
+            }
+            int marker = imageBytes[pos + 1] & 0xFF;
+            // SOS之后是压缩数据，EXIF只会出现在它之前
+            if (marker == 0xDA || marker == 0xD9) {
+                return NORMAL;
+            }
+            int segmentLength = readUnsignedShort(imageBytes, pos + 2, false);
+            int segmentStart = pos + 4;
+            if (marker == 0xE1 && isExifHeader(imageBytes, segmentStart)) {
+                return readFromTiff(imageBytes, segmentStart + 6, pos + 2 + segmentLength);
+            }
+            pos += 2 + segmentLength;
+        }
+        return NORMAL;
+    }
+
+    private static boolean isExifHeader(byte[] data, int pos) {
+        return pos + 6 <= data.length
+                && data[pos] == 'E' && data[pos + 1] == 'x' && data[pos + 2] == 'i' && data[pos + 3] == 'f'
+                && data[pos + 4] == 0 && data[pos + 5] == 0;
+    }
+
+    private static int readFromTiff(byte[] data, int tiffStart, int segmentEnd) {
+        int end = Math.min(segmentEnd, data.length);
+        if (tiffStart + 8 > end) {
+            return NORMAL;
+        }
+        boolean littleEndian;
+        if (data[tiffStart] == 'I' && data[tiffStart + 1] == 'I') {
+            littleEndian = true;
+        } else if (data[tiffStart] == 'M' && data[tiffStart + 1] == 'M') {
+            littleEndian = false;
+        } else {
+            return NORMAL;
+        }
+        long ifdOffset = readUnsignedInt(data, tiffStart + 4, littleEndian);
+        long ifdStart = tiffStart + ifdOffset;
+        if (ifdOffset < 8 || ifdStart + 2 > end) {
+            return NORMAL;
+        }
+        int entryCount = readUnsignedShort(data, (int) ifdStart, littleEndian);
+        for (int i = 0; i < entryCount; i++) {
+            int entry = (int) ifdStart + 2 + i * 12;
+            if (entry + 12 > end) {
+                return NORMAL;
+            }
+            if (readUnsignedShort(data, entry, littleEndian) == ORIENTATION_TAG) {
+                int value = readUnsignedShort(data, entry + 8, littleEndian);
+                return value >= 1 && value <= 8 ? value : NORMAL;
+            }
+        }
+        return NORMAL;
+    }
+
+    private static int readUnsignedShort(byte[] data, int pos, boolean littleEndian) {
+        int b0 = data[pos] & 0xFF;
+        int b1 = data[pos + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static long readUnsignedInt(byte[] data, int pos, boolean littleEndian) {
+        long high = readUnsignedShort(data, littleEndian ? pos + 2 : pos, littleEndian);
+        long low = readUnsignedShort(data, littleEndian ? pos : pos + 2, littleEndian);
+        return (high << 16) | low;
+    }
+}
@@ -0,0 +1,167 @@
+package webcam.util;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * 画面预筛工具
+ * 将图像缩小到很小的尺寸后测量平均亮度、清晰度（拉普拉斯响应的方差）和最大肤色连通区域，
+ * 用于在调用视觉模型之前排除全黑、过曝、严重模糊或画面中没有人脸的帧。只负责测量，不做判定
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class FramePreScreen {
+
+    private FramePreScreen() {
+    }
+
+    /**
+     * 画面测量结果
+     *
+     * @param brightness 平均亮度（0-255）
+     * @param sharpness  拉普拉斯响应的方差，越大越清晰
+     * @param skinArea   最大肤色连通区域占画面的比例（0-1）
+     * @param skinAspect 最大肤色连通区域外接矩形的宽高比；无肤色区域时为0
+     */
+    public record Measurements(double brightness, double sharpness, double skinArea, double skinAspect) {
+    }
+
+    /**
+     * 测量图像字节
+     *
+     * @param imageBytes   图像字节（JPEG、PNG等ImageIO支持的格式）
+     * @param analysisEdge 分析时最长边的像素数
+     * @return 测量结果
+     * @throws IllegalArgumentException 当图像无法解码时
+     */
+    public static Measurements measure(byte[] imageBytes, int analysisEdge) {
+        try {
+            return measure(PerceptualHash.decodeSubsampled(imageBytes, analysisEdge), analysisEdge);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("无法解码图像: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 测量图像
+     *
+     * @param image        图像
+     * @param analysisEdge 分析时最长边的像素数，原图更小时不放大
+     * @return 测量结果
+     */
+    public static Measurements measure(BufferedImage image, int analysisEdge) {
+        double scale = Math.min(1.0, (double) analysisEdge / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        BufferedImage small = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = small.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        int[] rgb = small.getRGB(0, 0, width, height, null, 0, width);
+        int[] luma = new int[rgb.length];
+        boolean[] skin = new boolean[rgb.length];
+        long lumaSum = 0;
+        for (int i = 0; i < rgb.length; i++) {
+            int r = (rgb[i] >> 16) & 0xFF;
+            int g = (rgb[i] >> 8) & 0xFF;
+            int b = rgb[i] & 0xFF;
+            int y = (299 * r + 587 * g + 114 * b) / 1000;
+            int cb = 128 + (-169 * r - 331 * g + 500 * b) / 1000;
+            int cr = 128 + (500 * r - 419 * g - 81 * b) / 1000;
+            luma[i] = y;
+            lumaSum += y;
+            // YCbCr色度空间的经验肤色范围，过暗的像素色度不可靠
+            skin[i] = y > 40 && cb >= 77 && cb <= 127 && cr >= 133 && cr <= 173;
+        }
+
+        double brightness = (double) lumaSum / rgb.length;
+        double sharpness = laplacianVariance(luma, width, height);
+        return largestSkinRegion(skin, width, height, brightness, sharpness);
+    }
+
+    /**
+     * 四邻域拉普拉斯响应的方差
+     */
+    private static double laplacianVariance(int[] luma, int width, int height) {
+        if (width < 3 || height < 3) {
+            return 0;
+        }
+        double sum = 0;
+        double sumSquares = 0;
+        int count = 0;
+        for (int y = 1; y < height - 1; y++) {
+            for (int x = 1; x < width - 1; x++) {
+                int i = y * width + x;
+                int response = 4 * luma[i] - luma[i - 1] - luma[i + 1] - luma[i - width] - luma[i + width];
+                sum += response;
+                sumSquares += (double) response * response;
+                count++;
+            }
+        }
+        double mean = sum / count;
+        return sumSquares / count - mean * mean;
+    }
+
+    /**
+     * 查找最大的四连通肤色区域
+     */
+    private static Measurements largestSkinRegion(boolean[] skin, int width, int height,
+            double brightness, double sharpness) {
+        boolean[] visited = new boolean[skin.length];
+        int[] stack = new int[skin.length];
+        int largest = 0;
+        double largestAspect = 0;
+        for (int start = 0; start < skin.length; start++) {
+            if (!skin[start] || visited[start]) {
+                continue;
+            }
+            int size = 0;
+            int minX = width;
+            int maxX = -1;
+            int minY = height;
+            int maxY = -1;
+            int top = 0;
+            stack[top++] = start;
+            visited[start] = true;
+            while (top > 0) {
+                int i = stack[--top];
+                int x = i % width;
+                int y = i / width;
+                size++;
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+                if (x > 0 && skin[i - 1] && !visited[i - 1]) {
+                    visited[i - 1] = true;
+                    stack[top++] = i - 1;
+                }
+                if (x < width - 1 && skin[i + 1] && !visited[i + 1]) {
+                    visited[i + 1] = true;
+                    stack[top++] = i + 1;
+                }
+                if (y > 0 && skin[i - width] && !visited[i - width]) {
+                    visited[i - width] = true;
+                    stack[top++] = i - width;
+                }
+                if (y < height - 1 && skin[i + width] && !visited[i + width]) {
+                    visited[i + width] = true;
+                    stack[top++] = i + width;
+                }
+            }
+            if (size > largest) {
+                largest = size;
+                largestAspect = (double) (maxX - minX + 1) / (maxY - minY + 1);
+            }
+        }
+        return new Measurements(brightness, sharpness, (double) largest / skin.length, largestAspect);
+    }
+}
@@ -0,0 +1,48 @@
+package webcam.util;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 图像尺寸读取工具
+ * 只解析图像头部，不解码像素
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class ImageDimensions {
+
+    private ImageDimensions() {
+    }
+
+    /**
+     * 读取图像的像素数（宽 x 高）
+     *
+     * @param imageBytes 图像字节（JPEG、PNG等ImageIO支持的格式）
+     * @return 像素数；无法识别的图像返回0
+     */
+    public static long pixelCount(byte[] imageBytes) {
+        if (imageBytes == null || imageBytes.length == 0) {
+            return 0;
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return 0;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return (long) reader.getWidth(0) * reader.getHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package webcam.util;
+
+import java.util.function.BiConsumer;
+
+/**
+ * 增量JSON字段解析器
+ * 按片段（例如大模型流式输出的token）逐字符喂入文本，顶层对象中每个字段的值一旦完整就立即回调，
+ * 不需要等待整个对象结束。第一个'{'之前的内容（如Markdown代码块标记、说明文字）会被忽略。
+ *
+ * <p>解析是宽松的，单遍完成且不抛出异常，用于恢复大模型输出中不规范的JSON：</p>
+ * <ul>
+ *   <li>键可以不加引号，或使用单引号、中文引号；冒号和逗号可以是全角字符</li>
+ *   <li>未加引号的值读到逗号、换行或'}'为止</li>
+ *   <li>说明文字中不构成键值对的大括号（如"{注意}"）会被跳过；一个对象结束后继续寻找后续对象</li>
+ *   <li>输出被截断时，调用{@link #finish()}回调最后一个未完成的字符串或标量值</li>
+ * </ul>
+ *
+ * <p>回调的值类型：字符串为反转义后的String，整数为Long，小数为Double，true/false为Boolean，
+ * null为null，嵌套对象和数组为原始JSON文本，无法识别的未加引号值为去除首尾空白的原文。
+ * 非线程安全，每次解析使用一个新实例。</p>
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class IncrementalJsonFieldParser {
+
+    private enum State {
+        SEEK_OBJECT, EXPECT_KEY, IN_KEY, IN_BARE_KEY, EXPECT_COLON, EXPECT_VALUE, IN_STRING, IN_SCALAR, IN_NESTED, DONE
+    }
+
+    private final BiConsumer<String, Object> listener;
+
+    private State state = State.SEEK_OBJECT;
+    private final StringBuilder buffer = new StringBuilder();
+    private String currentKey;
+    private int fieldCount;
+    private int objectFieldCount;
+    private boolean complete;
+    private boolean emptyObject;
+
+    // 字符串状态，跨片段保持
+    private char closingQuote;
+    private boolean escaped;
+    private int unicodeRemaining;
+    private int unicodeValue;
+
+    // 嵌套值状态
+    private int nestedDepth;
+    private boolean nestedInString;
+    private boolean nestedEscaped;
+
+    /**
+     * @param listener 字段回调，参数为字段名和值
+     */
+    public IncrementalJsonFieldParser(BiConsumer<String, Object> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 喂入一段文本
+     *
+     * @param chunk 文本片段
+     */
+    public void feed(CharSequence chunk) {
+        for (int i = 0; i < chunk.length() && state != State.DONE; i++) {
+            accept(chunk.charAt(i));
+        }
+    }
+
+    /**
+     * 输入结束：输出被截断时回调最后一个未完成的字符串或标量值
+     */
+    public void finish() {
+        if (state == State.IN_STRING) {
+            emit(buffer.toString());
+        } else if (state == State.IN_SCALAR) {
+            emit(scalarValue(buffer.toString().trim()));
+        }
+        state = State.DONE;
+    }
+
+    /**
+     * @return 是否已有包含字段的顶层对象结束
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * 判断输入是否为空对象（如"{}"）：读到了直接闭合的对象，且没有回调过任何字段
+     * 说明文字中不构成键值对的大括号（如"{注意}"）不算空对象
+     *
+     * @return 是否为空对象
+     */
+    public boolean isEmptyObject() {
+        return emptyObject && fieldCount == 0;
+    }
+
+    /**
+     * @return 已回调的字段数
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    private void accept(char c) {
+        switch (state) {
+            case SEEK_OBJECT -> {
+                if (c == '{') {
+                    startObject();
+                }
+            }
+            case EXPECT_KEY -> acceptKeyStart(c);
+            case IN_KEY -> {
+                if (appendStringChar(c)) {
+                    currentKey = buffer.toString();
+                    state = State.EXPECT_COLON;
+                }
+            }
+            case IN_BARE_KEY -> {
+                if (isColon(c)) {
+                    currentKey = buffer.toString().trim();
+                    state = State.EXPECT_VALUE;
+                } else if (c == '\n' || c == '{' || c == '}') {
+                    abandonKey(c);
+                } else {
+                    buffer.append(c);
+                }
+            }
+            case EXPECT_COLON -> {
+                if (isColon(c)) {
+                    state = State.EXPECT_VALUE;
+                } else if (!Character.isWhitespace(c)) {
+                    abandonKey(c);
+                }
+            }
+            case EXPECT_VALUE -> acceptValueStart(c);
+            case IN_STRING -> {
+                if (appendStringChar(c)) {
+                    emit(buffer.toString());
+                    state = State.EXPECT_KEY;
+                }
+            }
+            case IN_SCALAR -> {
+                if (isComma(c) || c == '}' || c == '\n' || c == '\r') {
+                    emit(scalarValue(buffer.toString().trim()));
+                    if (c == '}') {
+                        closeObject();
+                    } else {
+                        state = State.EXPECT_KEY;
+                    }
+                } else {
+                    buffer.append(c);
+                }
+            }
+            case IN_NESTED -> acceptNested(c);
+            default -> {
+            }
+        }
+    }
+
+    private void acceptKeyStart(char c) {
+        if (Character.isWhitespace(c) || isComma(c)) {
+            return;
+        }
+        buffer.setLength(0);
+        if (isOpeningQuote(c)) {
+            startString(c);
+            state = State.IN_KEY;
+        } else if (c == '}') {
+            if (objectFieldCount == 0) {
+                emptyObject = true;
+            }
+            closeObject();
+        } else if (c == '{') {
+            if (objectFieldCount == 0) {
+                startObject();
+            }
+        } else {
+            buffer.append(c);
+            state = State.IN_BARE_KEY;
+        }
+    }
+
+    /**
+     * 当前位置不构成键值对：对象中尚未读到字段时视为说明文字，重新寻找对象；否则跳过这段内容
+     */
+    private void abandonKey(char c) {
+        if (c == '}') {
+            closeObject();
+        } else if (c == '{' && objectFieldCount == 0) {
+            startObject();
+        } else {
+            state = objectFieldCount == 0 ? State.SEEK_OBJECT : State.EXPECT_KEY;
+        }
+    }
+
+    private void startObject() {
+        objectFieldCount = 0;
+        state = State.EXPECT_KEY;
+    }
+
+    private void closeObject() {
+        if (objectFieldCount > 0) {
+            complete = true;
+        }
+        state = State.SEEK_OBJECT;
+    }
+
+    private void acceptValueStart(char c) {
+        if (Character.isWhitespace(c)) {
+            return;
+        }
+        buffer.setLength(0);
+        if (isOpeningQuote(c)) {
+            startString(c);
+            state = State.IN_STRING;
+        } else if (c == '{' || c == '[') {
+            buffer.append(c);
+            nestedDepth = 1;
+            nestedInString = false;
+            nestedEscaped = false;
+            state = State.IN_NESTED;
+        } else if (c == '}') {
+            // 缺少值
+            closeObject();
+        } else if (isComma(c)) {
+            state = State.EXPECT_KEY;
+        } else {
+            buffer.append(c);
+            state = State.IN_SCALAR;
+        }
+    }
+
+    private void acceptNested(char c) {
+        buffer.append(c);
+        if (nestedInString) {
+            if (nestedEscaped) {
+                nestedEscaped = false;
+            } else if (c == '\\') {
+                nestedEscaped = true;
+            } else if (c == '"') {
+                nestedInString = false;
+            }
+            return;
+        }
+        if (c == '"') {
+            nestedInString = true;
+        } else if (c == '{' || c == '[') {
+            nestedDepth++;
+        } else if ((c == '}' || c == ']') && --nestedDepth == 0) {
+            emit(buffer.toString());
+            state = State.EXPECT_KEY;
+        }
+    }
+
+    private void startString(char openingQuote) {
+        closingQuote = openingQuote == '“' ? '”' : openingQuote;
+        escaped = false;
+        unicodeRemaining = 0;
+    }
+
+    /**
+     * 向缓冲区追加字符串中的一个字符，处理转义
+     *
+     * @return 遇到结束引号时返回true
+     */
+    private boolean appendStringChar(char c) {
+        if (unicodeRemaining > 0) {
+            int digit = Character.digit(c, 16);
+            unicodeValue = (unicodeValue << 4) | Math.max(digit, 0);
+            if (--unicodeRemaining == 0) {
+                buffer.append((char) unicodeValue);
+            }
+            return false;
+        }
+        if (escaped) {
+            escaped = false;
+            switch (c) {
+                case 'n' -> buffer.append('\n');
+                case 't' -> buffer.append('\t');
+                case 'r' -> buffer.append('\r');
+                case 'b' -> buffer.append('\b');
+                case 'f' -> buffer.append('\f');
+                case 'u' -> {
+                    unicodeRemaining = 4;
+                    unicodeValue = 0;
+                }
+                default -> buffer.append(c);
+            }
+            return false;
+        }
+        if (c == '\\') {
+            escaped = true;
+            return false;
+        }
+        if (c == closingQuote) {
+            return true;
+        }
+        buffer.append(c);
+        return false;
+    }
+
+    private static boolean isOpeningQuote(char c) {
+        return c == '"' || c == '\'' || c == '“';
+    }
+
+    private static boolean isColon(char c) {
+        return c == ':' || c == '：';
+    }
+
+    private static boolean isComma(char c) {
+        return c == ',' || c == '，';
+    }
+
+    private static Object scalarValue(String text) {
+        switch (text) {
+            case "true":
+                return Boolean.TRUE;
+            case "false":
+                return Boolean.FALSE;
+            case "null":
+                return null;
+            default:
+                break;
+        }
+        if (!looksNumeric(text)) {
+            return text;
+        }
+        try {
+            if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0) {
+                return Double.parseDouble(text);
+            }
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            // 超出long范围等情况保留原文
+            return text;
+        }
+    }
+
+    /**
+     * 预先检查字符集合，正常路径上不依赖NumberFormatException
+     */
+    private static boolean looksNumeric(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        boolean digit = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (c != '-' && c != '+' && c != '.' && c != 'e' && c != 'E') {
+                return false;
+            }
+        }
+        return digit;
+    }
+
+    private void emit(Object value) {
+        fieldCount++;
+        objectFieldCount++;
+        listener.accept(currentKey, value);
+    }
+}
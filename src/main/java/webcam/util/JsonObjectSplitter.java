@@ -0,0 +1,58 @@
+package webcam.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 从模型输出中切分出顶层JSON对象
+ * 用于多图调用返回的JSON数组：不要求整体是合法JSON（允许代码块标记、说明文字、缺少逗号），
+ * 只按花括号配对找出每个最外层对象的文本，交给宽松解析器逐个解析
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class JsonObjectSplitter {
+
+    private JsonObjectSplitter() {
+    }
+
+    /**
+     * 切分顶层对象
+     * 双引号字符串中的花括号不计入配对；最后一个对象未闭合（输出被截断）时不返回
+     *
+     * @param text 模型输出
+     * @return 每个顶层对象的文本（包括两端花括号），按出现顺序排列
+     */
+    public static List<String> split(String text) {
+        List<String> objects = new ArrayList<>();
+        if (text == null) {
+            return objects;
+        }
+        int depth = 0;
+        int start = -1;
+        boolean inString = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            if (c == '"' && depth > 0) {
+                inString = true;
+            } else if (c == '{') {
+                if (depth++ == 0) {
+                    start = i;
+                }
+            } else if (c == '}' && depth > 0) {
+                if (--depth == 0) {
+                    objects.add(text.substring(start, i + 1));
+                }
+            }
+        }
+        return objects;
+    }
+}
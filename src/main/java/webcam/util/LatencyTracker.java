@@ -0,0 +1,63 @@
+package webcam.util;
+
+import java.util.Arrays;
+
+/**
+ * 最近请求延迟的滑动窗口
+ * 以环形缓冲区保存最近若干次的延迟，按需计算百分位数；窗口较小（数百个样本），计算时复制后排序
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    /**
+     * @param capacity 窗口大小（保留的样本数）
+     */
+    public LatencyTracker(int capacity) {
+        this.samples = new long[Math.max(1, capacity)];
+    }
+
+    /**
+     * 记录一次延迟
+     *
+     * @param millis 延迟毫秒数
+     */
+    public synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    /**
+     * 计算窗口内延迟的百分位数（最近秩法）
+     *
+     * @param percentile 百分位，取值0-100
+     * @return 延迟毫秒数；窗口为空时返回-1
+     */
+    public long percentile(double percentile) {
+        long[] snapshot;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            snapshot = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(snapshot);
+        int rank = (int) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100.0 * snapshot.length);
+        return snapshot[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * @return 窗口内的样本数
+     */
+    public synchronized int size() {
+        return count;
+    }
+}
@@ -0,0 +1,110 @@
+package webcam.util;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 峰值指数加权移动平均（Peak EWMA）延迟估计
+ * 比当前估计更慢的样本立即把估计拉高到该样本，更快的样本按时间衰减逐步拉低；
+ * 没有新样本时估计随时间向0衰减，空闲的目标会重新获得流量。
+ * 负载得分为估计延迟乘以（进行中的请求数 + 1）；有请求在进行时估计不低于最近一个样本的一半，
+ * 衰减后的慢目标只试探性地接收请求，不会在第一个请求返回前把同时到达的请求全部吸走
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class PeakEwma {
+
+    /**
+     * 估计已衰减到0但仍有请求在进行时的得分，避免把请求继续堆到还没有返回的目标上
+     */
+    private static final double PENDING_PENALTY = 1e12;
+
+    private final double decayNanos;
+    private final LongSupplier clock;
+
+    private double costNanos;
+    private long lastSampleNanos;
+    private long stamp;
+    private int pending;
+
+    /**
+     * @param decayNanos 衰减时间常数（纳秒）：经过该时长后旧估计的权重降为1/e
+     */
+    public PeakEwma(long decayNanos) {
+        this(decayNanos, System::nanoTime);
+    }
+
+    PeakEwma(long decayNanos, LongSupplier clock) {
+        this.decayNanos = Math.max(1, decayNanos);
+        this.clock = clock;
+        this.stamp = clock.getAsLong();
+    }
+
+    /**
+     * 请求开始
+     *
+     * @return 开始时间，结束时传给end()
+     */
+    public synchronized long start() {
+        pending++;
+        return clock.getAsLong();
+    }
+
+    /**
+     * 请求结束，记录耗时
+     *
+     * @param startNanos     start()返回的开始时间
+     * @param minSampleNanos 样本的下限；失败的请求以惩罚延迟计入
+     */
+    public synchronized void end(long startNanos, long minSampleNanos) {
+        pending = Math.max(0, pending - 1);
+        long now = clock.getAsLong();
+        lastSampleNanos = Math.max(now - startNanos, minSampleNanos);
+        observe(now, lastSampleNanos);
+    }
+
+    /**
+     * 请求没有实际发出（如被熔断器拒绝），只减少进行中的请求数
+     */
+    public synchronized void cancel() {
+        pending = Math.max(0, pending - 1);
+    }
+
+    /**
+     * @return 负载得分，越小越优先
+     */
+    public synchronized double score() {
+        observe(clock.getAsLong(), 0);
+        if (pending == 0) {
+            return costNanos;
+        }
+        double cost = Math.max(costNanos, lastSampleNanos / 2.0);
+        if (cost == 0) {
+            return PENDING_PENALTY + pending;
+        }
+        return cost * (pending + 1);
+    }
+
+    /**
+     * @return 当前延迟估计（毫秒）
+     */
+    public synchronized double estimateMillis() {
+        observe(clock.getAsLong(), 0);
+        return costNanos / 1_000_000.0;
+    }
+
+    public synchronized int pending() {
+        return pending;
+    }
+
+    private void observe(long now, double sampleNanos) {
+        long elapsed = Math.max(0, now - stamp);
+        stamp = now;
+        if (sampleNanos > costNanos) {
+            costNanos = sampleNanos;
+        } else {
+            double weight = Math.exp(-elapsed / decayNanos);
+            costNanos = costNanos * weight + sampleNanos * (1 - weight);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package webcam.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 按Peak EWMA负载得分选择目标的负载均衡器
+ * 每次选择得分除以权重后最小的目标；以explorationRatio的概率改为按权重随机选择其他目标，
+ * 使暂时不被选中的目标也持续有少量样本。失败的请求以惩罚延迟计入得分，流量随即转向其他目标
+ *
+ * @param <T> 目标类型
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class PeakEwmaBalancer<T> {
+
+    private final List<Member<T>> members;
+    private final double explorationRatio;
+    private final long decayNanos;
+    private final long failurePenaltyNanos;
+    private final LongSupplier clock;
+    private final DoubleSupplier random;
+
+    /**
+     * @param explorationRatio    探索流量比例，取值0-1
+     * @param decayNanos          延迟估计的衰减时间常数（纳秒）
+     * @param failurePenaltyNanos 失败请求计入的延迟（纳秒）
+     */
+    public PeakEwmaBalancer(double explorationRatio, long decayNanos, long failurePenaltyNanos) {
+        this(explorationRatio, decayNanos, failurePenaltyNanos, System::nanoTime,
+                () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    PeakEwmaBalancer(double explorationRatio, long decayNanos, long failurePenaltyNanos,
+            LongSupplier clock, DoubleSupplier random) {
+        this.members = new ArrayList<>();
+        this.explorationRatio = Math.min(1, Math.max(0, explorationRatio));
+        this.decayNanos = decayNanos;
+        this.failurePenaltyNanos = failurePenaltyNanos;
+        this.clock = clock;
+        this.random = random;
+    }
+
+    /**
+     * 添加目标，须在开始选择之前完成
+     *
+     * @param name   名称（用于指标）
+     * @param target 目标
+     * @param weight 权重：得分按权重折算，权重为2的目标可以比权重为1的目标慢一倍仍被选中
+     */
+    public void add(String name, T target, double weight) {
+        members.add(new Member<>(name, target, weight > 0 ? weight : 1.0, new PeakEwma(decayNanos, clock)));
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * 选择一个目标并开始计时
+     * 调用方必须对返回的Selection调用succeeded()、failed()或cancelled()之一
+     *
+     * @return 选择结果
+     */
+    public Selection<T> select() {
+        if (members.isEmpty()) {
+            throw new IllegalStateException("No balancer targets");
+        }
+        Member<T> chosen = best();
+        if (members.size() > 1 && random.getAsDouble() < explorationRatio) {
+            chosen = randomOther(chosen);
+            chosen.explored.incrementAndGet();
+        }
+        chosen.selected.incrementAndGet();
+        return new Selection<>(chosen, chosen.ewma.start(), failurePenaltyNanos);
+    }
+
+    private Member<T> best() {
+        Member<T> best = members.get(0);
+        double bestScore = best.ewma.score() / best.weight;
+        for (int i = 1; i < members.size(); i++) {
+            Member<T> member = members.get(i);
+            double score = member.ewma.score() / member.weight;
+            if (score < bestScore) {
+                best = member;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 按权重随机选择最优目标以外的目标
+     */
+    private Member<T> randomOther(Member<T> excluded) {
+        double total = 0;
+        for (Member<T> member : members) {
+            if (member != excluded) {
+                total += member.weight;
+            }
+        }
+        double point = random.getAsDouble() * total;
+        Member<T> last = excluded;
+        for (Member<T> member : members) {
+            if (member == excluded) {
+                continue;
+            }
+            last = member;
+            point -= member.weight;
+            if (point < 0) {
+                return member;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * @return 每个目标的权重、延迟估计、进行中的请求数和选择次数
+     */
+    public List<Map<String, Object>> getMetrics() {
+        List<Map<String, Object>> metrics = new ArrayList<>(members.size());
+        for (Member<T> member : members) {
+            Map<String, Object> target = new LinkedHashMap<>();
+            target.put("name", member.name);
+            target.put("weight", member.weight);
+            target.put("latencyEstimateMillis", Math.round(member.ewma.estimateMillis() * 10) / 10.0);
+            target.put("pending", member.ewma.pending());
+            target.put("selected", member.selected.get());
+            target.put("explored", member.explored.get());
+            target.put("failures", member.failures.get());
+            metrics.add(target);
+        }
+        return Collections.unmodifiableList(metrics);
+    }
+
+    private static final class Member<T> {
+        final String name;
+        final T target;
+        final double weight;
+        final PeakEwma ewma;
+        final AtomicLong selected = new AtomicLong();
+        final AtomicLong explored = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+
+        Member(String name, T target, double weight, PeakEwma ewma) {
+            this.name = name;
+            this.target = target;
+            this.weight = weight;
+            this.ewma = ewma;
+        }
+    }
+
+    /**
+     * 一次选择，记录该请求的结果
+     */
+    public static final class Selection<T> {
+        private final Member<T> member;
+        private final long startNanos;
+        private final long failurePenaltyNanos;
+
+        private Selection(Member<T> member, long startNanos, long failurePenaltyNanos) {
+            this.member = member;
+            this.startNanos = startNanos;
+            this.failurePenaltyNanos = failurePenaltyNanos;
+        }
+
+        public T target() {
+            return member.target;
+        }
+
+        public String name() {
+            return member.name;
+        }
+
+        public void succeeded() {
+            member.ewma.end(startNanos, 0);
+        }
+
+        public void failed() {
+            member.failures.incrementAndGet();
+            member.ewma.end(startNanos, failurePenaltyNanos);
+        }
+
+        /**
+         * 请求没有发出，不影响延迟估计
+         */
+        public void cancelled() {
+            member.ewma.cancel();
+        }
+    }
+}
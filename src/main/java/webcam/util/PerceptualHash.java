@@ -0,0 +1,110 @@
+package webcam.util;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 感知哈希（dHash）工具
+ * 将图像缩小为9x8灰度图，比较每行相邻像素的亮度得到64位指纹；
+ * 内容相近的图像（重拍、重复提交）指纹的汉明距离很小
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class PerceptualHash {
+
+    private static final int HASH_WIDTH = 9;
+    private static final int HASH_HEIGHT = 8;
+
+    /**
+     * 解码时保留的最短边像素数，降采样读取可避免完整解码大图
+     */
+    private static final int MIN_DECODED_EDGE = 64;
+
+    private PerceptualHash() {
+    }
+
+    /**
+     * 计算图像字节的dHash
+     *
+     * @param imageBytes 图像字节（JPEG、PNG等ImageIO支持的格式）
+     * @return 64位指纹
+     * @throws IllegalArgumentException 当图像无法解码时
+     */
+    public static long dHash(byte[] imageBytes) {
+        try {
+            return dHash(decodeSubsampled(imageBytes, MIN_DECODED_EDGE));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("无法解码图像: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 计算图像的dHash
+     *
+     * @param image 图像
+     * @return 64位指纹
+     */
+    public static long dHash(BufferedImage image) {
+        BufferedImage small = new BufferedImage(HASH_WIDTH, HASH_HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = small.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, HASH_WIDTH, HASH_HEIGHT, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        byte[] pixels = new byte[HASH_WIDTH * HASH_HEIGHT];
+        small.getRaster().getDataElements(0, 0, HASH_WIDTH, HASH_HEIGHT, pixels);
+        long hash = 0;
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH - 1; x++) {
+                int left = pixels[y * HASH_WIDTH + x] & 0xFF;
+                int right = pixels[y * HASH_WIDTH + x + 1] & 0xFF;
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 计算两个指纹的汉明距离
+     */
+    public static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+    /**
+     * 按降采样方式解码，只读取计算所需的像素
+     *
+     * @param minDecodedEdge 解码结果最短边至少保留的像素数
+     */
+    static BufferedImage decodeSubsampled(byte[] imageBytes, int minDecodedEdge) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("不支持的图像格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int shortEdge = Math.min(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, shortEdge / minDecodedEdge);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
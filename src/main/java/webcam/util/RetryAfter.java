@@ -0,0 +1,43 @@
+package webcam.util;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 解析HTTP响应的Retry-After头（秒数或HTTP日期两种格式）
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class RetryAfter {
+
+    private RetryAfter() {
+    }
+
+    /**
+     * @param headers        响应头，可以为null
+     * @param nowEpochMillis 当前时间，用于换算HTTP日期格式
+     * @return 建议等待的毫秒数；没有或无法解析时返回-1
+     */
+    public static long millis(HttpHeaders headers, long nowEpochMillis) {
+        String value = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        value = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException ignored) {
+            // 不是秒数，按HTTP日期解析
+        }
+        try {
+            long at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, at - nowEpochMillis);
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package webcam.util;
+
+/**
+ * 令牌桶限速器
+ * 令牌按固定速率补充，最多积累burst个；每个请求消耗一个令牌，允许短时突发而长期速率不超过设定值。
+ * 时间由调用方传入（System.nanoTime()），便于在同一时刻比较多个令牌桶
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public class TokenBucket {
+
+    private final double ratePerNano;
+    private final double capacity;
+
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * @param ratePerSecond 每秒补充的令牌数，必须大于0
+     * @param burst         最多积累的令牌数
+     * @param nowNanos      当前时间，令牌桶初始为满
+     */
+    public TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond must be positive");
+        }
+        this.ratePerNano = ratePerSecond / 1_000_000_000.0;
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.refilledAt = nowNanos;
+    }
+
+    /**
+     * 尝试取走一个令牌
+     *
+     * @return 是否取到
+     */
+    public synchronized boolean tryTake(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 预约一个令牌
+     * 令牌不足时也立即扣除（令牌数可以为负），调用方等待返回的时间后再发出请求；
+     * 后来的调用方排在已预约的之后，按到达顺序获得令牌
+     *
+     * @param maxWaitNanos 最多愿意等待的纳秒数
+     * @return 需要等待的纳秒数；超过maxWaitNanos时不预约并返回-1
+     */
+    public synchronized long reserve(long nowNanos, long maxWaitNanos) {
+        refill(nowNanos);
+        long wait = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / ratePerNano);
+        if (wait > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return wait;
+    }
+
+    /**
+     * @return 距离有一个可用令牌的纳秒数；已有令牌时返回0
+     */
+    public synchronized long nanosUntilAvailable(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / ratePerNano);
+    }
+
+    /**
+     * @return 当前可用令牌数
+     */
+    public synchronized double available(long nowNanos) {
+        refill(nowNanos);
+        return tokens;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerNano * 1_000_000_000.0;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - refilledAt;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * ratePerNano);
+            refilledAt = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package webcam.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 虚拟线程工具
+ * 项目以Java 17为编译目标，虚拟线程API（Java 21）通过反射调用；
+ * 运行在不支持虚拟线程的JVM上时自动退回平台线程
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            // Java 19/20中虚拟线程是预览特性，未开启预览时调用会抛出异常
+            ofVirtual.invoke(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 当前JVM是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 创建虚拟线程工厂，线程名为 namePrefix + 序号
+     *
+     * @param namePrefix 线程名前缀
+     * @return 线程工厂
+     * @throws UnsupportedOperationException 当JVM不支持虚拟线程时
+     */
+    public static ThreadFactory factory(String namePrefix) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = BUILDER_NAME.invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual thread factory", e);
+        }
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器
+     *
+     * @param namePrefix 线程名前缀
+     * @return 执行器
+     * @throws UnsupportedOperationException 当JVM不支持虚拟线程时
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory(namePrefix));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual thread executor", e);
+        }
+    }
+
+    /**
+     * 创建执行器：virtual为true且JVM支持时使用虚拟线程，否则使用固定大小的平台线程池
+     *
+     * @param namePrefix      线程名前缀
+     * @param virtual         是否优先使用虚拟线程
+     * @param platformThreads 平台线程池大小
+     * @return 执行器
+     */
+    public static ExecutorService newExecutor(String namePrefix, boolean virtual, int platformThreads) {
+        if (virtual && isSupported()) {
+            return newThreadPerTaskExecutor(namePrefix);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, platformThreads), runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -44,8 +44,8 @@
                     <p class="praise-text"><span class="p6 hidden-text">${praise}</span><span class="p66"></span></p>
                 </div>
                 
-                <c:if test="${not empty healthAnalysis}">
-                <div class="health-section">
+                <c:if test="${not empty healthAnalysis or not empty narrativeId}">
+                <div class="health-section"<c:if test="${empty healthAnalysis}"> style="display:none;"</c:if>>
                     <h3 class="section-title health-title">
                         <span class="health-icon">⚕</span>健康分析
                     </h3>
@@ -71,6 +71,7 @@
             'use strict';
             
             const contextPath = '${pageContext.request.contextPath}';
+            const narrativeId = '<c:out value="${narrativeId}"/>';
             
             /**
              * 将本地相对路径转换为带上下文路径的完整URL
@@ -114,6 +115,47 @@
                 img.src = fallbackSrc;
             };
             
+            /**
+             * 两阶段分析：轮询延迟生成的健康分析和夸奖内容，填入隐藏的源文本后回调
+             * 生成失败、超时或结果已过期时保留页面上的默认内容
+             */
+            function loadNarrative(onDone) {
+                const deadline = Date.now() + 30000;
+
+                function poll() {
+                    fetch(buildLocalImagePath('webcam/narrative/' + encodeURIComponent(narrativeId)), {
+                        headers: { 'Accept': 'application/json' },
+                        cache: 'no-store'
+                    }).then(function(response) {
+                        if (response.status === 202 && Date.now() < deadline) {
+                            const retryAfter = parseInt(response.headers.get('Retry-After'), 10) || 1;
+                            setTimeout(poll, retryAfter * 1000);
+                            return null;
+                        }
+                        return response.ok ? response.json() : Promise.reject(new Error('HTTP ' + response.status));
+                    }).then(function(result) {
+                        if (result === null) {
+                            return;
+                        }
+                        const fields = result.msg || {};
+                        if (fields.praise) {
+                            document.querySelector('.p6').textContent = fields.praise;
+                        }
+                        const healthSource = document.querySelector('.p7');
+                        if (fields.healthAnalysis && healthSource) {
+                            healthSource.textContent = fields.healthAnalysis;
+                            document.querySelector('.health-section').style.display = '';
+                        }
+                        onDone();
+                    }).catch(function(error) {
+                        console.warn('Failed to load narrative:', error);
+                        onDone();
+                    });
+                }
+
+                poll();
+            }
+
             /**
              * 逐字显示文本动画
              */
@@ -143,12 +185,24 @@
             // 页面加载完成后启动动画
             document.addEventListener('DOMContentLoaded', function() {
                 // 依次显示各项信息
+                const loadedAt = Date.now();
                 animateText('.p1', '.p11', 150);
                 setTimeout(() => animateText('.p2', '.p22', 150), 500);
                 setTimeout(() => animateText('.p3', '.p33', 150), 1600);
                 setTimeout(() => animateText('.p4', '.p44', 150), 2000);
-                setTimeout(() => animateText('.p6', '.p66', 80), 3000);
-                setTimeout(() => animateText('.p7', '.p77', 60), 4500);
+
+                function animateNarrative() {
+                    // 延迟字段先于原定时间到达时仍按原来的节奏显示
+                    const elapsed = Date.now() - loadedAt;
+                    setTimeout(() => animateText('.p6', '.p66', 80), Math.max(0, 3000 - elapsed));
+                    setTimeout(() => animateText('.p7', '.p77', 60), Math.max(0, 4500 - elapsed));
+                }
+
+                if (narrativeId) {
+                    loadNarrative(animateNarrative);
+                } else {
+                    animateNarrative();
+                }
                 
                 const pauseTimes = [];
                 
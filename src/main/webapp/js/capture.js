@@ -41,6 +41,7 @@
     countdownSeconds: 30,
     imageQuality: 0.85,
     redirectDelay: 3000,
+    streamResults: true, // 使用SSE流式接口，识别出的字段先行显示
     maxFileSize: 10 * 1024 * 1024 // 10MB
   };
 
@@ -324,6 +325,11 @@
       const formData = new URLSearchParams();
       formData.append('image', imageData);
 
+      if (config.streamResults && window.ReadableStream && window.TextDecoder) {
+        await sendImageStreaming(formData);
+        return;
+      }
+
       const response = await fetch('/webcam', {
         method: 'POST',
         headers: {
@@ -372,6 +378,115 @@
     }
   }
 
+  /**
+   * 通过流式接口发送图像，逐个处理服务器推送的SSE事件
+   * @param {URLSearchParams} formData - 表单数据
+   */
+  async function sendImageStreaming(formData) {
+    const response = await fetch('/webcam?stream=true', {
+      method: 'POST',
+      headers: {
+        'Content-Type': 'application/x-www-form-urlencoded',
+        'Accept': 'text/event-stream'
+      },
+      body: formData
+    });
+
+    const requestId = response.headers.get('X-Request-Id');
+    if (requestId) {
+      console.log('Request ID:', requestId);
+    }
+
+    if (!response.ok || !response.body) {
+      // 请求在开始推送之前失败（图像无效、服务繁忙等），错误响应仍为JSON
+      try {
+        const errorResult = await response.json();
+        handleServerResponse(errorResult);
+        return;
+      } catch (e) {
+        throw new Error(`HTTP error! status: ${response.status}`);
+      }
+    }
+
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder('utf-8');
+    const partial = {};
+    let buffer = '';
+
+    while (true) {
+      const { done, value } = await reader.read();
+      if (done) {
+        break;
+      }
+      buffer += decoder.decode(value, { stream: true });
+
+      // 事件之间以空行分隔
+      let boundary;
+      while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+        const block = buffer.slice(0, boundary);
+        buffer = buffer.slice(boundary + 2);
+        const event = parseEventBlock(block);
+        if (!event) {
+          continue;
+        }
+        if (event.name === 'field') {
+          partial[event.data.name] = event.data.value;
+          showPartialResult(partial);
+        } else if (event.name === 'result' || event.name === 'error') {
+          console.log('Server response:', event.data);
+          handleServerResponse(event.data);
+          return;
+        }
+      }
+    }
+    throw new Error('Stream ended without result');
+  }
+
+  /**
+   * 解析一个SSE事件块
+   * @param {string} block - 事件文本
+   * @returns {{name: string, data: Object}|null}
+   */
+  function parseEventBlock(block) {
+    let name = 'message';
+    const dataLines = [];
+    block.split('\n').forEach(line => {
+      if (line.startsWith('event:')) {
+        name = line.slice(6).trim();
+      } else if (line.startsWith('data:')) {
+        dataLines.push(line.slice(5));
+      }
+    });
+    if (dataLines.length === 0) {
+      return null;
+    }
+    try {
+      return { name, data: JSON.parse(dataLines.join('\n')) };
+    } catch (e) {
+      return null;
+    }
+  }
+
+  /**
+   * 显示已识别出的部分结果
+   * @param {Object} partial - 已收到的字段
+   */
+  function showPartialResult(partial) {
+    const parts = [];
+    if (partial.gender) {
+      parts.push(partial.gender);
+    }
+    if (partial.age) {
+      parts.push(`${partial.age}岁`);
+    }
+    if (partial.smile) {
+      parts.push(partial.smile === '是' ? '微笑' : '未微笑');
+    }
+    if (parts.length > 0) {
+      updateCountdown(parts.join(' · '));
+    }
+  }
+
   /**
    * 处理服务器响应
    * @param {Object} result - 服务器返回的结果
@@ -0,0 +1,195 @@
+package webcam.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.client.RestTemplate;
+import webcam.config.BailianApiProperties;
+import webcam.config.FacePreScreenProperties;
+import webcam.config.FaceResultCacheProperties;
+import webcam.config.HedgingProperties;
+import webcam.config.RateLimitProperties;
+import webcam.config.ResilienceProperties;
+import webcam.config.ThreadingProperties;
+import webcam.service.FaceRecognitionServiceImpl;
+import webcam.service.impl.FacePreScreenServiceImpl;
+import webcam.service.impl.RateLimitServiceImpl;
+import webcam.service.impl.RequestHedgingServiceImpl;
+import webcam.service.impl.ResilienceServiceImpl;
+import webcam.service.impl.UsageAccountingServiceImpl;
+import webcam.util.IncrementalJsonFieldParser;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 模型输出内容解析方式的对比基准
+ * 使用src/test/resources/model-output下的样本，比较原实现（indexOf/lastIndexOf截取、readTree、
+ * 失败时捕获异常并用正则从文本中提取）与单遍宽松解析：先输出每个样本恢复出的属性数，再输出耗时。
+ * 不属于单元测试，编译后手动运行：
+ * <pre>
+ * mvn -q test-compile
+ * java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     webcam.benchmark.ContentParsingBenchmark [迭代次数]
+ * </pre>
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class ContentParsingBenchmark {
+
+    private static final String[] SAMPLES = {
+            "01-clean.txt", "02-fenced-with-prose-braces.txt", "03-truncated.txt", "04-lenient-syntax.txt",
+            "05-key-variants.txt", "06-prose-only.txt", "07-escapes-and-braces.txt", "08-single-quotes.txt"
+    };
+
+    private static final String[] ATTRIBUTES = {
+            "gender", "age", "smile", "eyestatus", "complexion", "spirit", "healthAnalysis", "praise"
+    };
+
+    private static volatile Object sink;
+
+    private ContentParsingBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        ObjectMapper objectMapper = new ObjectMapper();
+        // 只调用parseApiResponse，不需要存储和图像规范化服务
+        FaceRecognitionServiceImpl service = new FaceRecognitionServiceImpl(new BailianApiProperties(),
+                new RestTemplate(), objectMapper, null, null, new FaceResultCacheProperties(),
+                new ThreadingProperties(), new RequestHedgingServiceImpl(new HedgingProperties(),
+                        new ThreadingProperties()), new ResilienceServiceImpl(new ResilienceProperties()),
+                        new FacePreScreenServiceImpl(new FacePreScreenProperties()), new UsageAccountingServiceImpl(),
+                new RateLimitServiceImpl(new RateLimitProperties()));
+
+        List<String> contents = new ArrayList<>();
+        List<String> responses = new ArrayList<>();
+        for (String sample : SAMPLES) {
+            String content = readSample(sample);
+            contents.add(content);
+            responses.add(objectMapper.writeValueAsString(Map.of("choices",
+                    List.of(Map.of("message", Map.of("role", "assistant", "content", content))))));
+        }
+
+        System.out.printf("samples=%d, iterations=%d, java=%s%n",
+                SAMPLES.length, iterations, System.getProperty("java.version"));
+        System.out.printf("%-34s %8s %8s%n", "sample", "legacy", "single");
+        int legacyTotal = 0;
+        int singleTotal = 0;
+        for (int i = 0; i < SAMPLES.length; i++) {
+            int legacy = recovered(legacyParse(objectMapper, contents.get(i)), contents.get(i));
+            int single = recovered(service.parseApiResponse(responses.get(i)), contents.get(i));
+            legacyTotal += legacy;
+            singleTotal += single;
+            System.out.printf("%-34s %6d/8 %6d/8%n", SAMPLES[i], legacy, single);
+        }
+        System.out.printf("%-34s %6d/%d %5d/%d%n", "total",
+                legacyTotal, 8 * SAMPLES.length, singleTotal, 8 * SAMPLES.length);
+
+        Task legacy = () -> {
+            Object last = null;
+            for (String content : contents) {
+                last = legacyParse(objectMapper, content);
+            }
+            return last;
+        };
+        Task single = () -> {
+            Map<String, Object> fields = new HashMap<>();
+            for (String content : contents) {
+                IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(fields::put);
+                parser.feed(content);
+                parser.finish();
+            }
+            return fields;
+        };
+
+        for (int round = 0; round < 3; round++) {
+            run(legacy, iterations / 4);
+            run(single, iterations / 4);
+        }
+
+        report("indexOf + readTree + regex", run(legacy, iterations), iterations);
+        report("single-pass lenient", run(single, iterations), iterations);
+    }
+
+    /**
+     * 原实现：截取第一个'{'到最后一个'}'之间的文本交给readTree，失败时按异常路径回退到正则提取
+     */
+    private static Map<String, Object> legacyParse(ObjectMapper objectMapper, String content) {
+        Map<String, Object> resultData = new HashMap<>();
+        try {
+            int startIdx = content.indexOf('{');
+            int endIdx = content.lastIndexOf('}');
+            if (startIdx >= 0 && endIdx > startIdx) {
+                JsonNode jsonNode = objectMapper.readTree(content.substring(startIdx, endIdx + 1));
+                for (String attribute : ATTRIBUTES) {
+                    if (jsonNode.has(attribute)) {
+                        resultData.put(attribute, jsonNode.get(attribute).asText());
+                    }
+                }
+            } else {
+                legacyExtractFromText(content, resultData);
+            }
+        } catch (Exception e) {
+            legacyExtractFromText(content, resultData);
+        }
+        return resultData;
+    }
+
+    private static void legacyExtractFromText(String text, Map<String, Object> resultData) {
+        if (text.contains("男性") || text.contains("男")) {
+            resultData.put("gender", "男性");
+        } else if (text.contains("女性") || text.contains("女")) {
+            resultData.put("gender", "女性");
+        }
+        Matcher matcher = Pattern.compile("(\\d+)岁|年龄[：:]\\s*(\\d+)").matcher(text);
+        if (matcher.find()) {
+            resultData.put("age", matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+        }
+        resultData.put("smile", text.contains("笑") ? "是" : "否");
+    }
+
+    /**
+     * 恢复出的属性数；healthAnalysis和praise的默认值（整段内容、"你真棒！"）不计入
+     */
+    private static int recovered(Map<String, Object> result, String content) {
+        int count = 0;
+        for (String attribute : ATTRIBUTES) {
+            Object value = result.get(attribute);
+            if (value != null && !"你真棒！".equals(value)
+                    && !("healthAnalysis".equals(attribute) && content.equals(value))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String readSample(String sample) throws Exception {
+        try (InputStream input = ContentParsingBenchmark.class.getResourceAsStream("/model-output/" + sample)) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static long run(Task task, int iterations) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = task.call();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, long nanos, int iterations) {
+        System.out.printf("%-28s %8.2f us/corpus%n", name, nanos / 1000.0 / iterations);
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        Object call() throws Exception;
+    }
+}
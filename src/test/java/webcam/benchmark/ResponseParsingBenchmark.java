@@ -0,0 +1,109 @@
+package webcam.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import webcam.service.DashScopeResponseReader;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 百炼chat.completion响应解析方式的对比基准
+ * 比较三种方式提取choices[0].message.content：readTree后has/get链（原实现）、ObjectReader绑定record DTO、
+ * JsonParser流式提取。不属于单元测试，编译后手动运行：
+ * <pre>
+ * mvn -q test-compile
+ * java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     webcam.benchmark.ResponseParsingBenchmark [迭代次数]
+ * </pre>
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class ResponseParsingBenchmark {
+
+    private static volatile Object sink;
+
+    private ResponseParsingBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        ObjectMapper objectMapper = new ObjectMapper();
+        DashScopeResponseReader reader = new DashScopeResponseReader(objectMapper);
+        String response = sampleResponse(objectMapper);
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+
+        System.out.printf("iterations=%d, response=%d bytes, java=%s%n",
+                iterations, responseBytes.length, System.getProperty("java.version"));
+
+        Task tree = () -> {
+            JsonNode apiJson = objectMapper.readTree(responseBytes);
+            if (apiJson.has("choices") && apiJson.get("choices").isArray() && apiJson.get("choices").size() > 0) {
+                JsonNode firstChoice = apiJson.get("choices").get(0);
+                if (firstChoice.has("message") && firstChoice.get("message").has("content")) {
+                    return firstChoice.get("message").get("content").asText();
+                }
+            }
+            return null;
+        };
+        Task dto = () -> reader.readChatCompletion(response).firstMessageContent();
+        Task streaming = () -> reader.readChatContent(new ByteArrayInputStream(responseBytes))
+                .firstMessageContent();
+
+        // 预热，保证三种方式都经过JIT编译
+        for (int round = 0; round < 3; round++) {
+            run(tree, iterations / 4);
+            run(dto, iterations / 4);
+            run(streaming, iterations / 4);
+        }
+
+        report("readTree + has/get", run(tree, iterations), iterations);
+        report("ObjectReader record DTO", run(dto, iterations), iterations);
+        report("JsonParser streaming", run(streaming, iterations), iterations);
+    }
+
+    private static long run(Task task, int iterations) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = task.call();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, long nanos, int iterations) {
+        System.out.printf("%-26s %8.2f us/op%n", name, nanos / 1000.0 / iterations);
+    }
+
+    /**
+     * 与qwen3-vl-plus实际响应结构一致的样本：完整的夸奖和健康分析文本、usage及其他元数据
+     */
+    private static String sampleResponse(ObjectMapper objectMapper) throws Exception {
+        String content = "```json\n{\n  \"gender\": \"女性\",\n  \"age\": 28,\n  \"smile\": \"是\",\n"
+                + "  \"eyestatus\": \"双眼睁开，未戴眼镜\",\n  \"complexion\": \"红润\",\n  \"spirit\": \"精神饱满\",\n"
+                + "  \"healthAnalysis\": \"" + "面色红润，眼神明亮，整体状态良好。".repeat(20) + "\",\n"
+                + "  \"praise\": \"你的笑容温暖又有感染力，眼神清澈明亮，整个人散发着自信和活力，让人一见就心情愉悦！\"\n}\n```";
+        var root = objectMapper.createObjectNode();
+        root.put("id", "chatcmpl-6f1c1f2e-1b1a-9d7e-8f3c-2b6e1c9a7d10");
+        root.put("object", "chat.completion");
+        root.put("created", 1760000000L);
+        root.put("model", "qwen3-vl-plus");
+        var choice = root.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", content);
+        choice.put("finish_reason", "stop");
+        choice.putNull("logprobs");
+        var usage = root.putObject("usage");
+        usage.put("prompt_tokens", 1245);
+        usage.put("completion_tokens", 412);
+        usage.put("total_tokens", 1657);
+        usage.putObject("prompt_tokens_details").put("text_tokens", 221).put("image_tokens", 1024);
+        root.putNull("system_fingerprint");
+        return objectMapper.writeValueAsString(root);
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        Object call() throws Exception;
+    }
+}
@@ -0,0 +1,93 @@
+package webcam.benchmark;
+
+import webcam.util.VirtualThreads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 平台线程池与虚拟线程的对比基准
+ * 模拟请求路径上的阻塞下游调用（百炼API往返、任务轮询间隔），比较相同并发下两种线程模型的完成时间。
+ * 不属于单元测试，编译后手动运行：
+ * <pre>
+ * mvn -q test-compile
+ * java -cp target/classes:target/test-classes webcam.benchmark.ThreadModeBenchmark [任务数] [阻塞毫秒] [平台线程数]
+ * </pre>
+ * 在Java 17上只运行平台线程部分；虚拟线程部分需要Java 21及以上
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+public final class ThreadModeBenchmark {
+
+    private ThreadModeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long blockMillis = args.length > 1 ? Long.parseLong(args[1]) : 200;
+        // 默认值与内嵌Tomcat的最大工作线程数一致
+        int platformThreads = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        System.out.printf("tasks=%d, blocking=%d ms, platform pool=%d, java=%s%n",
+                tasks, blockMillis, platformThreads, System.getProperty("java.version"));
+
+        // 预热
+        run(VirtualThreads.newExecutor("warmup-", false, platformThreads), platformThreads, 1);
+
+        report("platform", run(VirtualThreads.newExecutor("platform-", false, platformThreads), tasks, blockMillis),
+                tasks);
+        if (VirtualThreads.isSupported()) {
+            report("virtual", run(VirtualThreads.newThreadPerTaskExecutor("virtual-"), tasks, blockMillis), tasks);
+            report("virtual+synchronized", runPinned(VirtualThreads.newThreadPerTaskExecutor("pinned-"),
+                    tasks, blockMillis), tasks);
+        } else {
+            System.out.println("virtual: skipped, virtual threads require Java 21 or later");
+        }
+    }
+
+    private static long run(ExecutorService executor, int tasks, long blockMillis) throws Exception {
+        return execute(executor, tasks, () -> {
+            Thread.sleep(blockMillis);
+            return null;
+        });
+    }
+
+    /**
+     * 在synchronized块内阻塞，演示钉住载体线程时虚拟线程退化为载体线程数的并发
+     */
+    private static long runPinned(ExecutorService executor, int tasks, long blockMillis) throws Exception {
+        return execute(executor, tasks, () -> {
+            Object monitor = new Object();
+            synchronized (monitor) {
+                Thread.sleep(blockMillis);
+            }
+            return null;
+        });
+    }
+
+    private static long execute(ExecutorService executor, int tasks,
+            Callable<Void> task) throws Exception {
+        long start = System.nanoTime();
+        try {
+            List<Future<Void>> futures = new ArrayList<>(tasks);
+            for (int i = 0; i < tasks; i++) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String mode, long nanos, int tasks) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-22s %8.2f s  %10.1f tasks/s%n", mode, seconds, tasks / seconds);
+    }
+}
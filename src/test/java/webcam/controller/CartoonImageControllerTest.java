@@ -0,0 +1,85 @@
+package webcam.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import webcam.config.CartoonApiProperties;
+import webcam.dto.CartoonImageResult;
+import webcam.exception.BailianApiException;
+import webcam.service.CartoonImageService;
+import webcam.service.CartoonJob;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * CartoonImageController单元测试
+ * 测试异步任务提交和状态查询
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+class CartoonImageControllerTest {
+
+    @Mock
+    private CartoonImageService cartoonImageService;
+
+    private CartoonImageController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new CartoonImageController(cartoonImageService, new CartoonApiProperties());
+    }
+
+    @Test
+    void testSubmitCartoonJob_ReturnsAcceptedWithJobId() {
+        CartoonJob job = new CartoonJob("job-1", new CompletableFuture<>());
+        when(cartoonImageService.submitCartoonJob("https://example.com/u.jpeg")).thenReturn(job);
+
+        ResponseEntity<Map<String, Object>> response = controller.submitCartoonJob("https://example.com/u.jpeg");
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("/api/cartoon/jobs/job-1", response.getHeaders().getLocation().toString());
+        assertEquals("job-1", response.getBody().get("jobId"));
+        assertEquals("RUNNING", response.getBody().get("status"));
+        assertEquals("/api/cartoon/jobs/job-1/events", response.getBody().get("eventsUrl"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetCartoonJob_ReportsResultOrError() {
+        CompletableFuture<CartoonImageResult> result = new CompletableFuture<>();
+        when(cartoonImageService.getCartoonJob("job-1")).thenReturn(new CartoonJob("job-1", result));
+
+        assertEquals("RUNNING", controller.getCartoonJob("job-1").getBody().get("status"));
+
+        CartoonImageResult generated = new CartoonImageResult();
+        generated.setLocalUrl("http://localhost:8080/upload/cartoon.jpeg");
+        result.complete(generated);
+        Map<String, Object> succeeded = controller.getCartoonJob("job-1").getBody();
+        assertEquals("SUCCEEDED", succeeded.get("status"));
+        assertEquals("http://localhost:8080/upload/cartoon.jpeg",
+                ((Map<String, Object>) succeeded.get("data")).get("localUrl"));
+
+        when(cartoonImageService.getCartoonJob("job-2")).thenReturn(new CartoonJob("job-2",
+                CompletableFuture.failedFuture(new BailianApiException("轮询任务超时"))));
+        Map<String, Object> failed = controller.getCartoonJob("job-2").getBody();
+        assertEquals("FAILED", failed.get("status"));
+        assertEquals(false, failed.get("success"));
+        assertTrue(((String) failed.get("error")).contains("轮询任务超时"));
+    }
+
+    @Test
+    void testGetCartoonJob_UnknownJobReturnsNotFound() {
+        assertEquals(HttpStatus.NOT_FOUND, controller.getCartoonJob("missing").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.streamCartoonJob("missing").getStatusCode());
+    }
+}
@@ -5,22 +5,44 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import webcam.config.AdmissionControlInterceptor;
+import webcam.config.AdmissionProperties;
+import webcam.config.ThreadingProperties;
+import webcam.config.UploadProperties;
 import webcam.service.FaceRecognitionService;
 import webcam.service.ImageStorageService;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -30,11 +52,20 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @version 2.0.0
  */
 @WebMvcTest(WebcamController.class)
+@Import({UploadProperties.class, AdmissionProperties.class, AdmissionControlInterceptor.class,
+        ThreadingProperties.class})
+@TestPropertySource(properties = {
+        "webcam.admission.webcam.max-concurrent=1",
+        "webcam.admission.webcam.max-queue=0"
+})
 class WebcamControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private AdmissionControlInterceptor admissionControlInterceptor;
+
     @MockBean
     private ImageStorageService imageStorageService;
 
@@ -53,7 +84,6 @@ class WebcamControllerTest {
     @Test
     void testProcessImage_Success() throws Exception {
         // 准备测试数据
-        String base64Data = Base64.getEncoder().encodeToString(new byte[1000]);
         Path mockPath = Paths.get("test.jpeg");
 
         Map<String, Object> faceAttributes = new HashMap<>();
@@ -65,8 +95,7 @@ class WebcamControllerTest {
         faceAttributes.put("healthAnalysis", "基于人脸特征的健康分析内容");
 
         // 配置Mock行为
-        when(imageStorageService.extractBase64Data(anyString())).thenReturn(base64Data);
-        when(imageStorageService.saveBase64Image(anyString(), anyString())).thenReturn(mockPath);
+        when(imageStorageService.saveImageData(anyString(), anyString())).thenReturn(mockPath);
         when(imageStorageService.getImageUrl(anyString())).thenReturn("http://localhost:8080/upload/test.jpeg");
         when(faceRecognitionService.detectFaceAttributes(any(Path.class))).thenReturn(faceAttributes);
 
@@ -85,8 +114,7 @@ class WebcamControllerTest {
     @Test
     void testProcessImage_InvalidData() throws Exception {
         // 配置Mock抛出异常
-        when(imageStorageService.extractBase64Data(anyString())).thenReturn("invalid");
-        when(imageStorageService.saveBase64Image(anyString(), anyString()))
+        when(imageStorageService.saveImageData(anyString(), anyString()))
                 .thenThrow(new webcam.exception.ImageProcessingException("无效的Base64数据"));
 
         // 执行测试 - 应该返回400错误
@@ -96,4 +124,127 @@ class WebcamControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.result").value("0"));
     }
+
+    @Test
+    void testProcessImage_NoFaceDetected() throws Exception {
+        when(imageStorageService.saveImageData(anyString(), anyString())).thenReturn(Paths.get("test.jpeg"));
+        when(imageStorageService.getImageUrl(anyString())).thenReturn("http://localhost:8080/upload/test.jpeg");
+        when(faceRecognitionService.detectFaceAttributes(any(Path.class))).thenReturn(new HashMap<>());
+
+        mockMvc.perform(post("/webcam")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .param("image", validBase64Image))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result").value("0"))
+                .andExpect(jsonPath("$.errorCode").value("NO_FACE_DETECTED"));
+    }
+
+    @Test
+    void testProcessImage_BinaryStream() throws Exception {
+        Map<String, Object> faceAttributes = new HashMap<>();
+        faceAttributes.put("gender", "女性");
+
+        when(imageStorageService.saveImageStream(any(InputStream.class), anyString(), eq(false)))
+                .thenReturn(Paths.get("test.jpeg"));
+        when(imageStorageService.getImageUrl(anyString())).thenReturn("http://localhost:8080/upload/test.jpeg");
+        when(faceRecognitionService.detectFaceAttributes(any(Path.class))).thenReturn(faceAttributes);
+
+        mockMvc.perform(post("/webcam")
+                .contentType(MediaType.IMAGE_JPEG)
+                .content(new byte[1000]))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result").value("1"))
+                .andExpect(jsonPath("$.msg.gender").value("女性"));
+    }
+
+    @Test
+    void testProcessImage_MultipartBase64Part() throws Exception {
+        Map<String, Object> faceAttributes = new HashMap<>();
+        faceAttributes.put("gender", "男性");
+
+        when(imageStorageService.saveImageStream(any(InputStream.class), anyString(), eq(true)))
+                .thenReturn(Paths.get("test.jpeg"));
+        when(imageStorageService.getImageUrl(anyString())).thenReturn("http://localhost:8080/upload/test.jpeg");
+        when(faceRecognitionService.detectFaceAttributes(any(Path.class))).thenReturn(faceAttributes);
+
+        MockMultipartFile part = new MockMultipartFile("image", "frame.txt",
+                MediaType.TEXT_PLAIN_VALUE, validBase64Image.getBytes());
+
+        mockMvc.perform(multipart("/webcam").file(part))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.msg.gender").value("男性"));
+    }
+
+    @Test
+    void testAdmission_RejectsWith429WhenSaturated() throws Exception {
+        // 占用/webcam唯一的并发许可
+        MockHttpServletRequest inFlight = new MockHttpServletRequest("POST", "/webcam");
+        MockHttpServletResponse inFlightResponse = new MockHttpServletResponse();
+        admissionControlInterceptor.preHandle(inFlight, inFlightResponse, new Object());
+        try {
+            mockMvc.perform(post("/webcam")
+                            .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                            .param("image", validBase64Image))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "5"))
+                    .andExpect(jsonPath("$.errorCode").value("SERVICE_OVERLOADED"));
+        } finally {
+            admissionControlInterceptor.afterCompletion(inFlight, inFlightResponse, new Object(), null);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProcessImage_StreamingPushesFieldsBeforeResult() throws Exception {
+        when(imageStorageService.saveImageData(anyString(), anyString())).thenReturn(Paths.get("test.jpeg"));
+        when(imageStorageService.getImageUrl(anyString())).thenReturn("http://localhost:8080/upload/test.jpeg");
+        doAnswer(invocation -> {
+            BiConsumer<String, Object> listener = invocation.getArgument(1);
+            listener.accept("gender", "女性");
+            listener.accept("age", 28);
+            Map<String, Object> result = new HashMap<>();
+            result.put("gender", "女性");
+            result.put("age", 28);
+            result.put("praise", "你真棒！");
+            return result;
+        }).when(faceRecognitionService).streamFaceAttributes(any(Path.class), any(BiConsumer.class));
+
+        MvcResult mvcResult = mockMvc.perform(post("/webcam")
+                        .param("stream", "true")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                        .param("image", validBase64Image))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().exists("X-Request-Id"))
+                .andReturn();
+        // 等待事件流结束并释放准入许可
+        mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk());
+
+        String body = mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        int gender = body.indexOf("event:field\ndata:{\"name\":\"gender\"");
+        int result = body.indexOf("event:result");
+        assertTrue(body.startsWith("event:image"), body);
+        assertTrue(gender > 0 && result > gender, body);
+        assertTrue(body.contains("\"praise\":\"你真棒！\""), body);
+    }
+
+    @Test
+    void testGetNarrative_PendingThenReady() throws Exception {
+        CompletableFuture<Map<String, Object>> narrative = new CompletableFuture<>();
+        when(faceRecognitionService.findNarrative("n-1")).thenReturn(narrative);
+
+        mockMvc.perform(get("/webcam/narrative/n-1"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.errorCode").value("NARRATIVE_PENDING"));
+
+        narrative.complete(Map.of("healthAnalysis", "气色不错", "praise", "你真棒！"));
+        mockMvc.perform(get("/webcam/narrative/n-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result").value("1"))
+                .andExpect(jsonPath("$.msg.healthAnalysis").value("气色不错"));
+
+        mockMvc.perform(get("/webcam/narrative/unknown"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorCode").value("NARRATIVE_NOT_FOUND"));
+    }
 }
@@ -0,0 +1,177 @@
+package webcam.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import webcam.config.ApiKeyPoolProperties;
+import webcam.config.RateLimitProperties;
+import webcam.exception.BailianApiException;
+import webcam.exception.DependencyUnavailableException;
+import webcam.service.impl.RateLimitServiceImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ApiKeyPool单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class ApiKeyPoolTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    void testExecute_SendsConcurrentCallsToKeyWithHeadroom() {
+        ApiKeyPool pool = new ApiKeyPool("test", properties(Duration.ZERO,
+                key("sk-aaaa", 0, 2), key("sk-bbbb", 0, 2)), null, now::get);
+
+        String inner = pool.execute(outer -> {
+            assertEquals("sk-aaaa", outer);
+            // 第一个Key已占用一半，第二个请求交给空闲的Key
+            return pool.execute(apiKey -> apiKey);
+        });
+        assertEquals("sk-bbbb", inner);
+
+        // 都空闲时轮流使用
+        assertEquals("sk-aaaa", pool.execute(apiKey -> apiKey));
+    }
+
+    @Test
+    void testExecute_CoolsDownKeyAfterQuotaError() {
+        ApiKeyPool pool = new ApiKeyPool("test", properties(Duration.ZERO,
+                key("sk-aaaa", 0, 0), key("sk-bbbb", 0, 0)), null, now::get);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "5");
+        HttpClientErrorException throttled = HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS,
+                "Too Many Requests", headers, "{}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        // 包装后的429同样识别
+        assertThrows(BailianApiException.class, () -> pool.execute(apiKey -> {
+            throw new BailianApiException("调用失败", throttled);
+        }));
+
+        assertEquals("sk-bbbb", pool.execute(apiKey -> apiKey));
+        assertEquals("sk-bbbb", pool.execute(apiKey -> apiKey));
+        Map<String, Object> first = keyMetrics(pool).get(0);
+        assertEquals("****aaaa", first.get("key"));
+        assertEquals(1L, first.get("throttled"));
+        assertEquals(5000L, first.get("coolingDownMillis"));
+
+        now.addAndGet(5 * SECOND);
+        assertEquals("sk-aaaa", pool.execute(apiKey -> apiKey));
+
+        // 其他错误不触发冷却
+        assertThrows(IllegalStateException.class, () -> pool.execute(apiKey -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(0L, keyMetrics(pool).get(1).get("throttled"));
+    }
+
+    @Test
+    void testExecute_SingleKeyIsNotCooledDownAndRetrySucceeds() {
+        ApiKeyPool pool = new ApiKeyPool("test", new ApiKeyPoolProperties(), "sk-single", now::get);
+        RateLimitProperties rateLimitProperties = new RateLimitProperties();
+        rateLimitProperties.getRetry().setInitialBackoff(Duration.ofMillis(10));
+        RateLimitService rateLimitService = new RateLimitServiceImpl(rateLimitProperties);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // 没有Retry-After的429：唯一的Key不进入冷却，由RateLimitService退避后重试
+        String result = rateLimitService.execute(RateLimitService.Quota.FACE_ANALYSIS, () -> pool.execute(apiKey -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests",
+                        new HttpHeaders(), new byte[0], StandardCharsets.UTF_8);
+            }
+            return apiKey;
+        }));
+
+        assertEquals("sk-single", result);
+        assertEquals(2, attempts.get());
+        Map<String, Object> single = keyMetrics(pool).get(0);
+        assertEquals(1L, single.get("throttled"));
+        assertEquals(0L, single.get("coolingDownMillis"));
+        assertEquals(0L, pool.getMetrics().get("rejected"));
+    }
+
+    @Test
+    void testExecute_RejectsWhenRateLimitedAndReportsRetryAfter() {
+        ApiKeyPool pool = new ApiKeyPool("test", properties(Duration.ZERO, key("sk-aaaa", 0.5, 0)), null, now::get);
+
+        assertEquals("sk-aaaa", pool.execute(apiKey -> apiKey));
+        DependencyUnavailableException e = assertThrows(DependencyUnavailableException.class,
+                () -> pool.execute(apiKey -> apiKey));
+        assertEquals(2, e.getRetryAfterSeconds());
+        assertEquals(1L, pool.getMetrics().get("rejected"));
+
+        now.addAndGet(2 * SECOND);
+        assertEquals("sk-aaaa", pool.execute(apiKey -> apiKey));
+    }
+
+    @Test
+    void testExecute_WaitsForReleasedKey() throws Exception {
+        ApiKeyPool pool = new ApiKeyPool("test", properties(Duration.ofSeconds(5), key("sk-aaaa", 0, 1)), null);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> pool.execute(apiKey -> {
+            holding.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return apiKey;
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> pool.execute(apiKey -> apiKey));
+        Thread.sleep(100);
+        assertFalse(waiter.isDone());
+
+        release.countDown();
+        assertEquals("sk-aaaa", holder.get(5, TimeUnit.SECONDS));
+        assertEquals("sk-aaaa", waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1L, pool.getMetrics().get("waited"));
+    }
+
+    @Test
+    void testExecute_FallsBackToSingleKey() {
+        ApiKeyPool pool = new ApiKeyPool("test", new ApiKeyPoolProperties(), "sk-single");
+
+        assertEquals(1, pool.size());
+        assertEquals("sk-single", pool.execute(apiKey -> apiKey));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> keyMetrics(ApiKeyPool pool) {
+        return (List<Map<String, Object>>) pool.getMetrics().get("keys");
+    }
+
+    private static ApiKeyPoolProperties properties(Duration maxWait, ApiKeyPoolProperties.Key... keys) {
+        ApiKeyPoolProperties properties = new ApiKeyPoolProperties();
+        properties.setMaxWait(maxWait);
+        properties.setKeys(List.of(keys));
+        return properties;
+    }
+
+    private static ApiKeyPoolProperties.Key key(String apiKey, double ratePerSecond, int maxConcurrent) {
+        ApiKeyPoolProperties.Key key = new ApiKeyPoolProperties.Key();
+        key.setApiKey(apiKey);
+        key.setRatePerSecond(ratePerSecond);
+        key.setMaxConcurrent(maxConcurrent);
+        return key;
+    }
+}
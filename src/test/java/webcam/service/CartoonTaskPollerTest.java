@@ -0,0 +1,157 @@
+package webcam.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import webcam.dto.TaskOutput;
+import webcam.exception.BailianApiException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CartoonTaskPoller单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class CartoonTaskPollerTest {
+
+    private final ExecutorService queryExecutor = Executors.newCachedThreadPool();
+    private CartoonTaskPoller poller;
+
+    @AfterEach
+    void tearDown() {
+        if (poller != null) {
+            poller.shutdown();
+        }
+        queryExecutor.shutdownNow();
+    }
+
+    @Test
+    void testTrack_CompletesWhenTaskSucceeds() throws Exception {
+        AtomicInteger polls = new AtomicInteger();
+        poller = newPoller(Duration.ofSeconds(5), (taskId, apiKey) -> {
+            assertEquals("task-1", taskId);
+            assertEquals("sk-test", apiKey);
+            return polls.incrementAndGet() < 3 ? status("RUNNING") : succeeded("https://oss.example.com/a.png");
+        });
+
+        CompletableFuture<String> result = poller.track("task-1", "sk-test");
+
+        assertEquals("https://oss.example.com/a.png", result.get(5, TimeUnit.SECONDS));
+        assertEquals(3, polls.get());
+        Map<String, Object> metrics = poller.getMetrics();
+        assertEquals(1L, metrics.get("succeeded"));
+        assertEquals(0, metrics.get("outstanding"));
+    }
+
+    @Test
+    void testTrack_RetriesServerErrorsButFailsOnTaskFailureAndClientErrors() throws Exception {
+        AtomicInteger polls = new AtomicInteger();
+        poller = newPoller(Duration.ofSeconds(5), (taskId, apiKey) -> {
+            if ("missing".equals(taskId)) {
+                throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null);
+            }
+            if (polls.incrementAndGet() == 1) {
+                throw HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", null, null, null);
+            }
+            return new TaskOutput(taskId, "FAILED", null, "InvalidImage", "图片中没有人脸");
+        });
+
+        ExecutionException failed = assertThrows(ExecutionException.class,
+                () -> poller.track("task-2", "sk-test").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(BailianApiException.class, failed.getCause());
+        assertTrue(failed.getCause().getMessage().contains("图片中没有人脸"));
+        assertEquals(2, polls.get());
+
+        ExecutionException missing = assertThrows(ExecutionException.class,
+                () -> poller.track("missing", "sk-test").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(BailianApiException.class, missing.getCause());
+        assertEquals(1L, poller.getMetrics().get("pollErrors"));
+    }
+
+    @Test
+    void testTrack_TimesOutUnfinishedTask() {
+        poller = newPoller(Duration.ofMillis(100), (taskId, apiKey) -> status("RUNNING"));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> poller.track("task-3", "sk-test").get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause().getMessage().contains("超时"));
+        assertEquals(1L, poller.getMetrics().get("timedOut"));
+    }
+
+    @Test
+    void testNextDelay_FollowsObservedCompletionTimes() {
+        poller = new CartoonTaskPoller(1, Duration.ofSeconds(2), Duration.ofMillis(500), Duration.ofSeconds(10),
+                Duration.ofSeconds(60), (taskId, apiKey) -> status("RUNNING"), queryExecutor);
+
+        // 样本不足时按初始间隔
+        assertEquals(2000, poller.nextDelayMillis(0));
+
+        for (int i = 0; i < 10; i++) {
+            poller.recordCompletion(8000);
+        }
+        // 第一次查询安排在任务通常完成的时刻
+        assertEquals(8000, poller.nextDelayMillis(0));
+        assertEquals(1000, poller.nextDelayMillis(7000));
+        // 超过通常的完成时间后按已等待时间的1/4查询，不超过最长间隔
+        assertEquals(2000, poller.nextDelayMillis(8000));
+        assertEquals(10000, poller.nextDelayMillis(50000));
+    }
+
+    @Test
+    void testTrack_SlowQueryDoesNotDelayOtherTasks() throws Exception {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        // 只有一个调度线程：查询如果在调度线程上执行，慢查询会推迟所有任务的轮询
+        poller = new CartoonTaskPoller(1, Duration.ofMillis(10), Duration.ofMillis(1), Duration.ofMillis(50),
+                Duration.ofSeconds(5), (taskId, apiKey) -> {
+                    if (taskId.equals("slow")) {
+                        slowStarted.countDown();
+                        try {
+                            releaseSlow.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return succeeded("https://oss.example.com/slow.png");
+                    }
+                    return succeeded("https://oss.example.com/fast.png");
+                }, queryExecutor);
+
+        CompletableFuture<String> slow = poller.track("slow", "sk-test");
+        assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+
+        assertEquals("https://oss.example.com/fast.png", poller.track("fast", "sk-test").get(2, TimeUnit.SECONDS));
+        assertFalse(slow.isDone());
+
+        releaseSlow.countDown();
+        assertEquals("https://oss.example.com/slow.png", slow.get(5, TimeUnit.SECONDS));
+    }
+
+    private CartoonTaskPoller newPoller(Duration timeout, BiFunction<String, String, TaskOutput> client) {
+        return new CartoonTaskPoller(2, Duration.ofMillis(10), Duration.ofMillis(1), Duration.ofMillis(50),
+                timeout, client, queryExecutor);
+    }
+
+    private static TaskOutput status(String taskStatus) {
+        return new TaskOutput("task", taskStatus, null, null, null);
+    }
+
+    private static TaskOutput succeeded(String url) {
+        return new TaskOutput("task", "SUCCEEDED", List.of(new TaskOutput.Result(url)), null, null);
+    }
+}
@@ -0,0 +1,114 @@
+package webcam.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DashScopeRequestWriter单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class DashScopeRequestWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final DashScopeRequestWriter writer = new DashScopeRequestWriter(objectMapper.getFactory(),
+            MediaType.IMAGE_JPEG_VALUE, generator -> {
+                generator.writeStartObject();
+                generator.writeStringField("model", "qwen3-vl-plus");
+                generator.writeObjectFieldStart("input");
+                generator.writeStringField("image_url", DashScopeRequestWriter.IMAGE_PLACEHOLDER);
+                generator.writeStringField("text", "请以JSON格式返回：{\"gender\": \"男性或女性\"}");
+                generator.writeEndObject();
+                generator.writeNumberField("temperature", 0.7);
+                generator.writeEndObject();
+            });
+
+    @Test
+    void testWriteTo_ProducesSameJsonAsTreeSerialization() throws Exception {
+        for (int length = 0; length < 5; length++) {
+            byte[] image = new byte[1000 + length];
+            for (int i = 0; i < image.length; i++) {
+                image[i] = (byte) (i * 31);
+            }
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            writer.writeTo(output, image);
+
+            JsonNode json = objectMapper.readTree(output.toByteArray());
+            assertEquals("qwen3-vl-plus", json.get("model").asText());
+            assertEquals("data:image/jpeg;base64," + Base64.getEncoder().encodeToString(image),
+                    json.get("input").get("image_url").asText());
+            assertEquals("请以JSON格式返回：{\"gender\": \"男性或女性\"}", json.get("input").get("text").asText());
+            assertEquals(0.7, json.get("temperature").asDouble());
+            assertEquals(output.size(), writer.contentLength(List.of(image)));
+        }
+    }
+
+    @Test
+    void testRequestCallback_SetsHeadersAndWritesBody() throws Exception {
+        byte[] image = new byte[] {1, 2, 3, 4, 5};
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer test-key");
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://localhost/api"));
+
+        writer.requestCallback(headers, image).doWithRequest(request);
+
+        assertEquals("Bearer test-key", request.getHeaders().getFirst("Authorization"));
+        assertEquals(MediaType.APPLICATION_JSON, request.getHeaders().getContentType());
+        assertEquals(writer.contentLength(List.of(image)), request.getHeaders().getContentLength());
+        assertEquals(request.getHeaders().getContentLength(), request.getBodyAsBytes().length);
+    }
+
+    @Test
+    void testRequestCallback_FillsPlaceholdersInOrder() throws Exception {
+        DashScopeRequestWriter multi = new DashScopeRequestWriter(objectMapper.getFactory(),
+                MediaType.IMAGE_JPEG_VALUE, generator -> {
+                    generator.writeStartObject();
+                    generator.writeArrayFieldStart("images");
+                    for (int i = 0; i < 3; i++) {
+                        generator.writeString(DashScopeRequestWriter.IMAGE_PLACEHOLDER);
+                    }
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                });
+        List<byte[]> images = List.of(new byte[] {1}, new byte[] {2, 2}, new byte[] {3, 3, 3, 3});
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://localhost/api"));
+
+        multi.requestCallback(new HttpHeaders(), images).doWithRequest(request);
+
+        assertEquals(3, multi.imageCount());
+        JsonNode json = objectMapper.readTree(request.getBodyAsBytes());
+        for (int i = 0; i < images.size(); i++) {
+            assertEquals("data:image/jpeg;base64," + Base64.getEncoder().encodeToString(images.get(i)),
+                    json.get("images").get(i).asText());
+        }
+        assertEquals(multi.contentLength(images), request.getBodyAsBytes().length);
+        assertEquals(request.getHeaders().getContentLength(), request.getBodyAsBytes().length);
+        assertThrows(IllegalArgumentException.class, () -> multi.contentLength(images.subList(0, 2)));
+        assertThrows(IllegalArgumentException.class,
+                () -> multi.requestCallback(new HttpHeaders(), images.subList(0, 2)));
+    }
+
+    @Test
+    void testConstructor_RejectsTemplateWithoutPlaceholder() {
+        assertThrows(IllegalArgumentException.class, () -> new DashScopeRequestWriter(objectMapper.getFactory(),
+                MediaType.IMAGE_JPEG_VALUE, generator -> {
+                    generator.writeStartObject();
+                    generator.writeEndObject();
+                }));
+    }
+}
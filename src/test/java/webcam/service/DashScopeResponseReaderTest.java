@@ -0,0 +1,75 @@
+package webcam.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import webcam.dto.ChatCompletionResponse;
+import webcam.dto.TaskOutput;
+import webcam.dto.TaskSubmitResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DashScopeResponseReader单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class DashScopeResponseReaderTest {
+
+    private static final String CHAT_COMPLETION = "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\","
+            + "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"{\\\"gender\\\": \\\"女性\\\"}\","
+            + "\"tool_calls\":[{\"content\":\"ignored\"}]},\"finish_reason\":\"stop\"},"
+            + "{\"index\":1,\"message\":{\"content\":\"second\"}}],"
+            + "\"usage\":{\"prompt_tokens\":1200,\"completion_tokens\":180,\"total_tokens\":1380},"
+            + "\"model\":\"qwen3-vl-plus\"}";
+
+    private final DashScopeResponseReader reader = new DashScopeResponseReader(new ObjectMapper());
+
+    @Test
+    void testReadChatContent_MatchesFullBinding() throws Exception {
+        ChatCompletionResponse full = reader.readChatCompletion(CHAT_COMPLETION);
+        ChatCompletionResponse streamed = reader.readChatContent(
+                new ByteArrayInputStream(CHAT_COMPLETION.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("{\"gender\": \"女性\"}", full.firstMessageContent());
+        assertEquals(full.firstMessageContent(), streamed.firstMessageContent());
+        assertEquals(full.usage(), streamed.usage());
+        assertEquals(1380, streamed.usage().totalTokens());
+        assertNull(streamed.error());
+    }
+
+    @Test
+    void testReadChatContent_ErrorAndChunkPayloads() throws Exception {
+        ChatCompletionResponse error = reader.readChatContent(
+                "{\"error\":{\"code\":\"InvalidApiKey\",\"message\":\"Invalid API-key provided.\"}}");
+        assertEquals("Invalid API-key provided.", error.error().message());
+        assertNull(error.firstMessageContent());
+
+        ChatCompletionResponse chunk = reader.readChatCompletion(
+                "{\"choices\":[{\"delta\":{\"content\":\"{\\\"gen\"},\"finish_reason\":null,\"index\":0}]}");
+        assertEquals("{\"gen", chunk.firstDeltaContent());
+        assertNull(chunk.firstMessageContent());
+    }
+
+    @Test
+    void testReadTaskPayloads() throws Exception {
+        TaskSubmitResponse submit = reader.readTaskSubmit(
+                "{\"output\":{\"task_status\":\"PENDING\",\"task_id\":\"abc-123\"},\"request_id\":\"r1\"}");
+        assertNull(submit.code());
+        assertEquals("abc-123", submit.output().taskId());
+
+        TaskOutput succeeded = reader.readTaskStatus("{\"request_id\":\"r2\",\"output\":{\"task_id\":\"abc-123\","
+                + "\"task_status\":\"SUCCEEDED\",\"results\":[{\"url\":\"https://oss/cartoon.png\"}]}}").output();
+        assertTrue(succeeded.isSucceeded());
+        assertEquals("https://oss/cartoon.png", succeeded.firstResultUrl());
+
+        TaskOutput failed = reader.readTaskStatus(
+                "{\"output\":{\"task_status\":\"FAILED\",\"message\":\"bad image\"}}").output();
+        assertTrue(failed.isFailed());
+        assertEquals("bad image", failed.message());
+        assertNull(failed.firstResultUrl());
+    }
+}
@@ -0,0 +1,104 @@
+package webcam.service;
+
+import org.junit.jupiter.api.Test;
+import webcam.config.FacePreScreenProperties;
+import webcam.service.impl.FacePreScreenServiceImpl;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FacePreScreenService单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class FacePreScreenServiceTest {
+
+    @Test
+    void testScreen_RejectsHopelessFramesAndCountsSavedCalls() throws Exception {
+        FacePreScreenServiceImpl preScreen = new FacePreScreenServiceImpl(enabled());
+
+        FacePreScreenService.Verdict face = preScreen.screen(jpeg(frame(120, true)));
+        assertTrue(face.passed());
+        assertNull(face.reason());
+
+        FacePreScreenService.Verdict empty = preScreen.screen(jpeg(frame(120, false)));
+        assertFalse(empty.passed());
+        assertEquals("no-face", empty.reason());
+
+        assertEquals("too-dark", preScreen.screen(jpeg(frame(10, true))).reason());
+
+        Map<String, Object> metrics = preScreen.getMetrics();
+        assertEquals(3L, metrics.get("screened"));
+        assertEquals(1L, metrics.get("passed"));
+        assertEquals(2L, metrics.get("savedModelCalls"));
+        assertEquals(1L, metrics.get("rejectedNoFace"));
+        assertEquals(1L, metrics.get("rejectedTooDark"));
+    }
+
+    @Test
+    void testScreen_ConfidenceThresholdIsConfigurable() throws Exception {
+        byte[] image = jpeg(frame(120, true));
+        FacePreScreenProperties properties = enabled();
+        // 要求远高于画面实际清晰度时，判定为模糊
+        properties.setMinSharpness(1_000_000);
+
+        FacePreScreenService.Verdict verdict = new FacePreScreenServiceImpl(properties).screen(image);
+        assertFalse(verdict.passed());
+        assertEquals("blurry", verdict.reason());
+
+        properties.setMinConfidence(0);
+        assertTrue(new FacePreScreenServiceImpl(properties).screen(image).passed());
+    }
+
+    @Test
+    void testScreen_PassesWhenDisabledOrUndecodable() throws Exception {
+        FacePreScreenServiceImpl disabled = new FacePreScreenServiceImpl(new FacePreScreenProperties());
+        assertTrue(disabled.screen(jpeg(frame(10, false))).passed());
+
+        FacePreScreenServiceImpl preScreen = new FacePreScreenServiceImpl(enabled());
+        assertTrue(preScreen.screen(new byte[] {1, 2, 3}).passed());
+        assertEquals(1L, preScreen.getMetrics().get("decodeFailures"));
+    }
+
+    private static FacePreScreenProperties enabled() {
+        FacePreScreenProperties properties = new FacePreScreenProperties();
+        properties.setEnabled(true);
+        return properties;
+    }
+
+    /**
+     * 带噪声背景的画面，可选在中央画一张简化的人脸
+     */
+    private static BufferedImage frame(int background, boolean withFace) {
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int v = Math.max(0, Math.min(255, background + (int) (random.nextGaussian() * 25)));
+                image.setRGB(x, y, new Color(v, v, v).getRGB());
+            }
+        }
+        if (withFace) {
+            Graphics2D graphics = image.createGraphics();
+            graphics.setColor(new Color(224, 172, 140));
+            graphics.fillOval(240, 120, 160, 210);
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", output);
+        return output.toByteArray();
+    }
+}
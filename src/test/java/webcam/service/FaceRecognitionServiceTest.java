@@ -0,0 +1,380 @@
+package webcam.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+import webcam.config.BailianApiProperties;
+import webcam.config.FacePreScreenProperties;
+import webcam.config.FaceResultCacheProperties;
+import webcam.config.HedgingProperties;
+import webcam.config.RateLimitProperties;
+import webcam.config.ResilienceProperties;
+import webcam.config.ThreadingProperties;
+import webcam.dto.ModelUsage;
+import webcam.exception.BailianApiException;
+import webcam.service.impl.FacePreScreenServiceImpl;
+import webcam.service.impl.RateLimitServiceImpl;
+import webcam.service.impl.RequestHedgingServiceImpl;
+import webcam.service.impl.ResilienceServiceImpl;
+import webcam.service.impl.UsageAccountingServiceImpl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * FaceRecognitionServiceImpl模型输出解析测试
+ * 使用src/test/resources/model-output下收集的模型输出样本（代码块包裹、说明文字、截断、不规范语法等）
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class FaceRecognitionServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private FaceRecognitionServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new FaceRecognitionServiceImpl(new BailianApiProperties(), mock(RestTemplate.class), objectMapper,
+                mock(ImageStorageService.class), mock(ImageNormalizationService.class),
+                new FaceResultCacheProperties(), new ThreadingProperties(), noHedging(),
+                new ResilienceServiceImpl(new ResilienceProperties()),
+                new FacePreScreenServiceImpl(new FacePreScreenProperties()), new UsageAccountingServiceImpl(),
+                new RateLimitServiceImpl(new RateLimitProperties()));
+    }
+
+    @Test
+    void testParseApiResponse_CleanAndFencedOutput() throws Exception {
+        Map<String, Object> clean = parse("01-clean.txt");
+        assertEquals("女性", clean.get("gender"));
+        assertEquals(28, clean.get("age"));
+        assertEquals("是", clean.get("smile"));
+        assertEquals("双眼睁开，未戴眼镜", clean.get("eyestatus"));
+        assertEquals("精神饱满", clean.get("spirit"));
+        assertTrue(((String) clean.get("praise")).startsWith("你的笑容"));
+
+        // 说明文字中的"{仅供参考}"不应被当作JSON对象
+        Map<String, Object> fenced = parse("02-fenced-with-prose-braces.txt");
+        assertEquals("男性", fenced.get("gender"));
+        assertEquals(35, fenced.get("age"));
+        assertEquals("否", fenced.get("smile"));
+        assertEquals("略显疲惫", fenced.get("spirit"));
+        assertTrue(((String) fenced.get("praise")).startsWith("你沉稳的气质"));
+    }
+
+    @Test
+    void testParseApiResponse_RecoversTruncatedOutput() throws Exception {
+        Map<String, Object> result = parse("03-truncated.txt");
+
+        assertEquals("女性", result.get("gender"));
+        assertEquals(42, result.get("age"));
+        assertEquals("白皙", result.get("complexion"));
+        assertEquals("皮肤白皙，气色较好，眼周略有细纹，建议注意眼部保湿，并保证充足", result.get("healthAnalysis"));
+        assertEquals("你真棒！", result.get("praise"));
+    }
+
+    @Test
+    void testParseApiResponse_LenientSyntaxAndKeyVariants() throws Exception {
+        Map<String, Object> lenient = parse("04-lenient-syntax.txt");
+        assertEquals("女性", lenient.get("gender"));
+        assertEquals(30, lenient.get("age"));
+        assertEquals("是", lenient.get("smile"));
+        assertEquals("双眼睁开", lenient.get("eyestatus"));
+        assertEquals("红润", lenient.get("complexion"));
+        assertEquals("精神饱满", lenient.get("spirit"));
+        assertEquals("你的气质优雅大方，笑容甜美动人！", lenient.get("praise"));
+
+        Map<String, Object> variants = parse("05-key-variants.txt");
+        assertEquals("男性", variants.get("gender"));
+        assertEquals(24, variants.get("age"));
+        assertEquals("是", variants.get("smile"));
+        assertEquals("未戴眼镜", variants.get("eyestatus"));
+        assertEquals("状态很好。", variants.get("healthAnalysis"));
+        assertEquals("阳光帅气！", variants.get("praise"));
+        assertFalse(variants.containsKey("confidence"));
+        assertFalse(variants.containsKey("tags"));
+
+        Map<String, Object> singleQuotes = parse("08-single-quotes.txt");
+        assertEquals(22, singleQuotes.get("age"));
+        assertEquals("是", singleQuotes.get("smile"));
+        assertEquals("你真美！", singleQuotes.get("praise"));
+    }
+
+    @Test
+    void testParseApiResponse_ProseAndEscapes() throws Exception {
+        Map<String, Object> prose = parse("06-prose-only.txt");
+        assertEquals("男性", prose.get("gender"));
+        assertEquals(35, prose.get("age"));
+        assertEquals("是", prose.get("smile"));
+
+        Map<String, Object> escapes = parse("07-escapes-and-braces.txt");
+        assertEquals(19, escapes.get("age"));
+        assertEquals("状态良好 {无明显问题}，建议\"多喝水\"。\n保持运动。", escapes.get("healthAnalysis"));
+        assertEquals("青春洋溢，笑容灿烂❤", escapes.get("praise"));
+    }
+
+    @Test
+    void testParseApiResponse_EmptyObjectMeansNoFace() throws Exception {
+        // 与微批处理结果使用同一规则：空对象不从文本中提取属性，也不补充默认的健康分析和夸奖内容
+        assertTrue(parse("09-no-face.txt").isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDetectFaceAttributes_TwoPhaseReturnsAttributesBeforeNarrative() throws Exception {
+        BailianApiProperties properties = new BailianApiProperties();
+        properties.getTwoPhase().setEnabled(true);
+        FaceResultCacheProperties cacheProperties = new FaceResultCacheProperties();
+        cacheProperties.setEnabled(false);
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        ImageStorageService storage = mock(ImageStorageService.class);
+        ImageNormalizationService normalization = mock(ImageNormalizationService.class);
+        when(storage.readImageBytes(any())).thenReturn(new byte[16]);
+        when(normalization.normalize(any(), any())).thenReturn(new byte[16]);
+
+        CountDownLatch narrativeReleased = new CountDownLatch(1);
+        StringBuilder attributeRequest = new StringBuilder();
+        when(restTemplate.execute(anyString(), eq(HttpMethod.POST), any(RequestCallback.class),
+                any(ResponseExtractor.class))).thenAnswer(invocation -> {
+            MockClientHttpRequest request = new MockClientHttpRequest();
+            invocation.<RequestCallback>getArgument(2).doWithRequest(request);
+            String body = request.getBodyAsString();
+            String content;
+            int completionTokens;
+            if (body.contains("个性化夸奖内容")) {
+                assertTrue(narrativeReleased.await(5, TimeUnit.SECONDS));
+                content = "{\"healthAnalysis\": \"气色不错\", \"praise\": \"笑容很有感染力！\"}";
+                completionTokens = 120;
+            } else {
+                attributeRequest.append(body);
+                content = "{\"gender\": \"女性\", \"age\": 26, \"smile\": \"是\"}";
+                completionTokens = 30;
+            }
+            byte[] response = objectMapper.writeValueAsBytes(Map.of("choices",
+                    List.of(Map.of("message", Map.of("role", "assistant", "content", content))),
+                    "usage", Map.of("prompt_tokens", 900, "completion_tokens", completionTokens,
+                            "total_tokens", 900 + completionTokens)));
+            return invocation.<ResponseExtractor<Object>>getArgument(3)
+                    .extractData(new MockClientHttpResponse(response, HttpStatus.OK));
+        });
+
+        UsageAccountingServiceImpl usageAccounting = new UsageAccountingServiceImpl();
+        FaceRecognitionServiceImpl twoPhase = new FaceRecognitionServiceImpl(properties, restTemplate, objectMapper,
+                storage, normalization, cacheProperties, new ThreadingProperties(), noHedging(),
+                new ResilienceServiceImpl(new ResilienceProperties()),
+                new FacePreScreenServiceImpl(new FacePreScreenProperties()), usageAccounting,
+                new RateLimitServiceImpl(new RateLimitProperties()));
+        try {
+            RequestUsageScope.begin();
+            Map<String, Object> attributes;
+            try {
+                attributes = twoPhase.detectFaceAttributes(Paths.get("face.jpeg"));
+            } finally {
+                // 请求只计入属性调用的用量，健康分析的调用此时仍在进行
+                ModelUsage usage = RequestUsageScope.end();
+                assertNotNull(usage);
+                assertEquals(1, usage.calls());
+                assertEquals(900, usage.promptTokens());
+                assertEquals(30, usage.completionTokens());
+            }
+
+            assertEquals("女性", attributes.get("gender"));
+            assertEquals(26, attributes.get("age"));
+            assertFalse(attributes.containsKey("praise"));
+            assertFalse(attributes.containsKey("healthAnalysis"));
+            assertTrue(attributeRequest.indexOf("\"max_tokens\":300") > 0, attributeRequest.toString());
+
+            CompletableFuture<Map<String, Object>> narrative =
+                    twoPhase.findNarrative((String) attributes.get("narrativeId"));
+            assertNotNull(narrative);
+            assertFalse(narrative.isDone());
+
+            narrativeReleased.countDown();
+            Map<String, Object> fields = narrative.get(5, TimeUnit.SECONDS);
+            assertEquals("气色不错", fields.get("healthAnalysis"));
+            assertEquals("笑容很有感染力！", fields.get("praise"));
+
+            Map<String, Object> models = (Map<String, Object>) usageAccounting.getMetrics().get("models");
+            Map<String, Object> operations = (Map<String, Object>) models.get(properties.getModel());
+            assertEquals(1L, ((Map<String, Object>) operations.get("face-attributes")).get("calls"));
+            assertEquals(30L, ((Map<String, Object>) operations.get("face-attributes")).get("completionTokens"));
+            assertNull(twoPhase.findNarrative("unknown"));
+        } finally {
+            narrativeReleased.countDown();
+            twoPhase.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDetectFaceAttributes_RoutesAwayFromFailingTarget() {
+        BailianApiProperties properties = new BailianApiProperties();
+        properties.getRouting().setExplorationRatio(0);
+        for (String name : List.of("a", "b")) {
+            BailianApiProperties.Target target = new BailianApiProperties.Target();
+            target.setEndpoint("https://" + name + ".example.com/v1/chat/completions");
+            target.setModel("model-" + name);
+            properties.getTargets().add(target);
+        }
+        FaceResultCacheProperties cacheProperties = new FaceResultCacheProperties();
+        cacheProperties.setEnabled(false);
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        ImageStorageService storage = mock(ImageStorageService.class);
+        ImageNormalizationService normalization = mock(ImageNormalizationService.class);
+        when(storage.readImageBytes(any())).thenReturn(new byte[16]);
+        when(normalization.normalize(any(), any())).thenReturn(new byte[16]);
+
+        List<String> models = new ArrayList<>();
+        when(restTemplate.execute(anyString(), eq(HttpMethod.POST), any(RequestCallback.class),
+                any(ResponseExtractor.class))).thenAnswer(invocation -> {
+            MockClientHttpRequest request = new MockClientHttpRequest();
+            invocation.<RequestCallback>getArgument(2).doWithRequest(request);
+            models.add(objectMapper.readTree(request.getBodyAsBytes()).get("model").asText());
+            if (invocation.<String>getArgument(0).contains("a.example.com")) {
+                throw new ResourceAccessException("Read timed out");
+            }
+            byte[] response = objectMapper.writeValueAsBytes(Map.of("choices", List.of(Map.of("message",
+                    Map.of("role", "assistant", "content", "{\"gender\": \"男性\", \"age\": 30}")))));
+            return invocation.<ResponseExtractor<Object>>getArgument(3)
+                    .extractData(new MockClientHttpResponse(response, HttpStatus.OK));
+        });
+
+        FaceRecognitionServiceImpl routed = new FaceRecognitionServiceImpl(properties, restTemplate, objectMapper,
+                storage, normalization, cacheProperties, new ThreadingProperties(), noHedging(),
+                new ResilienceServiceImpl(new ResilienceProperties()),
+                new FacePreScreenServiceImpl(new FacePreScreenProperties()), new UsageAccountingServiceImpl(),
+                new RateLimitServiceImpl(new RateLimitProperties()));
+
+        assertThrows(BailianApiException.class,
+                () -> routed.detectFaceAttributes(Paths.get("face.jpeg")));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(30, routed.detectFaceAttributes(Paths.get("face.jpeg")).get("age"));
+        }
+
+        assertEquals(List.of("model-a", "model-b", "model-b", "model-b"), models);
+        List<Map<String, Object>> routing = (List<Map<String, Object>>) routed.getMetrics().get("routing");
+        assertEquals(1L, routing.get(0).get("failures"));
+        assertEquals(3L, routing.get(1).get("selected"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDetectFaceAttributes_RecordsUsageOfEachHedgedAttempt() {
+        BailianApiProperties properties = new BailianApiProperties();
+        FaceResultCacheProperties cacheProperties = new FaceResultCacheProperties();
+        cacheProperties.setEnabled(false);
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        ImageStorageService storage = mock(ImageStorageService.class);
+        ImageNormalizationService normalization = mock(ImageNormalizationService.class);
+        when(storage.readImageBytes(any())).thenReturn(new byte[16]);
+        when(normalization.normalize(any(), any())).thenReturn(new byte[16]);
+
+        // 前三次调用积累延迟样本；第四次是慢的主请求，被先返回的备份请求中止
+        AtomicInteger calls = new AtomicInteger();
+        when(restTemplate.execute(anyString(), eq(HttpMethod.POST), any(RequestCallback.class),
+                any(ResponseExtractor.class))).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() == 4) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    throw new ResourceAccessException("Socket closed");
+                }
+            }
+            byte[] response = objectMapper.writeValueAsBytes(Map.of("choices", List.of(Map.of("message",
+                    Map.of("role", "assistant", "content", "{\"gender\": \"男性\", \"age\": 30}"))),
+                    "usage", Map.of("prompt_tokens", 900, "completion_tokens", 20, "total_tokens", 920)));
+            return invocation.<ResponseExtractor<Object>>getArgument(3)
+                    .extractData(new MockClientHttpResponse(response, HttpStatus.OK));
+        });
+
+        HedgingProperties hedging = new HedgingProperties();
+        hedging.setEnabled(true);
+        hedging.setMinSamples(3);
+        hedging.setPercentile(50);
+        hedging.setMinDelay(Duration.ofMillis(20));
+        RequestHedgingServiceImpl hedgingService = new RequestHedgingServiceImpl(hedging, new ThreadingProperties());
+        UsageAccountingServiceImpl usageAccounting = new UsageAccountingServiceImpl();
+        FaceRecognitionServiceImpl hedged = new FaceRecognitionServiceImpl(properties, restTemplate, objectMapper,
+                storage, normalization, cacheProperties, new ThreadingProperties(), hedgingService,
+                new ResilienceServiceImpl(new ResilienceProperties()),
+                new FacePreScreenServiceImpl(new FacePreScreenProperties()), usageAccounting,
+                new RateLimitServiceImpl(new RateLimitProperties()));
+        try {
+            for (int i = 0; i < 4; i++) {
+                assertEquals(30, hedged.detectFaceAttributes(Paths.get("face.jpeg")).get("age"));
+            }
+
+            assertEquals(1L, hedgingService.getMetrics().get("hedgeWins"));
+            Map<String, Object> models = (Map<String, Object>) usageAccounting.getMetrics().get("models");
+            Map<String, Object> face = (Map<String, Object>) ((Map<String, Object>) models.get(properties.getModel()))
+                    .get("face");
+            // 胜出的备份请求按响应中的用量记录，被中止的主请求只记录已发送的图像和耗时，不计为失败
+            assertEquals(4L, face.get("calls"));
+            assertEquals(80L, face.get("completionTokens"));
+            assertEquals(1L, face.get("abandoned"));
+            assertEquals(0L, face.get("failures"));
+        } finally {
+            hedged.shutdown();
+            hedgingService.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetMetrics_CacheCountersNestedUnderFaceGroup() {
+        assertEquals("face", service.getMetricsName());
+        Map<String, Object> metrics = service.getMetrics();
+
+        Map<String, Object> cache = (Map<String, Object>) metrics.get("cache");
+        assertEquals(false, cache.get("enabled"));
+        assertEquals(0L, cache.get("hashFailures"));
+        assertTrue(metrics.containsKey("keyPools"));
+        assertFalse(metrics.containsKey("hashFailures"));
+    }
+
+    private static RequestHedgingService noHedging() {
+        return new RequestHedgingServiceImpl(new HedgingProperties(), new ThreadingProperties());
+    }
+
+    /**
+     * 将样本包装为chat.completion响应后解析
+     */
+    private Map<String, Object> parse(String sample) throws IOException {
+        Map<String, Object> response = Map.of("choices",
+                List.of(Map.of("message", Map.of("role", "assistant", "content", readSample(sample)))));
+        return service.parseApiResponse(objectMapper.writeValueAsString(response));
+    }
+
+    static String readSample(String sample) throws IOException {
+        try (InputStream input = FaceRecognitionServiceTest.class.getResourceAsStream("/model-output/" + sample)) {
+            assertNotNull(input, sample);
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
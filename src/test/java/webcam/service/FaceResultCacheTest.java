@@ -0,0 +1,108 @@
+package webcam.service;
+
+import org.junit.jupiter.api.Test;
+import webcam.config.FaceResultCacheProperties;
+import webcam.util.PerceptualHash;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FaceResultCache单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class FaceResultCacheTest {
+
+    @Test
+    void testGet_MatchesWithinHammingDistance() {
+        FaceResultCache cache = new FaceResultCache(16, 4, 60_000, 60_000);
+        Map<String, Object> result = new HashMap<>();
+        result.put("gender", "女性");
+        cache.put(0b1111L, result);
+
+        Map<String, Object> nearby = cache.get(0b1110L);
+        assertEquals("女性", nearby.get("gender"));
+        // 返回副本，调用方修改不影响缓存
+        nearby.put("img", "http://localhost/upload/a.jpeg");
+        assertFalse(cache.get(0b1111L).containsKey("img"));
+
+        assertNull(cache.get(0b1111L ^ 0xFF00L));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testPut_NegativeResultsAndExpiry() throws Exception {
+        FaceResultCache cache = new FaceResultCache(16, 0, 60_000, 1);
+        cache.put(42L, new HashMap<>());
+        Thread.sleep(5);
+
+        assertNull(cache.get(42L));
+        assertEquals(0, cache.size());
+
+        FaceResultCache negative = new FaceResultCache(16, 0, 60_000, 60_000);
+        negative.put(42L, new HashMap<>());
+        assertTrue(negative.get(42L).isEmpty());
+        assertEquals(1, negative.getNegativeHits());
+        assertEquals(1.0, negative.getHitRate());
+    }
+
+    @Test
+    void testPut_EvictsOldestBeyondCapacity() {
+        FaceResultCache cache = new FaceResultCache(2, 0, 60_000, 60_000);
+        cache.put(1L, Map.of("age", 1));
+        cache.put(2L, Map.of("age", 2));
+        cache.put(3L, Map.of("age", 3));
+
+        assertNull(cache.get(1L));
+        assertNotNull(cache.get(2L));
+        assertNotNull(cache.get(3L));
+    }
+
+    @Test
+    void testDefaults_DifferentGuestsOnSameBackgroundDoNotCollide() {
+        FaceResultCacheProperties properties = new FaceResultCacheProperties();
+        assertFalse(properties.isEnabled());
+        FaceResultCache cache = new FaceResultCache(properties.getMaxEntries(), properties.getMaxHammingDistance(),
+                properties.getTtl().toMillis(), properties.getNegativeTtl().toMillis());
+
+        long firstGuest = PerceptualHash.dHash(booth(new Color(30, 20, 10), new Color(230, 190, 160), 320, 160));
+        cache.put(firstGuest, Map.of("gender", "女性", "age", 25));
+
+        // 下一位访客站在同一背景前，指纹只差几位，不能拿到上一位访客的结果
+        long nextGuest = PerceptualHash.dHash(booth(new Color(160, 120, 60), new Color(190, 150, 120), 300, 150));
+        assertNull(cache.get(nextGuest));
+        // 同一位访客的重拍仍可命中
+        long retake = PerceptualHash.dHash(booth(new Color(30, 20, 10), new Color(230, 190, 160), 322, 160));
+        assertEquals("女性", cache.get(retake).get("gender"));
+    }
+
+    /**
+     * 模拟拍照点画面：固定的渐变背景和地面，前景为不同的人脸
+     */
+    private static BufferedImage booth(Color hair, Color skin, int centerX, int faceWidth) {
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(200, 200, 210), 640, 0, new Color(120, 130, 150)));
+        g.fillRect(0, 0, 640, 480);
+        g.setColor(new Color(60, 60, 70));
+        g.fillRect(0, 380, 640, 100);
+        g.setColor(hair);
+        g.fillOval(centerX - faceWidth / 2 - 10, 90, faceWidth + 20, faceWidth + 40);
+        g.setColor(skin);
+        g.fillOval(centerX - faceWidth / 2, 120, faceWidth, faceWidth * 13 / 10);
+        g.setColor(new Color(40, 40, 40));
+        g.fillOval(centerX - faceWidth / 4 - 8, 190, 16, 10);
+        g.fillOval(centerX + faceWidth / 4 - 8, 190, 16, 10);
+        g.dispose();
+        return image;
+    }
+}
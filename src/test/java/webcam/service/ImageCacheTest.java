@@ -0,0 +1,45 @@
+package webcam.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ImageCache单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class ImageCacheTest {
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsedOverBudget() {
+        ImageCache cache = new ImageCache(250, 200, true);
+        cache.put("a.jpeg", new byte[100]);
+        cache.put("b.jpeg", new byte[100]);
+        // 访问a后，b成为最久未使用
+        assertNotNull(cache.get("a.jpeg"));
+
+        cache.put("c.jpeg", new byte[100]);
+
+        assertNotNull(cache.get("a.jpeg"));
+        assertNull(cache.get("b.jpeg"));
+        assertNotNull(cache.get("c.jpeg"));
+        assertEquals(200, cache.getCurrentBytes());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void testPut_SkipsOversizedEntriesAndReturnsCopies() {
+        ImageCache cache = new ImageCache(1000, 10, false);
+        cache.put("big.jpeg", new byte[11]);
+        assertNull(cache.get("big.jpeg"));
+
+        cache.put("small.jpeg", new byte[] {1, 2, 3});
+        byte[] first = cache.get("small.jpeg");
+        first[0] = 9;
+        assertArrayEquals(new byte[] {1, 2, 3}, cache.get("small.jpeg"));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+}
@@ -0,0 +1,108 @@
+package webcam.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import webcam.config.ImageNormalizationProperties;
+import webcam.service.impl.ImageNormalizationServiceImpl;
+import webcam.util.ExifOrientation;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ImageNormalizationService单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class ImageNormalizationServiceTest {
+
+    private ImageNormalizationProperties properties;
+    private ImageNormalizationService normalizationService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ImageNormalizationProperties();
+        properties.setFace(new ImageNormalizationProperties.Profile(400, 0.8f));
+        properties.setCartoon(new ImageNormalizationProperties.Profile(1000, 0.9f));
+        normalizationService = new ImageNormalizationServiceImpl(properties);
+    }
+
+    @Test
+    void testNormalize_DownscalesToProfileLongEdge() throws Exception {
+        byte[] png = encode(new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_ARGB), "png");
+
+        BufferedImage face = decode(normalizationService.normalize(png, ImageNormalizationService.Target.FACE_ANALYSIS));
+        assertEquals(400, face.getWidth());
+        assertEquals(300, face.getHeight());
+
+        BufferedImage cartoon = decode(normalizationService.normalize(png, ImageNormalizationService.Target.CARTOON));
+        assertEquals(1000, cartoon.getWidth());
+        assertEquals(750, cartoon.getHeight());
+    }
+
+    @Test
+    void testNormalize_SmallJpegPassesThroughUnchanged() throws Exception {
+        byte[] jpeg = encode(new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB), "jpeg");
+
+        assertSame(jpeg, normalizationService.normalize(jpeg, ImageNormalizationService.Target.FACE_ANALYSIS));
+    }
+
+    @Test
+    void testNormalize_AppliesExifOrientation() throws Exception {
+        byte[] jpeg = withExifOrientation(encode(new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB), "jpeg"), 6);
+        assertEquals(6, ExifOrientation.read(jpeg));
+
+        byte[] normalized = normalizationService.normalize(jpeg, ImageNormalizationService.Target.FACE_ANALYSIS);
+
+        BufferedImage rotated = decode(normalized);
+        assertEquals(200, rotated.getWidth());
+        assertEquals(300, rotated.getHeight());
+        assertEquals(ExifOrientation.NORMAL, ExifOrientation.read(normalized));
+    }
+
+    @Test
+    void testNormalize_DisabledOrUndecodableReturnsOriginal() {
+        byte[] garbage = new byte[] {1, 2, 3, 4, 5};
+        assertSame(garbage, normalizationService.normalize(garbage, ImageNormalizationService.Target.CARTOON));
+
+        properties.setEnabled(false);
+        byte[] data = new byte[] {(byte) 0xFF, (byte) 0xD8, 0, 0};
+        assertSame(data, normalizationService.normalize(data, ImageNormalizationService.Target.CARTOON));
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, format, output);
+        return output.toByteArray();
+    }
+
+    private static BufferedImage decode(byte[] data) throws Exception {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+        assertNotNull(image);
+        return image;
+    }
+
+    /**
+     * 在SOI之后插入只含Orientation标签的EXIF APP1段（大端序）
+     */
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        byte[] app1 = new byte[] {
+                (byte) 0xFF, (byte) 0xE1, 0x00, 0x22,
+                'E', 'x', 'i', 'f', 0x00, 0x00,
+                'M', 'M', 0x00, 0x2A, 0x00, 0x00, 0x00, 0x08,
+                0x00, 0x01,
+                0x01, 0x12, 0x00, 0x03, 0x00, 0x00, 0x00, 0x01, 0x00, (byte) orientation, 0x00, 0x00,
+                0x00, 0x00, 0x00, 0x00
+        };
+        byte[] result = new byte[jpeg.length + app1.length];
+        System.arraycopy(jpeg, 0, result, 0, 2);
+        System.arraycopy(app1, 0, result, 2, app1.length);
+        System.arraycopy(jpeg, 2, result, 2 + app1.length, jpeg.length - 2);
+        return result;
+    }
+}
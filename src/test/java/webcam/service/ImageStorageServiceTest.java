@@ -7,7 +7,13 @@ import webcam.config.UploadProperties;
 import webcam.exception.FileStorageException;
 import webcam.exception.ImageProcessingException;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.Base64;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -113,4 +119,164 @@ class ImageStorageServiceTest {
         assertThrows(ImageProcessingException.class,
                 () -> imageStorageService.saveBase64Image(invalidBase64, fileName));
     }
+
+    @Test
+    void testSaveImageStream_Binary() throws Exception {
+        byte[] imageBytes = "binary image bytes".getBytes(StandardCharsets.UTF_8);
+
+        Path result = imageStorageService.saveImageStream(new ByteArrayInputStream(imageBytes), "stream.jpeg", false);
+
+        assertArrayEquals(imageBytes, Files.readAllBytes(result));
+        assertFalse(Files.exists(tempDir.resolve("stream.jpeg.part")));
+    }
+
+    @Test
+    void testSaveImageStream_Base64WithDataUriPrefix() throws Exception {
+        byte[] imageBytes = "Hello streaming World".getBytes(StandardCharsets.UTF_8);
+        String body = "data:image/jpeg;base64," + Base64.getMimeEncoder().encodeToString(imageBytes);
+
+        Path result = imageStorageService.saveImageStream(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.US_ASCII)), "stream.jpeg", true);
+
+        assertArrayEquals(imageBytes, Files.readAllBytes(result));
+    }
+
+    @Test
+    void testSaveImageStream_Base64WithIllegalCharactersIsRejected() throws Exception {
+        String body = Base64.getEncoder().encodeToString(new byte[300]);
+        String corrupted = body.substring(0, 100) + "*%" + body.substring(102);
+
+        assertThrows(ImageProcessingException.class, () -> imageStorageService.saveImageStream(
+                new ByteArrayInputStream(corrupted.getBytes(StandardCharsets.US_ASCII)), "bad.jpeg", true));
+        assertFalse(Files.exists(tempDir.resolve("bad.jpeg")));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testSaveImageStream_ExceedsLimit() {
+        uploadProperties.setMaxImageBytes(10);
+
+        assertThrows(ImageProcessingException.class,
+                () -> imageStorageService.saveImageStream(new ByteArrayInputStream(new byte[100]), "big.jpeg", false));
+        assertFalse(Files.exists(tempDir.resolve("big.jpeg")));
+    }
+
+    @Test
+    void testContentAddressed_DeduplicatesIdenticalContent() throws Exception {
+        uploadProperties.setContentAddressed(true);
+        String base64Data = Base64.getEncoder().encodeToString("same frame".getBytes(StandardCharsets.UTF_8));
+
+        Path first = imageStorageService.saveBase64Image(base64Data, "cartoon_first.jpeg");
+        Path second = imageStorageService.saveImageStream(
+                new ByteArrayInputStream("same frame".getBytes(StandardCharsets.UTF_8)), "cartoon_second.jpeg", false);
+
+        assertEquals(first, second);
+        assertTrue(first.getFileName().toString().matches("cartoon_[0-9a-f]{32}\\.jpeg"));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testContentAddressed_DuplicateKeepsOriginalModifiedTime() throws Exception {
+        uploadProperties.setContentAddressed(true);
+        byte[] frame = "repeated frame".getBytes(StandardCharsets.UTF_8);
+        Path first = imageStorageService.saveImageBytes(frame, "frame.jpeg");
+        FileTime stored = FileTime.fromMillis(System.currentTimeMillis() - 3_600_000L);
+        Files.setLastModifiedTime(first, stored);
+
+        Path second = imageStorageService.saveImageBytes(frame, "frame.jpeg");
+
+        assertEquals(first, second);
+        // 保留期限按第一次保存的时间计算，重复上传不能延长
+        assertEquals(stored, Files.getLastModifiedTime(second));
+    }
+
+    @Test
+    void testShardedLayout_SavesIntoShardAndMigratesFlatFiles() throws Exception {
+        Files.write(tempDir.resolve("legacy.jpeg"), new byte[] {1, 2, 3});
+        uploadProperties.setSharded(true);
+        uploadProperties.setMigrateOnStartup(false);
+        ImageStorageServiceImpl sharded = new ImageStorageServiceImpl(uploadProperties);
+
+        // 迁移前旧文件仍可按文件名找到
+        assertEquals(tempDir.resolve("legacy.jpeg"), sharded.resolveImagePath("legacy.jpeg"));
+
+        Path saved = sharded.saveBase64Image(Base64.getEncoder().encodeToString(new byte[] {9}), "new.jpeg");
+        assertEquals(tempDir.resolve(UploadLayout.shardOf("new.jpeg")).resolve("new.jpeg"), saved);
+        assertEquals(saved, sharded.resolveImagePath("new.jpeg"));
+
+        assertEquals(1, sharded.migrateToShardedLayout());
+        Path migrated = sharded.resolveImagePath("legacy.jpeg");
+        assertEquals(tempDir.resolve(UploadLayout.shardOf("legacy.jpeg")).resolve("legacy.jpeg"), migrated);
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(migrated));
+    }
+
+    @Test
+    void testWriteBehind_ReadableBeforeFlushAndFlushedOnShutdown() throws Exception {
+        uploadProperties.setWriteBehindEnabled(true);
+        ImageStorageServiceImpl writeBehind = new ImageStorageServiceImpl(uploadProperties);
+        byte[] imageBytes = "queued frame".getBytes(StandardCharsets.UTF_8);
+
+        Path saved = writeBehind.saveBase64Image(Base64.getEncoder().encodeToString(imageBytes), "queued.jpeg");
+
+        assertTrue(writeBehind.imageExists(saved));
+        assertArrayEquals(imageBytes, writeBehind.readImageBytes(saved));
+
+        writeBehind.shutdown();
+        assertArrayEquals(imageBytes, Files.readAllBytes(saved));
+    }
+
+    @Test
+    void testHotCache_ServesRecentUploadWithoutDisk() throws Exception {
+        byte[] imageBytes = "hot frame".getBytes(StandardCharsets.UTF_8);
+        Path saved = imageStorageService.saveBase64Image(Base64.getEncoder().encodeToString(imageBytes), "hot.jpeg");
+        Files.delete(saved);
+
+        assertArrayEquals(imageBytes, imageStorageService.readImageBytes(saved));
+
+        uploadProperties.setHotCacheEnabled(false);
+        ImageStorageService uncached = new ImageStorageServiceImpl(uploadProperties);
+        Path other = uncached.saveBase64Image(Base64.getEncoder().encodeToString(imageBytes), "cold.jpeg");
+        Files.delete(other);
+        assertThrows(FileStorageException.class, () -> uncached.readImageBytes(other));
+    }
+
+    @Test
+    void testHotCache_FilledByStreamedUploadAndHitsRecordAccess() throws Exception {
+        byte[] imageBytes = "streamed hot frame".getBytes(StandardCharsets.UTF_8);
+        Path saved = imageStorageService.saveImageStream(new ByteArrayInputStream(imageBytes), "streamed.jpeg", false);
+        FileTime longAgo = FileTime.fromMillis(System.currentTimeMillis() - 3_600_000L);
+        Files.getFileAttributeView(saved, BasicFileAttributeView.class).setTimes(longAgo, longAgo, null);
+
+        assertArrayEquals(imageBytes, imageStorageService.readImageBytes(saved));
+
+        BasicFileAttributes attributes = Files.readAttributes(saved, BasicFileAttributes.class);
+        assertTrue(attributes.lastAccessTime().compareTo(longAgo) > 0);
+        assertEquals(longAgo, attributes.lastModifiedTime());
+
+        // 命中缓存：删除磁盘文件后仍可读取；清除缓存后不可读取
+        Files.delete(saved);
+        assertArrayEquals(imageBytes, imageStorageService.readImageBytes(saved));
+        imageStorageService.evictCached(saved);
+        assertThrows(FileStorageException.class, () -> imageStorageService.readImageBytes(saved));
+    }
+
+    @Test
+    void testSaveImageBytesAndFile() throws Exception {
+        byte[] imageBytes = "raw frame".getBytes(StandardCharsets.UTF_8);
+
+        Path fromBytes = imageStorageService.saveImageBytes(imageBytes, "raw.jpeg");
+        assertArrayEquals(imageBytes, Files.readAllBytes(fromBytes));
+
+        Path source = Files.write(tempDir.resolve("download.tmp"), imageBytes);
+        Path fromFile = imageStorageService.saveImageFile(source, "copied.jpeg");
+        assertEquals(tempDir.resolve("copied.jpeg"), fromFile);
+        assertArrayEquals(imageBytes, Files.readAllBytes(fromFile));
+        assertTrue(Files.exists(source));
+
+        assertThrows(ImageProcessingException.class, () -> imageStorageService.saveImageBytes(new byte[0], "empty.jpeg"));
+    }
 }
@@ -0,0 +1,123 @@
+package webcam.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MicroBatcher单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class MicroBatcherTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch blockerStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseBlocker = new CountDownLatch(1);
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        releaseBlocker.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSubmit_RunsImmediatelyWhenIdle() {
+        MicroBatcher<String, String> batcher = newBatcher(4, Duration.ofSeconds(10), false);
+
+        long start = System.nanoTime();
+        assertEquals("single:a", batcher.submit("a"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+
+        assertTrue(batches.isEmpty());
+        assertEquals(1L, batcher.getMetrics().get("singleCalls"));
+    }
+
+    @Test
+    void testSubmit_BatchesRequestsArrivingWhileBusy() throws Exception {
+        MicroBatcher<String, String> batcher = newBatcher(3, Duration.ofSeconds(10), false);
+        Future<String> blocker = occupy(batcher);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (String input : List.of("a", "b", "c")) {
+            results.add(executor.submit(() -> batcher.submit(input)));
+        }
+
+        // 批次满3个后立即发出，不等待maxWait
+        for (Future<String> result : results) {
+            String output = result.get(5, TimeUnit.SECONDS);
+            assertTrue(output.startsWith("batch:"), output);
+        }
+        assertEquals(1, batches.size());
+        assertEquals(3, batches.get(0).size());
+        releaseBlocker.countDown();
+        assertEquals("single:blocker", blocker.get(5, TimeUnit.SECONDS));
+
+        Map<String, Object> metrics = batcher.getMetrics();
+        assertEquals(1L, metrics.get("batchCalls"));
+        assertEquals(3L, metrics.get("batchedItems"));
+    }
+
+    @Test
+    void testSubmit_MissingBatchEntryIsRetriedIndividually() throws Exception {
+        MicroBatcher<String, String> batcher = newBatcher(2, Duration.ofSeconds(10), true);
+        occupy(batcher);
+
+        Future<String> first = executor.submit(() -> batcher.submit("a"));
+        Future<String> second = executor.submit(() -> batcher.submit("b"));
+
+        List<String> outputs = List.of(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        // 批量结果丢掉了第二个条目
+        assertTrue(outputs.stream().anyMatch(output -> output.startsWith("batch:")), outputs.toString());
+        assertTrue(outputs.stream().anyMatch(output -> output.startsWith("single:")), outputs.toString());
+        assertEquals(1L, batcher.getMetrics().get("retriedItems"));
+    }
+
+    /**
+     * 提交一个阻塞的单独调用，使后续请求进入批次
+     */
+    private Future<String> occupy(MicroBatcher<String, String> batcher) throws Exception {
+        Future<String> blocker = executor.submit(() -> batcher.submit("blocker"));
+        assertTrue(blockerStarted.await(5, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    private MicroBatcher<String, String> newBatcher(int maxBatchSize, Duration maxWait, boolean dropLast) {
+        return new MicroBatcher<>(maxBatchSize, maxWait, input -> {
+            if (input.equals("blocker")) {
+                blockerStarted.countDown();
+                try {
+                    releaseBlocker.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "single:blocker";
+            }
+            return "single:" + input;
+        }, inputs -> {
+            batches.add(inputs);
+            List<String> outputs = new ArrayList<>();
+            for (String input : inputs) {
+                outputs.add("batch:" + input);
+            }
+            if (dropLast) {
+                outputs.set(outputs.size() - 1, null);
+            }
+            return outputs;
+        });
+    }
+}
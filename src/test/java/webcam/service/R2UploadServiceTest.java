@@ -5,11 +5,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 import webcam.config.R2Properties;
 import webcam.exception.FileStorageException;
 import webcam.service.impl.R2UploadServiceImpl;
 
+import java.io.ByteArrayInputStream;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -71,4 +76,34 @@ class R2UploadServiceTest {
             service.uploadFromBase64("base64data", "test-key", "image/jpeg");
         });
     }
+    
+    @Test
+    @DisplayName("Should upload raw bytes without base64 round trip")
+    void testUploadBytes() {
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().eTag("etag").build());
+        
+        R2UploadService.R2ObjectInfo info = r2UploadService.uploadBytes(new byte[] {1, 2, 3}, "cartoon/a.jpeg", "image/jpeg");
+        
+        assertEquals("cartoon/a.jpeg", info.getObjectKey());
+        assertEquals("test-bucket", info.getBucket());
+        assertEquals(3, info.getSize());
+        assertEquals("image/jpeg", info.getContentType());
+        verify(s3Client).putObject(argThat((PutObjectRequest request) ->
+                "cartoon/a.jpeg".equals(request.key()) && "image/jpeg".equals(request.contentType())),
+                any(RequestBody.class));
+    }
+    
+    @Test
+    @DisplayName("Should upload stream with declared content length")
+    void testUploadStream() {
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().eTag("etag").build());
+        
+        R2UploadService.R2ObjectInfo info = r2UploadService.uploadStream(
+                new ByteArrayInputStream(new byte[5]), 5, "cartoon/b.jpeg", null);
+        
+        assertEquals(5, info.getSize());
+        assertEquals("application/octet-stream", info.getContentType());
+    }
 }
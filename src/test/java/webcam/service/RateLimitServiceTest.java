@@ -0,0 +1,145 @@
+package webcam.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import webcam.config.RateLimitProperties;
+import webcam.exception.DependencyUnavailableException;
+import webcam.service.RateLimitService.Quota;
+import webcam.service.impl.RateLimitServiceImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RateLimitService单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class RateLimitServiceTest {
+
+    @Test
+    void testExecute_RetriesThrottledCallAfterRetryAfter() {
+        RateLimitServiceImpl rateLimit = new RateLimitServiceImpl(properties());
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = rateLimit.execute(Quota.FACE_ANALYSIS, () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw error(HttpStatus.TOO_MANY_REQUESTS, "0");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+        Map<String, Object> face = quotaMetrics(rateLimit, "face_analysis");
+        assertEquals(1L, face.get("throttled"));
+        assertEquals(1L, face.get("retries"));
+    }
+
+    @Test
+    void testExecute_RetriesServerErrorsUpToMaxAttemptsButNotClientErrors() {
+        RateLimitServiceImpl rateLimit = new RateLimitServiceImpl(properties());
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpServerErrorException.class, () -> rateLimit.execute(Quota.CARTOON, () -> {
+            calls.incrementAndGet();
+            throw error(HttpStatus.SERVICE_UNAVAILABLE, null);
+        }));
+        assertEquals(3, calls.get());
+        assertEquals(1L, quotaMetrics(rateLimit, "cartoon").get("exhausted"));
+
+        calls.set(0);
+        assertThrows(HttpClientErrorException.class, () -> rateLimit.execute(Quota.CARTOON, () -> {
+            calls.incrementAndGet();
+            throw error(HttpStatus.BAD_REQUEST, null);
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testExecute_LongRetryAfterFailsFastWithRetryAfter() {
+        RateLimitServiceImpl rateLimit = new RateLimitServiceImpl(properties());
+        AtomicInteger calls = new AtomicInteger();
+
+        DependencyUnavailableException e = assertThrows(DependencyUnavailableException.class,
+                () -> rateLimit.execute(Quota.FACE_ANALYSIS, () -> {
+                    calls.incrementAndGet();
+                    throw error(HttpStatus.TOO_MANY_REQUESTS, "60");
+                }));
+        assertEquals(1, calls.get());
+        assertEquals("dashscope", e.getDependency());
+        assertEquals(60, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void testExecute_QueuesCallersInsteadOfFailing() {
+        RateLimitProperties properties = properties();
+        // 每秒10个请求，不允许突发
+        properties.getQuotas().getFace().setRequestsPerMinute(600);
+        properties.getQuotas().getFace().setBurst(1);
+        properties.setMaxWait(Duration.ofMillis(250));
+        RateLimitServiceImpl rateLimit = new RateLimitServiceImpl(properties);
+
+        AtomicInteger calls = new AtomicInteger();
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            rateLimit.execute(Quota.FACE_ANALYSIS, calls::incrementAndGet);
+        }
+        assertEquals(3, calls.get());
+        assertTrue(System.nanoTime() - start >= 150_000_000L);
+        Map<String, Object> face = quotaMetrics(rateLimit, "face_analysis");
+        assertEquals(2L, face.get("queued"));
+        assertEquals(0L, face.get("rejected"));
+        // 其他配额不受影响
+        assertEquals("ok", rateLimit.execute(Quota.CARTOON, () -> "ok"));
+    }
+
+    @Test
+    void testExecute_RejectsWhenQueueWouldExceedMaxWait() {
+        RateLimitProperties properties = properties();
+        properties.getQuotas().getCartoon().setRequestsPerMinute(6);
+        properties.getQuotas().getCartoon().setBurst(1);
+        properties.setMaxWait(Duration.ZERO);
+        RateLimitServiceImpl rateLimit = new RateLimitServiceImpl(properties);
+
+        assertEquals("ok", rateLimit.execute(Quota.CARTOON, () -> "ok"));
+        AtomicInteger calls = new AtomicInteger();
+        DependencyUnavailableException e = assertThrows(DependencyUnavailableException.class,
+                () -> rateLimit.execute(Quota.CARTOON, calls::incrementAndGet));
+        assertEquals(0, calls.get());
+        assertEquals(10, e.getRetryAfterSeconds());
+        assertEquals(1L, quotaMetrics(rateLimit, "cartoon").get("rejected"));
+    }
+
+    private static RateLimitProperties properties() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(10));
+        properties.getRetry().setMaxBackoff(Duration.ofMillis(20));
+        return properties;
+    }
+
+    private static HttpStatusCodeException error(HttpStatus status, String retryAfter) {
+        HttpHeaders headers = new HttpHeaders();
+        if (retryAfter != null) {
+            headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+        }
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        return status.is5xxServerError()
+                ? HttpServerErrorException.create(status, status.getReasonPhrase(), headers, body, StandardCharsets.UTF_8)
+                : HttpClientErrorException.create(status, status.getReasonPhrase(), headers, body, StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> quotaMetrics(RateLimitServiceImpl rateLimit, String quota) {
+        return (Map<String, Object>) rateLimit.getMetrics().get(quota);
+    }
+}
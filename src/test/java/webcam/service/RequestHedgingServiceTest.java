@@ -0,0 +1,242 @@
+package webcam.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+import webcam.config.AbortableRequestFactory;
+import webcam.config.HedgingProperties;
+import webcam.config.ThreadingProperties;
+import webcam.service.impl.RequestHedgingServiceImpl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RequestHedgingService单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class RequestHedgingServiceTest {
+
+    private RequestHedgingServiceImpl hedgingService;
+
+    @AfterEach
+    void tearDown() {
+        if (hedgingService != null) {
+            hedgingService.shutdown();
+        }
+    }
+
+    @Test
+    void testExecute_BackupWinsWhenPrimaryIsSlowUntilBudgetRunsOut() {
+        hedgingService = newService(1);
+        warmUp();
+
+        AtomicInteger attempts = new AtomicInteger();
+        String result = hedgingService.execute("face",
+                () -> attempts.incrementAndGet() == 1 ? sleep(2000, "slow") : "fast");
+
+        assertEquals("fast", result);
+        assertEquals(2, attempts.get());
+        Map<String, Object> metrics = hedgingService.getMetrics();
+        assertEquals(1L, metrics.get("hedgesFired"));
+        assertEquals(1L, metrics.get("hedgeWins"));
+
+        // 本分钟的对冲预算已用完，慢请求只执行一次
+        AtomicInteger unhedged = new AtomicInteger();
+        assertEquals("slow", hedgingService.execute("face", () -> {
+            unhedged.incrementAndGet();
+            return sleep(100, "slow");
+        }));
+        assertEquals(1, unhedged.get());
+        assertEquals(1L, hedgingService.getMetrics().get("budgetExhausted"));
+    }
+
+    @Test
+    void testExecute_FallsBackToOtherAttemptWhenOneFails() {
+        hedgingService = newService(10);
+        warmUp();
+
+        AtomicInteger attempts = new AtomicInteger();
+        String result = hedgingService.execute("face", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(100, null);
+                throw new IllegalStateException("primary failed");
+            }
+            return sleep(300, "backup");
+        });
+
+        assertEquals("backup", result);
+        assertEquals(1L, hedgingService.getMetrics().get("hedgeWins"));
+
+        // 未发出备份请求时直接抛出原异常
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+                () -> hedgingService.execute("face", () -> {
+                    throw new IllegalStateException("fast failure");
+                }));
+        assertEquals("fast failure", failure.getMessage());
+    }
+
+    @Test
+    void testExecute_LosingResultIsHandedToDiscardInsteadOfInterrupted() throws Exception {
+        hedgingService = newService(10);
+        warmUp();
+
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> discarded = new CompletableFuture<>();
+        String result = hedgingService.execute("face",
+                () -> attempts.incrementAndGet() == 1 ? sleep(300, "task-slow") : "task-fast",
+                discarded::complete);
+
+        assertEquals("task-fast", result);
+        // 落后的请求不被中断，返回后其结果交给discard撤销
+        assertEquals("task-slow", discarded.get(5, TimeUnit.SECONDS));
+        assertEquals(1L, hedgingService.getMetrics().get("discarded"));
+    }
+
+    @Test
+    void testExecute_PrimaryRunsOnCallerThread() {
+        hedgingService = newService(10);
+        warmUp();
+        Thread caller = Thread.currentThread();
+
+        assertSame(caller, hedgingService.execute("face", Thread::currentThread));
+    }
+
+    @Test
+    void testExecute_AbortsLosingRequestConnection() throws Exception {
+        hedgingService = newService(10);
+        warmUp();
+
+        try (ServerSocket server = new ServerSocket(0)) {
+            // 读取请求后不响应，直到客户端断开连接
+            CountDownLatch received = new CountDownLatch(1);
+            CompletableFuture<Void> disconnected = CompletableFuture.runAsync(() -> {
+                try (Socket socket = server.accept()) {
+                    InputStream input = socket.getInputStream();
+                    byte[] buffer = new byte[1024];
+                    while (input.read(buffer) != -1) {
+                        received.countDown();
+                    }
+                } catch (IOException e) {
+                    // 连接被重置同样说明客户端已断开
+                }
+            });
+            AbortableRequestFactory factory = new AbortableRequestFactory();
+            factory.setReadTimeout(10_000);
+            RestTemplate restTemplate = new RestTemplate(factory);
+            String url = "http://localhost:" + server.getLocalPort() + "/";
+
+            AtomicInteger attempts = new AtomicInteger();
+            long start = System.nanoTime();
+            String result = hedgingService.execute("face", () -> {
+                if (attempts.incrementAndGet() == 1) {
+                    return restTemplate.getForObject(url, String.class);
+                }
+                // 主请求已在等待响应时备份请求才返回
+                await(received);
+                return "fast";
+            });
+
+            assertEquals("fast", result);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+            // 落后的主请求的连接被断开，而不是等到读取超时
+            disconnected.get(5, TimeUnit.SECONDS);
+            assertEquals(1L, hedgingService.getMetrics().get("aborted"));
+            assertFalse(Thread.currentThread().isInterrupted());
+        }
+    }
+
+    @Test
+    void testExecute_SkipsHedgeWhenBackupsAreSaturated() throws Exception {
+        HedgingProperties properties = properties(10);
+        properties.setMaxInFlight(1);
+        hedgingService = new RequestHedgingServiceImpl(properties, new ThreadingProperties());
+        warmUp();
+
+        // 第一个调用的备份请求占用唯一的空位
+        CountDownLatch backupStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger holderAttempts = new AtomicInteger();
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> hedgingService.execute("face", () -> {
+            if (holderAttempts.incrementAndGet() == 2) {
+                backupStarted.countDown();
+            }
+            await(release);
+            return "held";
+        }));
+        assertTrue(backupStarted.await(5, TimeUnit.SECONDS));
+
+        AtomicInteger attempts = new AtomicInteger();
+        assertEquals("slow", hedgingService.execute("face", () -> {
+            attempts.incrementAndGet();
+            return sleep(200, "slow");
+        }));
+        assertEquals(1, attempts.get());
+        assertEquals(1L, hedgingService.getMetrics().get("saturated"));
+        assertEquals(1L, hedgingService.getMetrics().get("hedgesFired"));
+
+        release.countDown();
+        assertEquals("held", holder.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testExecute_DisabledRunsOnCallerThread() {
+        hedgingService = new RequestHedgingServiceImpl(new HedgingProperties(), new ThreadingProperties());
+        Thread caller = Thread.currentThread();
+
+        assertSame(caller, hedgingService.execute("face", Thread::currentThread));
+        assertEquals(false, hedgingService.getMetrics().get("enabled"));
+    }
+
+    private RequestHedgingServiceImpl newService(int maxHedgesPerMinute) {
+        return new RequestHedgingServiceImpl(properties(maxHedgesPerMinute), new ThreadingProperties());
+    }
+
+    private static HedgingProperties properties(int maxHedgesPerMinute) {
+        HedgingProperties properties = new HedgingProperties();
+        properties.setEnabled(true);
+        properties.setMinSamples(3);
+        properties.setPercentile(50);
+        properties.setMinDelay(Duration.ofMillis(20));
+        properties.setMaxHedgesPerMinute(maxHedgesPerMinute);
+        return properties;
+    }
+
+    /**
+     * 积累足够的快速样本，使对冲延迟为最小值
+     */
+    private void warmUp() {
+        for (int i = 0; i < 3; i++) {
+            hedgingService.execute("face", () -> "warm");
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String sleep(long millis, String result) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+}
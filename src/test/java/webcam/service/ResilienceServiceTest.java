@@ -0,0 +1,162 @@
+package webcam.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import webcam.config.RateLimitProperties;
+import webcam.config.ResilienceProperties;
+import webcam.exception.BailianApiException;
+import webcam.exception.ClientDisconnectedException;
+import webcam.exception.DependencyUnavailableException;
+import webcam.service.ResilienceService.Compartment;
+import webcam.service.impl.RateLimitServiceImpl;
+import webcam.service.impl.ResilienceServiceImpl;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ResilienceService单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class ResilienceServiceTest {
+
+    @Test
+    void testExecute_OpenCircuitFailsFastOnlyForThatDependency() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.getBreakers().getDashscope().setFailureThreshold(2);
+        ResilienceServiceImpl resilience = new ResilienceServiceImpl(properties);
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(BailianApiException.class, () -> resilience.execute(Compartment.FACE_ANALYSIS, () -> {
+                throw new BailianApiException("调用百炼API失败", new ResourceAccessException("Read timed out"));
+            }));
+        }
+
+        // 同一依赖的其他调用类别也不再发出请求
+        AtomicInteger calls = new AtomicInteger();
+        DependencyUnavailableException e = assertThrows(DependencyUnavailableException.class,
+                () -> resilience.execute(Compartment.CARTOON, calls::incrementAndGet));
+        assertEquals(0, calls.get());
+        assertEquals("dashscope", e.getDependency());
+        assertEquals(30, e.getRetryAfterSeconds());
+        assertFalse(resilience.isAvailable(Compartment.FACE_ANALYSIS));
+
+        // 其他依赖不受影响
+        assertTrue(resilience.isAvailable(Compartment.R2_UPLOAD));
+        assertEquals("ok", resilience.execute(Compartment.R2_UPLOAD, () -> "ok"));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> dashscope = (Map<String, Object>) ((Map<String, Object>) resilience.getMetrics()
+                .get("breakers")).get("dashscope");
+        assertEquals("OPEN", dashscope.get("state"));
+        assertEquals(1L, dashscope.get("rejected"));
+    }
+
+    @Test
+    void testExecute_OnlyServerIoAndTimeoutErrorsCountAsFailures() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.getBreakers().getDashscope().setFailureThreshold(2);
+        ResilienceServiceImpl resilience = new ResilienceServiceImpl(properties);
+
+        // 请求参数错误和客户端断开不是依赖故障，多少次都不断开
+        for (int i = 0; i < 5; i++) {
+            assertThrows(HttpClientErrorException.class, () -> resilience.execute(Compartment.FACE_ANALYSIS, () -> {
+                throw HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null);
+            }));
+            assertThrows(ClientDisconnectedException.class, () -> resilience.execute(Compartment.FACE_ANALYSIS,
+                    () -> {
+                        throw new ClientDisconnectedException("Client disconnected", new IOException("Broken pipe"));
+                    }));
+        }
+        assertTrue(resilience.isAvailable(Compartment.FACE_ANALYSIS));
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(HttpServerErrorException.class, () -> resilience.execute(Compartment.FACE_ANALYSIS, () -> {
+                throw HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", null, null, null);
+            }));
+        }
+        assertFalse(resilience.isAvailable(Compartment.FACE_ANALYSIS));
+    }
+
+    @Test
+    void testExecute_ThrottledRetriesDoNotOpenCircuit() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.getBreakers().getDashscope().setFailureThreshold(2);
+        ResilienceServiceImpl resilience = new ResilienceServiceImpl(properties);
+        RateLimitProperties rateLimitProperties = new RateLimitProperties();
+        rateLimitProperties.getRetry().setInitialBackoff(Duration.ofMillis(1));
+        RateLimitService rateLimitService = new RateLimitServiceImpl(rateLimitProperties);
+        AtomicInteger calls = new AtomicInteger();
+
+        // 与百炼API调用相同的嵌套顺序：限速（重试）在外，熔断器在内，每次被限流的尝试都经过熔断器
+        for (int i = 0; i < 3; i++) {
+            assertThrows(DependencyUnavailableException.class,
+                    () -> rateLimitService.execute(RateLimitService.Quota.FACE_ANALYSIS,
+                            () -> resilience.execute(Compartment.FACE_ANALYSIS, () -> {
+                                calls.incrementAndGet();
+                                throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS,
+                                        "Too Many Requests", null, null, null);
+                            })));
+        }
+
+        assertEquals(9, calls.get());
+        assertTrue(resilience.isAvailable(Compartment.FACE_ANALYSIS));
+        assertTrue(resilience.isAvailable(Compartment.CARTOON));
+    }
+
+    @Test
+    void testExecute_FullBulkheadRejectsWithoutCountingFailure() throws Exception {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.getBulkheads().setDownload(new ResilienceProperties.Bulkhead(1, 0, Duration.ZERO));
+        ResilienceServiceImpl resilience = new ResilienceServiceImpl(properties);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> resilience.execute(Compartment.RESULT_DOWNLOAD, () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        holder.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        try {
+            assertThrows(DependencyUnavailableException.class,
+                    () -> resilience.execute(Compartment.RESULT_DOWNLOAD, () -> "second"));
+            // 舱壁拒绝不计入熔断器
+            assertTrue(resilience.isAvailable(Compartment.RESULT_DOWNLOAD));
+        } finally {
+            release.countDown();
+            holder.join(5000);
+        }
+        assertEquals("third", resilience.execute(Compartment.RESULT_DOWNLOAD, () -> "third"));
+    }
+
+    @Test
+    void testExecute_DisabledPassesThrough() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.setEnabled(false);
+        properties.getBreakers().getDashscope().setFailureThreshold(1);
+        ResilienceServiceImpl resilience = new ResilienceServiceImpl(properties);
+
+        assertThrows(BailianApiException.class, () -> resilience.execute(Compartment.FACE_ANALYSIS, () -> {
+            throw new BailianApiException("timeout");
+        }));
+        assertEquals("ok", resilience.execute(Compartment.FACE_ANALYSIS, () -> "ok"));
+    }
+}
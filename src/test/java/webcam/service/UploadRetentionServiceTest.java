@@ -0,0 +1,117 @@
+package webcam.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import webcam.config.RetentionProperties;
+import webcam.config.UploadProperties;
+import webcam.exception.FileStorageException;
+import webcam.service.impl.UploadRetentionServiceImpl;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UploadRetentionService单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class UploadRetentionServiceTest {
+
+    private RetentionProperties retentionProperties;
+    private UploadRetentionServiceImpl retentionService;
+    private ImageStorageService imageStorageService;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        UploadProperties uploadProperties = new UploadProperties();
+        uploadProperties.setPath(tempDir.toString());
+
+        retentionProperties = new RetentionProperties();
+        retentionProperties.setBatchSize(2);
+        retentionProperties.setBatchPause(Duration.ZERO);
+
+        imageStorageService = new ImageStorageServiceImpl(uploadProperties);
+        retentionService = new UploadRetentionServiceImpl(uploadProperties, retentionProperties, imageStorageService);
+    }
+
+    @Test
+    void testSweep_RemovesExpiredFilesInSubdirectories() throws Exception {
+        retentionProperties.setMaxAge(Duration.ofHours(1));
+        Path expired = writeFile("ab/cd/face_old.jpeg", 100, hoursAgo(2));
+        Path fresh = writeFile("face_new.jpeg", 100, hoursAgo(0));
+        Path qrCode = writeFile("qr_old.png", 50, hoursAgo(5));
+
+        // 批大小为2，需要多批才能完成一轮
+        assertFalse(retentionService.sweepStep());
+        retentionService.sweepPass();
+
+        assertFalse(Files.exists(expired));
+        assertFalse(Files.exists(qrCode));
+        assertTrue(Files.exists(fresh));
+
+        Map<String, Object> metrics = retentionService.getMetrics();
+        assertEquals(150L, metrics.get("reclaimedBytes"));
+        assertEquals(2L, metrics.get("expiredFiles"));
+        assertEquals(100L, metrics.get("lastPassBytes"));
+    }
+
+    @Test
+    void testSweep_RemovedFilesAreNoLongerServedFromHotCache() throws Exception {
+        retentionProperties.setMaxAge(Duration.ofHours(1));
+        Path saved = imageStorageService.saveImageBytes(new byte[] {1, 2, 3}, "face_guest.jpeg");
+        assertArrayEquals(new byte[] {1, 2, 3}, imageStorageService.readImageBytes(saved));
+        Files.setLastModifiedTime(saved, hoursAgo(2));
+
+        retentionService.sweepPass();
+
+        assertFalse(Files.exists(saved));
+        assertThrows(FileStorageException.class, () -> imageStorageService.readImageBytes(saved));
+    }
+
+    @Test
+    void testSweep_EvictsLeastRecentlyAccessedWhenOverQuota() throws Exception {
+        retentionProperties.setMaxAge(Duration.ZERO);
+        retentionProperties.setMaxTotalBytes(250);
+        Path oldest = writeFile("a.jpeg", 100, hoursAgo(3));
+        Path middle = writeFile("b.jpeg", 100, hoursAgo(3));
+        Path newest = writeFile("c.jpeg", 100, hoursAgo(3));
+        setAccessTime(oldest, hoursAgo(3));
+        setAccessTime(middle, hoursAgo(2));
+        setAccessTime(newest, hoursAgo(1));
+
+        retentionService.sweepPass();
+
+        assertFalse(Files.exists(oldest));
+        assertTrue(Files.exists(middle));
+        assertTrue(Files.exists(newest));
+        assertEquals(1L, retentionService.getMetrics().get("evictedFiles"));
+        assertEquals(200L, retentionService.getMetrics().get("lastPassBytes"));
+    }
+
+    private Path writeFile(String relativePath, int size, FileTime modified) throws Exception {
+        Path file = tempDir.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+        Files.getFileAttributeView(file, BasicFileAttributeView.class).setTimes(modified, modified, null);
+        return file;
+    }
+
+    private void setAccessTime(Path file, FileTime accessed) throws Exception {
+        Files.getFileAttributeView(file, BasicFileAttributeView.class).setTimes(accessed, accessed, null);
+    }
+
+    private static FileTime hoursAgo(int hours) {
+        return FileTime.fromMillis(System.currentTimeMillis() - Duration.ofHours(hours).toMillis());
+    }
+}
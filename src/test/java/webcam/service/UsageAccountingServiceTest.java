@@ -0,0 +1,112 @@
+package webcam.service;
+
+import org.junit.jupiter.api.Test;
+import webcam.dto.ChatCompletionResponse;
+import webcam.dto.ModelUsage;
+import webcam.service.impl.UsageAccountingServiceImpl;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UsageAccountingService单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class UsageAccountingServiceTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecord_AggregatesPerModelAndOperation() throws Exception {
+        UsageAccountingServiceImpl accounting = new UsageAccountingServiceImpl();
+        byte[] image = jpeg(400, 250);
+
+        ModelUsage usage = accounting.record("qwen3-vl-plus", "face",
+                new ChatCompletionResponse.Usage(1000, 200, 1200), List.of(image), 4000);
+        accounting.record("qwen3-vl-plus", "face",
+                new ChatCompletionResponse.Usage(1000, 300, 1300), List.of(image), 6000);
+        accounting.record("qwen3-vl-plus", "face-batch",
+                new ChatCompletionResponse.Usage(2000, 500, 2500), List.of(image, image), 7000);
+        accounting.recordFailure("qwen3-vl-plus", "face", 30000);
+
+        assertEquals(new ModelUsage(1, 1000, 200, 100_000, 4000), usage);
+
+        Map<String, Object> metrics = accounting.getMetrics();
+        assertEquals(3L, metrics.get("calls"));
+        assertEquals(1L, metrics.get("failures"));
+        assertEquals(4000L, metrics.get("promptTokens"));
+        assertEquals(1000L, metrics.get("completionTokens"));
+
+        Map<String, Object> operations = (Map<String, Object>) ((Map<String, Object>) metrics.get("models"))
+                .get("qwen3-vl-plus");
+        Map<String, Object> face = (Map<String, Object>) operations.get("face");
+        assertEquals(2L, face.get("calls"));
+        assertEquals(1L, face.get("failures"));
+        assertEquals(0.2, face.get("imageMegapixels"));
+        assertEquals(10000.0, face.get("avgPromptTokensPerMegapixel"));
+        // (4000 + 6000) ms / (200 + 300) tokens
+        assertEquals(20.0, face.get("avgMillisPerCompletionToken"));
+        assertEquals(6000L, ((Map<String, Object>) face.get("wallMillis")).get("max"));
+        assertEquals(2L, ((Map<String, Object>) operations.get("face-batch")).get("images"));
+    }
+
+    @Test
+    void testRecord_MissingUsageStillCountsPixelsAndTime() {
+        UsageAccountingServiceImpl accounting = new UsageAccountingServiceImpl();
+
+        ModelUsage usage = accounting.record("qwen3-vl-plus", "face-stream", null, List.of(new byte[10]), 1500);
+
+        assertEquals(new ModelUsage(1, 0, 0, 0, 1500), usage);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecordAbandoned_CountsPixelsAndTimeOutsideTokenRatios() throws Exception {
+        UsageAccountingServiceImpl accounting = new UsageAccountingServiceImpl();
+        byte[] image = jpeg(400, 250);
+
+        accounting.record("qwen3-vl-plus", "face",
+                new ChatCompletionResponse.Usage(1000, 200, 1200), List.of(image), 900);
+        accounting.recordAbandoned("qwen3-vl-plus", "face", List.of(image, image), 1200);
+
+        Map<String, Object> metrics = accounting.getMetrics();
+        assertEquals(1L, metrics.get("calls"));
+        assertEquals(0L, metrics.get("failures"));
+        assertEquals(1L, metrics.get("abandoned"));
+
+        Map<String, Object> face = (Map<String, Object>) ((Map<String, Object>) ((Map<String, Object>)
+                metrics.get("models")).get("qwen3-vl-plus")).get("face");
+        assertEquals(0.2, face.get("abandonedImageMegapixels"));
+        assertEquals(1200.0, face.get("avgAbandonedMillis"));
+        // 被中止的请求没有token数，不影响每百万像素的token数
+        assertEquals(0.1, face.get("imageMegapixels"));
+        assertEquals(10000.0, face.get("avgPromptTokensPerMegapixel"));
+    }
+
+    @Test
+    void testRequestUsageScope_SumsCallsAndSharesBatches() {
+        RequestUsageScope.add(new ModelUsage(1, 1, 1, 1, 1));
+        RequestUsageScope.begin();
+        assertNull(RequestUsageScope.end());
+
+        RequestUsageScope.begin();
+        RequestUsageScope.add(new ModelUsage(1, 900, 30, 786_432, 800));
+        RequestUsageScope.add(new ModelUsage(1, 2000, 400, 1_572_864, 5000).share(2));
+        ModelUsage total = RequestUsageScope.end();
+
+        assertEquals(new ModelUsage(2, 1900, 230, 1_572_864, 5800), total);
+        assertNull(RequestUsageScope.end());
+    }
+
+    private static byte[] jpeg(int width, int height) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpeg", output);
+        return output.toByteArray();
+    }
+}
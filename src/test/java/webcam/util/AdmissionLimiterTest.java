@@ -0,0 +1,72 @@
+package webcam.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AdmissionLimiter单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class AdmissionLimiterTest {
+
+    @Test
+    void testTryAcquire_RejectsWhenQueueFull() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter(1, 0);
+
+        assertTrue(limiter.tryAcquire(Duration.ofSeconds(1)));
+        assertFalse(limiter.tryAcquire(Duration.ofSeconds(1)));
+        assertEquals(1, limiter.getRejectedQueueFull());
+
+        limiter.release();
+        assertTrue(limiter.tryAcquire(Duration.ZERO));
+        assertEquals(2, limiter.getAdmitted());
+    }
+
+    @Test
+    void testTryAcquire_QueuedCallerTimesOut() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter(1, 1);
+        assertTrue(limiter.tryAcquire(Duration.ZERO));
+
+        assertFalse(limiter.tryAcquire(Duration.ofMillis(50)));
+
+        assertEquals(1, limiter.getRejectedTimeout());
+        assertEquals(1, limiter.getMaxObservedQueue());
+        assertEquals(0, limiter.getQueueDepth());
+    }
+
+    @Test
+    void testTryAcquire_QueuedCallerAdmittedAfterRelease() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter(1, 1);
+        assertTrue(limiter.tryAcquire(Duration.ZERO));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            Future<Boolean> queued = executor.submit(() -> {
+                started.countDown();
+                return limiter.tryAcquire(Duration.ofSeconds(5));
+            });
+            started.await();
+            while (limiter.getQueueDepth() == 0 && !queued.isDone()) {
+                Thread.sleep(5);
+            }
+            limiter.release();
+
+            assertTrue(queued.get(5, TimeUnit.SECONDS));
+            assertEquals(1, limiter.getActive());
+            assertEquals(1, limiter.getQueued());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package webcam.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Base64ImageDecoder单元测试
+ * 
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class Base64ImageDecoderTest {
+
+    @Test
+    void testDecode_MatchesJdkDecoderForAllPaddingLengths() {
+        Random random = new Random(42);
+        for (int length = 40; length < 44; length++) {
+            byte[] original = new byte[length];
+            random.nextBytes(original);
+            String encoded = Base64.getEncoder().encodeToString(original);
+
+            assertArrayEquals(original, Base64ImageDecoder.decode(encoded));
+            assertArrayEquals(original, Base64ImageDecoder.decode(encoded.replace("=", "")));
+        }
+    }
+
+    @Test
+    void testDecode_SkipsDataUriPrefixAndWhitespace() {
+        byte[] original = new byte[300];
+        new Random(7).nextBytes(original);
+        String encoded = "data:image/jpeg;base64," + Base64.getMimeEncoder().encodeToString(original) + "\n";
+
+        assertArrayEquals(original, Base64ImageDecoder.decode(encoded));
+    }
+
+    @Test
+    void testDecode_RejectsIllegalCharacters() {
+        String encoded = Base64.getEncoder().encodeToString(new byte[100]);
+        String corrupted = encoded.substring(0, 20) + "!" + encoded.substring(21);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Base64ImageDecoder.decode(corrupted));
+        assertEquals("图像数据包含非法字符", e.getMessage());
+    }
+
+    @Test
+    void testDecode_RejectsDataAfterPadding() {
+        String encoded = Base64.getEncoder().encodeToString(new byte[100]);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> Base64ImageDecoder.decode("QQ==" + encoded));
+    }
+
+    @Test
+    void testWrap_MatchesDecodeForAllPaddingLengthsAndWhitespace() throws Exception {
+        Random random = new Random(11);
+        for (int length = 10000; length < 10004; length++) {
+            byte[] original = new byte[length];
+            random.nextBytes(original);
+            String encoded = Base64.getMimeEncoder().encodeToString(original) + "\r\n";
+
+            assertArrayEquals(original, decodeStream(encoded));
+            assertArrayEquals(original, decodeStream(encoded.replace("=", "")));
+        }
+    }
+
+    @Test
+    void testWrap_RejectsIllegalCharactersAndBadTail() {
+        String encoded = Base64.getEncoder().encodeToString(new byte[20000]);
+        String corrupted = encoded.substring(0, 15000) + "!" + encoded.substring(15001);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> decodeStream(corrupted));
+        assertEquals("图像数据包含非法字符", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> decodeStream("QQ==" + encoded));
+        assertThrows(IllegalArgumentException.class, () -> decodeStream(encoded + "Q"));
+    }
+
+    private static byte[] decodeStream(String encoded) throws Exception {
+        try (InputStream in = Base64ImageDecoder.wrap(
+                new ByteArrayInputStream(encoded.getBytes(StandardCharsets.US_ASCII)))) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void testValidate_TooSmall() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Base64ImageDecoder.validate("data:image/jpeg;base64,abc"));
+        assertEquals("图像数据过小，可能不是有效的图像", e.getMessage());
+    }
+}
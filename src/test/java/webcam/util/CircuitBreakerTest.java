@@ -0,0 +1,96 @@
+package webcam.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CircuitBreaker单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void testOpensAfterConsecutiveFailuresAndRejectsUntilOpenDurationElapses() {
+        CircuitBreaker breaker = new CircuitBreaker(3, 10_000, 1, now::get);
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        // 成功一次后连续失败计数清零
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1, breaker.getOpened());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.isCallPermitted());
+        assertEquals(1, breaker.getRejected());
+        assertEquals(10_000, breaker.remainingOpenMillis());
+
+        now.addAndGet(4_000);
+        assertEquals(6_000, breaker.remainingOpenMillis());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void testHalfOpenAdmitsLimitedProbesAndClosesOnSuccess() {
+        CircuitBreaker breaker = openBreaker();
+        now.addAndGet(10_000);
+
+        assertTrue(breaker.isCallPermitted());
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // 探测调用进行中，其他调用被拒绝
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void testHalfOpenProbeFailureReopens() {
+        CircuitBreaker breaker = openBreaker();
+        now.addAndGet(10_000);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getOpened());
+        assertEquals(10_000, breaker.remainingOpenMillis());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void testIgnoredProbeReturnsSlotWithoutClosing() {
+        CircuitBreaker breaker = openBreaker();
+        now.addAndGet(10_000);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onIgnored();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    private CircuitBreaker openBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 10_000, 1, now::get);
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
@@ -0,0 +1,90 @@
+package webcam.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ConvolveOp;
+import java.awt.image.Kernel;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FramePreScreen单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class FramePreScreenTest {
+
+    @Test
+    void testMeasure_FindsFaceSizedSkinRegion() throws Exception {
+        FramePreScreen.Measurements face = FramePreScreen.measure(jpeg(frame(120, true)), 128);
+        FramePreScreen.Measurements empty = FramePreScreen.measure(jpeg(frame(120, false)), 128);
+
+        assertTrue(face.skinArea() > 0.05, "skinArea=" + face.skinArea());
+        assertTrue(face.skinAspect() > 0.5 && face.skinAspect() < 1.0, "skinAspect=" + face.skinAspect());
+        assertTrue(empty.skinArea() < 0.005, "skinArea=" + empty.skinArea());
+        assertEquals(face.brightness(), empty.brightness(), 20);
+    }
+
+    @Test
+    void testMeasure_BrightnessAndSharpness() throws Exception {
+        FramePreScreen.Measurements sharp = FramePreScreen.measure(frame(120, true), 128);
+        FramePreScreen.Measurements blurred = FramePreScreen.measure(blur(frame(120, true)), 128);
+        FramePreScreen.Measurements dark = FramePreScreen.measure(frame(10, true), 128);
+
+        assertTrue(blurred.sharpness() * 10 < sharp.sharpness(),
+                "sharp=" + sharp.sharpness() + ", blurred=" + blurred.sharpness());
+        assertTrue(dark.brightness() < sharp.brightness() - 50);
+    }
+
+    @Test
+    void testMeasure_RejectsUndecodableData() {
+        assertThrows(IllegalArgumentException.class, () -> FramePreScreen.measure(new byte[] {1, 2, 3}, 128));
+    }
+
+    /**
+     * 带噪声背景的画面，可选在中央画一张简化的人脸
+     */
+    private static BufferedImage frame(int background, boolean withFace) {
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int v = Math.max(0, Math.min(255, background + (int) (random.nextGaussian() * 25)));
+                image.setRGB(x, y, new Color(v, v, v).getRGB());
+            }
+        }
+        if (withFace) {
+            Graphics2D graphics = image.createGraphics();
+            graphics.setColor(new Color(224, 172, 140));
+            graphics.fillOval(240, 120, 160, 210);
+            graphics.setColor(new Color(40, 30, 30));
+            graphics.fillOval(280, 190, 20, 12);
+            graphics.fillOval(340, 190, 20, 12);
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    private static BufferedImage blur(BufferedImage image) {
+        float[] weights = new float[41 * 41];
+        Arrays.fill(weights, 1f / weights.length);
+        BufferedImage blurred = new ConvolveOp(new Kernel(41, 41, weights), ConvolveOp.EDGE_NO_OP, null)
+                .filter(image, null);
+        // 去掉未被卷积的边缘
+        return blurred.getSubimage(20, 20, image.getWidth() - 40, image.getHeight() - 40);
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", output);
+        return output.toByteArray();
+    }
+}
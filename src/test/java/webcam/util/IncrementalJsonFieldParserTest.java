@@ -0,0 +1,116 @@
+package webcam.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IncrementalJsonFieldParser单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class IncrementalJsonFieldParserTest {
+
+    @Test
+    void testFeed_EmitsEachFieldAsSoonAsItCompletes() {
+        List<String> order = new ArrayList<>();
+        Map<String, Object> fields = new LinkedHashMap<>();
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser((name, value) -> {
+            order.add(name);
+            fields.put(name, value);
+        });
+
+        parser.feed("```json\n{\n  \"gender\": \"女");
+        assertTrue(order.isEmpty());
+        parser.feed("性\",\n  \"age\": 2");
+        assertEquals(List.of("gender"), order);
+        parser.feed("8,\n  \"smile\"");
+        assertEquals(List.of("gender", "age"), order);
+        parser.feed(": \"是\", \"healthAnalysis\": \"气色");
+        assertEquals(List.of("gender", "age", "smile"), order);
+        parser.feed("不错\"\n}\n```");
+
+        assertTrue(parser.isComplete());
+        assertEquals(4, parser.getFieldCount());
+        assertEquals("女性", fields.get("gender"));
+        assertEquals(28L, fields.get("age"));
+        assertEquals("是", fields.get("smile"));
+        assertEquals("气色不错", fields.get("healthAnalysis"));
+    }
+
+    @Test
+    void testFeed_HandlesEscapesSplitAcrossChunksAndNestedValues() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(fields::put);
+
+        String json = "{\"praise\": \"say \\\"hi\\\"\\n\\u4f60\\u597d\", \"tags\": [\"a\", {\"b\": \"}\"}],"
+                + " \"score\": 1.5, \"glasses\": false, \"note\": null}";
+        // 逐字符喂入，模拟最细粒度的token切分
+        for (int i = 0; i < json.length(); i++) {
+            parser.feed(json.substring(i, i + 1));
+        }
+
+        assertTrue(parser.isComplete());
+        assertEquals("say \"hi\"\n你好", fields.get("praise"));
+        assertEquals("[\"a\", {\"b\": \"}\"}]", fields.get("tags"));
+        assertEquals(1.5, fields.get("score"));
+        assertEquals(Boolean.FALSE, fields.get("glasses"));
+        assertTrue(fields.containsKey("note"));
+        assertNull(fields.get("note"));
+    }
+
+    @Test
+    void testFeed_AcceptsLenientSyntax() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(fields::put);
+
+        parser.feed("结果如下{见下文}：\n{\n  性别：女性，\n  age: 约30岁\n  'smile': yes,\n"
+                + "  “praise”：“真好”，\n  \"score\": 3,\n}\n");
+
+        assertTrue(parser.isComplete());
+        assertEquals("女性", fields.get("性别"));
+        assertEquals("约30岁", fields.get("age"));
+        assertEquals("yes", fields.get("smile"));
+        assertEquals("真好", fields.get("praise"));
+        assertEquals(3L, fields.get("score"));
+        assertEquals(5, parser.getFieldCount());
+    }
+
+    @Test
+    void testFinish_EmitsTruncatedValue() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(fields::put);
+
+        parser.feed("{\"age\": 28, \"healthAnalysis\": \"气色不错，建议");
+        assertEquals(1, parser.getFieldCount());
+        parser.finish();
+
+        assertFalse(parser.isComplete());
+        assertEquals("气色不错，建议", fields.get("healthAnalysis"));
+        // 结束后不再接受输入
+        parser.feed("\", \"praise\": \"x\"}");
+        assertEquals(2, parser.getFieldCount());
+    }
+
+    @Test
+    void testIsEmptyObject() {
+        IncrementalJsonFieldParser empty = new IncrementalJsonFieldParser((key, value) -> { });
+        empty.feed("```json\n{ \n}\n```");
+        assertTrue(empty.isEmptyObject());
+
+        // 说明文字中的大括号和有字段的对象都不是空对象
+        IncrementalJsonFieldParser note = new IncrementalJsonFieldParser((key, value) -> { });
+        note.feed("{注意} 无法识别");
+        assertFalse(note.isEmptyObject());
+
+        IncrementalJsonFieldParser fields = new IncrementalJsonFieldParser((key, value) -> { });
+        fields.feed("{}{\"age\": 28}");
+        assertFalse(fields.isEmptyObject());
+    }
+}
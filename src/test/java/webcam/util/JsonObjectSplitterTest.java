@@ -0,0 +1,34 @@
+package webcam.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JsonObjectSplitter单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class JsonObjectSplitterTest {
+
+    @Test
+    void testSplit_FencedArrayWithBracesInStrings() {
+        String text = "```json\n[\n  {\"gender\": \"男性\", \"praise\": \"笑容{灿烂}\\\"动人\\\"\"},\n"
+                + "  {}\n  {\"gender\": \"女性\", \"age\": 30}\n]\n```";
+
+        List<String> objects = JsonObjectSplitter.split(text);
+
+        assertEquals(List.of("{\"gender\": \"男性\", \"praise\": \"笑容{灿烂}\\\"动人\\\"\"}", "{}",
+                "{\"gender\": \"女性\", \"age\": 30}"), objects);
+    }
+
+    @Test
+    void testSplit_DropsTruncatedTrailingObject() {
+        assertEquals(List.of("{\"age\": 1}"), JsonObjectSplitter.split("[{\"age\": 1}, {\"age\": 2, \"praise\": \"你"));
+        assertTrue(JsonObjectSplitter.split("未检测到人脸").isEmpty());
+        assertTrue(JsonObjectSplitter.split(null).isEmpty());
+    }
+}
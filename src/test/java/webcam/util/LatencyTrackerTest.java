@@ -0,0 +1,42 @@
+package webcam.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LatencyTracker单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class LatencyTrackerTest {
+
+    @Test
+    void testPercentile_NearestRankOverWindow() {
+        LatencyTracker tracker = new LatencyTracker(100);
+        assertEquals(-1, tracker.percentile(50));
+
+        for (int i = 100; i >= 1; i--) {
+            tracker.record(i);
+        }
+
+        assertEquals(100, tracker.size());
+        assertEquals(50, tracker.percentile(50));
+        assertEquals(95, tracker.percentile(95));
+        assertEquals(100, tracker.percentile(100));
+        assertEquals(1, tracker.percentile(0));
+    }
+
+    @Test
+    void testRecord_OverwritesOldestSamples() {
+        LatencyTracker tracker = new LatencyTracker(3);
+        tracker.record(1000);
+        tracker.record(10);
+        tracker.record(20);
+        tracker.record(30);
+
+        assertEquals(3, tracker.size());
+        assertEquals(30, tracker.percentile(100));
+    }
+}
@@ -0,0 +1,67 @@
+package webcam.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LongHistogram单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class LongHistogramTest {
+
+    @Test
+    void testBuckets_ContiguousAndBoundedRelativeError() {
+        for (long value = 0; value < 100_000; value++) {
+            int index = LongHistogram.bucketIndex(value);
+            assertTrue(value <= LongHistogram.bucketUpperBound(index), "value " + value);
+            assertTrue(index == 0 || value > LongHistogram.bucketUpperBound(index - 1), "value " + value);
+            assertTrue(LongHistogram.bucketUpperBound(index) <= value + value / 4 + 1, "value " + value);
+        }
+        assertEquals(Long.MAX_VALUE, LongHistogram.bucketUpperBound(LongHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void testPercentile_WithinBucketResolution() {
+        LongHistogram histogram = new LongHistogram();
+        assertEquals(0, histogram.percentile(50));
+
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 1e-9);
+        assertEquals(1000, histogram.getMax());
+        long p50 = histogram.percentile(50);
+        assertTrue(p50 >= 500 && p50 <= 625, "p50=" + p50);
+        long p95 = histogram.percentile(95);
+        assertTrue(p95 >= 950 && p95 <= 1000, "p95=" + p95);
+        assertEquals(1000, histogram.percentile(100));
+    }
+
+    @Test
+    void testRecord_ConcurrentUpdatesAreNotLost() throws Exception {
+        LongHistogram histogram = new LongHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i % 100);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(80_000, histogram.getCount());
+        assertEquals(8 * 100 * 4950L, histogram.getSum());
+        assertEquals(99, histogram.getMax());
+    }
+}
@@ -0,0 +1,122 @@
+package webcam.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PeakEwmaBalancer单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class PeakEwmaBalancerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    void testSelect_MovesTrafficOffTargetThatSlowsDown() {
+        PeakEwmaBalancer<String> balancer = new PeakEwmaBalancer<>(0, 10 * SECOND, 30 * SECOND, now::get, () -> 1.0);
+        balancer.add("a", "a", 1.0);
+        balancer.add("b", "b", 1.0);
+
+        // 两个目标各有一个样本：a 1秒，b 2秒
+        call(balancer.select(), SECOND);
+        call(balancer.select(), 2 * SECOND);
+        assertEquals("a", pick(balancer));
+
+        // a 突然变慢，峰值样本立即生效
+        call(balancer.select(), 8 * SECOND);
+        assertEquals("b", pick(balancer));
+
+        // b 的样本持续刷新估计，a 的峰值随时间衰减，约两个时间常数后重新获得流量
+        int recovered = -1;
+        for (int i = 0; i < 40 && recovered < 0; i++) {
+            PeakEwmaBalancer.Selection<String> selection = balancer.select();
+            if ("a".equals(selection.target())) {
+                recovered = i;
+            }
+            call(selection, SECOND);
+        }
+        assertTrue(recovered >= 15 && recovered <= 30, "recovered after " + recovered);
+    }
+
+    @Test
+    void testSelect_FailuresCountAsPenaltyAndWeightsScaleScore() {
+        PeakEwmaBalancer<String> balancer = new PeakEwmaBalancer<>(0, 10 * SECOND, 30 * SECOND, now::get, () -> 1.0);
+        balancer.add("a", "a", 1.0);
+        balancer.add("b", "b", 3.0);
+
+        // 未采样的目标优先获得第一个请求
+        call(balancer.select(), SECOND);
+        PeakEwmaBalancer.Selection<String> second = balancer.select();
+        assertEquals("b", second.target());
+        call(second, 2 * SECOND);
+        // b 慢一倍，但权重为3，仍然优先
+        assertEquals("b", pick(balancer));
+
+        PeakEwmaBalancer.Selection<String> failed = balancer.select();
+        now.addAndGet(SECOND);
+        failed.failed();
+        assertEquals("a", pick(balancer));
+        assertEquals(1L, balancer.getMetrics().get(1).get("failures"));
+
+        // 未发出的请求不影响估计
+        PeakEwmaBalancer.Selection<String> cancelled = balancer.select();
+        cancelled.cancelled();
+        assertEquals(0, balancer.getMetrics().get(0).get("pending"));
+    }
+
+    @Test
+    void testSelect_DecayedSlowTargetDoesNotAbsorbConcurrentRequests() {
+        PeakEwmaBalancer<String> balancer = new PeakEwmaBalancer<>(0, 10 * SECOND, 30 * SECOND, now::get, () -> 1.0);
+        balancer.add("a", "a", 1.0);
+        balancer.add("b", "b", 1.0);
+
+        // a 最近一次耗时8秒，之后空闲，估计衰减到远低于b的1秒
+        call(balancer.select(), 8 * SECOND);
+        call(balancer.select(), SECOND);
+        now.addAndGet(60 * SECOND);
+        call(balancer.select(), SECOND);
+
+        // 同时到达的请求：a只接收第一个，在其返回前进行中的请求按最近样本的一半计分，其余转向b
+        PeakEwmaBalancer.Selection<String> first = balancer.select();
+        PeakEwmaBalancer.Selection<String> second = balancer.select();
+        PeakEwmaBalancer.Selection<String> third = balancer.select();
+        assertEquals("a", first.target());
+        assertEquals("b", second.target());
+        assertEquals("b", third.target());
+    }
+
+    @Test
+    void testSelect_ExplorationSendsTrafficToOtherTargets() {
+        double[] draws = {0.01, 0.9, 0.5};
+        int[] next = {0};
+        PeakEwmaBalancer<String> balancer = new PeakEwmaBalancer<>(0.05, 10 * SECOND, 30 * SECOND, now::get,
+                () -> draws[next[0]++ % draws.length]);
+        balancer.add("a", "a", 1.0);
+        balancer.add("b", "b", 1.0);
+        balancer.add("c", "c", 1.0);
+
+        // 第一次抽样0.01 < 0.05，触发探索；第二次抽样0.9在b、c的权重区间中落到c
+        PeakEwmaBalancer.Selection<String> explored = balancer.select();
+        assertEquals("c", explored.target());
+        explored.cancelled();
+        assertEquals(1L, balancer.getMetrics().get(2).get("explored"));
+    }
+
+    private String pick(PeakEwmaBalancer<String> balancer) {
+        PeakEwmaBalancer.Selection<String> selection = balancer.select();
+        selection.cancelled();
+        return selection.target();
+    }
+
+    private void call(PeakEwmaBalancer.Selection<String> selection, long nanos) {
+        now.addAndGet(nanos);
+        selection.succeeded();
+    }
+}
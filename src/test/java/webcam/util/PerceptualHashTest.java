@@ -0,0 +1,56 @@
+package webcam.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PerceptualHash单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class PerceptualHashTest {
+
+    @Test
+    void testDHash_SimilarImagesAreClose() throws Exception {
+        byte[] original = jpeg(gradient(640, 480, false, 0));
+        byte[] retake = jpeg(gradient(640, 480, false, 8));
+        byte[] different = jpeg(gradient(640, 480, true, 0));
+
+        long originalHash = PerceptualHash.dHash(original);
+        assertTrue(PerceptualHash.distance(originalHash, PerceptualHash.dHash(retake)) <= 6);
+        assertTrue(PerceptualHash.distance(originalHash, PerceptualHash.dHash(different)) > 20);
+    }
+
+    @Test
+    void testDHash_RejectsUndecodableData() {
+        assertThrows(IllegalArgumentException.class, () -> PerceptualHash.dHash(new byte[] {1, 2, 3}));
+    }
+
+    private static BufferedImage gradient(int width, int height, boolean reversed, int brightnessShift) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        int dark = 20 + brightnessShift;
+        int light = 230;
+        Color start = new Color(reversed ? light : dark, reversed ? light : dark, reversed ? light : dark);
+        Color end = new Color(reversed ? dark : light, reversed ? dark : light, reversed ? dark : light);
+        graphics.setPaint(new GradientPaint(0, 0, start, width, height / 3f, end, true));
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        return image;
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", output);
+        return output.toByteArray();
+    }
+}
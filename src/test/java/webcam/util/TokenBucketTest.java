@@ -0,0 +1,46 @@
+package webcam.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TokenBucket单元测试
+ *
+ * @author Webcam Application
+ * @version 2.0.0
+ */
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testTryTake_AllowsBurstThenRefillsAtRate() {
+        TokenBucket bucket = new TokenBucket(2, 3, 0);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryTake(0));
+        }
+        assertFalse(bucket.tryTake(0));
+        assertEquals(SECOND / 2, bucket.nanosUntilAvailable(0));
+
+        assertTrue(bucket.tryTake(SECOND / 2));
+        // 空闲再久也只积累burst个
+        assertEquals(3.0, bucket.available(100 * SECOND), 1e-9);
+    }
+
+    @Test
+    void testReserve_QueuesCallersInArrivalOrderUpToDeadline() {
+        TokenBucket bucket = new TokenBucket(1, 1, 0);
+
+        assertEquals(0, bucket.reserve(0, 0));
+        assertEquals(SECOND, bucket.reserve(0, 5 * SECOND));
+        assertEquals(2 * SECOND, bucket.reserve(0, 5 * SECOND));
+        // 超过最长等待时间的调用方不预约，也不影响后来者
+        assertEquals(-1, bucket.reserve(0, SECOND));
+        assertEquals(3 * SECOND, bucket.reserve(0, 5 * SECOND));
+
+        // 预约的令牌按时间补回
+        assertEquals(0, bucket.reserve(4 * SECOND, 0));
+    }
+}